@@ -0,0 +1,2351 @@
+// $ANTLR 2.7.7 (2006-11-01): "parser.g" -> "DecafParser.java"$
+
+package edu.mit.compilers.grammar;
+
+import antlr.TokenBuffer;
+import antlr.TokenStreamException;
+import antlr.TokenStreamIOException;
+import antlr.ANTLRException;
+import antlr.LLkParser;
+import antlr.Token;
+import antlr.TokenStream;
+import antlr.RecognitionException;
+import antlr.NoViableAltException;
+import antlr.MismatchedTokenException;
+import antlr.SemanticException;
+import antlr.ParserSharedInputState;
+import antlr.collections.impl.BitSet;
+import antlr.collections.AST;
+import java.util.Hashtable;
+import antlr.ASTFactory;
+import antlr.ASTPair;
+import antlr.collections.impl.ASTArray;
+
+public class DecafParser extends antlr.LLkParser       implements DecafParserTokenTypes
+ {
+
+  // Do our own reporting of errors so the parser can return a non-zero status
+  // if any errors are detected.
+  /** Reports if any errors were reported during parse. */
+  private boolean error;
+
+  @Override
+  public void reportError (RecognitionException ex) {
+    // Print the error via some kind of error reporting mechanism.
+    error = true;
+  }
+  @Override
+  public void reportError (String s) {
+    // Print the error via some kind of error reporting mechanism.
+    error = true;
+  }
+  public boolean getError () {
+    return error;
+  }
+
+  // Selectively turns on debug mode.
+
+  /** Whether to display debug information. */
+  private boolean trace = false;
+
+  public void setTrace(boolean shouldTrace) {
+    trace = shouldTrace;
+  }
+  @Override
+  public void traceIn(String rname) throws TokenStreamException {
+    if (trace) {
+      super.traceIn(rname);
+    }
+  }
+  @Override
+  public void traceOut(String rname) throws TokenStreamException {
+    if (trace) {
+      super.traceOut(rname);
+    }
+  }
+
+protected DecafParser(TokenBuffer tokenBuf, int k) {
+  super(tokenBuf,k);
+  tokenNames = _tokenNames;
+  buildTokenTypeASTClassMap();
+  astFactory = new ASTFactory(getTokenTypeToASTClassMap());
+}
+
+public DecafParser(TokenBuffer tokenBuf) {
+  this(tokenBuf,3);
+}
+
+protected DecafParser(TokenStream lexer, int k) {
+  super(lexer,k);
+  tokenNames = _tokenNames;
+  buildTokenTypeASTClassMap();
+  astFactory = new ASTFactory(getTokenTypeToASTClassMap());
+}
+
+public DecafParser(TokenStream lexer) {
+  this(lexer,3);
+}
+
+public DecafParser(ParserSharedInputState state) {
+  super(state,3);
+  tokenNames = _tokenNames;
+  buildTokenTypeASTClassMap();
+  astFactory = new ASTFactory(getTokenTypeToASTClassMap());
+}
+
+	public final void program() throws RecognitionException, TokenStreamException {
+		
+		traceIn("program");
+		try { // debugging
+			returnAST = null;
+			ASTPair currentAST = new ASTPair();
+			AST program_AST = null;
+			
+			try {      // for error handling
+				{
+				callouts();
+				astFactory.addASTChild(currentAST, returnAST);
+				field_decls();
+				astFactory.addASTChild(currentAST, returnAST);
+				method_decls();
+				astFactory.addASTChild(currentAST, returnAST);
+				match(Token.EOF_TYPE);
+				}
+				program_AST = (AST)currentAST.root;
+				program_AST = (AST)astFactory.make( (new ASTArray(2)).add(astFactory.create(PROGRAM,"program")).add(program_AST));
+				currentAST.root = program_AST;
+				currentAST.child = program_AST!=null &&program_AST.getFirstChild()!=null ?
+					program_AST.getFirstChild() : program_AST;
+				currentAST.advanceChildToEnd();
+				program_AST = (AST)currentAST.root;
+			}
+			catch (RecognitionException ex) {
+				reportError(ex);
+				recover(ex,_tokenSet_0);
+			}
+			returnAST = program_AST;
+		} finally { // debugging
+			traceOut("program");
+		}
+	}
+	
+	protected final void callouts() throws RecognitionException, TokenStreamException {
+		
+		traceIn("callouts");
+		try { // debugging
+			returnAST = null;
+			ASTPair currentAST = new ASTPair();
+			AST callouts_AST = null;
+			
+			try {      // for error handling
+				{
+				_loop5:
+				do {
+					if ((LA(1)==CALLOUT)) {
+						match(CALLOUT);
+						AST tmp3_AST = null;
+						tmp3_AST = astFactory.create(LT(1));
+						astFactory.addASTChild(currentAST, tmp3_AST);
+						match(ID);
+						match(SEMICOLON);
+					}
+					else {
+						break _loop5;
+					}
+					
+				} while (true);
+				}
+				callouts_AST = (AST)currentAST.root;
+				callouts_AST = (AST)astFactory.make( (new ASTArray(2)).add(astFactory.create(CALLOUTS,"callouts")).add(callouts_AST));
+				currentAST.root = callouts_AST;
+				currentAST.child = callouts_AST!=null &&callouts_AST.getFirstChild()!=null ?
+					callouts_AST.getFirstChild() : callouts_AST;
+				currentAST.advanceChildToEnd();
+				callouts_AST = (AST)currentAST.root;
+			}
+			catch (RecognitionException ex) {
+				reportError(ex);
+				recover(ex,_tokenSet_1);
+			}
+			returnAST = callouts_AST;
+		} finally { // debugging
+			traceOut("callouts");
+		}
+	}
+	
+	protected final void field_decls() throws RecognitionException, TokenStreamException {
+		
+		traceIn("field_decls");
+		try { // debugging
+			returnAST = null;
+			ASTPair currentAST = new ASTPair();
+			AST field_decls_AST = null;
+			
+			try {      // for error handling
+				{
+				_loop8:
+				do {
+					if ((LA(1)==BOOLEAN||LA(1)==INT) && (LA(2)==ID) && (LA(3)==L_SQ_BRACKET||LA(3)==SEMICOLON||LA(3)==COMMA)) {
+						field_decl();
+						astFactory.addASTChild(currentAST, returnAST);
+					}
+					else {
+						break _loop8;
+					}
+					
+				} while (true);
+				}
+				field_decls_AST = (AST)currentAST.root;
+				field_decls_AST = (AST)astFactory.make( (new ASTArray(2)).add(astFactory.create(FIELD_DECLS,"field_decls")).add(field_decls_AST));
+				currentAST.root = field_decls_AST;
+				currentAST.child = field_decls_AST!=null &&field_decls_AST.getFirstChild()!=null ?
+					field_decls_AST.getFirstChild() : field_decls_AST;
+				currentAST.advanceChildToEnd();
+				field_decls_AST = (AST)currentAST.root;
+			}
+			catch (RecognitionException ex) {
+				reportError(ex);
+				recover(ex,_tokenSet_2);
+			}
+			returnAST = field_decls_AST;
+		} finally { // debugging
+			traceOut("field_decls");
+		}
+	}
+	
+	protected final void method_decls() throws RecognitionException, TokenStreamException {
+		
+		traceIn("method_decls");
+		try { // debugging
+			returnAST = null;
+			ASTPair currentAST = new ASTPair();
+			AST method_decls_AST = null;
+			
+			try {      // for error handling
+				{
+				_loop22:
+				do {
+					if ((LA(1)==BOOLEAN||LA(1)==INT||LA(1)==VOID)) {
+						method_decl();
+						astFactory.addASTChild(currentAST, returnAST);
+					}
+					else {
+						break _loop22;
+					}
+					
+				} while (true);
+				}
+				method_decls_AST = (AST)currentAST.root;
+				method_decls_AST = (AST)astFactory.make( (new ASTArray(2)).add(astFactory.create(METHOD_DECLS,"method_decls")).add(method_decls_AST));
+				currentAST.root = method_decls_AST;
+				currentAST.child = method_decls_AST!=null &&method_decls_AST.getFirstChild()!=null ?
+					method_decls_AST.getFirstChild() : method_decls_AST;
+				currentAST.advanceChildToEnd();
+				method_decls_AST = (AST)currentAST.root;
+			}
+			catch (RecognitionException ex) {
+				reportError(ex);
+				recover(ex,_tokenSet_0);
+			}
+			returnAST = method_decls_AST;
+		} finally { // debugging
+			traceOut("method_decls");
+		}
+	}
+	
+	protected final void field_decl() throws RecognitionException, TokenStreamException {
+		
+		traceIn("field_decl");
+		try { // debugging
+			returnAST = null;
+			ASTPair currentAST = new ASTPair();
+			AST field_decl_AST = null;
+			
+			try {      // for error handling
+				{
+				{
+				switch ( LA(1)) {
+				case INT:
+				{
+					AST tmp5_AST = null;
+					tmp5_AST = astFactory.create(LT(1));
+					astFactory.makeASTRoot(currentAST, tmp5_AST);
+					match(INT);
+					break;
+				}
+				case BOOLEAN:
+				{
+					AST tmp6_AST = null;
+					tmp6_AST = astFactory.create(LT(1));
+					astFactory.makeASTRoot(currentAST, tmp6_AST);
+					match(BOOLEAN);
+					break;
+				}
+				default:
+				{
+					throw new NoViableAltException(LT(1), getFilename());
+				}
+				}
+				}
+				single_field_decl();
+				astFactory.addASTChild(currentAST, returnAST);
+				{
+				_loop13:
+				do {
+					if ((LA(1)==COMMA)) {
+						match(COMMA);
+						single_field_decl();
+						astFactory.addASTChild(currentAST, returnAST);
+					}
+					else {
+						break _loop13;
+					}
+					
+				} while (true);
+				}
+				match(SEMICOLON);
+				}
+				field_decl_AST = (AST)currentAST.root;
+			}
+			catch (RecognitionException ex) {
+				reportError(ex);
+				recover(ex,_tokenSet_2);
+			}
+			returnAST = field_decl_AST;
+		} finally { // debugging
+			traceOut("field_decl");
+		}
+	}
+	
+	protected final void single_field_decl() throws RecognitionException, TokenStreamException {
+		
+		traceIn("single_field_decl");
+		try { // debugging
+			returnAST = null;
+			ASTPair currentAST = new ASTPair();
+			AST single_field_decl_AST = null;
+			
+			try {      // for error handling
+				{
+				if ((LA(1)==ID) && (LA(2)==SEMICOLON||LA(2)==COMMA)) {
+					scalar_field_decl();
+					astFactory.addASTChild(currentAST, returnAST);
+				}
+				else if ((LA(1)==ID) && (LA(2)==L_SQ_BRACKET)) {
+					array_field_decl();
+					astFactory.addASTChild(currentAST, returnAST);
+				}
+				else {
+					throw new NoViableAltException(LT(1), getFilename());
+				}
+				
+				}
+				single_field_decl_AST = (AST)currentAST.root;
+			}
+			catch (RecognitionException ex) {
+				reportError(ex);
+				recover(ex,_tokenSet_3);
+			}
+			returnAST = single_field_decl_AST;
+		} finally { // debugging
+			traceOut("single_field_decl");
+		}
+	}
+	
+	protected final void scalar_field_decl() throws RecognitionException, TokenStreamException {
+		
+		traceIn("scalar_field_decl");
+		try { // debugging
+			returnAST = null;
+			ASTPair currentAST = new ASTPair();
+			AST scalar_field_decl_AST = null;
+			
+			try {      // for error handling
+				AST tmp9_AST = null;
+				tmp9_AST = astFactory.create(LT(1));
+				astFactory.addASTChild(currentAST, tmp9_AST);
+				match(ID);
+				scalar_field_decl_AST = (AST)currentAST.root;
+			}
+			catch (RecognitionException ex) {
+				reportError(ex);
+				recover(ex,_tokenSet_3);
+			}
+			returnAST = scalar_field_decl_AST;
+		} finally { // debugging
+			traceOut("scalar_field_decl");
+		}
+	}
+	
+	protected final void array_field_decl() throws RecognitionException, TokenStreamException {
+		
+		traceIn("array_field_decl");
+		try { // debugging
+			returnAST = null;
+			ASTPair currentAST = new ASTPair();
+			AST array_field_decl_AST = null;
+			
+			try {      // for error handling
+				{
+				AST tmp10_AST = null;
+				tmp10_AST = astFactory.create(LT(1));
+				astFactory.addASTChild(currentAST, tmp10_AST);
+				match(ID);
+				match(L_SQ_BRACKET);
+				AST tmp12_AST = null;
+				tmp12_AST = astFactory.create(LT(1));
+				astFactory.addASTChild(currentAST, tmp12_AST);
+				match(INT_LITERAL);
+				match(R_SQ_BRACKET);
+				}
+				array_field_decl_AST = (AST)currentAST.root;
+				array_field_decl_AST = (AST)astFactory.make( (new ASTArray(2)).add(astFactory.create(ARRAY_FIELD_DECL,"array_field_decl")).add(array_field_decl_AST));
+				currentAST.root = array_field_decl_AST;
+				currentAST.child = array_field_decl_AST!=null &&array_field_decl_AST.getFirstChild()!=null ?
+					array_field_decl_AST.getFirstChild() : array_field_decl_AST;
+				currentAST.advanceChildToEnd();
+				array_field_decl_AST = (AST)currentAST.root;
+			}
+			catch (RecognitionException ex) {
+				reportError(ex);
+				recover(ex,_tokenSet_3);
+			}
+			returnAST = array_field_decl_AST;
+		} finally { // debugging
+			traceOut("array_field_decl");
+		}
+	}
+	
+	protected final void type() throws RecognitionException, TokenStreamException {
+		
+		traceIn("type");
+		try { // debugging
+			returnAST = null;
+			ASTPair currentAST = new ASTPair();
+			AST type_AST = null;
+			
+			try {      // for error handling
+				switch ( LA(1)) {
+				case INT:
+				{
+					AST tmp14_AST = null;
+					tmp14_AST = astFactory.create(LT(1));
+					astFactory.addASTChild(currentAST, tmp14_AST);
+					match(INT);
+					type_AST = (AST)currentAST.root;
+					break;
+				}
+				case BOOLEAN:
+				{
+					AST tmp15_AST = null;
+					tmp15_AST = astFactory.create(LT(1));
+					astFactory.addASTChild(currentAST, tmp15_AST);
+					match(BOOLEAN);
+					type_AST = (AST)currentAST.root;
+					break;
+				}
+				default:
+				{
+					throw new NoViableAltException(LT(1), getFilename());
+				}
+				}
+			}
+			catch (RecognitionException ex) {
+				reportError(ex);
+				recover(ex,_tokenSet_4);
+			}
+			returnAST = type_AST;
+		} finally { // debugging
+			traceOut("type");
+		}
+	}
+	
+	protected final void method_decl() throws RecognitionException, TokenStreamException {
+		
+		traceIn("method_decl");
+		try { // debugging
+			returnAST = null;
+			ASTPair currentAST = new ASTPair();
+			AST method_decl_AST = null;
+			
+			try {      // for error handling
+				{
+				{
+				switch ( LA(1)) {
+				case BOOLEAN:
+				case INT:
+				{
+					type();
+					astFactory.addASTChild(currentAST, returnAST);
+					break;
+				}
+				case VOID:
+				{
+					AST tmp16_AST = null;
+					tmp16_AST = astFactory.create(LT(1));
+					astFactory.addASTChild(currentAST, tmp16_AST);
+					match(VOID);
+					break;
+				}
+				default:
+				{
+					throw new NoViableAltException(LT(1), getFilename());
+				}
+				}
+				}
+				AST tmp17_AST = null;
+				tmp17_AST = astFactory.create(LT(1));
+				astFactory.makeASTRoot(currentAST, tmp17_AST);
+				match(ID);
+				match(L_PAREN);
+				signature_args();
+				astFactory.addASTChild(currentAST, returnAST);
+				match(R_PAREN);
+				block();
+				astFactory.addASTChild(currentAST, returnAST);
+				}
+				method_decl_AST = (AST)currentAST.root;
+			}
+			catch (RecognitionException ex) {
+				reportError(ex);
+				recover(ex,_tokenSet_1);
+			}
+			returnAST = method_decl_AST;
+		} finally { // debugging
+			traceOut("method_decl");
+		}
+	}
+	
+	protected final void signature_args() throws RecognitionException, TokenStreamException {
+		
+		traceIn("signature_args");
+		try { // debugging
+			returnAST = null;
+			ASTPair currentAST = new ASTPair();
+			AST signature_args_AST = null;
+			
+			try {      // for error handling
+				{
+				switch ( LA(1)) {
+				case BOOLEAN:
+				case INT:
+				{
+					signature_arg();
+					astFactory.addASTChild(currentAST, returnAST);
+					{
+					_loop29:
+					do {
+						if ((LA(1)==COMMA)) {
+							match(COMMA);
+							signature_arg();
+							astFactory.addASTChild(currentAST, returnAST);
+						}
+						else {
+							break _loop29;
+						}
+						
+					} while (true);
+					}
+					break;
+				}
+				case R_PAREN:
+				{
+					break;
+				}
+				default:
+				{
+					throw new NoViableAltException(LT(1), getFilename());
+				}
+				}
+				}
+				signature_args_AST = (AST)currentAST.root;
+				signature_args_AST = (AST)astFactory.make( (new ASTArray(2)).add(astFactory.create(SIGNATURE_ARGS,"signature_args")).add(signature_args_AST));
+				currentAST.root = signature_args_AST;
+				currentAST.child = signature_args_AST!=null &&signature_args_AST.getFirstChild()!=null ?
+					signature_args_AST.getFirstChild() : signature_args_AST;
+				currentAST.advanceChildToEnd();
+				signature_args_AST = (AST)currentAST.root;
+			}
+			catch (RecognitionException ex) {
+				reportError(ex);
+				recover(ex,_tokenSet_5);
+			}
+			returnAST = signature_args_AST;
+		} finally { // debugging
+			traceOut("signature_args");
+		}
+	}
+	
+	protected final void block() throws RecognitionException, TokenStreamException {
+		
+		traceIn("block");
+		try { // debugging
+			returnAST = null;
+			ASTPair currentAST = new ASTPair();
+			AST block_AST = null;
+			
+			try {      // for error handling
+				{
+				match(L_CURLY_BRACKET);
+				field_decls();
+				astFactory.addASTChild(currentAST, returnAST);
+				statements();
+				astFactory.addASTChild(currentAST, returnAST);
+				match(R_CURLY_BRACKET);
+				}
+				block_AST = (AST)currentAST.root;
+				block_AST = (AST)astFactory.make( (new ASTArray(2)).add(astFactory.create(BLOCK,"block")).add(block_AST));
+				currentAST.root = block_AST;
+				currentAST.child = block_AST!=null &&block_AST.getFirstChild()!=null ?
+					block_AST.getFirstChild() : block_AST;
+				currentAST.advanceChildToEnd();
+				block_AST = (AST)currentAST.root;
+			}
+			catch (RecognitionException ex) {
+				reportError(ex);
+				recover(ex,_tokenSet_6);
+			}
+			returnAST = block_AST;
+		} finally { // debugging
+			traceOut("block");
+		}
+	}
+	
+	protected final void signature_arg() throws RecognitionException, TokenStreamException {
+		
+		traceIn("signature_arg");
+		try { // debugging
+			returnAST = null;
+			ASTPair currentAST = new ASTPair();
+			AST signature_arg_AST = null;
+			
+			try {      // for error handling
+				{
+				type();
+				astFactory.addASTChild(currentAST, returnAST);
+				AST tmp23_AST = null;
+				tmp23_AST = astFactory.create(LT(1));
+				astFactory.makeASTRoot(currentAST, tmp23_AST);
+				match(ID);
+				}
+				signature_arg_AST = (AST)currentAST.root;
+				signature_arg_AST = (AST)astFactory.make( (new ASTArray(2)).add(astFactory.create(SIGNATURE_ARG,"signature_arg")).add(signature_arg_AST));
+				currentAST.root = signature_arg_AST;
+				currentAST.child = signature_arg_AST!=null &&signature_arg_AST.getFirstChild()!=null ?
+					signature_arg_AST.getFirstChild() : signature_arg_AST;
+				currentAST.advanceChildToEnd();
+				signature_arg_AST = (AST)currentAST.root;
+			}
+			catch (RecognitionException ex) {
+				reportError(ex);
+				recover(ex,_tokenSet_7);
+			}
+			returnAST = signature_arg_AST;
+		} finally { // debugging
+			traceOut("signature_arg");
+		}
+	}
+	
+	protected final void statements() throws RecognitionException, TokenStreamException {
+		
+		traceIn("statements");
+		try { // debugging
+			returnAST = null;
+			ASTPair currentAST = new ASTPair();
+			AST statements_AST = null;
+			
+			try {      // for error handling
+				{
+				_loop36:
+				do {
+					if ((_tokenSet_8.member(LA(1)))) {
+						statement();
+						astFactory.addASTChild(currentAST, returnAST);
+					}
+					else {
+						break _loop36;
+					}
+					
+				} while (true);
+				}
+				statements_AST = (AST)currentAST.root;
+				statements_AST = (AST)astFactory.make( (new ASTArray(2)).add(astFactory.create(STATEMENTS,"statements")).add(statements_AST));
+				currentAST.root = statements_AST;
+				currentAST.child = statements_AST!=null &&statements_AST.getFirstChild()!=null ?
+					statements_AST.getFirstChild() : statements_AST;
+				currentAST.advanceChildToEnd();
+				statements_AST = (AST)currentAST.root;
+			}
+			catch (RecognitionException ex) {
+				reportError(ex);
+				recover(ex,_tokenSet_9);
+			}
+			returnAST = statements_AST;
+		} finally { // debugging
+			traceOut("statements");
+		}
+	}
+	
+	protected final void statement() throws RecognitionException, TokenStreamException {
+		
+		traceIn("statement");
+		try { // debugging
+			returnAST = null;
+			ASTPair currentAST = new ASTPair();
+			AST statement_AST = null;
+			
+			try {      // for error handling
+				{
+				switch ( LA(1)) {
+				case IF:
+				{
+					if_statement();
+					astFactory.addASTChild(currentAST, returnAST);
+					break;
+				}
+				case FOR:
+				{
+					for_loop();
+					astFactory.addASTChild(currentAST, returnAST);
+					break;
+				}
+				case WHILE:
+				{
+					while_loop();
+					astFactory.addASTChild(currentAST, returnAST);
+					break;
+				}
+				case RETURN:
+				{
+					return_statement();
+					astFactory.addASTChild(currentAST, returnAST);
+					break;
+				}
+				case BREAK:
+				{
+					break_statement();
+					astFactory.addASTChild(currentAST, returnAST);
+					break;
+				}
+				case CONTINUE:
+				{
+					continue_statement();
+					astFactory.addASTChild(currentAST, returnAST);
+					break;
+				}
+				default:
+					if ((LA(1)==ID) && (_tokenSet_10.member(LA(2)))) {
+						assignment();
+						astFactory.addASTChild(currentAST, returnAST);
+					}
+					else if ((LA(1)==ID) && (LA(2)==L_PAREN)) {
+						method_call_statement();
+						astFactory.addASTChild(currentAST, returnAST);
+					}
+				else {
+					throw new NoViableAltException(LT(1), getFilename());
+				}
+				}
+				}
+				statement_AST = (AST)currentAST.root;
+			}
+			catch (RecognitionException ex) {
+				reportError(ex);
+				recover(ex,_tokenSet_11);
+			}
+			returnAST = statement_AST;
+		} finally { // debugging
+			traceOut("statement");
+		}
+	}
+	
+	protected final void assignment() throws RecognitionException, TokenStreamException {
+		
+		traceIn("assignment");
+		try { // debugging
+			returnAST = null;
+			ASTPair currentAST = new ASTPair();
+			AST assignment_AST = null;
+			
+			try {      // for error handling
+				{
+				location();
+				astFactory.addASTChild(currentAST, returnAST);
+				{
+				switch ( LA(1)) {
+				case EQ_OP:
+				{
+					AST tmp24_AST = null;
+					tmp24_AST = astFactory.create(LT(1));
+					astFactory.makeASTRoot(currentAST, tmp24_AST);
+					match(EQ_OP);
+					break;
+				}
+				case PLUS_EQ_OP:
+				{
+					AST tmp25_AST = null;
+					tmp25_AST = astFactory.create(LT(1));
+					astFactory.makeASTRoot(currentAST, tmp25_AST);
+					match(PLUS_EQ_OP);
+					break;
+				}
+				case MINUS_EQ_OP:
+				{
+					AST tmp26_AST = null;
+					tmp26_AST = astFactory.create(LT(1));
+					astFactory.makeASTRoot(currentAST, tmp26_AST);
+					match(MINUS_EQ_OP);
+					break;
+				}
+				default:
+				{
+					throw new NoViableAltException(LT(1), getFilename());
+				}
+				}
+				}
+				expr();
+				astFactory.addASTChild(currentAST, returnAST);
+				match(SEMICOLON);
+				}
+				assignment_AST = (AST)currentAST.root;
+			}
+			catch (RecognitionException ex) {
+				reportError(ex);
+				recover(ex,_tokenSet_11);
+			}
+			returnAST = assignment_AST;
+		} finally { // debugging
+			traceOut("assignment");
+		}
+	}
+	
+	protected final void method_call_statement() throws RecognitionException, TokenStreamException {
+		
+		traceIn("method_call_statement");
+		try { // debugging
+			returnAST = null;
+			ASTPair currentAST = new ASTPair();
+			AST method_call_statement_AST = null;
+			
+			try {      // for error handling
+				method_call();
+				astFactory.addASTChild(currentAST, returnAST);
+				match(SEMICOLON);
+				method_call_statement_AST = (AST)currentAST.root;
+			}
+			catch (RecognitionException ex) {
+				reportError(ex);
+				recover(ex,_tokenSet_11);
+			}
+			returnAST = method_call_statement_AST;
+		} finally { // debugging
+			traceOut("method_call_statement");
+		}
+	}
+	
+	protected final void if_statement() throws RecognitionException, TokenStreamException {
+		
+		traceIn("if_statement");
+		try { // debugging
+			returnAST = null;
+			ASTPair currentAST = new ASTPair();
+			AST if_statement_AST = null;
+			
+			try {      // for error handling
+				{
+				AST tmp29_AST = null;
+				tmp29_AST = astFactory.create(LT(1));
+				astFactory.makeASTRoot(currentAST, tmp29_AST);
+				match(IF);
+				match(L_PAREN);
+				expr();
+				astFactory.addASTChild(currentAST, returnAST);
+				match(R_PAREN);
+				block();
+				astFactory.addASTChild(currentAST, returnAST);
+				{
+				switch ( LA(1)) {
+				case ELSE:
+				{
+					match(ELSE);
+					block();
+					astFactory.addASTChild(currentAST, returnAST);
+					break;
+				}
+				case BREAK:
+				case CONTINUE:
+				case FOR:
+				case WHILE:
+				case IF:
+				case RETURN:
+				case R_CURLY_BRACKET:
+				case ID:
+				{
+					break;
+				}
+				default:
+				{
+					throw new NoViableAltException(LT(1), getFilename());
+				}
+				}
+				}
+				}
+				if_statement_AST = (AST)currentAST.root;
+			}
+			catch (RecognitionException ex) {
+				reportError(ex);
+				recover(ex,_tokenSet_11);
+			}
+			returnAST = if_statement_AST;
+		} finally { // debugging
+			traceOut("if_statement");
+		}
+	}
+	
+	protected final void for_loop() throws RecognitionException, TokenStreamException {
+		
+		traceIn("for_loop");
+		try { // debugging
+			returnAST = null;
+			ASTPair currentAST = new ASTPair();
+			AST for_loop_AST = null;
+			
+			try {      // for error handling
+				{
+				AST tmp33_AST = null;
+				tmp33_AST = astFactory.create(LT(1));
+				astFactory.makeASTRoot(currentAST, tmp33_AST);
+				match(FOR);
+				match(L_PAREN);
+				AST tmp35_AST = null;
+				tmp35_AST = astFactory.create(LT(1));
+				astFactory.addASTChild(currentAST, tmp35_AST);
+				match(ID);
+				match(EQ_OP);
+				expr();
+				astFactory.addASTChild(currentAST, returnAST);
+				match(COMMA);
+				expr();
+				astFactory.addASTChild(currentAST, returnAST);
+				match(R_PAREN);
+				block();
+				astFactory.addASTChild(currentAST, returnAST);
+				}
+				for_loop_AST = (AST)currentAST.root;
+			}
+			catch (RecognitionException ex) {
+				reportError(ex);
+				recover(ex,_tokenSet_11);
+			}
+			returnAST = for_loop_AST;
+		} finally { // debugging
+			traceOut("for_loop");
+		}
+	}
+	
+	protected final void while_loop() throws RecognitionException, TokenStreamException {
+		
+		traceIn("while_loop");
+		try { // debugging
+			returnAST = null;
+			ASTPair currentAST = new ASTPair();
+			AST while_loop_AST = null;
+			
+			try {      // for error handling
+				{
+				AST tmp39_AST = null;
+				tmp39_AST = astFactory.create(LT(1));
+				astFactory.makeASTRoot(currentAST, tmp39_AST);
+				match(WHILE);
+				match(L_PAREN);
+				expr();
+				astFactory.addASTChild(currentAST, returnAST);
+				match(R_PAREN);
+				{
+				switch ( LA(1)) {
+				case COLON:
+				{
+					while_bound();
+					astFactory.addASTChild(currentAST, returnAST);
+					break;
+				}
+				case L_CURLY_BRACKET:
+				{
+					break;
+				}
+				default:
+				{
+					throw new NoViableAltException(LT(1), getFilename());
+				}
+				}
+				}
+				block();
+				astFactory.addASTChild(currentAST, returnAST);
+				}
+				while_loop_AST = (AST)currentAST.root;
+			}
+			catch (RecognitionException ex) {
+				reportError(ex);
+				recover(ex,_tokenSet_11);
+			}
+			returnAST = while_loop_AST;
+		} finally { // debugging
+			traceOut("while_loop");
+		}
+	}
+	
+	protected final void return_statement() throws RecognitionException, TokenStreamException {
+		
+		traceIn("return_statement");
+		try { // debugging
+			returnAST = null;
+			ASTPair currentAST = new ASTPair();
+			AST return_statement_AST = null;
+			
+			try {      // for error handling
+				AST tmp42_AST = null;
+				tmp42_AST = astFactory.create(LT(1));
+				astFactory.makeASTRoot(currentAST, tmp42_AST);
+				match(RETURN);
+				{
+				switch ( LA(1)) {
+				case FALSE:
+				case TRUE:
+				case L_PAREN:
+				case MINUS:
+				case NOT_OP:
+				case AT_SIGN:
+				case ID:
+				case INT_LITERAL:
+				case CHAR:
+				{
+					expr();
+					astFactory.addASTChild(currentAST, returnAST);
+					break;
+				}
+				case SEMICOLON:
+				{
+					break;
+				}
+				default:
+				{
+					throw new NoViableAltException(LT(1), getFilename());
+				}
+				}
+				}
+				match(SEMICOLON);
+				return_statement_AST = (AST)currentAST.root;
+			}
+			catch (RecognitionException ex) {
+				reportError(ex);
+				recover(ex,_tokenSet_11);
+			}
+			returnAST = return_statement_AST;
+		} finally { // debugging
+			traceOut("return_statement");
+		}
+	}
+	
+	protected final void break_statement() throws RecognitionException, TokenStreamException {
+		
+		traceIn("break_statement");
+		try { // debugging
+			returnAST = null;
+			ASTPair currentAST = new ASTPair();
+			AST break_statement_AST = null;
+			
+			try {      // for error handling
+				AST tmp44_AST = null;
+				tmp44_AST = astFactory.create(LT(1));
+				astFactory.addASTChild(currentAST, tmp44_AST);
+				match(BREAK);
+				match(SEMICOLON);
+				break_statement_AST = (AST)currentAST.root;
+			}
+			catch (RecognitionException ex) {
+				reportError(ex);
+				recover(ex,_tokenSet_11);
+			}
+			returnAST = break_statement_AST;
+		} finally { // debugging
+			traceOut("break_statement");
+		}
+	}
+	
+	protected final void continue_statement() throws RecognitionException, TokenStreamException {
+		
+		traceIn("continue_statement");
+		try { // debugging
+			returnAST = null;
+			ASTPair currentAST = new ASTPair();
+			AST continue_statement_AST = null;
+			
+			try {      // for error handling
+				AST tmp46_AST = null;
+				tmp46_AST = astFactory.create(LT(1));
+				astFactory.addASTChild(currentAST, tmp46_AST);
+				match(CONTINUE);
+				match(SEMICOLON);
+				continue_statement_AST = (AST)currentAST.root;
+			}
+			catch (RecognitionException ex) {
+				reportError(ex);
+				recover(ex,_tokenSet_11);
+			}
+			returnAST = continue_statement_AST;
+		} finally { // debugging
+			traceOut("continue_statement");
+		}
+	}
+	
+	protected final void location() throws RecognitionException, TokenStreamException {
+		
+		traceIn("location");
+		try { // debugging
+			returnAST = null;
+			ASTPair currentAST = new ASTPair();
+			AST location_AST = null;
+			
+			try {      // for error handling
+				{
+				if ((LA(1)==ID) && (_tokenSet_12.member(LA(2)))) {
+					scalar_location();
+					astFactory.addASTChild(currentAST, returnAST);
+				}
+				else if ((LA(1)==ID) && (LA(2)==L_SQ_BRACKET)) {
+					array_location();
+					astFactory.addASTChild(currentAST, returnAST);
+				}
+				else {
+					throw new NoViableAltException(LT(1), getFilename());
+				}
+				
+				}
+				location_AST = (AST)currentAST.root;
+			}
+			catch (RecognitionException ex) {
+				reportError(ex);
+				recover(ex,_tokenSet_12);
+			}
+			returnAST = location_AST;
+		} finally { // debugging
+			traceOut("location");
+		}
+	}
+	
+	protected final void expr() throws RecognitionException, TokenStreamException {
+		
+		traceIn("expr");
+		try { // debugging
+			returnAST = null;
+			ASTPair currentAST = new ASTPair();
+			AST expr_AST = null;
+			
+			try {      // for error handling
+				{
+				ternary_expr();
+				astFactory.addASTChild(currentAST, returnAST);
+				}
+				expr_AST = (AST)currentAST.root;
+			}
+			catch (RecognitionException ex) {
+				reportError(ex);
+				recover(ex,_tokenSet_13);
+			}
+			returnAST = expr_AST;
+		} finally { // debugging
+			traceOut("expr");
+		}
+	}
+	
+	protected final void method_call() throws RecognitionException, TokenStreamException {
+		
+		traceIn("method_call");
+		try { // debugging
+			returnAST = null;
+			ASTPair currentAST = new ASTPair();
+			AST method_call_AST = null;
+			
+			try {      // for error handling
+				{
+				method_name();
+				astFactory.addASTChild(currentAST, returnAST);
+				match(L_PAREN);
+				{
+				switch ( LA(1)) {
+				case FALSE:
+				case TRUE:
+				case L_PAREN:
+				case MINUS:
+				case NOT_OP:
+				case AT_SIGN:
+				case ID:
+				case INT_LITERAL:
+				case CHAR:
+				case STRING:
+				{
+					method_call_args();
+					astFactory.addASTChild(currentAST, returnAST);
+					break;
+				}
+				case R_PAREN:
+				{
+					break;
+				}
+				default:
+				{
+					throw new NoViableAltException(LT(1), getFilename());
+				}
+				}
+				}
+				match(R_PAREN);
+				}
+				method_call_AST = (AST)currentAST.root;
+				method_call_AST = (AST)astFactory.make( (new ASTArray(2)).add(astFactory.create(METHOD_CALL,"method_call")).add(method_call_AST));
+				currentAST.root = method_call_AST;
+				currentAST.child = method_call_AST!=null &&method_call_AST.getFirstChild()!=null ?
+					method_call_AST.getFirstChild() : method_call_AST;
+				currentAST.advanceChildToEnd();
+				method_call_AST = (AST)currentAST.root;
+			}
+			catch (RecognitionException ex) {
+				reportError(ex);
+				recover(ex,_tokenSet_14);
+			}
+			returnAST = method_call_AST;
+		} finally { // debugging
+			traceOut("method_call");
+		}
+	}
+	
+	protected final void while_bound() throws RecognitionException, TokenStreamException {
+		
+		traceIn("while_bound");
+		try { // debugging
+			returnAST = null;
+			ASTPair currentAST = new ASTPair();
+			AST while_bound_AST = null;
+			
+			try {      // for error handling
+				{
+				AST tmp50_AST = null;
+				tmp50_AST = astFactory.create(LT(1));
+				astFactory.makeASTRoot(currentAST, tmp50_AST);
+				match(COLON);
+				AST tmp51_AST = null;
+				tmp51_AST = astFactory.create(LT(1));
+				astFactory.addASTChild(currentAST, tmp51_AST);
+				match(INT_LITERAL);
+				}
+				while_bound_AST = (AST)currentAST.root;
+			}
+			catch (RecognitionException ex) {
+				reportError(ex);
+				recover(ex,_tokenSet_15);
+			}
+			returnAST = while_bound_AST;
+		} finally { // debugging
+			traceOut("while_bound");
+		}
+	}
+	
+	protected final void method_name() throws RecognitionException, TokenStreamException {
+		
+		traceIn("method_name");
+		try { // debugging
+			returnAST = null;
+			ASTPair currentAST = new ASTPair();
+			AST method_name_AST = null;
+			
+			try {      // for error handling
+				AST tmp52_AST = null;
+				tmp52_AST = astFactory.create(LT(1));
+				astFactory.addASTChild(currentAST, tmp52_AST);
+				match(ID);
+				method_name_AST = (AST)currentAST.root;
+			}
+			catch (RecognitionException ex) {
+				reportError(ex);
+				recover(ex,_tokenSet_16);
+			}
+			returnAST = method_name_AST;
+		} finally { // debugging
+			traceOut("method_name");
+		}
+	}
+	
+	protected final void method_call_args() throws RecognitionException, TokenStreamException {
+		
+		traceIn("method_call_args");
+		try { // debugging
+			returnAST = null;
+			ASTPair currentAST = new ASTPair();
+			AST method_call_args_AST = null;
+			
+			try {      // for error handling
+				method_call_arg();
+				astFactory.addASTChild(currentAST, returnAST);
+				{
+				_loop62:
+				do {
+					if ((LA(1)==COMMA)) {
+						match(COMMA);
+						method_call_arg();
+						astFactory.addASTChild(currentAST, returnAST);
+					}
+					else {
+						break _loop62;
+					}
+					
+				} while (true);
+				}
+				method_call_args_AST = (AST)currentAST.root;
+				method_call_args_AST = (AST)astFactory.make( (new ASTArray(2)).add(astFactory.create(METHOD_CALL_ARGS,"method_call_args")).add(method_call_args_AST));
+				currentAST.root = method_call_args_AST;
+				currentAST.child = method_call_args_AST!=null &&method_call_args_AST.getFirstChild()!=null ?
+					method_call_args_AST.getFirstChild() : method_call_args_AST;
+				currentAST.advanceChildToEnd();
+				method_call_args_AST = (AST)currentAST.root;
+			}
+			catch (RecognitionException ex) {
+				reportError(ex);
+				recover(ex,_tokenSet_5);
+			}
+			returnAST = method_call_args_AST;
+		} finally { // debugging
+			traceOut("method_call_args");
+		}
+	}
+	
+	protected final void method_call_arg() throws RecognitionException, TokenStreamException {
+		
+		traceIn("method_call_arg");
+		try { // debugging
+			returnAST = null;
+			ASTPair currentAST = new ASTPair();
+			AST method_call_arg_AST = null;
+			
+			try {      // for error handling
+				{
+				switch ( LA(1)) {
+				case FALSE:
+				case TRUE:
+				case L_PAREN:
+				case MINUS:
+				case NOT_OP:
+				case AT_SIGN:
+				case ID:
+				case INT_LITERAL:
+				case CHAR:
+				{
+					expr();
+					astFactory.addASTChild(currentAST, returnAST);
+					break;
+				}
+				case STRING:
+				{
+					AST tmp54_AST = null;
+					tmp54_AST = astFactory.create(LT(1));
+					astFactory.addASTChild(currentAST, tmp54_AST);
+					match(STRING);
+					break;
+				}
+				default:
+				{
+					throw new NoViableAltException(LT(1), getFilename());
+				}
+				}
+				}
+				method_call_arg_AST = (AST)currentAST.root;
+			}
+			catch (RecognitionException ex) {
+				reportError(ex);
+				recover(ex,_tokenSet_7);
+			}
+			returnAST = method_call_arg_AST;
+		} finally { // debugging
+			traceOut("method_call_arg");
+		}
+	}
+	
+	protected final void scalar_location() throws RecognitionException, TokenStreamException {
+		
+		traceIn("scalar_location");
+		try { // debugging
+			returnAST = null;
+			ASTPair currentAST = new ASTPair();
+			AST scalar_location_AST = null;
+			
+			try {      // for error handling
+				AST tmp55_AST = null;
+				tmp55_AST = astFactory.create(LT(1));
+				astFactory.addASTChild(currentAST, tmp55_AST);
+				match(ID);
+				scalar_location_AST = (AST)currentAST.root;
+			}
+			catch (RecognitionException ex) {
+				reportError(ex);
+				recover(ex,_tokenSet_12);
+			}
+			returnAST = scalar_location_AST;
+		} finally { // debugging
+			traceOut("scalar_location");
+		}
+	}
+	
+	protected final void array_location() throws RecognitionException, TokenStreamException {
+		
+		traceIn("array_location");
+		try { // debugging
+			returnAST = null;
+			ASTPair currentAST = new ASTPair();
+			AST array_location_AST = null;
+			
+			try {      // for error handling
+				{
+				AST tmp56_AST = null;
+				tmp56_AST = astFactory.create(LT(1));
+				astFactory.addASTChild(currentAST, tmp56_AST);
+				match(ID);
+				match(L_SQ_BRACKET);
+				expr();
+				astFactory.addASTChild(currentAST, returnAST);
+				match(R_SQ_BRACKET);
+				}
+				array_location_AST = (AST)currentAST.root;
+				array_location_AST = (AST)astFactory.make( (new ASTArray(2)).add(astFactory.create(ARRAY_LOCATION,"array_location")).add(array_location_AST));
+				currentAST.root = array_location_AST;
+				currentAST.child = array_location_AST!=null &&array_location_AST.getFirstChild()!=null ?
+					array_location_AST.getFirstChild() : array_location_AST;
+				currentAST.advanceChildToEnd();
+				array_location_AST = (AST)currentAST.root;
+			}
+			catch (RecognitionException ex) {
+				reportError(ex);
+				recover(ex,_tokenSet_12);
+			}
+			returnAST = array_location_AST;
+		} finally { // debugging
+			traceOut("array_location");
+		}
+	}
+	
+	public final void ternary_expr() throws RecognitionException, TokenStreamException {
+		
+		traceIn("ternary_expr");
+		try { // debugging
+			returnAST = null;
+			ASTPair currentAST = new ASTPair();
+			AST ternary_expr_AST = null;
+			
+			try {      // for error handling
+				{
+				cond_or_expr();
+				astFactory.addASTChild(currentAST, returnAST);
+				{
+				switch ( LA(1)) {
+				case QUESTION:
+				{
+					AST tmp59_AST = null;
+					tmp59_AST = astFactory.create(LT(1));
+					astFactory.makeASTRoot(currentAST, tmp59_AST);
+					match(QUESTION);
+					ternary_expr();
+					astFactory.addASTChild(currentAST, returnAST);
+					match(COLON);
+					ternary_expr();
+					astFactory.addASTChild(currentAST, returnAST);
+					break;
+				}
+				case R_PAREN:
+				case R_SQ_BRACKET:
+				case SEMICOLON:
+				case COLON:
+				case COMMA:
+				{
+					break;
+				}
+				default:
+				{
+					throw new NoViableAltException(LT(1), getFilename());
+				}
+				}
+				}
+				}
+				ternary_expr_AST = (AST)currentAST.root;
+			}
+			catch (RecognitionException ex) {
+				reportError(ex);
+				recover(ex,_tokenSet_17);
+			}
+			returnAST = ternary_expr_AST;
+		} finally { // debugging
+			traceOut("ternary_expr");
+		}
+	}
+	
+	protected final void cond_or_expr() throws RecognitionException, TokenStreamException {
+		
+		traceIn("cond_or_expr");
+		try { // debugging
+			returnAST = null;
+			ASTPair currentAST = new ASTPair();
+			AST cond_or_expr_AST = null;
+			
+			try {      // for error handling
+				{
+				cond_and_expr();
+				astFactory.addASTChild(currentAST, returnAST);
+				{
+				_loop79:
+				do {
+					if ((LA(1)==COND_OR)) {
+						AST tmp61_AST = null;
+						tmp61_AST = astFactory.create(LT(1));
+						astFactory.makeASTRoot(currentAST, tmp61_AST);
+						match(COND_OR);
+						cond_and_expr();
+						astFactory.addASTChild(currentAST, returnAST);
+					}
+					else {
+						break _loop79;
+					}
+					
+				} while (true);
+				}
+				}
+				cond_or_expr_AST = (AST)currentAST.root;
+			}
+			catch (RecognitionException ex) {
+				reportError(ex);
+				recover(ex,_tokenSet_18);
+			}
+			returnAST = cond_or_expr_AST;
+		} finally { // debugging
+			traceOut("cond_or_expr");
+		}
+	}
+	
+	protected final void cond_and_expr() throws RecognitionException, TokenStreamException {
+		
+		traceIn("cond_and_expr");
+		try { // debugging
+			returnAST = null;
+			ASTPair currentAST = new ASTPair();
+			AST cond_and_expr_AST = null;
+			
+			try {      // for error handling
+				{
+				equality_expr();
+				astFactory.addASTChild(currentAST, returnAST);
+				{
+				_loop83:
+				do {
+					if ((LA(1)==COND_AND)) {
+						AST tmp62_AST = null;
+						tmp62_AST = astFactory.create(LT(1));
+						astFactory.makeASTRoot(currentAST, tmp62_AST);
+						match(COND_AND);
+						equality_expr();
+						astFactory.addASTChild(currentAST, returnAST);
+					}
+					else {
+						break _loop83;
+					}
+					
+				} while (true);
+				}
+				}
+				cond_and_expr_AST = (AST)currentAST.root;
+			}
+			catch (RecognitionException ex) {
+				reportError(ex);
+				recover(ex,_tokenSet_19);
+			}
+			returnAST = cond_and_expr_AST;
+		} finally { // debugging
+			traceOut("cond_and_expr");
+		}
+	}
+	
+	protected final void equality_expr() throws RecognitionException, TokenStreamException {
+		
+		traceIn("equality_expr");
+		try { // debugging
+			returnAST = null;
+			ASTPair currentAST = new ASTPair();
+			AST equality_expr_AST = null;
+			
+			try {      // for error handling
+				{
+				relative_expr();
+				astFactory.addASTChild(currentAST, returnAST);
+				{
+				_loop88:
+				do {
+					if ((LA(1)==NE||LA(1)==DOUBLE_EQUAL)) {
+						{
+						switch ( LA(1)) {
+						case DOUBLE_EQUAL:
+						{
+							AST tmp63_AST = null;
+							tmp63_AST = astFactory.create(LT(1));
+							astFactory.makeASTRoot(currentAST, tmp63_AST);
+							match(DOUBLE_EQUAL);
+							break;
+						}
+						case NE:
+						{
+							AST tmp64_AST = null;
+							tmp64_AST = astFactory.create(LT(1));
+							astFactory.makeASTRoot(currentAST, tmp64_AST);
+							match(NE);
+							break;
+						}
+						default:
+						{
+							throw new NoViableAltException(LT(1), getFilename());
+						}
+						}
+						}
+						relative_expr();
+						astFactory.addASTChild(currentAST, returnAST);
+					}
+					else {
+						break _loop88;
+					}
+					
+				} while (true);
+				}
+				}
+				equality_expr_AST = (AST)currentAST.root;
+			}
+			catch (RecognitionException ex) {
+				reportError(ex);
+				recover(ex,_tokenSet_20);
+			}
+			returnAST = equality_expr_AST;
+		} finally { // debugging
+			traceOut("equality_expr");
+		}
+	}
+	
+	protected final void relative_expr() throws RecognitionException, TokenStreamException {
+		
+		traceIn("relative_expr");
+		try { // debugging
+			returnAST = null;
+			ASTPair currentAST = new ASTPair();
+			AST relative_expr_AST = null;
+			
+			try {      // for error handling
+				{
+				added_expr();
+				astFactory.addASTChild(currentAST, returnAST);
+				{
+				_loop93:
+				do {
+					if (((LA(1) >= LT && LA(1) <= GTE))) {
+						{
+						switch ( LA(1)) {
+						case LT:
+						{
+							AST tmp65_AST = null;
+							tmp65_AST = astFactory.create(LT(1));
+							astFactory.makeASTRoot(currentAST, tmp65_AST);
+							match(LT);
+							break;
+						}
+						case GT:
+						{
+							AST tmp66_AST = null;
+							tmp66_AST = astFactory.create(LT(1));
+							astFactory.makeASTRoot(currentAST, tmp66_AST);
+							match(GT);
+							break;
+						}
+						case LTE:
+						{
+							AST tmp67_AST = null;
+							tmp67_AST = astFactory.create(LT(1));
+							astFactory.makeASTRoot(currentAST, tmp67_AST);
+							match(LTE);
+							break;
+						}
+						case GTE:
+						{
+							AST tmp68_AST = null;
+							tmp68_AST = astFactory.create(LT(1));
+							astFactory.makeASTRoot(currentAST, tmp68_AST);
+							match(GTE);
+							break;
+						}
+						default:
+						{
+							throw new NoViableAltException(LT(1), getFilename());
+						}
+						}
+						}
+						added_expr();
+						astFactory.addASTChild(currentAST, returnAST);
+					}
+					else {
+						break _loop93;
+					}
+					
+				} while (true);
+				}
+				}
+				relative_expr_AST = (AST)currentAST.root;
+			}
+			catch (RecognitionException ex) {
+				reportError(ex);
+				recover(ex,_tokenSet_21);
+			}
+			returnAST = relative_expr_AST;
+		} finally { // debugging
+			traceOut("relative_expr");
+		}
+	}
+	
+	protected final void added_expr() throws RecognitionException, TokenStreamException {
+		
+		traceIn("added_expr");
+		try { // debugging
+			returnAST = null;
+			ASTPair currentAST = new ASTPair();
+			AST added_expr_AST = null;
+			
+			try {      // for error handling
+				{
+				multiplied_expr();
+				astFactory.addASTChild(currentAST, returnAST);
+				{
+				_loop98:
+				do {
+					if ((LA(1)==PLUS||LA(1)==MINUS)) {
+						{
+						switch ( LA(1)) {
+						case PLUS:
+						{
+							AST tmp69_AST = null;
+							tmp69_AST = astFactory.create(LT(1));
+							astFactory.makeASTRoot(currentAST, tmp69_AST);
+							match(PLUS);
+							break;
+						}
+						case MINUS:
+						{
+							AST tmp70_AST = null;
+							tmp70_AST = astFactory.create(LT(1));
+							astFactory.makeASTRoot(currentAST, tmp70_AST);
+							match(MINUS);
+							break;
+						}
+						default:
+						{
+							throw new NoViableAltException(LT(1), getFilename());
+						}
+						}
+						}
+						multiplied_expr();
+						astFactory.addASTChild(currentAST, returnAST);
+					}
+					else {
+						break _loop98;
+					}
+					
+				} while (true);
+				}
+				}
+				added_expr_AST = (AST)currentAST.root;
+			}
+			catch (RecognitionException ex) {
+				reportError(ex);
+				recover(ex,_tokenSet_22);
+			}
+			returnAST = added_expr_AST;
+		} finally { // debugging
+			traceOut("added_expr");
+		}
+	}
+	
+	protected final void multiplied_expr() throws RecognitionException, TokenStreamException {
+		
+		traceIn("multiplied_expr");
+		try { // debugging
+			returnAST = null;
+			ASTPair currentAST = new ASTPair();
+			AST multiplied_expr_AST = null;
+			
+			try {      // for error handling
+				{
+				strongest_binding_expr();
+				astFactory.addASTChild(currentAST, returnAST);
+				{
+				_loop103:
+				do {
+					if (((LA(1) >= TIMES && LA(1) <= MODULO))) {
+						{
+						switch ( LA(1)) {
+						case TIMES:
+						{
+							AST tmp71_AST = null;
+							tmp71_AST = astFactory.create(LT(1));
+							astFactory.makeASTRoot(currentAST, tmp71_AST);
+							match(TIMES);
+							break;
+						}
+						case DIVIDED:
+						{
+							AST tmp72_AST = null;
+							tmp72_AST = astFactory.create(LT(1));
+							astFactory.makeASTRoot(currentAST, tmp72_AST);
+							match(DIVIDED);
+							break;
+						}
+						case MODULO:
+						{
+							AST tmp73_AST = null;
+							tmp73_AST = astFactory.create(LT(1));
+							astFactory.makeASTRoot(currentAST, tmp73_AST);
+							match(MODULO);
+							break;
+						}
+						default:
+						{
+							throw new NoViableAltException(LT(1), getFilename());
+						}
+						}
+						}
+						strongest_binding_expr();
+						astFactory.addASTChild(currentAST, returnAST);
+					}
+					else {
+						break _loop103;
+					}
+					
+				} while (true);
+				}
+				}
+				multiplied_expr_AST = (AST)currentAST.root;
+			}
+			catch (RecognitionException ex) {
+				reportError(ex);
+				recover(ex,_tokenSet_23);
+			}
+			returnAST = multiplied_expr_AST;
+		} finally { // debugging
+			traceOut("multiplied_expr");
+		}
+	}
+	
+	protected final void strongest_binding_expr() throws RecognitionException, TokenStreamException {
+		
+		traceIn("strongest_binding_expr");
+		try { // debugging
+			returnAST = null;
+			ASTPair currentAST = new ASTPair();
+			AST strongest_binding_expr_AST = null;
+			
+			try {      // for error handling
+				{
+				switch ( LA(1)) {
+				case FALSE:
+				case TRUE:
+				case INT_LITERAL:
+				case CHAR:
+				{
+					literal();
+					astFactory.addASTChild(currentAST, returnAST);
+					break;
+				}
+				case AT_SIGN:
+				{
+					array_length();
+					astFactory.addASTChild(currentAST, returnAST);
+					break;
+				}
+				case NOT_OP:
+				{
+					inverted_expr();
+					astFactory.addASTChild(currentAST, returnAST);
+					break;
+				}
+				case MINUS:
+				{
+					additive_inverse_expr();
+					astFactory.addASTChild(currentAST, returnAST);
+					break;
+				}
+				case L_PAREN:
+				{
+					parenthesized_expr();
+					astFactory.addASTChild(currentAST, returnAST);
+					break;
+				}
+				default:
+					if ((LA(1)==ID) && (_tokenSet_24.member(LA(2)))) {
+						location();
+						astFactory.addASTChild(currentAST, returnAST);
+					}
+					else if ((LA(1)==ID) && (LA(2)==L_PAREN)) {
+						method_call();
+						astFactory.addASTChild(currentAST, returnAST);
+					}
+				else {
+					throw new NoViableAltException(LT(1), getFilename());
+				}
+				}
+				}
+				strongest_binding_expr_AST = (AST)currentAST.root;
+			}
+			catch (RecognitionException ex) {
+				reportError(ex);
+				recover(ex,_tokenSet_14);
+			}
+			returnAST = strongest_binding_expr_AST;
+		} finally { // debugging
+			traceOut("strongest_binding_expr");
+		}
+	}
+	
+	protected final void literal() throws RecognitionException, TokenStreamException {
+		
+		traceIn("literal");
+		try { // debugging
+			returnAST = null;
+			ASTPair currentAST = new ASTPair();
+			AST literal_AST = null;
+			
+			try {      // for error handling
+				{
+				switch ( LA(1)) {
+				case INT_LITERAL:
+				{
+					AST tmp74_AST = null;
+					tmp74_AST = astFactory.create(LT(1));
+					astFactory.addASTChild(currentAST, tmp74_AST);
+					match(INT_LITERAL);
+					break;
+				}
+				case CHAR:
+				{
+					AST tmp75_AST = null;
+					tmp75_AST = astFactory.create(LT(1));
+					astFactory.addASTChild(currentAST, tmp75_AST);
+					match(CHAR);
+					break;
+				}
+				case FALSE:
+				case TRUE:
+				{
+					boolean_literal();
+					astFactory.addASTChild(currentAST, returnAST);
+					break;
+				}
+				default:
+				{
+					throw new NoViableAltException(LT(1), getFilename());
+				}
+				}
+				}
+				literal_AST = (AST)currentAST.root;
+			}
+			catch (RecognitionException ex) {
+				reportError(ex);
+				recover(ex,_tokenSet_14);
+			}
+			returnAST = literal_AST;
+		} finally { // debugging
+			traceOut("literal");
+		}
+	}
+	
+	protected final void array_length() throws RecognitionException, TokenStreamException {
+		
+		traceIn("array_length");
+		try { // debugging
+			returnAST = null;
+			ASTPair currentAST = new ASTPair();
+			AST array_length_AST = null;
+			
+			try {      // for error handling
+				AST tmp76_AST = null;
+				tmp76_AST = astFactory.create(LT(1));
+				astFactory.makeASTRoot(currentAST, tmp76_AST);
+				match(AT_SIGN);
+				AST tmp77_AST = null;
+				tmp77_AST = astFactory.create(LT(1));
+				astFactory.addASTChild(currentAST, tmp77_AST);
+				match(ID);
+				array_length_AST = (AST)currentAST.root;
+			}
+			catch (RecognitionException ex) {
+				reportError(ex);
+				recover(ex,_tokenSet_14);
+			}
+			returnAST = array_length_AST;
+		} finally { // debugging
+			traceOut("array_length");
+		}
+	}
+	
+	protected final void inverted_expr() throws RecognitionException, TokenStreamException {
+		
+		traceIn("inverted_expr");
+		try { // debugging
+			returnAST = null;
+			ASTPair currentAST = new ASTPair();
+			AST inverted_expr_AST = null;
+			
+			try {      // for error handling
+				AST tmp78_AST = null;
+				tmp78_AST = astFactory.create(LT(1));
+				astFactory.makeASTRoot(currentAST, tmp78_AST);
+				match(NOT_OP);
+				strongest_binding_expr();
+				astFactory.addASTChild(currentAST, returnAST);
+				inverted_expr_AST = (AST)currentAST.root;
+			}
+			catch (RecognitionException ex) {
+				reportError(ex);
+				recover(ex,_tokenSet_14);
+			}
+			returnAST = inverted_expr_AST;
+		} finally { // debugging
+			traceOut("inverted_expr");
+		}
+	}
+	
+	protected final void additive_inverse_expr() throws RecognitionException, TokenStreamException {
+		
+		traceIn("additive_inverse_expr");
+		try { // debugging
+			returnAST = null;
+			ASTPair currentAST = new ASTPair();
+			AST additive_inverse_expr_AST = null;
+			
+			try {      // for error handling
+				AST tmp79_AST = null;
+				tmp79_AST = astFactory.create(LT(1));
+				astFactory.makeASTRoot(currentAST, tmp79_AST);
+				match(MINUS);
+				strongest_binding_expr();
+				astFactory.addASTChild(currentAST, returnAST);
+				additive_inverse_expr_AST = (AST)currentAST.root;
+			}
+			catch (RecognitionException ex) {
+				reportError(ex);
+				recover(ex,_tokenSet_14);
+			}
+			returnAST = additive_inverse_expr_AST;
+		} finally { // debugging
+			traceOut("additive_inverse_expr");
+		}
+	}
+	
+	protected final void parenthesized_expr() throws RecognitionException, TokenStreamException {
+		
+		traceIn("parenthesized_expr");
+		try { // debugging
+			returnAST = null;
+			ASTPair currentAST = new ASTPair();
+			AST parenthesized_expr_AST = null;
+			
+			try {      // for error handling
+				match(L_PAREN);
+				expr();
+				astFactory.addASTChild(currentAST, returnAST);
+				match(R_PAREN);
+				parenthesized_expr_AST = (AST)currentAST.root;
+			}
+			catch (RecognitionException ex) {
+				reportError(ex);
+				recover(ex,_tokenSet_14);
+			}
+			returnAST = parenthesized_expr_AST;
+		} finally { // debugging
+			traceOut("parenthesized_expr");
+		}
+	}
+	
+	protected final void boolean_literal() throws RecognitionException, TokenStreamException {
+		
+		traceIn("boolean_literal");
+		try { // debugging
+			returnAST = null;
+			ASTPair currentAST = new ASTPair();
+			AST boolean_literal_AST = null;
+			
+			try {      // for error handling
+				{
+				switch ( LA(1)) {
+				case TRUE:
+				{
+					AST tmp82_AST = null;
+					tmp82_AST = astFactory.create(LT(1));
+					astFactory.addASTChild(currentAST, tmp82_AST);
+					match(TRUE);
+					break;
+				}
+				case FALSE:
+				{
+					AST tmp83_AST = null;
+					tmp83_AST = astFactory.create(LT(1));
+					astFactory.addASTChild(currentAST, tmp83_AST);
+					match(FALSE);
+					break;
+				}
+				default:
+				{
+					throw new NoViableAltException(LT(1), getFilename());
+				}
+				}
+				}
+				boolean_literal_AST = (AST)currentAST.root;
+			}
+			catch (RecognitionException ex) {
+				reportError(ex);
+				recover(ex,_tokenSet_14);
+			}
+			returnAST = boolean_literal_AST;
+		} finally { // debugging
+			traceOut("boolean_literal");
+		}
+	}
+	
+	protected final void math_expr() throws RecognitionException, TokenStreamException {
+		
+		traceIn("math_expr");
+		try { // debugging
+			returnAST = null;
+			ASTPair currentAST = new ASTPair();
+			AST math_expr_AST = null;
+			
+			try {      // for error handling
+				{
+				additive_inverse_expr();
+				astFactory.addASTChild(currentAST, returnAST);
+				}
+				math_expr_AST = (AST)currentAST.root;
+			}
+			catch (RecognitionException ex) {
+				reportError(ex);
+				recover(ex,_tokenSet_0);
+			}
+			returnAST = math_expr_AST;
+		} finally { // debugging
+			traceOut("math_expr");
+		}
+	}
+	
+	
+	public static final String[] _tokenNames = {
+		"<0>",
+		"EOF",
+		"<2>",
+		"NULL_TREE_LOOKAHEAD",
+		"\"class\"",
+		"\"boolean\"",
+		"\"break\"",
+		"\"callout\"",
+		"\"continue\"",
+		"\"else\"",
+		"\"false\"",
+		"\"for\"",
+		"\"while\"",
+		"\"if\"",
+		"\"int\"",
+		"\"return\"",
+		"\"true\"",
+		"\"void\"",
+		"(",
+		")",
+		"[",
+		"]",
+		"{",
+		"}",
+		"EQ_OP",
+		"PLUS_EQ_OP",
+		"MINUS_EQ_OP",
+		"PLUS",
+		"MINUS",
+		"TIMES",
+		"DIVIDED",
+		"MODULO",
+		"LT",
+		"GT",
+		"LTE",
+		"GTE",
+		"NE",
+		"DOUBLE_EQUAL",
+		"NOT_OP",
+		"COND_AND",
+		"COND_OR",
+		"SEMICOLON",
+		"COLON",
+		"COMMA",
+		"QUESTION",
+		"AT_SIGN",
+		"ALPHA",
+		"DIGIT",
+		"ALPHA_NUM",
+		"an identifier",
+		"WS_",
+		"SL_COMMENT",
+		"HEX_DIGIT",
+		"HEX_LITERAL",
+		"DECIMAL_LITERAL",
+		"INT_LITERAL",
+		"CHAR",
+		"STRING",
+		"SPACE",
+		"ESC",
+		"NOESCAPE_PUNCTUATION",
+		"CHAR_NAME",
+		"PROGRAM",
+		"CALLOUTS",
+		"FIELD_DECLS",
+		"METHOD_DECLS",
+		"SIGNATURE_ARGS",
+		"SIGNATURE_ARG",
+		"BLOCK",
+		"STATEMENTS",
+		"METHOD_CALL",
+		"METHOD_CALL_ARGS",
+		"ARRAY_LOCATION",
+		"ARRAY_FIELD_DECL"
+	};
+	
+	protected void buildTokenTypeASTClassMap() {
+		tokenTypeToASTClassMap=null;
+	};
+	
+	private static final long[] mk_tokenSet_0() {
+		long[] data = { 2L, 0L};
+		return data;
+	}
+	public static final BitSet _tokenSet_0 = new BitSet(mk_tokenSet_0());
+	private static final long[] mk_tokenSet_1() {
+		long[] data = { 147490L, 0L};
+		return data;
+	}
+	public static final BitSet _tokenSet_1 = new BitSet(mk_tokenSet_1());
+	private static final long[] mk_tokenSet_2() {
+		long[] data = { 562949962004834L, 0L};
+		return data;
+	}
+	public static final BitSet _tokenSet_2 = new BitSet(mk_tokenSet_2());
+	private static final long[] mk_tokenSet_3() {
+		long[] data = { 10995116277760L, 0L};
+		return data;
+	}
+	public static final BitSet _tokenSet_3 = new BitSet(mk_tokenSet_3());
+	private static final long[] mk_tokenSet_4() {
+		long[] data = { 562949953421312L, 0L};
+		return data;
+	}
+	public static final BitSet _tokenSet_4 = new BitSet(mk_tokenSet_4());
+	private static final long[] mk_tokenSet_5() {
+		long[] data = { 524288L, 0L};
+		return data;
+	}
+	public static final BitSet _tokenSet_5 = new BitSet(mk_tokenSet_5());
+	private static final long[] mk_tokenSet_6() {
+		long[] data = { 562949962005346L, 0L};
+		return data;
+	}
+	public static final BitSet _tokenSet_6 = new BitSet(mk_tokenSet_6());
+	private static final long[] mk_tokenSet_7() {
+		long[] data = { 8796093546496L, 0L};
+		return data;
+	}
+	public static final BitSet _tokenSet_7 = new BitSet(mk_tokenSet_7());
+	private static final long[] mk_tokenSet_8() {
+		long[] data = { 562949953468736L, 0L};
+		return data;
+	}
+	public static final BitSet _tokenSet_8 = new BitSet(mk_tokenSet_8());
+	private static final long[] mk_tokenSet_9() {
+		long[] data = { 8388608L, 0L};
+		return data;
+	}
+	public static final BitSet _tokenSet_9 = new BitSet(mk_tokenSet_9());
+	private static final long[] mk_tokenSet_10() {
+		long[] data = { 118489088L, 0L};
+		return data;
+	}
+	public static final BitSet _tokenSet_10 = new BitSet(mk_tokenSet_10());
+	private static final long[] mk_tokenSet_11() {
+		long[] data = { 562949961857344L, 0L};
+		return data;
+	}
+	public static final BitSet _tokenSet_11 = new BitSet(mk_tokenSet_11());
+	private static final long[] mk_tokenSet_12() {
+		long[] data = { 34909480026114L, 0L};
+		return data;
+	}
+	public static final BitSet _tokenSet_12 = new BitSet(mk_tokenSet_12());
+	private static final long[] mk_tokenSet_13() {
+		long[] data = { 10995118899200L, 0L};
+		return data;
+	}
+	public static final BitSet _tokenSet_13 = new BitSet(mk_tokenSet_13());
+	private static final long[] mk_tokenSet_14() {
+		long[] data = { 34909362585602L, 0L};
+		return data;
+	}
+	public static final BitSet _tokenSet_14 = new BitSet(mk_tokenSet_14());
+	private static final long[] mk_tokenSet_15() {
+		long[] data = { 4194304L, 0L};
+		return data;
+	}
+	public static final BitSet _tokenSet_15 = new BitSet(mk_tokenSet_15());
+	private static final long[] mk_tokenSet_16() {
+		long[] data = { 262144L, 0L};
+		return data;
+	}
+	public static final BitSet _tokenSet_16 = new BitSet(mk_tokenSet_16());
+	private static final long[] mk_tokenSet_17() {
+		long[] data = { 15393165410304L, 0L};
+		return data;
+	}
+	public static final BitSet _tokenSet_17 = new BitSet(mk_tokenSet_17());
+	private static final long[] mk_tokenSet_18() {
+		long[] data = { 32985351454720L, 0L};
+		return data;
+	}
+	public static final BitSet _tokenSet_18 = new BitSet(mk_tokenSet_18());
+	private static final long[] mk_tokenSet_19() {
+		long[] data = { 34084863082496L, 0L};
+		return data;
+	}
+	public static final BitSet _tokenSet_19 = new BitSet(mk_tokenSet_19());
+	private static final long[] mk_tokenSet_20() {
+		long[] data = { 34634618896384L, 0L};
+		return data;
+	}
+	public static final BitSet _tokenSet_20 = new BitSet(mk_tokenSet_20());
+	private static final long[] mk_tokenSet_21() {
+		long[] data = { 34840777326592L, 0L};
+		return data;
+	}
+	public static final BitSet _tokenSet_21 = new BitSet(mk_tokenSet_21());
+	private static final long[] mk_tokenSet_22() {
+		long[] data = { 34905201836032L, 0L};
+		return data;
+	}
+	public static final BitSet _tokenSet_22 = new BitSet(mk_tokenSet_22());
+	private static final long[] mk_tokenSet_23() {
+		long[] data = { 34905604489216L, 0L};
+		return data;
+	}
+	public static final BitSet _tokenSet_23 = new BitSet(mk_tokenSet_23());
+	private static final long[] mk_tokenSet_24() {
+		long[] data = { 34909363634178L, 0L};
+		return data;
+	}
+	public static final BitSet _tokenSet_24 = new BitSet(mk_tokenSet_24());
+	
+	}
@@ -0,0 +1,66 @@
+// $ANTLR 2.7.7 (2006-11-01): "scanner.g" -> "DecafScanner.java"$
+
+package edu.mit.compilers.grammar;
+
+public interface DecafScannerTokenTypes {
+	int EOF = 1;
+	int NULL_TREE_LOOKAHEAD = 3;
+	int TK_class = 4;
+	int BOOLEAN = 5;
+	int BREAK = 6;
+	int CALLOUT = 7;
+	int CONTINUE = 8;
+	int ELSE = 9;
+	int FALSE = 10;
+	int FOR = 11;
+	int WHILE = 12;
+	int IF = 13;
+	int INT = 14;
+	int RETURN = 15;
+	int TRUE = 16;
+	int VOID = 17;
+	int L_PAREN = 18;
+	int R_PAREN = 19;
+	int L_SQ_BRACKET = 20;
+	int R_SQ_BRACKET = 21;
+	int L_CURLY_BRACKET = 22;
+	int R_CURLY_BRACKET = 23;
+	int EQ_OP = 24;
+	int PLUS_EQ_OP = 25;
+	int MINUS_EQ_OP = 26;
+	int PLUS = 27;
+	int MINUS = 28;
+	int TIMES = 29;
+	int DIVIDED = 30;
+	int MODULO = 31;
+	int LT = 32;
+	int GT = 33;
+	int LTE = 34;
+	int GTE = 35;
+	int NE = 36;
+	int DOUBLE_EQUAL = 37;
+	int NOT_OP = 38;
+	int COND_AND = 39;
+	int COND_OR = 40;
+	int SEMICOLON = 41;
+	int COLON = 42;
+	int COMMA = 43;
+	int QUESTION = 44;
+	int AT_SIGN = 45;
+	int ALPHA = 46;
+	int DIGIT = 47;
+	int ALPHA_NUM = 48;
+	int ID = 49;
+	int WS_ = 50;
+	int SL_COMMENT = 51;
+	int HEX_DIGIT = 52;
+	int HEX_LITERAL = 53;
+	int DECIMAL_LITERAL = 54;
+	int INT_LITERAL = 55;
+	int CHAR = 56;
+	int STRING = 57;
+	int SPACE = 58;
+	int ESC = 59;
+	int NOESCAPE_PUNCTUATION = 60;
+	int CHAR_NAME = 61;
+}
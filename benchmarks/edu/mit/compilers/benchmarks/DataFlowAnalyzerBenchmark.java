@@ -0,0 +1,75 @@
+package edu.mit.compilers.benchmarks;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import com.google.common.collect.ImmutableMap;
+
+import edu.mit.compilers.codegen.DataFlowIntRep;
+import edu.mit.compilers.codegen.dataflow.ScopedStatement;
+import edu.mit.compilers.optimization.DataFlowAnalyzer;
+
+/** Times DataFlowAnalyzer for each analysis, over every method of a fixture. */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(1)
+public class DataFlowAnalyzerBenchmark {
+
+    private static final ImmutableMap<String, DataFlowAnalyzer<ScopedStatement, ?>> ANALYZERS =
+            ImmutableMap.<String, DataFlowAnalyzer<ScopedStatement, ?>>of(
+                    "reaching", DataFlowAnalyzer.REACHING_DEFINITIONS,
+                    "available", DataFlowAnalyzer.AVAILABLE_EXPRESSIONS,
+                    "live", DataFlowAnalyzer.LIVE_VARIABLES,
+                    "dominators", DataFlowAnalyzer.DOMINATORS);
+
+    @Param({
+        "examples/cse/loop-available.dcf",
+        "examples/regalloc/many-vars.dcf",
+        "tests/optimizer/input/saman_negative.dcf",
+        "tests/optimizer/input/noise_median.dcf",
+        "tests/derby/input/derby.dcf"})
+    public String fixture;
+
+    @Param({"reaching", "available", "live", "dominators"})
+    public String analysis;
+
+    private DataFlowAnalyzer<ScopedStatement, ?> analyzer;
+    private List<DataFlowIntRep> irs;
+
+    @Setup
+    public void setUp() {
+        analyzer = ANALYZERS.get(analysis);
+        irs = Fixtures.dataFlowIntReps(Fixtures.program(fixture));
+    }
+
+    @Benchmark
+    public void calculate(Blackhole blackhole) {
+        for (DataFlowIntRep ir : irs) {
+            blackhole.consume(analyzer.calculate(ir.getDataFlowGraph()));
+        }
+    }
+
+    /** Like calculate, but without expanding the per-statement input sets. */
+    @Benchmark
+    public void solve(Blackhole blackhole) {
+        for (DataFlowIntRep ir : irs) {
+            blackhole.consume(analyzer.solve(ir.getDataFlowGraph()));
+        }
+    }
+}
@@ -0,0 +1,123 @@
+package edu.mit.compilers.benchmarks;
+
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import antlr.ASTFactory;
+import antlr.RecognitionException;
+import antlr.TokenStreamException;
+
+import com.google.common.collect.ImmutableList;
+
+import edu.mit.compilers.AntlrASTWithLines;
+import edu.mit.compilers.ast.Method;
+import edu.mit.compilers.ast.NodeMaker;
+import edu.mit.compilers.ast.Program;
+import edu.mit.compilers.codegen.DataFlowIntRep;
+import edu.mit.compilers.codegen.Targets;
+import edu.mit.compilers.grammar.DecafParser;
+import edu.mit.compilers.grammar.DecafScanner;
+import edu.mit.compilers.semantics.SemanticChecker;
+import edu.mit.compilers.semantics.errors.SemanticError;
+
+/**
+ * Loads the Decaf programs that the benchmarks compile.
+ *
+ * <p>Fixture names are paths relative to the repository root, e.g.
+ * "tests/derby/input/derby.dcf", so benchmarks must be run from there.  Any Decaf
+ * program can be benchmarked by naming it on the JMH command line:
+ * <pre>
+ *     java -jar dist/benchmarks.jar OptimizerBenchmark -p fixture=examples/cse/if.dcf
+ * </pre>
+ *
+ * <p>Each benchmark operation is a whole stage over a whole program, which takes
+ * anywhere from milliseconds to minutes, so the benchmarks time single shots rather
+ * than averaging many operations per iteration.
+ */
+public class Fixtures {
+
+    private Fixtures() {}
+
+    /** Parse and check a Decaf source file. */
+    public static Program program(String fileName) {
+        try (InputStream inputStream = new FileInputStream(fileName)) {
+            return program(inputStream, fileName);
+        } catch (IOException e) {
+            throw new IllegalArgumentException("Cannot read fixture " + fileName, e);
+        }
+    }
+
+    /** Parse and check a program consisting of a single 'main' with 'statementCount' statements. */
+    public static Program syntheticProgram(int statementCount) {
+        return program(new ByteArrayInputStream(
+                syntheticSource(statementCount).getBytes(StandardCharsets.UTF_8)),
+                "synthetic-" + statementCount);
+    }
+
+    /** Get the unoptimized data flow IR of each of a program's methods. */
+    public static List<DataFlowIntRep> dataFlowIntReps(Program program) {
+        ImmutableList.Builder<DataFlowIntRep> irs = ImmutableList.builder();
+        for (Method method : program.getMethods()) {
+            irs.add(Targets.unoptimizedDataFlowIntRep(method));
+        }
+        return irs.build();
+    }
+
+    /**
+     * Make the source of a program whose 'main' has about 'statementCount' statements.
+     *
+     * <p>The statements are straight-line arithmetic over a handful of locals and a global
+     * array, broken up every so often by an if or a loop, so that every analysis has
+     * redundant expressions, dead stores, constants and conflicting live ranges to find.
+     */
+    static String syntheticSource(int statementCount) {
+        StringBuilder source = new StringBuilder();
+        source.append("callout printf;\n");
+        source.append("int g[16];\n");
+        source.append("void main() {\n");
+        source.append("  int a, b, c, d, e, f, i;\n");
+        source.append("  a = 1;\n  b = 2;\n  c = 3;\n  d = 4;\n  e = 5;\n  f = 6;\n");
+        for (int i = 0; i < statementCount; i++) {
+            switch (i % 8) {
+                case 0: source.append("  a = b + c;\n"); break;
+                case 1: source.append("  d = b + c;\n"); break;
+                case 2: source.append("  e = a * d - f;\n"); break;
+                case 3: source.append("  g[" + (i % 16) + "] = e + 3;\n"); break;
+                case 4: source.append("  if (a < e) {\n    f = a + d;\n  }\n"); break;
+                case 5: source.append("  c = g[a % 16] + 1;\n"); break;
+                case 6: source.append("  for (i = 0, 3) {\n    b = b + i;\n  }\n"); break;
+                default: source.append("  f = f + 1;\n"); break;
+            }
+        }
+        source.append("  printf(\"%d %d %d %d %d %d\\n\", a, b, c, d, e, f);\n");
+        source.append("}\n");
+        return source.toString();
+    }
+
+    private static Program program(InputStream inputStream, String name) {
+        try {
+            DecafParser parser = new DecafParser(new DecafScanner(new DataInputStream(inputStream)));
+            ASTFactory factory = new ASTFactory();
+            factory.setASTNodeClass(AntlrASTWithLines.class);
+            parser.setASTFactory(factory);
+            parser.program();
+            if (parser.getError()) {
+                throw new IllegalArgumentException("Fixture " + name + " does not parse.");
+            }
+            Program program = NodeMaker.program(parser.getAST());
+            List<SemanticError> errors = new SemanticChecker(program).checkProgram();
+            if (!errors.isEmpty()) {
+                throw new IllegalArgumentException(
+                        "Fixture " + name + " is not semantically valid: " + errors);
+            }
+            return program;
+        } catch (RecognitionException | TokenStreamException e) {
+            throw new IllegalArgumentException("Fixture " + name + " does not parse.", e);
+        }
+    }
+}
@@ -0,0 +1,100 @@
+package edu.mit.compilers.benchmarks;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.google.common.base.Optional;
+import com.google.common.collect.ImmutableList;
+
+import edu.mit.compilers.ast.Method;
+import edu.mit.compilers.ast.Program;
+import edu.mit.compilers.codegen.CompilationContext;
+import edu.mit.compilers.codegen.DataFlowIntRep;
+import edu.mit.compilers.codegen.Targets;
+import edu.mit.compilers.codegen.asm.instructions.Instruction;
+import edu.mit.compilers.codegen.controllinker.MethodGraphFactory;
+import edu.mit.compilers.codegen.dataflow.ScopedStatement;
+import edu.mit.compilers.graph.BasicFlowGraph;
+import edu.mit.compilers.graph.BcrFlowGraph;
+import edu.mit.compilers.graph.FlowGraph;
+import edu.mit.compilers.graph.Node;
+import edu.mit.compilers.regalloc.AllocationStrategy;
+
+/**
+ * Times the graph edits that every optimizer and the backend lean on.
+ *
+ * <p>'replace' rewrites every node of each method's data flow graph, the way
+ * ConstantPropagator does.  'removeNops' cleans up each method's unpeepholed
+ * control flow graph, the way Targets does before printing.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(1)
+public class FlowGraphEditBenchmark {
+
+    @Param({
+        "tests/optimizer/input/saman_negative.dcf",
+        "tests/optimizer/input/noise_median.dcf",
+        "tests/derby/input/derby.dcf"})
+    public String fixture;
+
+    private List<BcrFlowGraph<ScopedStatement>> dataFlowGraphs;
+    private List<FlowGraph<Instruction>> controlFlowGraphs;
+
+    @Setup
+    public void setUp() {
+        Program program = Fixtures.program(fixture);
+        CompilationContext context = CompilationContext.of(program);
+        ImmutableList.Builder<BcrFlowGraph<ScopedStatement>> dataFlowGraphs =
+                ImmutableList.builder();
+        ImmutableList.Builder<FlowGraph<Instruction>> controlFlowGraphs =
+                ImmutableList.builder();
+        for (Method method : program.getMethods()) {
+            DataFlowIntRep ir = Targets.unoptimizedDataFlowIntRep(method);
+            dataFlowGraphs.add(ir.getDataFlowGraph());
+            controlFlowGraphs.add(new MethodGraphFactory(ir.getDataFlowGraph(), method.getName(),
+                    method.isVoid(), method.getBlock().getMemorySize(), context,
+                    Optional.<AllocationStrategy>absent())
+                    .getGraph());
+        }
+        this.dataFlowGraphs = dataFlowGraphs.build();
+        this.controlFlowGraphs = controlFlowGraphs.build();
+    }
+
+    @Benchmark
+    public List<BcrFlowGraph<ScopedStatement>> replace() {
+        ImmutableList.Builder<BcrFlowGraph<ScopedStatement>> replaced = ImmutableList.builder();
+        for (BcrFlowGraph<ScopedStatement> graph : dataFlowGraphs) {
+            BcrFlowGraph.Builder<ScopedStatement> builder = BcrFlowGraph.builderOf(graph);
+            for (Node<ScopedStatement> node : graph.getNodes()) {
+                builder.replace(node, Node.copyOf(node));
+            }
+            replaced.add(builder.build());
+        }
+        return replaced.build();
+    }
+
+    @Benchmark
+    public List<FlowGraph<Instruction>> removeNops() {
+        ImmutableList.Builder<FlowGraph<Instruction>> cleaned = ImmutableList.builder();
+        for (FlowGraph<Instruction> graph : controlFlowGraphs) {
+            cleaned.add(BasicFlowGraph.builderOf(graph).removeNops().build());
+        }
+        return cleaned.build();
+    }
+}
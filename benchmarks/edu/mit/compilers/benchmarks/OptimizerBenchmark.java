@@ -0,0 +1,73 @@
+package edu.mit.compilers.benchmarks;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import com.google.common.collect.ImmutableMap;
+
+import edu.mit.compilers.codegen.DataFlowIntRep;
+import edu.mit.compilers.optimization.ConstantPropagator;
+import edu.mit.compilers.optimization.DataFlowOptimizer;
+import edu.mit.compilers.optimization.DeadCodeEliminator;
+import edu.mit.compilers.optimization.GlobalValueNumberer;
+
+/**
+ * Times each dataflow optimizer on its own, over every method of a fixture.
+ *
+ * <p>Each optimizer starts from the unoptimized IR, so results don't depend on
+ * which other optimizers are enabled.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(1)
+public class OptimizerBenchmark {
+
+    private static final ImmutableMap<String, DataFlowOptimizer> OPTIMIZERS =
+            ImmutableMap.<String, DataFlowOptimizer>of(
+                    "cse", new GlobalValueNumberer(),
+                    "conprop", new ConstantPropagator(),
+                    "dce", new DeadCodeEliminator());
+
+    @Param({
+        "examples/cse/loop-available.dcf",
+        "examples/conprop/while-loop-different-defs.dcf",
+        "examples/deadcode/assign-dead-cascading.dcf",
+        "tests/optimizer/input/noise_median.dcf",
+        "tests/derby/input/derby.dcf"})
+    public String fixture;
+
+    @Param({"cse", "conprop", "dce"})
+    public String optimizer;
+
+    private DataFlowOptimizer dataFlowOptimizer;
+    private List<DataFlowIntRep> irs;
+
+    @Setup
+    public void setUp() {
+        dataFlowOptimizer = OPTIMIZERS.get(optimizer);
+        irs = Fixtures.dataFlowIntReps(Fixtures.program(fixture));
+    }
+
+    @Benchmark
+    public void optimize(Blackhole blackhole) {
+        for (DataFlowIntRep ir : irs) {
+            blackhole.consume(dataFlowOptimizer.optimized(ir));
+        }
+    }
+}
@@ -0,0 +1,60 @@
+package edu.mit.compilers.benchmarks;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import edu.mit.compilers.codegen.DataFlowIntRep;
+import edu.mit.compilers.regalloc.LinearScanAllocator;
+import edu.mit.compilers.regalloc.RegisterAllocator;
+
+/** Times each register allocator over every method of a fixture. */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(1)
+public class RegisterAllocatorBenchmark {
+
+    @Param({
+        "examples/regalloc/few-vars.dcf",
+        "examples/regalloc/many-vars.dcf",
+        "examples/regalloc/nonconflict.dcf",
+        "tests/optimizer/input/noise_median.dcf",
+        "tests/derby/input/derby.dcf"})
+    public String fixture;
+
+    private List<DataFlowIntRep> irs;
+
+    @Setup
+    public void setUp() {
+        irs = Fixtures.dataFlowIntReps(Fixtures.program(fixture));
+    }
+
+    @Benchmark
+    public void allocations(Blackhole blackhole) {
+        for (DataFlowIntRep ir : irs) {
+            blackhole.consume(RegisterAllocator.allocations(ir.getDataFlowGraph()));
+        }
+    }
+
+    @Benchmark
+    public void linearScanAllocations(Blackhole blackhole) {
+        for (DataFlowIntRep ir : irs) {
+            blackhole.consume(LinearScanAllocator.allocations(ir.getDataFlowGraph()));
+        }
+    }
+}
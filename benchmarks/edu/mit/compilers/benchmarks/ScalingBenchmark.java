@@ -0,0 +1,100 @@
+package edu.mit.compilers.benchmarks;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Iterables;
+import com.google.common.collect.Multimap;
+
+import edu.mit.compilers.ast.Program;
+import edu.mit.compilers.codegen.AssemblyWriter;
+import edu.mit.compilers.codegen.DataFlowIntRep;
+import edu.mit.compilers.codegen.asm.Register;
+import edu.mit.compilers.codegen.dataflow.ScopedStatement;
+import edu.mit.compilers.graph.Node;
+import edu.mit.compilers.optimization.DataFlowAnalyzer;
+import edu.mit.compilers.optimization.ReachingDefinition;
+import edu.mit.compilers.optimization.ScopedExpression;
+import edu.mit.compilers.optimization.ScopedVariable;
+import edu.mit.compilers.regalloc.LiveRange;
+import edu.mit.compilers.regalloc.RegisterAllocator;
+
+/**
+ * Times the main stages on a synthetic method of growing size.
+ *
+ * <p>Comparing the scores across 'statements' shows how each stage scales, which
+ * the small fixtures can't.  See Fixtures#syntheticSource for what the method contains.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(1)
+public class ScalingBenchmark {
+
+    @Param({"50", "100", "200", "400", "800"})
+    public int statements;
+
+    private Program program;
+    private DataFlowIntRep ir;
+    private PrintStream sink;
+
+    @Setup
+    public void setUp() {
+        program = Fixtures.syntheticProgram(statements);
+        ir = Iterables.getOnlyElement(Fixtures.dataFlowIntReps(program));
+        sink = new PrintStream(new OutputStream() {
+            @Override
+            public void write(int b) {}
+
+            @Override
+            public void write(byte[] b, int off, int len) {}
+        });
+    }
+
+    @Benchmark
+    public Multimap<Node<ScopedStatement>, ReachingDefinition> reachingDefinitions() {
+        return DataFlowAnalyzer.REACHING_DEFINITIONS.calculate(ir.getDataFlowGraph());
+    }
+
+    @Benchmark
+    public Multimap<Node<ScopedStatement>, ScopedExpression> availableExpressions() {
+        return DataFlowAnalyzer.AVAILABLE_EXPRESSIONS.calculate(ir.getDataFlowGraph());
+    }
+
+    @Benchmark
+    public Multimap<Node<ScopedStatement>, ScopedVariable> liveVariables() {
+        return DataFlowAnalyzer.LIVE_VARIABLES.calculate(ir.getDataFlowGraph());
+    }
+
+    @Benchmark
+    public Multimap<Node<ScopedStatement>, Node<ScopedStatement>> dominators() {
+        return DataFlowAnalyzer.DOMINATORS.calculate(ir.getDataFlowGraph());
+    }
+
+    @Benchmark
+    public Map<LiveRange, Register> registerAllocation() {
+        return RegisterAllocator.allocations(ir.getDataFlowGraph());
+    }
+
+    @Benchmark
+    public void compile() {
+        AssemblyWriter.writeAttAssembly(program, sink, ImmutableSet.<String>of());
+    }
+}
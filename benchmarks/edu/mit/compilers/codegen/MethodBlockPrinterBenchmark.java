@@ -0,0 +1,72 @@
+package edu.mit.compilers.codegen;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.google.common.collect.ImmutableSet;
+
+import edu.mit.compilers.ast.Method;
+import edu.mit.compilers.ast.Program;
+import edu.mit.compilers.benchmarks.Fixtures;
+
+/**
+ * Times MethodBlockPrinter, i.e. the whole per-method backend: building the control
+ * flow graph, peephole optimizing it, and printing it.
+ *
+ * <p>This lives in the codegen package because MethodBlockPrinter's constructor is
+ * package-private.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(1)
+public class MethodBlockPrinterBenchmark {
+
+    private static final Set<String> NO_OPTIMIZATIONS = ImmutableSet.of();
+
+    @Param({
+        "tests/optimizer/input/saman_negative.dcf",
+        "tests/optimizer/input/noise_median.dcf",
+        "tests/derby/input/derby.dcf"})
+    public String fixture;
+
+    private Program program;
+    private CompilationContext context;
+    private PrintStream sink;
+
+    @Setup
+    public void setUp() {
+        program = Fixtures.program(fixture);
+        context = CompilationContext.of(program);
+        sink = new PrintStream(new OutputStream() {
+            @Override
+            public void write(int b) {}
+
+            @Override
+            public void write(byte[] b, int off, int len) {}
+        });
+    }
+
+    @Benchmark
+    public void printMethods() {
+        for (Method method : program.getMethods()) {
+            new MethodBlockPrinter(method, context, NO_OPTIMIZATIONS).printStream(sink);
+        }
+    }
+}
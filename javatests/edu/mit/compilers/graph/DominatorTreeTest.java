@@ -0,0 +1,158 @@
+package edu.mit.compilers.graph;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.junit.Assert.assertThat;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import com.google.common.base.Optional;
+import com.google.common.collect.ImmutableSet;
+
+import edu.mit.compilers.codegen.asm.instructions.JumpType;
+
+@RunWith(JUnit4.class)
+public class DominatorTreeTest {
+
+    // Some re-usable nodes for creating test graphs.
+    private static final Node<String> R = Node.of("Root");
+    private static final Node<String> N1 = Node.of("Node 1");
+    private static final Node<String> N2 = Node.of("Node 2");
+    private static final Node<String> N3 = Node.of("Node 3");
+    private static final Node<String> N4 = Node.of("Node 4");
+    private static final Node<String> N5 = Node.of("Node 5");
+
+    @Test
+    public void testDiamond() throws Exception {
+        DominatorTree<String> tree = DominatorTree.of(BasicDiGraph.<String>builder()
+                .link(R, N1)
+                .link(R, N2)
+                .link(N1, N3)
+                .link(N2, N3)
+                .build(), R);
+
+        assertThat(tree.getImmediateDominator(R), equalTo(Optional.<Node<String>>absent()));
+        assertThat(tree.getImmediateDominator(N1), equalTo(Optional.of(R)));
+        assertThat(tree.getImmediateDominator(N2), equalTo(Optional.of(R)));
+        assertThat(tree.getImmediateDominator(N3), equalTo(Optional.of(R)));
+        assertThat(ImmutableSet.copyOf(tree.getSuccessors(R)),
+                equalTo(ImmutableSet.of(N1, N2, N3)));
+        assertThat(tree.dominates(R, N3), equalTo(true));
+        assertThat(tree.dominates(N1, N3), equalTo(false));
+        assertThat(tree.dominates(N3, N3), equalTo(true));
+        assertThat(tree.strictlyDominates(N3, N3), equalTo(false));
+        assertThat(ImmutableSet.copyOf(tree.getDominanceFrontier(N1)),
+                equalTo(ImmutableSet.of(N3)));
+        assertThat(ImmutableSet.copyOf(tree.getDominanceFrontier(N2)),
+                equalTo(ImmutableSet.of(N3)));
+        assertThat(ImmutableSet.copyOf(tree.getDominanceFrontier(R)),
+                equalTo(ImmutableSet.<Node<String>>of()));
+    }
+
+    @Test
+    public void testLoop() throws Exception {
+        // R -> N1 is the loop header, N2 its body, and N3 the exit.
+        DominatorTree<String> tree = DominatorTree.of(BasicDiGraph.<String>builder()
+                .link(R, N1)
+                .link(N1, N2)
+                .link(N2, N1)
+                .link(N1, N3)
+                .build(), R);
+
+        assertThat(tree.getImmediateDominator(N2), equalTo(Optional.of(N1)));
+        assertThat(tree.getImmediateDominator(N3), equalTo(Optional.of(N1)));
+        assertThat(tree.dominates(N1, N2), equalTo(true));
+        assertThat(tree.dominates(N2, N1), equalTo(false));
+        assertThat(ImmutableSet.copyOf(tree.getDominanceFrontier(N2)),
+                equalTo(ImmutableSet.of(N1)));
+        assertThat(ImmutableSet.copyOf(tree.getDominanceFrontier(N1)),
+                equalTo(ImmutableSet.of(N1)));
+    }
+
+    @Test
+    public void testIrreducibleLoop() throws Exception {
+        // The loop between N1 and N2 can be entered at either node, so neither dominates the
+        // other.
+        DominatorTree<String> tree = DominatorTree.of(BasicDiGraph.<String>builder()
+                .link(R, N1)
+                .link(R, N2)
+                .link(N1, N2)
+                .link(N2, N1)
+                .build(), R);
+
+        assertThat(tree.getImmediateDominator(N1), equalTo(Optional.of(R)));
+        assertThat(tree.getImmediateDominator(N2), equalTo(Optional.of(R)));
+        assertThat(tree.dominates(N1, N2), equalTo(false));
+        assertThat(tree.dominates(N2, N1), equalTo(false));
+        assertThat(ImmutableSet.copyOf(tree.getDominanceFrontier(N1)),
+                equalTo(ImmutableSet.of(N2)));
+        assertThat(ImmutableSet.copyOf(tree.getDominanceFrontier(N2)),
+                equalTo(ImmutableSet.of(N1)));
+    }
+
+    @Test
+    public void testCooperHarveyKennedyFigure() throws Exception {
+        // The irreducible graph of figure 4 in "A Simple, Fast Dominance Algorithm", which
+        // takes more than one pass to settle.  R is their node 6.
+        DominatorTree<String> tree = DominatorTree.of(BasicDiGraph.<String>builder()
+                .link(R, N5)
+                .link(R, N4)
+                .link(N5, N1)
+                .link(N4, N2)
+                .link(N4, N3)
+                .link(N1, N2)
+                .link(N2, N1)
+                .link(N2, N3)
+                .link(N3, N2)
+                .build(), R);
+
+        for (Node<String> node : ImmutableSet.of(N1, N2, N3, N4, N5)) {
+            assertThat(tree.getImmediateDominator(node), equalTo(Optional.of(R)));
+        }
+        assertThat(ImmutableSet.copyOf(tree.getSuccessors(R)),
+                equalTo(ImmutableSet.of(N1, N2, N3, N4, N5)));
+    }
+
+    @Test
+    public void testUnreachableNodes() throws Exception {
+        Node<String> unreachable = Node.of("Unreachable");
+        DominatorTree<String> tree = DominatorTree.of(BasicDiGraph.<String>builder()
+                .link(R, N1)
+                .link(unreachable, N1)
+                .build(), R);
+
+        assertThat(tree.contains(N1), equalTo(true));
+        assertThat(tree.contains(unreachable), equalTo(false));
+        assertThat(ImmutableSet.copyOf(tree.getNodes()), equalTo(ImmutableSet.of(R, N1)));
+        // The unreachable predecessor doesn't stop R from dominating N1.
+        assertThat(tree.getImmediateDominator(N1), equalTo(Optional.of(R)));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testUnreachableNodeHasNoDominator() throws Exception {
+        Node<String> unreachable = Node.of("Unreachable");
+        DominatorTree.of(BasicDiGraph.<String>builder()
+                .link(R, N1)
+                .link(unreachable, N1)
+                .build(), R).getImmediateDominator(unreachable);
+    }
+
+    @Test
+    public void testPostDominators() throws Exception {
+        // R branches to N1, or jumps to N2, and both go on to N3.
+        BcrFlowGraph<String> graph = BcrFlowGraph.<String>builder()
+                .append(R)
+                .linkNonJumpBranch(R, N1)
+                .linkJumpBranch(R, JumpType.JE, N2)
+                .setEndToSinkFor(N1, N2)
+                .append(N3)
+                .build();
+        DominatorTree<String> tree = DominatorTree.postDominators(graph);
+
+        assertThat(tree.getRoot(), equalTo(graph.getEnd()));
+        assertThat(tree.dominates(N3, R), equalTo(true));
+        assertThat(tree.dominates(N1, R), equalTo(false));
+        assertThat(ImmutableSet.copyOf(tree.getDominanceFrontier(N1)), equalTo(ImmutableSet.of(R)));
+    }
+}
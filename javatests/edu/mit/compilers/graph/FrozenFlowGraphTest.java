@@ -0,0 +1,122 @@
+package edu.mit.compilers.graph;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.junit.Assert.assertThat;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import com.google.common.collect.ImmutableList;
+
+import edu.mit.compilers.codegen.asm.instructions.JumpType;
+
+@RunWith(JUnit4.class)
+public class FrozenFlowGraphTest {
+
+    // Some re-usable nodes for creating test graphs.
+    private static final Node<String> N0 = Node.of("Node 0");
+    private static final Node<String> N1 = Node.of("Node 1");
+    private static final Node<String> N2 = Node.of("Node 2");
+    private static final Node<String> N3 = Node.of("Node 3");
+    private static final Node<String> N4 = Node.of("Node 4");
+
+    @Test
+    public void testIdsFollowNodeOrder() throws Exception {
+        BcrFlowGraph<String> graph = diamond();
+        FrozenFlowGraph<String> frozen = FrozenFlowGraph.copyOf(graph);
+
+        assertThat(frozen.size(), equalTo(graph.getNodes().size()));
+        assertThat(frozen.getNodeList(), equalTo(ImmutableList.copyOf(graph.getNodes())));
+        for (int id = 0; id < frozen.size(); id++) {
+            assertThat(frozen.getId(frozen.getNode(id)), equalTo(id));
+        }
+        assertThat(ImmutableList.copyOf(frozen.getNodes()), equalTo(frozen.getNodeList()));
+    }
+
+    @Test
+    public void testSameNeighborsInSameOrder() throws Exception {
+        BcrFlowGraph<String> graph = diamond();
+        FrozenFlowGraph<String> frozen = FrozenFlowGraph.copyOf(graph);
+
+        assertThat(frozen.getStart(), equalTo(graph.getStart()));
+        assertThat(frozen.getEnd(), equalTo(graph.getEnd()));
+        for (Node<String> node : graph.getNodes()) {
+            assertThat(ImmutableList.copyOf(frozen.getSuccessors(node)),
+                    equalTo(ImmutableList.copyOf(graph.getSuccessors(node))));
+            assertThat(ImmutableList.copyOf(frozen.getPredecessors(node)),
+                    equalTo(ImmutableList.copyOf(graph.getPredecessors(node))));
+        }
+    }
+
+    @Test
+    public void testIdAccessorsMatchSets() throws Exception {
+        FrozenFlowGraph<String> frozen = FrozenFlowGraph.copyOf(diamond());
+
+        for (int id = 0; id < frozen.size(); id++) {
+            Node<String> node = frozen.getNode(id);
+            ImmutableList.Builder<Node<String>> successors = ImmutableList.builder();
+            for (int i = 0; i < frozen.getSuccessorCount(id); i++) {
+                successors.add(frozen.getNode(frozen.getSuccessorId(id, i)));
+            }
+            ImmutableList.Builder<Node<String>> predecessors = ImmutableList.builder();
+            for (int i = 0; i < frozen.getPredecessorCount(id); i++) {
+                predecessors.add(frozen.getNode(frozen.getPredecessorId(id, i)));
+            }
+            assertThat(successors.build(),
+                    equalTo(ImmutableList.copyOf(frozen.getSuccessors(node))));
+            assertThat(predecessors.build(),
+                    equalTo(ImmutableList.copyOf(frozen.getPredecessors(node))));
+        }
+    }
+
+    @Test
+    public void testBranches() throws Exception {
+        FrozenFlowGraph<String> frozen = FrozenFlowGraph.copyOf(diamond());
+
+        assertThat(frozen.isBranch(N0), equalTo(true));
+        assertThat(frozen.getNonJumpSuccessor(N0), equalTo(N1));
+        assertThat(frozen.getJumpSuccessor(N0), equalTo(N2));
+        assertThat(frozen.getJumpType(N0), equalTo(JumpType.JE));
+        assertThat(frozen.isBranch(N1), equalTo(false));
+        assertThat(frozen.isBranch(N3), equalTo(false));
+    }
+
+    @Test
+    public void testNeighborsContains() throws Exception {
+        FrozenFlowGraph<String> frozen = FrozenFlowGraph.copyOf(diamond());
+
+        assertThat(frozen.getSuccessors(N0).contains(N1), equalTo(true));
+        assertThat(frozen.getSuccessors(N0).contains(N3), equalTo(false));
+        assertThat(frozen.getSuccessors(N0).contains(N4), equalTo(false));
+        assertThat(frozen.getNodes().contains(N4), equalTo(false));
+    }
+
+    @Test
+    public void testCopyOfFrozenIsSame() throws Exception {
+        FrozenFlowGraph<String> frozen = FrozenFlowGraph.copyOf(diamond());
+        assertThat(FrozenFlowGraph.copyOf(frozen), sameInstance(frozen));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testForeignNodeHasNoId() throws Exception {
+        FrozenFlowGraph.copyOf(diamond()).getId(N4);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testNonBranchHasNoJump() throws Exception {
+        FrozenFlowGraph.copyOf(diamond()).getJumpSuccessor(N1);
+    }
+
+    /** N0 branches to N1, or jumps to N2, and both go on to N3. */
+    private static BcrFlowGraph<String> diamond() {
+        return BcrFlowGraph.<String>builder()
+                .append(N0)
+                .linkNonJumpBranch(N0, N1)
+                .linkJumpBranch(N0, JumpType.JE, N2)
+                .setEndToSinkFor(N1, N2)
+                .append(N3)
+                .build();
+    }
+}
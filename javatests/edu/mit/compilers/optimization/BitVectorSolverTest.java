@@ -0,0 +1,245 @@
+package edu.mit.compilers.optimization;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.junit.Assert.assertThat;
+
+import java.util.Collection;
+import java.util.Set;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import com.google.common.base.Predicate;
+import com.google.common.base.Predicates;
+import com.google.common.collect.ImmutableSet;
+
+import edu.mit.compilers.codegen.asm.instructions.JumpType;
+import edu.mit.compilers.graph.BcrFlowGraph;
+import edu.mit.compilers.graph.Node;
+import edu.mit.compilers.optimization.AnalysisSpec.Confluence;
+
+@RunWith(JUnit4.class)
+public class BitVectorSolverTest {
+
+    @Test
+    public void testKillsApplyDownstream() throws Exception {
+        Node<String> first = Node.of("+a +b");
+        Node<String> second = Node.of("-a +c");
+        Node<String> third = Node.of("");
+        BcrFlowGraph<String> graph = BcrFlowGraph.<String>builder()
+                .append(first).append(second).append(third).build();
+
+        DataFlowSolution<String, String> solution = forward(Confluence.UNION).solve(graph);
+
+        assertThat(solution.getInputs(first), equalTo(ImmutableSet.<String>of()));
+        assertThat(solution.getInputs(second), equalTo(ImmutableSet.of("a", "b")));
+        assertThat(solution.getInputs(third), equalTo(ImmutableSet.of("b", "c")));
+    }
+
+    @Test
+    public void testUnionJoinsEitherBranch() throws Exception {
+        Diamond diamond = new Diamond("+a +c", "+b +c");
+
+        DataFlowSolution<String, String> solution =
+                forward(Confluence.UNION).solve(diamond.graph);
+
+        assertThat(solution.getInputs(diamond.after), equalTo(ImmutableSet.of("a", "b", "c")));
+    }
+
+    @Test
+    public void testIntersectionJoinsEveryBranch() throws Exception {
+        Diamond diamond = new Diamond("+a +c", "+b +c");
+
+        DataFlowSolution<String, String> solution =
+                forward(Confluence.INTERSECTION).solve(diamond.graph);
+
+        assertThat(solution.getInputs(diamond.after), equalTo(ImmutableSet.of("c")));
+    }
+
+    @Test
+    public void testLoopCarriedFacts() throws Exception {
+        Node<String> header = Node.of("");
+        Node<String> body = Node.of("+a");
+        Node<String> exit = Node.of("");
+        BcrFlowGraph<String> graph = BcrFlowGraph.<String>builder()
+                .append(header)
+                .linkNonJumpBranch(header, body)
+                .link(body, header)
+                .linkJumpBranch(header, JumpType.JE, exit)
+                .setEndTerminal(exit)
+                .build();
+
+        // The fact only comes around the back edge, so it reaches the header along some
+        // paths, but not along every path.
+        assertThat(forward(Confluence.UNION).solve(graph).getInputs(header),
+                equalTo(ImmutableSet.of("a")));
+        assertThat(forward(Confluence.INTERSECTION).solve(graph).getInputs(header),
+                equalTo(ImmutableSet.<String>of()));
+    }
+
+    @Test
+    public void testBackwardFlow() throws Exception {
+        Node<String> first = Node.of("");
+        Node<String> second = Node.of("+a");
+        Node<String> third = Node.of("-a");
+        BcrFlowGraph<String> graph = BcrFlowGraph.<String>builder()
+                .append(first).append(second).append(third).build();
+
+        DataFlowSolution<String, String> solution =
+                new DataFlowAnalyzer<String, String>(
+                        new TokenSpec(false, Confluence.UNION, true, false)).solve(graph);
+
+        // Backward inputs are the facts just after each node.
+        assertThat(solution.getInputs(third), equalTo(ImmutableSet.<String>of()));
+        assertThat(solution.getInputs(second), equalTo(ImmutableSet.<String>of()));
+        assertThat(solution.getInputs(first), equalTo(ImmutableSet.of("a")));
+    }
+
+    @Test
+    public void testGensImmuneToKills() throws Exception {
+        Node<String> both = Node.of("+a -a");
+        Node<String> after = Node.of("");
+        BcrFlowGraph<String> graph = BcrFlowGraph.<String>builder()
+                .append(both).append(after).build();
+
+        assertThat(new DataFlowAnalyzer<String, String>(
+                new TokenSpec(true, Confluence.UNION, true, false)).solve(graph).getInputs(after),
+                equalTo(ImmutableSet.of("a")));
+        assertThat(new DataFlowAnalyzer<String, String>(
+                new TokenSpec(true, Confluence.UNION, false, false)).solve(graph).getInputs(after),
+                equalTo(ImmutableSet.<String>of()));
+    }
+
+    @Test
+    public void testGenDependsOnInputs() throws Exception {
+        // "?a+b" generates b only where a holds on entry.
+        Node<String> givesA = Node.of("+a");
+        Node<String> needsA = Node.of("?a+b");
+        Node<String> after = Node.of("");
+        Node<String> alone = Node.of("?a+b");
+        Node<String> afterAlone = Node.of("");
+        DataFlowAnalyzer<String, String> analyzer = new DataFlowAnalyzer<String, String>(
+                new TokenSpec(true, Confluence.UNION, true, true));
+
+        BcrFlowGraph<String> graph = BcrFlowGraph.<String>builder()
+                .append(givesA).append(needsA).append(after).build();
+        assertThat(analyzer.solve(graph).getInputs(after), equalTo(ImmutableSet.of("a", "b")));
+
+        BcrFlowGraph<String> unsatisfied = BcrFlowGraph.<String>builder()
+                .append(alone).append(afterAlone).build();
+        assertThat(analyzer.solve(unsatisfied).getInputs(afterAlone),
+                equalTo(ImmutableSet.<String>of()));
+    }
+
+    @Test
+    public void testMultimapOmitsEmptyInputs() throws Exception {
+        Node<String> first = Node.of("+a");
+        Node<String> second = Node.of("");
+        BcrFlowGraph<String> graph = BcrFlowGraph.<String>builder()
+                .append(first).append(second).build();
+
+        DataFlowSolution<String, String> solution = forward(Confluence.UNION).solve(graph);
+
+        assertThat(solution.asMultimap().containsKey(first), equalTo(false));
+        assertThat(ImmutableSet.copyOf(solution.asMultimap().get(second)),
+                equalTo(ImmutableSet.of("a")));
+    }
+
+    private static DataFlowAnalyzer<String, String> forward(Confluence confluence) {
+        return new DataFlowAnalyzer<String, String>(
+                new TokenSpec(true, confluence, true, false));
+    }
+
+    /** A branch to one of two nodes, which then meet before a final node. */
+    private static final class Diamond {
+        private final BcrFlowGraph<String> graph;
+        private final Node<String> after = Node.of("");
+
+        public Diamond(String left, String right) {
+            Node<String> branch = Node.of("");
+            Node<String> leftNode = Node.of(left);
+            Node<String> rightNode = Node.of(right);
+            this.graph = BcrFlowGraph.<String>builder()
+                    .append(branch)
+                    .linkNonJumpBranch(branch, leftNode)
+                    .linkJumpBranch(branch, JumpType.JE, rightNode)
+                    .setEndToSinkFor(leftNode, rightNode)
+                    .append(after)
+                    .build();
+        }
+    }
+
+    /**
+     * Facts are names.  Each node's value lists the names it generates, like "+a", and the
+     * names it kills, like "-a".  "?a+b" generates b only if a is among the inputs.
+     */
+    private static final class TokenSpec implements AnalysisSpec<String, String> {
+        private final boolean isForward;
+        private final Confluence confluence;
+        private final boolean gensImmuneToKills;
+        private final boolean genDependsOnInputs;
+
+        public TokenSpec(boolean isForward, Confluence confluence, boolean gensImmuneToKills,
+                boolean genDependsOnInputs) {
+            this.isForward = isForward;
+            this.confluence = confluence;
+            this.gensImmuneToKills = gensImmuneToKills;
+            this.genDependsOnInputs = genDependsOnInputs;
+        }
+
+        @Override
+        public boolean isForward() {
+            return isForward;
+        }
+
+        @Override
+        public Set<String> getGenSet(Node<String> node, Collection<String> inputs) {
+            ImmutableSet.Builder<String> gens = ImmutableSet.builder();
+            for (String token : tokens(node)) {
+                if (token.startsWith("+")) {
+                    gens.add(token.substring(1));
+                } else if (token.startsWith("?")) {
+                    String[] parts = token.substring(1).split("\\+");
+                    if (inputs.contains(parts[0])) {
+                        gens.add(parts[1]);
+                    }
+                }
+            }
+            return gens.build();
+        }
+
+        @Override
+        public boolean genDependsOnInputs() {
+            return genDependsOnInputs;
+        }
+
+        @Override
+        public Predicate<String> getKillPredicate(Node<String> node) {
+            ImmutableSet.Builder<String> kills = ImmutableSet.builder();
+            for (String token : tokens(node)) {
+                if (token.startsWith("-")) {
+                    kills.add(token.substring(1));
+                }
+            }
+            Set<String> killed = kills.build();
+            return killed.isEmpty() ? Predicates.<String>alwaysFalse() : Predicates.in(killed);
+        }
+
+        @Override
+        public Confluence getConfluence() {
+            return confluence;
+        }
+
+        @Override
+        public boolean gensImmuneToKills() {
+            return gensImmuneToKills;
+        }
+
+        private static String[] tokens(Node<String> node) {
+            return node.hasValue() && !node.value().isEmpty()
+                    ? node.value().split(" ")
+                    : new String[0];
+        }
+    }
+}
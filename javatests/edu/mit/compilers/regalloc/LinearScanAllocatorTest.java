@@ -0,0 +1,168 @@
+package edu.mit.compilers.regalloc;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.junit.Assert.assertThat;
+
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+
+import edu.mit.compilers.ast.Assignment;
+import edu.mit.compilers.ast.BaseType;
+import edu.mit.compilers.ast.BinaryOperation;
+import edu.mit.compilers.ast.BinaryOperator;
+import edu.mit.compilers.ast.FieldDescriptor;
+import edu.mit.compilers.ast.IntLiteral;
+import edu.mit.compilers.ast.NativeExpression;
+import edu.mit.compilers.ast.ScalarLocation;
+import edu.mit.compilers.ast.Scope;
+import edu.mit.compilers.codegen.asm.Register;
+import edu.mit.compilers.codegen.dataflow.ScopedStatement;
+import edu.mit.compilers.common.Variable;
+import edu.mit.compilers.graph.BcrFlowGraph;
+import edu.mit.compilers.graph.Node;
+
+@RunWith(JUnit4.class)
+public class LinearScanAllocatorTest {
+
+    private static final int REGISTER_COUNT = RegisterAllocator.REGISTERS.size();
+
+    @Test
+    public void testOverlappingRangesGetDifferentRegisters() throws Exception {
+        Method method = new Method(2);
+        method.define(0).define(1).use(0, 1).use(1, 1);
+
+        Map<LiveRange, Register> allocations = LinearScanAllocator.allocations(method.build());
+
+        Register first = method.registerOf(0, allocations);
+        Register second = method.registerOf(1, allocations);
+        assertThat(first.equals(second), equalTo(false));
+    }
+
+    @Test
+    public void testDisjointRangesShareRegisters() throws Exception {
+        // More variables than registers, but each one's range ends before the next starts, so
+        // their registers are freed for reuse, and none goes without.
+        int count = REGISTER_COUNT + 1;
+        Method method = new Method(count);
+        for (int i = 0; i < count; i++) {
+            method.define(i).use(i, i);
+        }
+
+        Map<LiveRange, Register> allocations = LinearScanAllocator.allocations(method.build());
+
+        assertThat(allocations.size(), equalTo(count));
+        assertThat(ImmutableSet.copyOf(allocations.values()).size(), equalTo(REGISTER_COUNT));
+    }
+
+    @Test
+    public void testSpillsRangeThatEndsLast() throws Exception {
+        // One more variable than there are registers, all live at once.  The last one defined
+        // is also the last one used, so it's the one that goes without.
+        int count = REGISTER_COUNT + 1;
+        Method method = new Method(count);
+        for (int i = 0; i < count; i++) {
+            method.define(i);
+        }
+        for (int i = 0; i < count; i++) {
+            method.use(i, i);
+        }
+
+        BcrFlowGraph<ScopedStatement> graph = method.build();
+        Map<LiveRange, Register> allocations = LinearScanAllocator.allocations(graph);
+
+        assertThat(RegisterAllocator.liveRanges(graph).size(), equalTo(count));
+        ImmutableSet.Builder<Register> registers = ImmutableSet.builder();
+        for (int i = 0; i < REGISTER_COUNT; i++) {
+            registers.add(method.registerOf(i, allocations));
+        }
+        assertThat(registers.build().size(), equalTo(REGISTER_COUNT));
+        assertThat(method.registerOf(REGISTER_COUNT, allocations), equalTo((Register) null));
+    }
+
+    @Test
+    public void testSpillEvictsLongerActiveRange() throws Exception {
+        // Variable 0 is live across the whole method.  The rest are short, so when they run
+        // out of registers, variable 0 loses its register rather than the newcomer.
+        int count = REGISTER_COUNT + 1;
+        Method method = new Method(count);
+        for (int i = 0; i < count; i++) {
+            method.define(i);
+        }
+        for (int i = count - 1; i >= 0; i--) {
+            method.use(i, i);
+        }
+
+        Map<LiveRange, Register> allocations = LinearScanAllocator.allocations(method.build());
+
+        assertThat(method.registerOf(0, allocations), equalTo((Register) null));
+        for (int i = 1; i < count; i++) {
+            assertThat(method.registerOf(i, allocations) != null, equalTo(true));
+        }
+    }
+
+    /**
+     * A straight-line method over some local variables, v0, v1, and so on.
+     *
+     * <p>Each use is an assignment "vi = vi + vj", so it keeps vi live until its last use.
+     */
+    private static final class Method {
+        private final List<Variable> variables;
+        private final Scope scope;
+        private final BcrFlowGraph.Builder<ScopedStatement> builder = BcrFlowGraph.builder();
+
+        public Method(int variableCount) {
+            ImmutableList.Builder<Variable> variables = ImmutableList.builder();
+            ImmutableList.Builder<FieldDescriptor> fields = ImmutableList.builder();
+            for (int i = 0; i < variableCount; i++) {
+                Variable variable = Variable.forUser("v" + i);
+                variables.add(variable);
+                fields.add(new FieldDescriptor(variable, BaseType.INTEGER));
+            }
+            this.variables = variables.build();
+            Scope globals = new Scope(ImmutableList.<FieldDescriptor>of());
+            this.scope = new Scope(fields.build(), globals);
+        }
+
+        /** Append "vi = i". */
+        public Method define(int i) {
+            return append(i, new IntLiteral((long) i));
+        }
+
+        /** Append "vi = vi + vj". */
+        public Method use(int i, int j) {
+            return append(i, new BinaryOperation(BinaryOperator.PLUS, location(i), location(j)));
+        }
+
+        public BcrFlowGraph<ScopedStatement> build() {
+            return builder.build();
+        }
+
+        /** Get the register of a variable's live range, or null if it has none. */
+        public Register registerOf(int i, Map<LiveRange, Register> allocations) {
+            for (Map.Entry<LiveRange, Register> allocation : allocations.entrySet()) {
+                if (allocation.getKey().getScopedVariable().getVariable()
+                        .equals(variables.get(i))) {
+                    return allocation.getValue();
+                }
+            }
+            return null;
+        }
+
+        private Method append(int i, NativeExpression expression) {
+            builder.append(Node.of(new ScopedStatement(
+                    Assignment.compilerAssignment(location(i), expression), scope)));
+            return this;
+        }
+
+        private ScalarLocation location(int i) {
+            return new ScalarLocation(variables.get(i));
+        }
+    }
+}
@@ -1,3 +1,17 @@
 #!/bin/sh
 gitroot=$(git rev-parse --show-toplevel)
+
+# If a compile server is running (start one with
+# `java -jar dist/Compiler.jar --server=dist/compile-server.sock`),
+# forward to it instead of starting a cold JVM.
+socket=${DECAF_SERVER_SOCKET:-$gitroot/dist/compile-server.sock}
+if [ -S "$socket" ]; then
+    java -cp $gitroot/dist/Compiler.jar edu.mit.compilers.CompileClient "$socket" "$@"
+    status=$?
+    # 75 means no server was listening after all.
+    if [ $status -ne 75 ]; then
+        exit $status
+    fi
+fi
+
 java -jar $gitroot/dist/Compiler.jar "$@"
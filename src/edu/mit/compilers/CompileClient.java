@@ -0,0 +1,66 @@
+package edu.mit.compilers;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.StandardProtocolFamily;
+import java.net.UnixDomainSocketAddress;
+import java.nio.channels.Channels;
+import java.nio.channels.SocketChannel;
+import java.util.Arrays;
+
+/**
+ * Forwards one compilation to a running CompileServer.
+ *
+ * <p>Usage: CompileClient socket [compiler arguments...]
+ *
+ * <p>The client behaves like Main: it writes the compiler's output and errors to
+ * its own standard output and error, and exits with the compiler's status.  It
+ * only uses JDK classes, so it starts much faster than the compiler itself.
+ */
+public class CompileClient {
+
+    /**
+     * The exit status when no server is listening on the socket.
+     *
+     * <p>The caller can react by running the compiler directly.
+     */
+    public static final int NO_SERVER = 75;
+
+    public static void main(String[] args) throws IOException {
+        if (args.length == 0) {
+            System.err.println("Usage: CompileClient socket [compiler arguments...]");
+            System.exit(2);
+        }
+        String[] compilerArgs = Arrays.copyOfRange(args, 1, args.length);
+
+        SocketChannel connection;
+        try {
+            connection = SocketChannel.open(StandardProtocolFamily.UNIX);
+            connection.connect(UnixDomainSocketAddress.of(args[0]));
+        } catch (IOException e) {
+            System.exit(NO_SERVER);
+            return;
+        }
+
+        int status;
+        try {
+            // Like Main, only read standard input when there are no arguments.
+            byte[] input = compilerArgs.length == 0
+                    ? CompileProtocol.readFully(System.in)
+                    : new byte[0];
+            DataOutputStream out = new DataOutputStream(Channels.newOutputStream(connection));
+            CompileProtocol.writeRequest(out, System.getProperty("user.dir"), compilerArgs, input);
+
+            DataInputStream in = new DataInputStream(Channels.newInputStream(connection));
+            status = in.readInt();
+            System.out.write(CompileProtocol.readBytes(in));
+            System.out.flush();
+            System.err.write(CompileProtocol.readBytes(in));
+            System.err.flush();
+        } finally {
+            connection.close();
+        }
+        System.exit(status);
+    }
+}
@@ -0,0 +1,68 @@
+package edu.mit.compilers;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * The framing used between a CompileClient and a CompileServer.
+ *
+ * <p>Each connection carries exactly one request and one response.  A request
+ * is the client's working directory, its command-line arguments, and (only when
+ * there are no arguments) the contents of its standard input.  A response is
+ * the exit status, followed by everything the compilation wrote to standard
+ * output and standard error.
+ */
+final class CompileProtocol {
+
+    private CompileProtocol() {}
+
+    static void writeRequest(DataOutputStream out, String workingDirectory, String[] args,
+            byte[] input) throws IOException {
+        out.writeUTF(workingDirectory);
+        out.writeInt(args.length);
+        for (String arg : args) {
+            out.writeUTF(arg);
+        }
+        writeBytes(out, input);
+        out.flush();
+    }
+
+    static void writeResponse(DataOutputStream out, int status, byte[] output, byte[] error)
+            throws IOException {
+        out.writeInt(status);
+        writeBytes(out, output);
+        writeBytes(out, error);
+        out.flush();
+    }
+
+    static void writeBytes(DataOutputStream out, byte[] bytes) throws IOException {
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    static byte[] readBytes(DataInputStream in) throws IOException {
+        byte[] bytes = new byte[in.readInt()];
+        in.readFully(bytes);
+        return bytes;
+    }
+
+    static String[] readArgs(DataInputStream in) throws IOException {
+        String[] args = new String[in.readInt()];
+        for (int i = 0; i < args.length; i++) {
+            args[i] = in.readUTF();
+        }
+        return args;
+    }
+
+    static byte[] readFully(InputStream in) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        byte[] buffer = new byte[8192];
+        for (int read = in.read(buffer); read != -1; read = in.read(buffer)) {
+            bytes.write(buffer, 0, read);
+        }
+        return bytes.toByteArray();
+    }
+}
@@ -0,0 +1,99 @@
+package edu.mit.compilers;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.PrintStream;
+import java.net.StandardProtocolFamily;
+import java.net.UnixDomainSocketAddress;
+import java.nio.channels.Channels;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+/**
+ * A resident compiler that accepts compilations over a Unix domain socket.
+ *
+ * <p>Starting a JVM, loading ANTLR and Guava, and warming up the JIT often takes
+ * longer than compiling a small Decaf program.  The server pays those costs once,
+ * and then serves each CompileClient connection as if the client's arguments had
+ * been passed to Main.
+ *
+ * <p>Requests are served one at a time.  Each one gets its own System.in,
+ * System.out and System.err, and all compiler state is scoped to a single
+ * compilation, so one request cannot affect the output of the next.
+ */
+class CompileServer {
+
+    /** The Main option that starts a server on the named socket, e.g. --server=/tmp/dcf.sock */
+    static final String SERVER_OPTION = "--server=";
+
+    /** The status we reply with when a compilation dies, rather than returning one. */
+    private static final int FAILURE_STATUS = 1;
+
+    private CompileServer() {}
+
+    static void serve(String socketName) {
+        Path socketPath = Paths.get(socketName);
+        try {
+            // A socket file left by a server that died would make bind fail.
+            Files.deleteIfExists(socketPath);
+            try (ServerSocketChannel server = ServerSocketChannel.open(StandardProtocolFamily.UNIX)) {
+                server.bind(UnixDomainSocketAddress.of(socketPath));
+                socketPath.toFile().deleteOnExit();
+                while (true) {
+                    try (SocketChannel connection = server.accept()) {
+                        serveRequest(connection);
+                    } catch (IOException e) {
+                        // Just drop this client.  The next one may be fine.
+                        System.err.println("compile server: " + e);
+                    }
+                }
+            }
+        } catch (IOException e) {
+            System.err.println("compile server: " + e);
+            System.exit(1);
+        }
+    }
+
+    private static void serveRequest(SocketChannel connection) throws IOException {
+        DataInputStream in = new DataInputStream(Channels.newInputStream(connection));
+        File workingDirectory = new File(in.readUTF());
+        String[] args = CompileProtocol.readArgs(in);
+        byte[] input = CompileProtocol.readBytes(in);
+
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        ByteArrayOutputStream error = new ByteArrayOutputStream();
+        InputStream serverIn = System.in;
+        PrintStream serverOut = System.out;
+        PrintStream serverErr = System.err;
+        int status;
+        try {
+            System.setIn(new ByteArrayInputStream(input));
+            System.setOut(new PrintStream(output));
+            System.setErr(new PrintStream(error));
+            try {
+                status = Main.compile(args, workingDirectory);
+            } catch (RuntimeException | Error e) {
+                // One bad input, e.g. one that overflows the stack, mustn't kill the server.
+                System.err.println("compile server: " + e);
+                status = FAILURE_STATUS;
+            }
+            System.out.flush();
+            System.err.flush();
+        } finally {
+            System.setIn(serverIn);
+            System.setOut(serverOut);
+            System.setErr(serverErr);
+        }
+
+        DataOutputStream out = new DataOutputStream(Channels.newOutputStream(connection));
+        CompileProtocol.writeResponse(out, status, output.toByteArray(), error.toByteArray());
+    }
+}
@@ -1,8 +1,11 @@
 package edu.mit.compilers;
 
 import java.io.DataInputStream;
+import java.io.File;
+import java.io.FileNotFoundException;
 import java.io.InputStream;
 import java.io.PrintStream;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map.Entry;
 import java.util.Set;
@@ -11,17 +14,21 @@ import antlr.ASTFactory;
 import antlr.CharStreamException;
 import antlr.RecognitionException;
 import antlr.Token;
+import antlr.TokenStream;
 import antlr.TokenStreamException;
 import antlr.collections.AST;
 
 import com.google.common.base.Optional;
+import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSet;
+import com.google.common.io.Closeables;
 
 import edu.mit.compilers.ast.Method;
 import edu.mit.compilers.ast.NodeMaker;
 import edu.mit.compilers.ast.Program;
 import edu.mit.compilers.codegen.AssemblyWriter;
+import edu.mit.compilers.codegen.CompilationContext;
 import edu.mit.compilers.codegen.DataFlowIntRep;
 import edu.mit.compilers.codegen.Targets;
 import edu.mit.compilers.codegen.asm.Register;
@@ -33,8 +40,8 @@ import edu.mit.compilers.grammar.DecafScanner;
 import edu.mit.compilers.grammar.DecafScannerTokenTypes;
 import edu.mit.compilers.graph.DiGraph;
 import edu.mit.compilers.graph.FlowGraph;
+import edu.mit.compilers.regalloc.AllocationStrategy;
 import edu.mit.compilers.regalloc.LiveRange;
-import edu.mit.compilers.regalloc.RegisterAllocator;
 import edu.mit.compilers.semantics.ErrorPrinter;
 import edu.mit.compilers.semantics.SemanticChecker;
 import edu.mit.compilers.semantics.errors.SemanticError;
@@ -43,49 +50,127 @@ import edu.mit.compilers.tools.CLI;
 import edu.mit.compilers.tools.CLI.Action;
 import edu.mit.compilers.tools.DiGraphPrinter;
 import edu.mit.compilers.tools.FlowGraphPrinter;
+import edu.mit.compilers.tools.Profiler;
 
 class Main {
 
     private static final String MAIN_METHOD_NAME = "main";
 
     // TODO(jasonpr): Modify interface of CLI so we don't have to do this weird dance.
-    private static final String[] OPTIMIZATION_NAMES = {"cse", "conprop", "dce", "regalloc"};
+    private static final String[] OPTIMIZATION_NAMES =
+            {"inline", "cse", "pre", "conprop", "sccp", "licm", "ivsr", "bce", "copyprop", "dce",
+                "parallelize", "regalloc", "linearscan"};
+
+    /**
+     * Optimizations that --opt=all leaves out.
+     *
+     * <p>A parallelized program calls lib6035's thread functions, so it only links against a
+     * runtime that has them, and with -lpthread.  "linearscan" replaces the graph-coloring
+     * allocator that "regalloc" asks for, so it's only used when it's named.
+     */
+    private static final String[] OPT_IN_OPTIMIZATION_NAMES = {"parallelize", "linearscan"};
 
     public static void main(String[] args) {
+        if (args.length > 0 && args[0].startsWith(CompileServer.SERVER_OPTION)) {
+            CompileServer.serve(args[0].substring(CompileServer.SERVER_OPTION.length()));
+            return;
+        }
+        int status = compile(args, new File(System.getProperty("user.dir")));
+        if (status != 0) {
+            System.exit(status);
+        }
+    }
+
+    /**
+     * Perform one compilation, as described by command-line arguments.
+     *
+     * <p>Reads from System.in if there are no arguments, and writes to System.out
+     * unless an output file is given.  Relative file names are resolved against
+     * workingDirectory.
+     *
+     * @return The status with which a standalone compiler would have exited.
+     */
+    static int compile(String[] args, File workingDirectory) {
+        InputStream fileInputStream = null;
+        PrintStream fileOutputStream = null;
+        Profiler profiler = Profiler.disabled();
         try {
             // Setup in and out files.
-            CLI.parse(args, OPTIMIZATION_NAMES);
-            InputStream inputStream = args.length == 0 ?
-                    System.in : new java.io.FileInputStream(CLI.infile);
-            PrintStream outputStream = CLI.outfile == null ? System.out : new java.io.PrintStream(new java.io.FileOutputStream(CLI.outfile));
+            CLI.parse(args, OPTIMIZATION_NAMES, OPT_IN_OPTIMIZATION_NAMES);
+            if (CLI.target == Action.ABOUT) {
+                return 0;
+            }
+            if (CLI.profile != null) {
+                profiler = Profiler.enabled();
+            }
+            if (args.length > 0) {
+                fileInputStream =
+                        new java.io.FileInputStream(resolve(workingDirectory, CLI.infile));
+            }
+            InputStream inputStream = args.length == 0 ? System.in : fileInputStream;
+            if (CLI.outfile != null) {
+                fileOutputStream = new PrintStream(
+                        new java.io.FileOutputStream(resolve(workingDirectory, CLI.outfile)));
+            }
+            PrintStream outputStream = CLI.outfile == null ? System.out : fileOutputStream;
 
             // Parse or scan.
             if (CLI.target == Action.SCAN) {
-                scan(inputStream, outputStream);
+                return scan(inputStream, outputStream, profiler);
             } else if (CLI.target == Action.AST) {
-                printAst(inputStream, outputStream);
+                return printAst(inputStream, outputStream, profiler);
             } else if (CLI.target == Action.INTER) {
-                semanticCheck(inputStream, outputStream);
+                return semanticCheck(inputStream, outputStream, profiler);
             } else if (CLI.target == Action.CFG) {
-                controlFlowGraph(inputStream, outputStream, getOptimizations());
+                controlFlowGraph(inputStream, outputStream, getOptimizations(), profiler);
             } else if (CLI.target == Action.PARSE) {
-                parse(inputStream, outputStream);
+                return parse(inputStream, outputStream, profiler);
             } else if (CLI.target == Action.ASSEMBLY ||
                     CLI.target == Action.DEFAULT) {
-                genCode(inputStream, outputStream, getOptimizations());
+                return genCode(inputStream, outputStream, getOptimizations(), profiler);
             } else if (CLI.target == Action.DFG) {
-                dataFlowGraph(inputStream, outputStream, getOptimizations());
+                dataFlowGraph(inputStream, outputStream, getOptimizations(), profiler);
             } else if (CLI.target == Action.PRINT_OPTS) {
                 printOpts(outputStream, getOptimizations());
             } else if (CLI.target == Action.REG_DEBUG) {
-                regDebug(inputStream, outputStream, getOptimizations());
+                regDebug(inputStream, outputStream, getOptimizations(), profiler);
             } else if (CLI.target == Action.DOMINATE) {
-                printDominatorTree(inputStream,outputStream,getOptimizations());
+                printDominatorTree(inputStream,outputStream,getOptimizations(), profiler);
             }
         } catch(Exception e) {
             // An unrecoverable error occurred.
             System.err.println(CLI.infile+" "+e);
+            return 1;
+        } finally {
+            // A compile server runs many compilations, so it can't leak their files.
+            Closeables.closeQuietly(fileInputStream);
+            if (fileOutputStream != null) {
+                fileOutputStream.close();
+            }
+            if (CLI.profile != null) {
+                writeProfile(profiler, workingDirectory);
+            }
         }
+        return 0;
+    }
+
+    /** Write the profile report where --profile asked for it. */
+    private static void writeProfile(Profiler profiler, File workingDirectory) {
+        if (CLI.profile.isEmpty()) {
+            profiler.writeJson(System.err, CLI.infile);
+            return;
+        }
+        try (PrintStream profileStream = new PrintStream(
+                new java.io.FileOutputStream(resolve(workingDirectory, CLI.profile)))) {
+            profiler.writeJson(profileStream, CLI.infile);
+        } catch (FileNotFoundException e) {
+            System.err.println(CLI.profile + " " + e);
+        }
+    }
+
+    private static File resolve(File workingDirectory, String fileName) {
+        File file = new File(fileName);
+        return file.isAbsolute() ? file : new File(workingDirectory, fileName);
     }
 
     private static final Set<String> getOptimizations() {
@@ -99,12 +184,24 @@ class Main {
     }
 
     // TODO(jasonpr): Javadoc.
-    private static void scan(InputStream inputStream, PrintStream outputStream) throws CharStreamException {
+    private static int scan(InputStream inputStream, PrintStream outputStream, Profiler profiler)
+            throws CharStreamException {
+        Profiler.Phase phase = profiler.start("scan");
+        try {
+            return scan(inputStream, outputStream);
+        } finally {
+            phase.close();
+        }
+    }
+
+    /** Print the tokens of the program, and return 1 if any of them were malformed. */
+    private static int scan(InputStream inputStream, PrintStream outputStream) throws CharStreamException {
         DecafScanner scanner =
                 new DecafScanner(new DataInputStream(inputStream));
         scanner.setTrace(CLI.debug);
         Token token;
         boolean done = false;
+        boolean error = false;
         while (!done) {
             try {
                 for (token = scanner.nextToken();
@@ -137,44 +234,45 @@ class Main {
             } catch(Exception e) {
                 // print the error:
                 System.err.println(CLI.infile + " " + e);
+                error = true;
                 scanner.consume();
             }
         }
+        return error ? 1 : 0;
     }
 
     // TODO(jasonpr): Javadoc.
-    private static void parse(InputStream inputStream, PrintStream outputStream) throws RecognitionException, TokenStreamException {
-        DecafParser parser = programmedParser(inputStream, outputStream);
-        if(parser.getError()) {
-            System.exit(1);
-        }
+    private static int parse(InputStream inputStream, PrintStream outputStream, Profiler profiler) throws RecognitionException, TokenStreamException {
+        DecafParser parser = programmedParser(inputStream, outputStream, profiler);
+        return parser.getError() ? 1 : 0;
     }
 
     /** Print the AST that ANTLR generated for the program, in DOT format. */
-    private static void printAst(InputStream inputStream, PrintStream outputStream)
-            throws RecognitionException, TokenStreamException {
-        DecafParser parser = programmedParser(inputStream, outputStream);
+    private static int printAst(InputStream inputStream, PrintStream outputStream,
+            Profiler profiler) throws RecognitionException, TokenStreamException {
+        DecafParser parser = programmedParser(inputStream, outputStream, profiler);
         if (parser.getError()) {
-            System.exit(1);
+            return 1;
         }
         AST ast = parser.getAST();
         AstPrinter printer = new AstPrinter(outputStream);
         printer.print(ast);
+        return 0;
     }
 
-    private static void semanticCheck(InputStream inputStream, PrintStream outputStream)
-            throws RecognitionException, TokenStreamException {
-        Optional<Program> validProgram = semanticallyValidProgram(inputStream, outputStream);
-        if (!validProgram.isPresent()) {
-            System.exit(1);
-        }
+    private static int semanticCheck(InputStream inputStream, PrintStream outputStream,
+            Profiler profiler) throws RecognitionException, TokenStreamException {
+        Optional<Program> validProgram =
+                semanticallyValidProgram(inputStream, outputStream, profiler);
+        return validProgram.isPresent() ? 0 : 1;
     }
 
     /** Print the optimized Control Flow Graph to outputStream in DOT format. */
     private static void controlFlowGraph(InputStream inputStream, PrintStream outputStream,
-            Set<String> optimizationNames)
+            Set<String> optimizationNames, Profiler profiler)
                     throws RecognitionException, TokenStreamException {
-        Program validProgram = semanticallyValidProgram(inputStream, outputStream).get();
+        Program validProgram =
+                semanticallyValidProgram(inputStream, outputStream, profiler).get();
         ImmutableMap.Builder<String, Method> methodsBuilder = ImmutableMap.builder();
         for (Method method : validProgram.getMethods()) {
             methodsBuilder.put(method.getName(), method);
@@ -182,14 +280,16 @@ class Main {
         ImmutableMap<String, Method> methods = methodsBuilder.build();
         // TODO(jasonpr): Do it for everything, not just main.
         Method main = methods.get(MAIN_METHOD_NAME);
-        FlowGraph<Instruction> controlFlowGraph =
-                Targets.controlFlowGraph(main, optimizationNames);
+        FlowGraph<Instruction> controlFlowGraph = Targets.controlFlowGraph(main,
+                CompilationContext.of(validProgram, profiler), optimizationNames);
         FlowGraphPrinter.print(outputStream, controlFlowGraph);
     }
 
     private static void dataFlowGraph(InputStream inputStream, PrintStream outputStream,
-            Set<String> optimizationNames) throws RecognitionException, TokenStreamException {
-        Program validProgram = semanticallyValidProgram(inputStream, outputStream).get();
+            Set<String> optimizationNames, Profiler profiler)
+                    throws RecognitionException, TokenStreamException {
+        Program validProgram =
+                semanticallyValidProgram(inputStream, outputStream, profiler).get();
         ImmutableMap.Builder<String, Method> methodsBuilder = ImmutableMap.builder();
         for (Method method : validProgram.getMethods()) {
             methodsBuilder.put(method.getName(), method);
@@ -201,25 +301,33 @@ class Main {
         FlowGraphPrinter.print(outputStream, ir.getDataFlowGraph());
     }
 
-    private static void genCode(InputStream inputStream, PrintStream outputStream,
-            Set<String> optimizationNames) throws RecognitionException, TokenStreamException {
-        Optional<Program> programAST = semanticallyValidProgram(inputStream, outputStream);
+    private static int genCode(InputStream inputStream, PrintStream outputStream,
+            Set<String> optimizationNames, Profiler profiler)
+                    throws RecognitionException, TokenStreamException {
+        Optional<Program> programAST =
+                semanticallyValidProgram(inputStream, outputStream, profiler);
         if (!programAST.isPresent()) {
-            System.exit(1);
+            return 1;
         }
-        AssemblyWriter.writeAttAssembly(programAST.get(), outputStream, optimizationNames);
+        AssemblyWriter.writeAttAssembly(programAST.get(), outputStream, optimizationNames,
+                CLI.jobs, profiler);
+        return 0;
     }
 
     private static void regDebug(InputStream inputStream, PrintStream outputStream,
-            Set<String> optimizationNames) throws RecognitionException, TokenStreamException {
-        Program validProgram = semanticallyValidProgram(inputStream, outputStream).get();
+            Set<String> optimizationNames, Profiler profiler)
+                    throws RecognitionException, TokenStreamException {
+        Program validProgram =
+                semanticallyValidProgram(inputStream, outputStream, profiler).get();
 
+        AllocationStrategy allocator = Targets.allocationStrategy(optimizationNames)
+                .or(AllocationStrategy.GRAPH_COLORING);
         // Print out all allocations, over all methods.
         for (Method method : validProgram.getMethods()) {
             DataFlowIntRep ir =
                     Targets.optimizedDataFlowIntRep(method, optimizationNames);
             for (Entry<LiveRange, Register> entry :
-                    RegisterAllocator.allocations(ir.getDataFlowGraph()).entrySet()) {
+                    allocator.allocations(ir.getDataFlowGraph()).entrySet()) {
                 outputStream.printf("%s: (%s : %s)\n",
                         method.getName(),
                         entry.getKey().getScopedVariable(),
@@ -233,11 +341,13 @@ class Main {
      *
      * @param program The AST-like IR of the program to check.
      * @param outputStream A PrintStream to which errors should be printed.
+     * @param profiler Records the time spent in each semantic check.
      * @return Whether the program is semantically valid.
      */
-    private static boolean isSemanticallyValid(Program program, PrintStream outputStream) {
+    private static boolean isSemanticallyValid(Program program, PrintStream outputStream,
+            Profiler profiler) {
         // TODO(manny): Implement!
-        SemanticChecker sc = new SemanticChecker(program);
+        SemanticChecker sc = new SemanticChecker(program, profiler);
         List<SemanticError> errors = sc.checkProgram();
         if (errors.size() == 0) {
             return true;
@@ -254,19 +364,67 @@ class Main {
      *
      * <p>The returned parser might be in an error state.  This function does not react to any
      * parser errors.
+     *
+     * <p>The whole input is scanned before parsing starts, so that the two phases can be
+     * profiled separately.
      */
-    private static DecafParser programmedParser(InputStream inputStream, PrintStream outputStream)
-            throws RecognitionException, TokenStreamException {
+    private static DecafParser programmedParser(InputStream inputStream, PrintStream outputStream,
+            Profiler profiler) throws RecognitionException, TokenStreamException {
         DecafScanner scanner =
                 new DecafScanner(new DataInputStream(inputStream));
-        DecafParser parser = new DecafParser(scanner);
-        // Need a custom ASTFactory with replaced nodes to actually get line info
-        ASTFactory factory = new ASTFactory();
-        factory.setASTNodeClass(AntlrASTWithLines.class);
-        parser.setASTFactory(factory);
-        parser.setTrace(CLI.debug);
-        parser.program();
-        return parser;
+        ScannedTokens tokens;
+        Profiler.Phase scanPhase = profiler.start("scan");
+        try {
+            tokens = ScannedTokens.scan(scanner);
+        } finally {
+            scanPhase.close();
+        }
+        Profiler.Phase parsePhase = profiler.start("parse");
+        try {
+            DecafParser parser = new DecafParser(tokens);
+            // Need a custom ASTFactory with replaced nodes to actually get line info
+            ASTFactory factory = new ASTFactory();
+            factory.setASTNodeClass(AntlrASTWithLines.class);
+            parser.setASTFactory(factory);
+            parser.setTrace(CLI.debug);
+            parser.program();
+            return parser;
+        } finally {
+            parsePhase.close();
+        }
+    }
+
+    /** A token stream that replays the tokens of an entire input, after it has been scanned. */
+    private static class ScannedTokens implements TokenStream {
+        private final Iterator<Token> tokens;
+        private Token eof;
+
+        private ScannedTokens(List<Token> tokens) {
+            this.tokens = tokens.iterator();
+        }
+
+        static ScannedTokens scan(TokenStream scanner) throws TokenStreamException {
+            ImmutableList.Builder<Token> tokens = ImmutableList.builder();
+            Token token;
+            do {
+                token = scanner.nextToken();
+                tokens.add(token);
+            } while (token.getType() != Token.EOF_TYPE);
+            return new ScannedTokens(tokens.build());
+        }
+
+        @Override
+        public Token nextToken() {
+            if (tokens.hasNext()) {
+                Token token = tokens.next();
+                if (token.getType() == Token.EOF_TYPE) {
+                    eof = token;
+                }
+                return token;
+            }
+            // Like a scanner, keep reporting EOF once the input is exhausted.
+            return eof;
+        }
     }
 
     /**
@@ -275,17 +433,23 @@ class Main {
      * <p>Returns Optional.absent() for an invalid program.
      */
     private static Optional<Program>
-    semanticallyValidProgram(InputStream inputStream, PrintStream outputStream)
+    semanticallyValidProgram(InputStream inputStream, PrintStream outputStream, Profiler profiler)
             throws RecognitionException, TokenStreamException {
-        DecafParser parser = programmedParser(inputStream, outputStream);
+        DecafParser parser = programmedParser(inputStream, outputStream, profiler);
         if (parser.getError()) {
             // It didn't even parse!
             return Optional.absent();
         }
         AST ast = parser.getAST();
-        Program program = NodeMaker.program(ast);
+        Program program;
+        Profiler.Phase phase = profiler.start("make-ast");
+        try {
+            program = NodeMaker.program(ast);
+        } finally {
+            phase.close();
+        }
 
-        return isSemanticallyValid(program, outputStream)
+        return isSemanticallyValid(program, outputStream, profiler)
                 ? Optional.of(program)
                         : Optional.<Program>absent();
     }
@@ -298,9 +462,11 @@ class Main {
 
     private static void printDominatorTree(InputStream inputStream,
             PrintStream outputStream,
-            Set<String> optimizationNames) throws RecognitionException, TokenStreamException {
+            Set<String> optimizationNames,
+            Profiler profiler) throws RecognitionException, TokenStreamException {
 
-        Program validProgram = semanticallyValidProgram(inputStream, outputStream).get();
+        Program validProgram =
+                semanticallyValidProgram(inputStream, outputStream, profiler).get();
         ImmutableMap.Builder<String, Method> methodsBuilder = ImmutableMap.builder();
         for (Method method : validProgram.getMethods()) {
             methodsBuilder.put(method.getName(), method);
@@ -10,12 +10,20 @@ public class ArrayLocation implements Location {
     private final Variable variable;
     private final NativeExpression index;
     private final LocationDescriptor locationDescriptor;
+    /** Whether accesses exit the program if the index is out of bounds. */
+    private final boolean checksBounds;
     private final ExpressionType type = ExpressionType.ARRAY_LOCATION;
     
     public ArrayLocation(Variable variable, NativeExpression index,
             LocationDescriptor locationDescriptor) {
+        this(variable, index, true, locationDescriptor);
+    }
+
+    private ArrayLocation(Variable variable, NativeExpression index, boolean checksBounds,
+            LocationDescriptor locationDescriptor) {
         this.variable = variable;
         this.index = index;
+        this.checksBounds = checksBounds;
         this.locationDescriptor = locationDescriptor;
     }
     
@@ -41,6 +49,29 @@ public class ArrayLocation implements Location {
     public NativeExpression getIndex() {
         return index;
     }
+
+    /** Returns whether accessing this location checks that the index is in bounds first. */
+    public boolean checksBounds() {
+        return checksBounds;
+    }
+
+    /**
+     * Get a copy of this location that is accessed without a bounds check.
+     *
+     * <p>Only use it where the index has been proven to be in bounds.  Whether a location
+     * checks its bounds doesn't affect equality, since it doesn't change the value.
+     */
+    public ArrayLocation withoutBoundsCheck() {
+        return new ArrayLocation(variable, index, false, locationDescriptor);
+    }
+
+    /**
+     * Get a copy of this location with another index, which must always have the same value,
+     * like a folded copy of it.  The copy checks its bounds only if this location does.
+     */
+    public ArrayLocation withIndex(NativeExpression index) {
+        return new ArrayLocation(variable, index, checksBounds, locationDescriptor);
+    }
     
     public String asText() {
     	return variable.asText() + "[" + index.asText() + "]";
@@ -114,8 +145,6 @@ public class ArrayLocation implements Location {
         if (this.equals(toReplace)) {
             return replacement;
         }
-        return new ArrayLocation(variable,
-                index.withReplacements(toReplace, replacement),
-                locationDescriptor);
+        return withIndex(index.withReplacements(toReplace, replacement));
     }
 }
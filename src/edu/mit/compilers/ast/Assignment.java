@@ -90,7 +90,7 @@ public class Assignment extends StaticStatement {
         result = prime * result
                 + ((location == null) ? 0 : location.hashCode());
         result = prime * result
-                + ((operation == null) ? 0 : operation.hashCode());
+                + ((operation == null) ? 0 : operation.ordinal());
         return result;
     }
 
@@ -72,7 +72,7 @@ public class BinaryOperation implements NativeExpression {
         result = prime * result
                 + ((leftArgument == null) ? 0 : leftArgument.hashCode());
         result = prime * result
-                + ((operator == null) ? 0 : operator.hashCode());
+                + ((operator == null) ? 0 : operator.ordinal());
         result = prime * result
                 + ((rightArgument == null) ? 0 : rightArgument.hashCode());
         return result;
@@ -97,7 +97,7 @@ public class FieldDescriptor {
         int result = 1;
         result = prime * result + ((length == null) ? 0 : length.hashCode());
         result = prime * result + ((variable == null) ? 0 : variable.hashCode());
-        result = prime * result + ((type == null) ? 0 : type.hashCode());
+        result = prime * result + ((type == null) ? 0 : type.ordinal());
         return result;
     }
 
@@ -0,0 +1,67 @@
+package edu.mit.compilers.ast;
+
+import com.google.common.collect.ImmutableList;
+
+/**
+ * The address of a method, as passed to a callout that takes a function pointer.
+ *
+ * <p>Decaf has no syntax for these, so only the compiler makes them.
+ */
+public class MethodAddress implements GeneralExpression {
+    private final String methodName;
+    private final LocationDescriptor locationDescriptor;
+
+    public MethodAddress(String methodName, LocationDescriptor locationDescriptor) {
+        this.methodName = methodName;
+        this.locationDescriptor = locationDescriptor;
+    }
+
+    public MethodAddress(String methodName) {
+        this(methodName, LocationDescriptor.machineCode());
+    }
+
+    @Override
+    public Iterable<? extends GeneralExpression> getChildren() {
+        return ImmutableList.of();
+    }
+
+    @Override
+    public String getName() {
+        return "&" + methodName;
+    }
+
+    public String getMethodName() {
+        return methodName;
+    }
+
+    @Override
+    public LocationDescriptor getLocationDescriptor() {
+        return locationDescriptor;
+    }
+
+    @Override
+    public String asText() {
+        return getName();
+    }
+
+    @Override
+    public int hashCode() {
+        return methodName.hashCode();
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) {
+            return true;
+        }
+        if (!(obj instanceof MethodAddress)) {
+            return false;
+        }
+        return methodName.equals(((MethodAddress) obj).methodName);
+    }
+
+    @Override
+    public String toString() {
+        return "[" + asText() + "]";
+    }
+}
@@ -619,9 +619,7 @@ public class NodeMaker {
      */
     public static GeneralExpression generalExpression(AST methodCallArg) {
         if (methodCallArg.getType() == STRING) {
-            StringLiteral retVal = stringLiteral(methodCallArg);
-            StringLiteral.addString(retVal);
-            return retVal;
+            return stringLiteral(methodCallArg);
         } else {
             // Just delegate to the NativeExpression generator. If it's an
             // error, it will be reported there.
@@ -47,7 +47,7 @@ public class ReturnType implements Node {
     public int hashCode() {
         final int prime = 31;
         int result = 1;
-        result = prime * result + ((type == null) ? 0 : type.hashCode());
+        result = prime * result + ((type == null || !type.isPresent()) ? 0 : type.get().ordinal() + 1);
         return result;
     }
 
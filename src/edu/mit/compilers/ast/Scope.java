@@ -23,10 +23,6 @@ public class Scope {
         this.entries = new LinkedHashSet<FieldDescriptor>();
         for (FieldDescriptor var : variables) {
             addVariable(var);
-            // TODO(jasonpr): Ask xearim about this loop.  Hopefully we can elimate it.
-            if(var.getLength().isPresent()){
-                Architecture.CONTAINS_ARRAYS = true;
-            }
         }
         this.parent = parent;
         this.ofLoop = ofLoop;
@@ -1,22 +1,16 @@
 package edu.mit.compilers.ast;
 
-import java.util.ArrayList;
-import java.util.Collection;
-
 import com.google.common.collect.ImmutableList;
 
 public class StringLiteral implements GeneralExpression {
-	private static long stringIDGenerator = 0;
-	private static Collection<StringLiteral> stringLiteralSet = new ArrayList<StringLiteral>();
-
     private final String value;
     private final LocationDescriptor locationDescriptor;
-    private final long stringID;
+    private final String stringID;
 
     public StringLiteral(String value, LocationDescriptor locationDescriptor) {
         this.value = value;
         this.locationDescriptor = locationDescriptor;
-        this.stringID = stringIDGenerator++;
+        this.stringID = locationDescriptor.lineNo() + "_" + locationDescriptor.colNo();
     }
     
     @Override
@@ -33,16 +27,14 @@ public class StringLiteral implements GeneralExpression {
         return locationDescriptor;
     }
     
+    /**
+     * Get an ID that is unique among the string literals of a program.
+     *
+     * <p>The ID is derived from the literal's position in the source, so it does
+     * not depend on any state shared between compilations.
+     */
     public String getID() {
-    	return Long.toString(stringID);
-    }
-    
-    public static Iterable<StringLiteral> getStringLiterals() {
-    	return stringLiteralSet;
-    }
-    
-    public static void addString(StringLiteral sl) {
-    	stringLiteralSet.add(sl);
+    	return stringID;
     }
     
     public String asText() {
@@ -56,7 +48,7 @@ public class StringLiteral implements GeneralExpression {
     public int hashCode() {
         final int prime = 31;
         int result = 1;
-        result = prime * result + (int) (stringID ^ (stringID >>> 32));
+        result = prime * result + ((stringID == null) ? 0 : stringID.hashCode());
         result = prime * result + ((value == null) ? 0 : value.hashCode());
         return result;
     }
@@ -73,7 +65,11 @@ public class StringLiteral implements GeneralExpression {
             return false;
         }
         StringLiteral other = (StringLiteral) obj;
-        if (stringID != other.stringID) {
+        if (stringID == null) {
+            if (other.stringID != null) {
+                return false;
+            }
+        } else if (!stringID.equals(other.stringID)) {
             return false;
         }
         if (value == null) {
@@ -48,7 +48,7 @@ public class Type implements Node {
         final int prime = 31;
         int result = 1;
         result = prime * result
-                + ((baseType == null) ? 0 : baseType.hashCode());
+                + ((baseType == null) ? 0 : baseType.ordinal());
         result = prime * result + ((length == null) ? 0 : length.hashCode());
         return result;
     }
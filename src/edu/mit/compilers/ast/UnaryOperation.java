@@ -67,7 +67,7 @@ public class UnaryOperation implements NativeExpression {
         result = prime * result
                 + ((argument == null) ? 0 : argument.hashCode());
         result = prime * result
-                + ((operator == null) ? 0 : operator.hashCode());
+                + ((operator == null) ? 0 : operator.ordinal());
         return result;
     }
 
@@ -1,7 +1,16 @@
 package edu.mit.compilers.codegen;
 
+import java.io.ByteArrayOutputStream;
 import java.io.PrintStream;
+import java.util.List;
 import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+
+import com.google.common.base.Throwables;
+import com.google.common.collect.ImmutableList;
 
 import edu.mit.compilers.ast.FieldDescriptor;
 import edu.mit.compilers.ast.Method;
@@ -11,6 +20,7 @@ import edu.mit.compilers.codegen.asm.Architecture;
 import edu.mit.compilers.codegen.asm.Label;
 import edu.mit.compilers.codegen.asm.Label.LabelType;
 import edu.mit.compilers.common.Variable;
+import edu.mit.compilers.tools.Profiler;
 
 public class AssemblyWriter {
     private final static String METHODS_COMMENT = "// All methods.";
@@ -22,17 +32,55 @@ public class AssemblyWriter {
 
     public static void writeAttAssembly(Program program, PrintStream outputStream,
             Set<String> optimizationNames) {
+        writeAttAssembly(program, outputStream, optimizationNames, 1, Profiler.disabled());
+    }
+
+    /**
+     * Write the assembly for a program.
+     *
+     * <p>Methods are independent once the program has been checked, so with
+     * parallelism > 1 they are compiled concurrently.  They are always printed in
+     * source order.  Node hash codes are identity hashes, which change with the
+     * allocation order of the threads, so the graphs and the passes keep their
+     * collections in insertion order, rather than hash order.  That way the output
+     * doesn't depend on the parallelism, which tests/determinism checks.
+     *
+     * @param parallelism The number of methods that may be compiled at once.
+     * @param profiler Records the time and memory spent in each phase.
+     */
+    public static void writeAttAssembly(Program program, PrintStream outputStream,
+            Set<String> optimizationNames, int parallelism, Profiler profiler) {
+        program = Targets.optimizedProgram(program, optimizationNames, profiler);
+        CompilationContext context = CompilationContext.of(program, profiler);
+
         // Get one graph per method
         outputStream.println(METHODS_COMMENT);
-        for (Method method : program.getMethods()) {
-            methodPrinter(method,outputStream, optimizationNames);
+        if (parallelism > 1) {
+            for (String methodText :
+                    compiledInParallel(program, context, optimizationNames, parallelism)) {
+                outputStream.print(methodText);
+            }
+        } else {
+            for (Method method : program.getMethods()) {
+                methodPrinter(method, context, outputStream, optimizationNames);
+            }
         }
 
 
+        Profiler.Phase phase = profiler.start("emit");
+        try {
+            writeData(program, context, outputStream);
+        } finally {
+            phase.close();
+        }
+    }
+
+    private static void writeData(Program program, CompilationContext context,
+            PrintStream outputStream) {
         // Get all String Literals
         outputStream.println(STRINGS_COMMENT);
         outputStream.println(DATA_DECLARATION);
-        for (StringLiteral sl : StringLiteral.getStringLiterals()) {
+        for (StringLiteral sl : context.getStringLiterals()) {
             stringPrinter(sl, outputStream);
         }
 
@@ -43,21 +91,57 @@ public class AssemblyWriter {
         for (FieldDescriptor global : program.getGlobals().getVariables()){
             globalPrinter(global, outputStream);
         }
-        for (FieldDescriptor errorVar : Architecture.ERROR_VARIABLES.getVariables()){
-            errorVarPrinter(errorVar, outputStream);
+    }
+
+    /** Compile each method on a fork-join pool, and return their texts in source order. */
+    private static List<String> compiledInParallel(Program program,
+            final CompilationContext context, final Set<String> optimizationNames,
+            int parallelism) {
+        ForkJoinPool pool = new ForkJoinPool(parallelism);
+        try {
+            ImmutableList.Builder<Future<String>> futures = ImmutableList.builder();
+            for (final Method method : program.getMethods()) {
+                futures.add(pool.submit(new Callable<String>() {
+                    @Override
+                    public String call() {
+                        ByteArrayOutputStream methodText = new ByteArrayOutputStream();
+                        methodPrinter(method, context, new PrintStream(methodText),
+                                optimizationNames);
+                        return methodText.toString();
+                    }
+                }));
+            }
+            ImmutableList.Builder<String> methodTexts = ImmutableList.builder();
+            for (Future<String> future : futures.build()) {
+                methodTexts.add(future.get());
+            }
+            return methodTexts.build();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException(e);
+        } catch (ExecutionException e) {
+            throw Throwables.propagate(e.getCause());
+        } finally {
+            pool.shutdownNow();
         }
     }
 
-    private static void methodPrinter(Method method, PrintStream outputStream,
-            Set<String> optimizationNames) {
+    private static void methodPrinter(Method method, CompilationContext context,
+            PrintStream outputStream, Set<String> optimizationNames) {
         // TODO(jasonpr): Pass this through until we get to the point of
         // actually performing the optimizations.
         if (method.isMain()) {
             outputStream.println("\t.globl main");
         }
         outputStream.println(method.getName() + ":");
-        MethodBlockPrinter methodGraph = new MethodBlockPrinter(method, optimizationNames);
-        methodGraph.printStream(outputStream);
+        MethodBlockPrinter methodGraph =
+                new MethodBlockPrinter(method, context, optimizationNames);
+        Profiler.Phase phase = context.getProfiler().start("emit", method.getName());
+        try {
+            methodGraph.printStream(outputStream);
+        } finally {
+            phase.close();
+        }
         outputStream.println();
     }
 
@@ -75,12 +159,4 @@ public class AssemblyWriter {
                         ? fd.getLength().get().get64BitValue()
                         : GLOBAL_INITIAL_VALUE));
     }
-    
-    private static void errorVarPrinter(FieldDescriptor fd, PrintStream outputStream) {
-        outputStream.println(String.format("\t%s: .quad %d",
-                new Label(LabelType.GLOBAL, fd.getVariable()).inAttSyntax(),
-                (fd.getLength().isPresent())
-                ? fd.getLength().get().get64BitValue()
-                        : GLOBAL_INITIAL_VALUE));
-    }
 }
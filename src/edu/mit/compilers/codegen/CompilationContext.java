@@ -0,0 +1,100 @@
+package edu.mit.compilers.codegen;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+
+import edu.mit.compilers.ast.Block;
+import edu.mit.compilers.ast.FieldDescriptor;
+import edu.mit.compilers.ast.Method;
+import edu.mit.compilers.ast.Node;
+import edu.mit.compilers.ast.Program;
+import edu.mit.compilers.ast.Scope;
+import edu.mit.compilers.ast.StringLiteral;
+import edu.mit.compilers.tools.Profiler;
+
+/**
+ * Facts about a whole program that are needed while compiling its individual methods.
+ *
+ * <p>One context is made per compilation, and it is never modified afterward, so
+ * methods of the same program may be compiled concurrently.
+ */
+public class CompilationContext {
+
+    private final ImmutableMap<String, Method> methods;
+    private final ImmutableList<StringLiteral> stringLiterals;
+    private final boolean containsArrays;
+    private final Profiler profiler;
+
+    private CompilationContext(ImmutableMap<String, Method> methods,
+            ImmutableList<StringLiteral> stringLiterals, boolean containsArrays,
+            Profiler profiler) {
+        this.methods = methods;
+        this.stringLiterals = stringLiterals;
+        this.containsArrays = containsArrays;
+        this.profiler = profiler;
+    }
+
+    public static CompilationContext of(Program program) {
+        return of(program, Profiler.disabled());
+    }
+
+    public static CompilationContext of(Program program, Profiler profiler) {
+        ImmutableMap.Builder<String, Method> methods = ImmutableMap.builder();
+        ImmutableList.Builder<StringLiteral> stringLiterals = ImmutableList.builder();
+        boolean containsArrays = containsArrays(program.getGlobals());
+        for (Method method : program.getMethods()) {
+            methods.put(method.getName(), method);
+            containsArrays |= containsArrays(method.getParameters());
+            containsArrays |= collect(method, stringLiterals);
+        }
+        return new CompilationContext(
+                methods.build(), stringLiterals.build(), containsArrays, profiler);
+    }
+
+    /** Get the program's methods, by name.  Callouts are not included. */
+    public ImmutableMap<String, Method> getMethods() {
+        return methods;
+    }
+
+    /** Get all the string literals in the program, in source order. */
+    public ImmutableList<StringLiteral> getStringLiterals() {
+        return stringLiterals;
+    }
+
+    /** Return whether any scope in the program declares an array. */
+    public boolean containsArrays() {
+        return containsArrays;
+    }
+
+    /** Get the profiler that records this compilation's phases. */
+    public Profiler getProfiler() {
+        return profiler;
+    }
+
+    /**
+     * Add every string literal under 'node' to 'stringLiterals'.
+     *
+     * @return Whether any block under 'node' declares an array.
+     */
+    private static boolean collect(Node node, ImmutableList.Builder<StringLiteral> stringLiterals) {
+        boolean containsArrays = false;
+        if (node instanceof StringLiteral) {
+            stringLiterals.add((StringLiteral) node);
+        } else if (node instanceof Block) {
+            containsArrays = containsArrays(((Block) node).getScope());
+        }
+        for (Node child : node.getChildren()) {
+            containsArrays |= collect(child, stringLiterals);
+        }
+        return containsArrays;
+    }
+
+    private static boolean containsArrays(Scope scope) {
+        for (FieldDescriptor variable : scope.getVariables()) {
+            if (variable.isArray()) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -9,7 +9,8 @@ public class DataFlowIntRep {
     private final Scope scope;
 
     public DataFlowIntRep(BcrFlowGraph<ScopedStatement> dataFlowGraph, Scope scope) {
-        this.dataFlowGraph = dataFlowGraph;
+        // Every analysis walks this graph many times, so freeze it once, up front.
+        this.dataFlowGraph = dataFlowGraph.frozen();
         this.scope = scope;
     }
 
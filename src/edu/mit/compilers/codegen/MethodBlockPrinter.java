@@ -20,20 +20,20 @@ import edu.mit.compilers.graph.FlowGraph;
 import edu.mit.compilers.graph.Node;
 
 public class MethodBlockPrinter {
-    // We use a static unique identifier so that nodes in different methods have
-    // different ids.
-    // If we don't like having a static UniqueIdentifier, we could generate
-    // per-instance unique ids, and prepend a unique prefix like methodName
-    // to any generated values.
-    private static final UniqueIdentifier<Node<Instruction>> uniqueIdentifier =
+    // Ids are only unique within a method, so every label is prefixed with the
+    // method's name.  This keeps the labels of different methods distinct without
+    // any state shared between methods, which lets methods be printed concurrently.
+    private final UniqueIdentifier<Node<Instruction>> uniqueIdentifier =
             new UniqueIdentifier<Node<Instruction>>();
 
+    private final String methodName;
     private final FlowGraph<Instruction> methodGraph;
     private final Set<Node<Instruction>> multiSourced;
     private final Set<Node<Instruction>> visited = new HashSet<Node<Instruction>>();
 
-    MethodBlockPrinter(Method method, Set<String> optimizationNames) {
-        this.methodGraph = Targets.controlFlowGraph(method, optimizationNames);
+    MethodBlockPrinter(Method method, CompilationContext context, Set<String> optimizationNames) {
+        this.methodName = method.getName();
+        this.methodGraph = Targets.controlFlowGraph(method, context, optimizationNames);
         this.multiSourced = getMultiSourceNodes(this.methodGraph);
     }
 
@@ -41,21 +41,31 @@ public class MethodBlockPrinter {
         printNodeChain(methodGraph.getStart(), outputStream);
     }
 
+    /**
+     * Print the chain of nodes starting at currentNode, up to a node that has already
+     * been printed, or the end of the method.
+     *
+     * <p>Straight-line code and jump branches are followed iteratively, so the stack
+     * depth grows only with the nesting of non-jump branches, not with method length.
+     */
     private void printNodeChain(Node<Instruction> currentNode, PrintStream outputStream){
-        if(visited.contains(currentNode)){
-            // If we have already visited the node, it must be a label node, so we just want to jump to that label.
-            checkState(multiSourced.contains(currentNode));
-            outputStream.println(Instructions.jump(getMultiSourceLabel(currentNode)).inAttSyntax());
-            return;
-        }
-        visited.add(currentNode);
-        printDirectNode(currentNode, outputStream);
-        if (methodGraph.isBranch(currentNode)) {
-            printBranchingNode(currentNode, outputStream);
-        } else {
-            Collection<Node<Instruction>> successors = methodGraph.getSuccessors(currentNode);
-            if (!successors.isEmpty()) {
-                printNodeChain(Iterables.getOnlyElement(successors), outputStream);
+        while (true) {
+            if(visited.contains(currentNode)){
+                // If we have already visited the node, it must be a label node, so we just want to jump to that label.
+                checkState(multiSourced.contains(currentNode));
+                outputStream.println(Instructions.jump(getMultiSourceLabel(currentNode)).inAttSyntax());
+                return;
+            }
+            visited.add(currentNode);
+            printDirectNode(currentNode, outputStream);
+            if (methodGraph.isBranch(currentNode)) {
+                currentNode = printBranchingNode(currentNode, outputStream);
+            } else {
+                Collection<Node<Instruction>> successors = methodGraph.getSuccessors(currentNode);
+                if (successors.isEmpty()) {
+                    return;
+                }
+                currentNode = Iterables.getOnlyElement(successors);
             }
         }
     }
@@ -71,7 +81,12 @@ public class MethodBlockPrinter {
         }
     }
 
-    private void printBranchingNode(Node<Instruction> currentNode, PrintStream outputStream){
+    /**
+     * Print a branch, and the chain of its non-jump successor.
+     *
+     * @return The jump successor, whose chain the caller must print next.
+     */
+    private Node<Instruction> printBranchingNode(Node<Instruction> currentNode, PrintStream outputStream){
         Node<Instruction> nonJumpSuccessor= methodGraph.getNonJumpSuccessor(currentNode);
         Node<Instruction> jumpSuccessor = methodGraph.getJumpSuccessor(currentNode);
         // Figure out where to jump.
@@ -81,16 +96,18 @@ public class MethodBlockPrinter {
         printNodeChain(nonJumpSuccessor, outputStream);
         // Print the label for the false node, so we can jump to it.
         printLabel(jumpLabel, outputStream);
-        printNodeChain(jumpSuccessor, outputStream);
+        return jumpSuccessor;
     }
 
     private Label getJumpLabel(Node<Instruction> jumpNode){
         // The first node of a false node sequence should always be a writeLabel instruction
-        return new Label(LabelType.CONTROL_FLOW, uniqueIdentifier.getId(jumpNode) + "_false");
+        return new Label(LabelType.CONTROL_FLOW,
+                methodName + "_" + uniqueIdentifier.getId(jumpNode) + "_false");
     }
 
     private Label getMultiSourceLabel(Node<Instruction> node) {
-        return new Label(LabelType.CONTROL_FLOW, uniqueIdentifier.getId(node) +"_multi_source");
+        return new Label(LabelType.CONTROL_FLOW,
+                methodName + "_" + uniqueIdentifier.getId(node) + "_multi_source");
     }
 
     private void printLabel(Label label, PrintStream outputStream) {
@@ -5,9 +5,11 @@ import static com.google.common.base.Preconditions.checkArgument;
 import java.util.Map;
 import java.util.Set;
 
+import com.google.common.base.Optional;
 import com.google.common.collect.ImmutableMap;
 
 import edu.mit.compilers.ast.Method;
+import edu.mit.compilers.ast.Program;
 import edu.mit.compilers.ast.Scope;
 import edu.mit.compilers.ast.ScopeType;
 import edu.mit.compilers.codegen.asm.instructions.Instruction;
@@ -18,14 +20,26 @@ import edu.mit.compilers.graph.BasicFlowGraph;
 import edu.mit.compilers.graph.BcrFlowGraph;
 import edu.mit.compilers.graph.DiGraph;
 import edu.mit.compilers.graph.FlowGraph;
+import edu.mit.compilers.graph.FrozenFlowGraph;
 import edu.mit.compilers.graph.Node;
-import edu.mit.compilers.optimization.CommonExpressionEliminator;
 import edu.mit.compilers.optimization.ConstantPropagator;
+import edu.mit.compilers.optimization.CopyPropagator;
 import edu.mit.compilers.optimization.DataFlowOptimizer;
 import edu.mit.compilers.optimization.DeadCodeEliminator;
 import edu.mit.compilers.optimization.DominatorTreeGenerator;
+import edu.mit.compilers.optimization.GlobalValueNumberer;
+import edu.mit.compilers.optimization.PartialRedundancyEliminator;
 import edu.mit.compilers.optimization.PeepholeOptimizer;
+import edu.mit.compilers.optimization.ProgramOptimizer;
 import edu.mit.compilers.optimization.SubexpressionExpander;
+import edu.mit.compilers.optimization.inline.MethodInliner;
+import edu.mit.compilers.optimization.loops.BoundsCheckEliminator;
+import edu.mit.compilers.optimization.loops.InductionVariableReducer;
+import edu.mit.compilers.optimization.loops.LoopInvariantCodeMotion;
+import edu.mit.compilers.optimization.parallel.LoopParallelizer;
+import edu.mit.compilers.optimization.ssa.SparseConditionalConstantPropagator;
+import edu.mit.compilers.regalloc.AllocationStrategy;
+import edu.mit.compilers.tools.Profiler;
 
 /** Executes major, high-level compilation steps. */
 public class Targets {
@@ -35,46 +49,121 @@ public class Targets {
                     "sse", new SubexpressionExpander());
 
     private static final Map<String, DataFlowOptimizer> OPTIMIZERS =
-            ImmutableMap.<String, DataFlowOptimizer>of(
-                    "cse", new CommonExpressionEliminator(),
-                    "conprop", new ConstantPropagator(),
-                    "dce", new DeadCodeEliminator());
+            ImmutableMap.<String, DataFlowOptimizer>builder()
+                    .put("cse", new GlobalValueNumberer())
+                    .put("pre", new PartialRedundancyEliminator())
+                    .put("conprop", new ConstantPropagator())
+                    .put("sccp", new SparseConditionalConstantPropagator())
+                    .put("licm", new LoopInvariantCodeMotion())
+                    .put("ivsr", new InductionVariableReducer())
+                    .put("bce", new BoundsCheckEliminator())
+                    .put("copyprop", new CopyPropagator())
+                    .put("dce", new DeadCodeEliminator())
+                    .build();
+
+    /** Optimizations that work on the whole program at once, before it's split into methods. */
+    private static final Map<String, ProgramOptimizer> PROGRAM_OPTIMIZERS =
+            ImmutableMap.<String, ProgramOptimizer>of(
+                    "parallelize", new LoopParallelizer());
+
+    /** Apply every enabled whole-program optimization. */
+    public static Program optimizedProgram(Program program, Set<String> enabledOptimizations,
+            Profiler profiler) {
+        for (String optName : PROGRAM_OPTIMIZERS.keySet()) {
+            if (enabledOptimizations.contains(optName)) {
+                Profiler.Phase phase = profiler.start(optName);
+                try {
+                    program = PROGRAM_OPTIMIZERS.get(optName).optimized(program);
+                } finally {
+                    phase.close();
+                }
+            }
+        }
+        return program;
+    }
 
     public static DataFlowIntRep unoptimizedDataFlowIntRep(Method method) {
-        return asDataFlowIntRep(method);
+        return asDataFlowIntRep(method, Profiler.disabled());
     }
 
     public static DataFlowIntRep
     optimizedDataFlowIntRep(Method method, Set<String> dataflowOptimizations) {
-        return optimized(unoptimizedDataFlowIntRep(method), dataflowOptimizations);
+        return optimizedDataFlowIntRep(method, dataflowOptimizations, Profiler.disabled());
+    }
+
+    private static DataFlowIntRep optimizedDataFlowIntRep(Method method,
+            Set<String> dataflowOptimizations, Profiler profiler) {
+        return optimized(asDataFlowIntRep(method, profiler), method.getName(),
+                dataflowOptimizations, profiler);
     }
 
-    public static FlowGraph<Instruction>
-    controlFlowGraph(Method method, Set<String> dataflowOptimizations) {
+    public static FlowGraph<Instruction> controlFlowGraph(Method method,
+            CompilationContext context, Set<String> dataflowOptimizations) {
         // TODO(jasonpr): Rename dataflowOptimizations.  Not all optimizations
         // are dataflow optimizations!
-        boolean doRegAlloc = dataflowOptimizations.contains("regalloc");
-        return asControlFlowGraph(optimizedDataFlowIntRep(method, dataflowOptimizations),
-                method.getName(), method.isVoid(), method.getBlock().getMemorySize(), false);
+        Optional<AllocationStrategy> allocator = allocationStrategy(dataflowOptimizations);
+        Profiler profiler = context.getProfiler();
+        DataFlowIntRep ir = asDataFlowIntRep(method, profiler);
+        if (dataflowOptimizations.contains("inline")) {
+            // Inlining needs the other methods, so it can't be an ordinary DataFlowOptimizer.
+            // It goes first, so the other optimizations see the inlined code.
+            Profiler.Phase phase = profiler.start("inline", method.getName());
+            try {
+                ir = new MethodInliner(context.getMethods()).optimized(ir);
+            } finally {
+                phase.close();
+            }
+        }
+        return asControlFlowGraph(
+                optimized(ir, method.getName(), dataflowOptimizations, profiler),
+                method.getName(), method.isVoid(), method.getBlock().getMemorySize(),
+                context, allocator);
+    }
+
+    /**
+     * Gets the register allocator that the enabled optimizations ask for, if any.
+     *
+     * <p>"regalloc" colors a conflict graph.  "linearscan" asks for the linear scan
+     * allocator instead, which compiles big methods much faster.  "all" doesn't include
+     * "linearscan", so it has to be named to override "regalloc".
+     */
+    public static Optional<AllocationStrategy> allocationStrategy(
+            Set<String> enabledOptimizations) {
+        if (enabledOptimizations.contains("linearscan")) {
+            return Optional.of(AllocationStrategy.LINEAR_SCAN);
+        } else if (enabledOptimizations.contains("regalloc")) {
+            return Optional.of(AllocationStrategy.GRAPH_COLORING);
+        }
+        return Optional.absent();
     }
 
-    private static DataFlowIntRep asDataFlowIntRep(Method method) {
-        BcrFlowGraph<ScopedStatement> dataFlowGraph =
-                new BlockDataFlowFactory(method.getBlock()).getDataFlow().asDataFlowGraph();
-        return new DataFlowIntRep(dataFlowGraph, method.getBlock().getScope());
+    private static DataFlowIntRep asDataFlowIntRep(Method method, Profiler profiler) {
+        Profiler.Phase phase = profiler.start("dataflow-graph", method.getName());
+        try {
+            BcrFlowGraph<ScopedStatement> dataFlowGraph =
+                    new BlockDataFlowFactory(method.getBlock()).getDataFlow().asDataFlowGraph();
+            return new DataFlowIntRep(dataFlowGraph, method.getBlock().getScope());
+        } finally {
+            phase.close();
+        }
     }
 
     // TODO(jasonpr): Improve the interface!  This set of strings is ugly.
     // (It's an artifact of the strange interface that tools.CLI provides...
     // but we could easily do a better job of isolating that strangeness.
-    private static DataFlowIntRep optimized(DataFlowIntRep unoptimized, Set<String> enabledOptimizations) {
+    private static DataFlowIntRep optimized(DataFlowIntRep unoptimized, String methodName,
+            Set<String> enabledOptimizations, Profiler profiler) {
         DataFlowIntRep ir = unoptimized;
         
-        /*
         // Do dataflow preprocessing
         for (String optName : PREPROCESSING.keySet()) {
         	if (enabledOptimizations.contains(optName)) {
-        		ir = PREPROCESSING.get(optName).optimized(ir);
+        		Profiler.Phase phase = profiler.start(optName, methodName);
+        		try {
+        			ir = PREPROCESSING.get(optName).optimized(ir);
+        		} finally {
+        			phase.close();
+        		}
         	}
         }
         
@@ -82,21 +171,34 @@ public class Targets {
         // Do dataflow optimizations.
         for (String optName : OPTIMIZERS.keySet()) {
             if (enabledOptimizations.contains(optName)) {
-                ir = OPTIMIZERS.get(optName).optimized(ir);
+                Profiler.Phase phase = profiler.start(optName, methodName);
+                try {
+                    ir = OPTIMIZERS.get(optName).optimized(ir);
+                } finally {
+                    phase.close();
+                }
             }
-        }*/
+        }
         
         return ir;
 
     }
 
-    private static FlowGraph<Instruction> asControlFlowGraph(
-            DataFlowIntRep ir, String name, boolean isVoid, long memorySize, boolean doRegAlloc) {
-        FlowGraph<Instruction> cfg = new MethodGraphFactory(
-                ir.getDataFlowGraph(),name, isVoid, getMemorySize(ir, memorySize), doRegAlloc).getGraph();
-        PeepholeOptimizer finalOpt = new PeepholeOptimizer(cfg);
+    private static FlowGraph<Instruction> asControlFlowGraph(DataFlowIntRep ir, String name,
+            boolean isVoid, long memorySize, CompilationContext context,
+            Optional<AllocationStrategy> allocator) {
+        FlowGraph<Instruction> cfg = FrozenFlowGraph.copyOf(new MethodGraphFactory(
+                ir.getDataFlowGraph(), name, isVoid, getMemorySize(ir, memorySize), context,
+                allocator).getGraph());
         // Inject Peephole optimizations
-        return BasicFlowGraph.builderOf(finalOpt.optimize()).removeNops().build();
+        Profiler.Phase phase = context.getProfiler().start("peephole", name);
+        try {
+            PeepholeOptimizer finalOpt = new PeepholeOptimizer(cfg);
+            return FrozenFlowGraph.copyOf(
+                    BasicFlowGraph.builderOf(finalOpt.optimize()).removeNops().build());
+        } finally {
+            phase.close();
+        }
     }
     
     private static long getMemorySize(DataFlowIntRep ir, long original){
@@ -104,11 +206,13 @@ public class Targets {
     	for(Node<ScopedStatement> node : ir.getDataFlowGraph().getNodes()){
     		long nodeReq = 0;
     		if(node.hasValue()){
-    			Scope current = node.value().getScope();
-    			do{
-    				nodeReq += current.getScopeType() == ScopeType.GLOBAL ? 0 : current.size();
-    				current = current.getParent().isPresent() ? current.getParent().get() : null;
-    			}while(current != null && !current.equals(ir.getScope()));
+    			// Count every scope up to the globals, including the method's scope, and any
+    			// scopes that optimizers put between it and its children.
+    			for(Scope current : node.value().getScope().lineage()){
+    				if(current.getScopeType() != ScopeType.GLOBAL){
+    					nodeReq += current.size();
+    				}
+    			}
     		}
     		size = size < nodeReq ? nodeReq : size;
     	}
@@ -0,0 +1,64 @@
+package edu.mit.compilers.codegen.asm;
+
+import com.google.common.base.Optional;
+
+/**
+ * A memory operand in x86's full form: symbol + displacement + base + index * scale.
+ *
+ * <p>Any part may be missing.  As a Value it's the memory at the address.  LEA uses the address
+ * itself.
+ */
+public class Address implements Value {
+
+    private final Optional<Label> symbol;
+    private final long displacement;
+    private final Optional<Register> base;
+    private final Optional<Register> index;
+    private final long scale;
+
+    public Address(Optional<Label> symbol, long displacement, Optional<Register> base,
+            Optional<Register> index, long scale) {
+        this.symbol = symbol;
+        this.displacement = displacement;
+        this.base = base;
+        this.index = index;
+        this.scale = scale;
+    }
+
+    public Optional<Register> getBase() {
+        return base;
+    }
+
+    public Optional<Register> getIndex() {
+        return index;
+    }
+
+    @Override
+    public String inAttSyntax() {
+        StringBuilder syntax = new StringBuilder();
+        if (symbol.isPresent()) {
+            syntax.append(symbol.get().labelText());
+            if (displacement != 0) {
+                syntax.append(String.format("%+d", displacement));
+            }
+        } else if (displacement != 0 || (!base.isPresent() && !index.isPresent())) {
+            syntax.append(displacement);
+        }
+        if (base.isPresent() || index.isPresent()) {
+            syntax.append('(');
+            if (base.isPresent()) {
+                syntax.append(base.get().inAttSyntax());
+            }
+            if (index.isPresent()) {
+                syntax.append(',').append(index.get().inAttSyntax()).append(',').append(scale);
+            }
+            syntax.append(')');
+        }
+        return syntax.toString();
+    }
+
+    @Override
+    public String toString() {
+        return inAttSyntax();
+    }
+}
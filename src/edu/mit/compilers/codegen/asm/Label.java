@@ -10,6 +10,8 @@ public class Label implements Value {
         ERROR(".e_"),
         // The start of a method.  Has no prefix, for easy compatibility with callouts.
         METHOD(""),
+        // The address of a method, as a value rather than a jump target.
+        METHOD_ADDRESS(""),
         // An instruction inside a method.
         CONTROL_FLOW(".cf_"),
         // A string element
@@ -40,7 +42,7 @@ public class Label implements Value {
 
     @Override
     public String inAttSyntax() {
-        return type == LabelType.STRING
+        return type == LabelType.STRING || type == LabelType.METHOD_ADDRESS
                 ? "$" + labelText()
                 : labelText();
     }
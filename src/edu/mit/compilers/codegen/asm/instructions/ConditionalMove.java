@@ -0,0 +1,59 @@
+package edu.mit.compilers.codegen.asm.instructions;
+
+import edu.mit.compilers.ast.BinaryOperator;
+import edu.mit.compilers.codegen.asm.Register;
+
+/**
+ * A representation of the x86 CMOVcc instructions.
+ *
+ * <p>Moves the source into the target if the last comparison found that its left side stands in
+ * the relation to its right side.
+ */
+public class ConditionalMove extends Instruction {
+    private InstructionType type = InstructionType.CMOV;
+    private final BinaryOperator comparison;
+    private final Register source;
+    private final Register target;
+
+    public ConditionalMove(BinaryOperator comparison, Register source, Register target) {
+        this.comparison = comparison;
+        this.source = source;
+        this.target = target;
+    }
+
+    @Override
+    public String inAttSyntax() {
+        return mnemonic() + " " + source.inAttSyntax() + ", " + target.inAttSyntax();
+    }
+
+    private String mnemonic() {
+        switch (comparison) {
+            case DOUBLE_EQUALS:
+                return "cmove";
+            case GREATER_THAN:
+                return "cmovg";
+            case GREATER_THAN_OR_EQUAL:
+                return "cmovge";
+            case LESS_THAN:
+                return "cmovl";
+            case LESS_THAN_OR_EQUAL:
+                return "cmovle";
+            case NOT_EQUALS:
+                return "cmovne";
+            default:
+                throw new AssertionError("Unexpected comparison: " + comparison.getSymbol());
+        }
+    }
+
+    public BinaryOperator getComparison() {
+        return comparison;
+    }
+
+    public Register getSource() {
+        return source;
+    }
+
+    public Register getTarget() {
+        return target;
+    }
+}
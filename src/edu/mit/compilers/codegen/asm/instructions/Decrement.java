@@ -1,10 +1,9 @@
 package edu.mit.compilers.codegen.asm.instructions;
 
-import edu.mit.compilers.codegen.asm.Literal;
 import edu.mit.compilers.codegen.asm.Value;
 
 public class Decrement extends Instruction {
-    private InstructionType type = InstructionType.INC;
+    private InstructionType type = InstructionType.DEC;
     private final Value Argument;
 
     public Decrement(Value target) {
@@ -13,8 +12,7 @@ public class Decrement extends Instruction {
 
     @Override
     public String inAttSyntax() {
-    	// Inc is just a fancy wrapper for an addition of 1
-    	return Instructions.subtract(new Literal(1), Argument).inAttSyntax();
+        return "decq " + Argument.inAttSyntax();
     }
 
 	public Value getArgument() {
@@ -5,9 +5,11 @@ import edu.mit.compilers.codegen.asm.Architecture;
 public class Enter extends Instruction {
     private InstructionType type = InstructionType.ENTER;
     private final long entries;
+    private final boolean reserveArraySpace;
 
-    public Enter(long entries) {
+    public Enter(long entries, boolean reserveArraySpace) {
         this.entries = entries;
+        this.reserveArraySpace = reserveArraySpace;
     }
 
     @Override
@@ -18,6 +20,6 @@ public class Enter extends Instruction {
 
     private long getSize() {
         return Architecture.BYTES_PER_ENTRY * entries +
-                (Architecture.CONTAINS_ARRAYS ? Architecture.ARRAY_INIT_SIZE : 0);
+                (reserveArraySpace ? Architecture.ARRAY_INIT_SIZE : 0);
     }
 }
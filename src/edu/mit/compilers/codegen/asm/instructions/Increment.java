@@ -1,6 +1,5 @@
 package edu.mit.compilers.codegen.asm.instructions;
 
-import edu.mit.compilers.codegen.asm.Literal;
 import edu.mit.compilers.codegen.asm.Value;
 
 public class Increment extends Instruction {
@@ -13,8 +12,7 @@ public class Increment extends Instruction {
 
     @Override
     public String inAttSyntax() {
-    	// Inc is just a fancy wrapper for an addition of 1
-    	return Instructions.add(new Literal(1), Argument).inAttSyntax();
+        return "incq " + Argument.inAttSyntax();
     }
 
 	public Value getArgument() {
@@ -15,6 +15,8 @@ public enum InstructionType {
     CMPF ("CMPF"),
     // CMP comparison produces values
     CMP ("CMP"),
+    // CMOVcc conditional move, after a CMPF
+    CMOV ("CMOV"),
     AND ("AND"),
     OR ("OR"),
     // NEG two's complement negation
@@ -39,6 +41,8 @@ public enum InstructionType {
     // Unconditional Jump
     JMP ("JMP"),
     MOV ("MOV"),
+    // LEA load effective address
+    LEA ("LEA"),
     ENTER ("ENTER"),
     LEAVE ("LEAVE"),
     RET ("RETURN"),
@@ -1,6 +1,7 @@
 package edu.mit.compilers.codegen.asm.instructions;
 
 import edu.mit.compilers.ast.BinaryOperator;
+import edu.mit.compilers.codegen.asm.Address;
 import edu.mit.compilers.codegen.asm.Label;
 import edu.mit.compilers.codegen.asm.Label.LabelType;
 import edu.mit.compilers.codegen.asm.Literal;
@@ -91,11 +92,22 @@ public final class Instructions {
         return new Compare(cmp, lhs, rhs);
     }
     
+    /** Does "cmov(cmp) source, target", after a compareFlagged. */
+    public static Instruction conditionalMove(BinaryOperator cmp, Register source,
+            Register target) {
+        return new ConditionalMove(cmp, source, target);
+    }
+
     /** Does "mov reference, target". */
     public static Instruction move(Value reference, Value target) {
         return new Move(reference, target);
     }
 
+    /** Does "lea address, target". */
+    public static Instruction loadEffectiveAddress(Address address, Register target) {
+        return new LoadEffectiveAddress(address, target);
+    }
+
     public static Instruction movePointer(Label reference, Value target) {
         return new MovePointer(reference, target);
     }
@@ -133,10 +145,10 @@ public final class Instructions {
 
     /**
      * Does `enter $x, $0`. Calculated appropriately for a method with the specified number of
-     * entries.
+     * entries, in a program that does or does not contain arrays.
      */
-    public static Instruction enter(long entries){
-        return new Enter(entries);
+    public static Instruction enter(long entries, boolean containsArrays){
+        return new Enter(entries, containsArrays);
     }
     
     /** Does `leave` */
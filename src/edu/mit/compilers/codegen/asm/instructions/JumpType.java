@@ -15,7 +15,8 @@ public enum JumpType {
     JL("jl"), // signed less than
     JLE("jle"), // signed less than or equal
     JGE("jge"), // signed greater than or equal
-    JG("jg"); // signed greater than
+    JG("jg"), // signed greater than
+    JAE("jae"); // unsigned greater than or equal
     
     String name;
     
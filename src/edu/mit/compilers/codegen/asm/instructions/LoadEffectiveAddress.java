@@ -0,0 +1,34 @@
+package edu.mit.compilers.codegen.asm.instructions;
+
+import edu.mit.compilers.codegen.asm.Address;
+import edu.mit.compilers.codegen.asm.Register;
+
+/**
+ * A representation of the x86 LEA instruction.
+ *
+ * <p>Puts an address, rather than the memory there, into the target.  That makes it a
+ * three-operand add that can also scale one of its operands by 2, 4 or 8.
+ */
+public class LoadEffectiveAddress extends Instruction {
+    private InstructionType type = InstructionType.LEA;
+    private final Address address;
+    private final Register target;
+
+    public LoadEffectiveAddress(Address address, Register target) {
+        this.address = address;
+        this.target = target;
+    }
+
+    @Override
+    public String inAttSyntax() {
+        return "leaq " + address.inAttSyntax() + ", " + target.inAttSyntax();
+    }
+
+    public Address getAddress() {
+        return address;
+    }
+
+    public Register getTarget() {
+        return target;
+    }
+}
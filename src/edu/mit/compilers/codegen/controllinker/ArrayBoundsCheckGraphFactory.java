@@ -12,42 +12,77 @@ import edu.mit.compilers.graph.BasicFlowGraph;
 import edu.mit.compilers.graph.FlowGraph;
 import edu.mit.compilers.graph.Node;
 
+/**
+ * Exits the program unless an index is inside an array.
+ *
+ * <p>The index is either on top of the stack, where it's left, or in a register plus a constant
+ * bias, so that a[i + 1] can be checked without working out i + 1.
+ */
 public class ArrayBoundsCheckGraphFactory implements GraphFactory {
 
-    private final IntLiteral arrayLength;
+    private final long arrayLength;
+    private final Register index;
+    private final long bias;
+    private final boolean onStack;
 
+    /** Checks the index on top of the stack. */
     public ArrayBoundsCheckGraphFactory(IntLiteral arrayLength) {
-        this.arrayLength = arrayLength;
+        this.arrayLength = arrayLength.get64BitValue();
+        this.index = Register.R10;
+        this.bias = 0;
+        this.onStack = true;
+    }
+
+    /** Checks 'index + bias', without changing the register. */
+    public ArrayBoundsCheckGraphFactory(IntLiteral arrayLength, Register index, long bias) {
+        this.arrayLength = arrayLength.get64BitValue();
+        this.index = index;
+        this.bias = bias;
+        this.onStack = false;
     }
 
     @Override
     public FlowGraph<Instruction> getGraph() {
         BasicFlowGraph.Builder<Instruction> builder = BasicFlowGraph.builder();
-
-        // Set R10 to the requested index, and compare them.
-        builder.append(pop(Register.R10))
-                .append(compareFlagged(Register.R10, new Literal(arrayLength)));
-
-        // Exit if the index is too high.
-        Node<Instruction> upperBoundBranch = Node.nop();
+        if (onStack) {
+            builder.append(pop(index));
+        }
         FlowGraph<Instruction> errorExit =
                 new ErrorExitGraphFactory(Literal.ARRAY_OUT_OF_BOUNDS_EXIT).getGraph();
-        Node<Instruction> lowerBoundComparator =
-                Node.of(compareFlagged(Register.R10, new Literal(0)));
-        builder.append(upperBoundBranch)
-                .linkNonJumpBranch(upperBoundBranch, lowerBoundComparator)
-                .setEnd(lowerBoundComparator)
-                .linkJumpBranch(upperBoundBranch, JumpType.JGE, errorExit);
-
-        // Exit if the index is too low.  Otherwise, push the valid index back
-        // onto the stack.
-        Node<Instruction> lowerBoundBranch = Node.nop();
-        Node<Instruction> validPusher = Node.of(push(Register.R10));
-        builder.append(lowerBoundBranch)
-                .linkNonJumpBranch(lowerBoundBranch, validPusher)
-                .linkJumpBranch(lowerBoundBranch, JumpType.JL, errorExit.getStart())
-                .setEnd(validPusher);
 
+        if (bias == 0) {
+            // As an unsigned number, a negative index is too high, too.
+            Node<Instruction> branch = Node.nop();
+            Node<Instruction> inBounds = Node.nop();
+            builder.append(compareFlagged(index, new Literal(arrayLength)))
+                    .append(branch)
+                    .linkJumpBranch(branch, JumpType.JAE, errorExit)
+                    .linkNonJumpBranch(branch, inBounds)
+                    .setEnd(inBounds);
+        } else {
+            // Exit if the index is too high.
+            Node<Instruction> upperBoundBranch = Node.nop();
+            Node<Instruction> lowerBoundComparator =
+                    Node.of(compareFlagged(index, new Literal(-bias)));
+            builder.append(compareFlagged(index, new Literal(arrayLength - bias)))
+                    .append(upperBoundBranch)
+                    .linkNonJumpBranch(upperBoundBranch, lowerBoundComparator)
+                    .setEnd(lowerBoundComparator)
+                    .linkJumpBranch(upperBoundBranch, JumpType.JGE, errorExit);
+
+            // Exit if the index is too low.
+            Node<Instruction> lowerBoundBranch = Node.nop();
+            Node<Instruction> inBounds = Node.nop();
+            builder.append(lowerBoundBranch)
+                    .linkJumpBranch(lowerBoundBranch, JumpType.JL, errorExit.getStart())
+                    .linkNonJumpBranch(lowerBoundBranch, inBounds)
+                    .setEnd(inBounds);
+        }
+
+        if (onStack) {
+            // Push the valid index back onto the stack.
+            builder.append(push(index));
+        }
         return builder.build();
     }
 }
@@ -0,0 +1,167 @@
+package edu.mit.compilers.codegen.controllinker;
+
+import java.util.List;
+import java.util.Map;
+
+import com.google.common.base.Optional;
+
+import edu.mit.compilers.ast.ArrayLocation;
+import edu.mit.compilers.ast.BinaryOperation;
+import edu.mit.compilers.ast.BinaryOperator;
+import edu.mit.compilers.ast.IntLiteral;
+import edu.mit.compilers.ast.NativeExpression;
+import edu.mit.compilers.ast.Scope;
+import edu.mit.compilers.ast.ScopeType;
+import edu.mit.compilers.codegen.asm.Address;
+import edu.mit.compilers.codegen.asm.Architecture;
+import edu.mit.compilers.codegen.asm.Label;
+import edu.mit.compilers.codegen.asm.Label.LabelType;
+import edu.mit.compilers.codegen.asm.Register;
+import edu.mit.compilers.codegen.asm.instructions.Instruction;
+import edu.mit.compilers.graph.BasicFlowGraph;
+import edu.mit.compilers.graph.FlowGraph;
+import edu.mit.compilers.optimization.ScopedVariable;
+
+/**
+ * Works out the address of an array element, and checks its index on the way.
+ *
+ * <p>The address is a base + index * 8 + displacement operand, so the element can be read or
+ * written by any instruction that takes memory.  A constant added to the index is folded into
+ * the displacement: a[i + 1] only needs i in a register.  If i already lives in one, or the
+ * index is a constant inside the array, the graph evaluates nothing at all.
+ */
+public class ArrayElementGraphFactory implements GraphFactory {
+
+    /** The biggest constant we fold, so that the displacement still fits in 32 bits. */
+    private static final long MAX_FOLDED_CONSTANT = 1L << 27;
+
+    private final FlowGraph<Instruction> graph;
+    private final Address address;
+
+    /**
+     * Constructor.
+     *
+     * @param location The element.
+     * @param scope The scope the element is referenced in.
+     * @param allocations The registers that hold variables here.
+     * @param registers The registers that may be used to evaluate the index.
+     * @param check Whether to check the index against the array's bounds.
+     */
+    public ArrayElementGraphFactory(ArrayLocation location, Scope scope,
+            Map<ScopedVariable, Register> allocations, List<Register> registers, boolean check) {
+        BasicFlowGraph.Builder<Instruction> builder = BasicFlowGraph.builder();
+        Optional<NativeExpression> variablePart = variablePart(location, scope);
+        long constantPart = variablePart.isPresent() ? constantPart(location.getIndex()) : 0;
+        Optional<Register> index = Optional.absent();
+        if (variablePart.isPresent()) {
+            index = RegisterExprGraphFactory.registerHolding(variablePart.get(), scope, allocations);
+            if (!index.isPresent()) {
+                RegisterExprGraphFactory evaluator = new RegisterExprGraphFactory(
+                        variablePart.get(), scope, allocations, registers);
+                builder.append(evaluator.getGraph());
+                index = Optional.of(evaluator.getResult());
+            }
+            if (check && location.checksBounds()) {
+                builder.append(new ArrayBoundsCheckGraphFactory(
+                        length(location, scope), index.get(), constantPart).getGraph());
+            }
+        } else {
+            constantPart = ((IntLiteral) location.getIndex()).get64BitValue();
+        }
+        this.graph = builder.build();
+        this.address = address(location, scope, index, constantPart);
+    }
+
+    /** Gets the address of the element, which is only valid right after the graph. */
+    public Address getAddress() {
+        return address;
+    }
+
+    @Override
+    public FlowGraph<Instruction> getGraph() {
+        return graph;
+    }
+
+    /**
+     * Gets the part of an element's index that the graph evaluates into a register, if any.
+     *
+     * <p>That's all the work there is, besides the bounds check.
+     */
+    static Optional<NativeExpression> computedIndex(ArrayLocation location, Scope scope,
+            Map<ScopedVariable, Register> allocations) {
+        Optional<NativeExpression> variablePart = variablePart(location, scope);
+        if (!variablePart.isPresent()
+                || RegisterExprGraphFactory.registerHolding(variablePart.get(), scope, allocations)
+                        .isPresent()) {
+            return Optional.absent();
+        }
+        return variablePart;
+    }
+
+    /**
+     * Gets the index without its constant term, or absent if it's a constant inside the array.
+     *
+     * <p>A constant outside the array is returned whole, so that it's checked when we run.
+     */
+    private static Optional<NativeExpression> variablePart(ArrayLocation location, Scope scope) {
+        NativeExpression index = location.getIndex();
+        if (index instanceof IntLiteral) {
+            long value = ((IntLiteral) index).get64BitValue();
+            return value >= 0 && value < length(location, scope).get64BitValue()
+                    ? Optional.<NativeExpression>absent()
+                    : Optional.of(index);
+        }
+        if (constantPart(index) == 0) {
+            return Optional.of(index);
+        }
+        BinaryOperation binOp = (BinaryOperation) index;
+        return Optional.of(binOp.getRightArgument() instanceof IntLiteral
+                ? binOp.getLeftArgument()
+                : binOp.getRightArgument());
+    }
+
+    /** Gets the constant that an index adds to its variable part, like the 1 in i + 1. */
+    private static long constantPart(NativeExpression index) {
+        if (!(index instanceof BinaryOperation)) {
+            return 0;
+        }
+        BinaryOperation binOp = (BinaryOperation) index;
+        long constant;
+        if (binOp.getOperator() == BinaryOperator.PLUS
+                && binOp.getRightArgument() instanceof IntLiteral) {
+            constant = ((IntLiteral) binOp.getRightArgument()).get64BitValue();
+        } else if (binOp.getOperator() == BinaryOperator.PLUS
+                && binOp.getLeftArgument() instanceof IntLiteral) {
+            constant = ((IntLiteral) binOp.getLeftArgument()).get64BitValue();
+        } else if (binOp.getOperator() == BinaryOperator.MINUS
+                && binOp.getRightArgument() instanceof IntLiteral) {
+            constant = -((IntLiteral) binOp.getRightArgument()).get64BitValue();
+        } else {
+            return 0;
+        }
+        return Math.abs(constant) < MAX_FOLDED_CONSTANT ? constant : 0;
+    }
+
+    private static IntLiteral length(ArrayLocation location, Scope scope) {
+        // If these get()s fail, our semantic checker is broken.
+        return scope.getFromScope(location.getVariable()).get().getLength().get();
+    }
+
+    private static Address address(ArrayLocation location, Scope scope, Optional<Register> index,
+            long constantPart) {
+        long displacement = constantPart * Architecture.WORD_SIZE;
+        ScopeType scopeType = scope.getLocation(location.getVariable()).getScopeType();
+        if (scopeType == ScopeType.LOCAL) {
+            // Locals are found by offsetting from RBP.
+            displacement -= scope.offsetFromBasePointer(location.getVariable())
+                    * Architecture.WORD_SIZE;
+            return new Address(Optional.<Label>absent(), displacement, Optional.of(Register.RBP),
+                    index, Architecture.WORD_SIZE);
+        } else if (scopeType == ScopeType.GLOBAL) {
+            return new Address(Optional.of(new Label(LabelType.GLOBAL, location.getVariable())),
+                    displacement, Optional.<Register>absent(), index, Architecture.WORD_SIZE);
+        } else {
+            throw new AssertionError("Unexpected ScopeType for array: " + scopeType);
+        }
+    }
+}
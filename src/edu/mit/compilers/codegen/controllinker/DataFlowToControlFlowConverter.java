@@ -1,8 +1,14 @@
 package edu.mit.compilers.codegen.controllinker;
 
 import java.util.Map;
+import java.util.Set;
 
+import com.google.common.base.Optional;
+import com.google.common.base.Preconditions;
 import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Iterables;
+import com.google.common.collect.Maps;
 import com.google.common.collect.ImmutableTable;
 import com.google.common.collect.Table;
 
@@ -14,23 +20,34 @@ import edu.mit.compilers.ast.Scope;
 import edu.mit.compilers.ast.Statement;
 import edu.mit.compilers.codegen.asm.Register;
 import edu.mit.compilers.codegen.asm.instructions.Instruction;
+import edu.mit.compilers.codegen.asm.instructions.JumpType;
 import edu.mit.compilers.codegen.controllinker.statements.AssignmentGraphFactory;
 import edu.mit.compilers.codegen.controllinker.statements.CompareGraphFactory;
+import edu.mit.compilers.codegen.controllinker.statements.MethodCallStatementGraphFactory;
 import edu.mit.compilers.codegen.controllinker.statements.ReturnStatementGraphFactory;
 import edu.mit.compilers.codegen.dataflow.ScopedStatement;
 import edu.mit.compilers.graph.BasicFlowGraph;
 import edu.mit.compilers.graph.BcrFlowGraph;
 import edu.mit.compilers.graph.FlowGraph;
 import edu.mit.compilers.graph.Node;
+import edu.mit.compilers.optimization.DataFlowAnalyzer;
+import edu.mit.compilers.optimization.DataFlowSolution;
 import edu.mit.compilers.optimization.ScopedVariable;
+import edu.mit.compilers.optimization.Util;
+import edu.mit.compilers.regalloc.DefUseChain;
 import edu.mit.compilers.regalloc.LiveRange;
+import edu.mit.compilers.regalloc.LiveScalarSpec;
 
 public class DataFlowToControlFlowConverter {
 
+    private static final DataFlowAnalyzer<ScopedStatement, ScopedVariable> LIVE_SCALARS =
+            new DataFlowAnalyzer<ScopedStatement, ScopedVariable>(new LiveScalarSpec());
+
     public static BcrFlowGraph<Instruction> convert(BcrFlowGraph<ScopedStatement> dataFlowGraph,
             Map<LiveRange, Register> allocations) {
+        Map<Node<ScopedStatement>, JumpType> jumpTypes = Maps.newHashMap();
         Map<Node<ScopedStatement>, FlowGraph<Instruction>> expansions =
-                expansions(dataFlowGraph, allocations);
+                expansions(dataFlowGraph, allocations, jumpTypes);
 
         BcrFlowGraph.Builder<Instruction> cfgBuilder = BcrFlowGraph.builder();
 
@@ -49,8 +66,10 @@ public class DataFlowToControlFlowConverter {
                 if (sink.equals(dataFlowGraph.getNonJumpSuccessor(node))) {
                     cfgBuilder.linkNonJumpBranch(nodeExpansionEnd, sinkExpansionStart);
                 } else if (sink.equals(dataFlowGraph.getJumpSuccessor(node))) {
-                    cfgBuilder.linkJumpBranch(
-                            nodeExpansionEnd, dataFlowGraph.getJumpType(node), sinkExpansionStart);
+                    JumpType jumpType = jumpTypes.containsKey(node)
+                            ? jumpTypes.get(node)
+                            : dataFlowGraph.getJumpType(node);
+                    cfgBuilder.linkJumpBranch(nodeExpansionEnd, jumpType, sinkExpansionStart);
                 } else {
                     throw new AssertionError(
                             "Branch successor is neither the jump successor "
@@ -73,18 +92,69 @@ public class DataFlowToControlFlowConverter {
         return cfgBuilder.build();
     }
 
+    /**
+     * Expands each node into instructions.
+     *
+     * <p>A condition's instructions may leave its result in the flags, rather than in a
+     * register, so the jump for the branch after each condition is put in 'jumpTypes'.
+     */
     private static Map<Node<ScopedStatement>, FlowGraph<Instruction>> expansions(
-            BcrFlowGraph<ScopedStatement> dataFlowGraph, Map<LiveRange, Register> allocations) {
+            BcrFlowGraph<ScopedStatement> dataFlowGraph, Map<LiveRange, Register> allocations,
+            Map<Node<ScopedStatement>, JumpType> jumpTypes) {
         Table<Node<ScopedStatement>, ScopedVariable, Register> allocationTable =
                 allocationTable(allocations);
+        DataFlowSolution<ScopedStatement, ScopedVariable> liveOuts =
+                LIVE_SCALARS.solve(dataFlowGraph);
         ImmutableMap.Builder<Node<ScopedStatement>, FlowGraph<Instruction>> expansions =
                 ImmutableMap.builder();
         for (Node<ScopedStatement> node : dataFlowGraph.getNodes()) {
-            expansions.put(node, expansion(node, allocationTable.row(node)));
+            Map<ScopedVariable, Register> nodeAllocations = allocationTable.row(node);
+            if (containsMethodCall(node)) {
+                nodeAllocations = Maps.newHashMap(nodeAllocations);
+                nodeAllocations.putAll(liveParameterRegisters(node, liveOuts));
+            }
+            expansions.put(node, expansion(node, nodeAllocations));
+            if (isCondition(node)) {
+                // The branch is the nop right after the condition.
+                Node<ScopedStatement> branch =
+                        Iterables.getOnlyElement(dataFlowGraph.getSuccessors(node));
+                Preconditions.checkState(dataFlowGraph.isBranch(branch));
+                CompareGraphFactory comparator = new CompareGraphFactory(
+                        (Condition) node.value().getStatement(), node.value().getScope(),
+                        nodeAllocations);
+                jumpTypes.put(branch, comparator.getJumpType(dataFlowGraph.getJumpType(branch)));
+            }
         }
         return expansions.build();
     }
 
+    private static boolean containsMethodCall(Node<ScopedStatement> node) {
+        return node.hasValue() && node.value().getStatement().hasExpression()
+                && Util.containsMethodCall(node.value().getStatement().getExpression());
+    }
+
+    /**
+     * Gets the parameters that a node's calls must not lose, and the registers they arrived in.
+     *
+     * <p>A call clobbers every argument register, so the caller must save the ones whose
+     * parameters are read later, in this node or after it.  The rest needn't survive.
+     */
+    private static Map<ScopedVariable, Register> liveParameterRegisters(
+            Node<ScopedStatement> node, DataFlowSolution<ScopedStatement, ScopedVariable> liveOuts) {
+        Set<ScopedVariable> live = ImmutableSet.<ScopedVariable>builder()
+                .addAll(liveOuts.getInputs(node))
+                .addAll(DefUseChain.localScalarDependencies(node.value()))
+                .build();
+        ImmutableMap.Builder<ScopedVariable, Register> registers = ImmutableMap.builder();
+        for (ScopedVariable variable : live) {
+            Optional<Register> register = RegisterSaver.parameterRegister(variable);
+            if (register.isPresent()) {
+                registers.put(variable, register.get());
+            }
+        }
+        return registers.build();
+    }
+
     private static FlowGraph<Instruction>
             expansion(Node<ScopedStatement> node, Map<ScopedVariable, Register> nodeAllocations) {
         if (!node.hasValue()) {
@@ -100,7 +170,8 @@ public class DataFlowToControlFlowConverter {
         } else if (statement instanceof Condition) {
             return new CompareGraphFactory((Condition) statement, scope, nodeAllocations).getGraph();
         } else if (statement instanceof MethodCall) {
-            return new MethodCallGraphFactory((MethodCall) statement, scope, nodeAllocations).getGraph();
+            return new MethodCallStatementGraphFactory((MethodCall) statement, scope, nodeAllocations)
+                    .getGraph();
         } else if (statement instanceof ReturnStatement) {
             return new ReturnStatementGraphFactory((ReturnStatement) statement, scope, nodeAllocations).getGraph();
         } else {
@@ -109,6 +180,10 @@ public class DataFlowToControlFlowConverter {
         }
     }
 
+    private static boolean isCondition(Node<ScopedStatement> node) {
+        return node.hasValue() && node.value().getStatement() instanceof Condition;
+    }
+
     private static Table<Node<ScopedStatement>, ScopedVariable, Register>
             allocationTable(Map<LiveRange, Register> allocations) {
         ImmutableTable.Builder<Node<ScopedStatement>, ScopedVariable, Register> builder =
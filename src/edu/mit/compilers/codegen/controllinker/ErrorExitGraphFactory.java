@@ -1,20 +1,25 @@
 package edu.mit.compilers.codegen.controllinker;
 
-import static edu.mit.compilers.codegen.asm.instructions.Instructions.compareFlagged;
+import static edu.mit.compilers.codegen.asm.instructions.Instructions.and;
+import static edu.mit.compilers.codegen.asm.instructions.Instructions.call;
 import static edu.mit.compilers.codegen.asm.instructions.Instructions.move;
-import static edu.mit.compilers.codegen.asm.instructions.Instructions.pop;
-import static edu.mit.compilers.codegen.asm.instructions.Instructions.ret;
-import edu.mit.compilers.codegen.asm.Architecture;
 import edu.mit.compilers.codegen.asm.Literal;
-import edu.mit.compilers.codegen.asm.Location;
 import edu.mit.compilers.codegen.asm.Register;
 import edu.mit.compilers.codegen.asm.instructions.Instruction;
-import edu.mit.compilers.codegen.asm.instructions.JumpType;
 import edu.mit.compilers.graph.BasicFlowGraph;
 import edu.mit.compilers.graph.FlowGraph;
-import edu.mit.compilers.graph.Node;
 
+/**
+ * A GraphFactory that ends the program with some exit value.
+ *
+ * <p>It exits through the C library instead of unwinding to main's frame, because a method
+ * that runs on a thread of its own has no frame of main's beneath it.
+ */
 public class ErrorExitGraphFactory implements GraphFactory {
+    private static final String EXIT_METHOD_NAME = "exit";
+    /** exit may use vector instructions, which need the stack to be 16-byte aligned. */
+    private static final Literal STACK_ALIGNMENT_MASK = new Literal(-16);
+
     private final Literal exitValue;
 
     public ErrorExitGraphFactory(Literal exitValue) {
@@ -23,23 +28,10 @@ public class ErrorExitGraphFactory implements GraphFactory {
 
     @Override
     public FlowGraph<Instruction> getGraph() {
-        // We need to be able to identify these nodes for the loop.
-        Node<Instruction> compareBasePointer = Node.of(compareFlagged(Register.RBP, Register.R10));
-        Node<Instruction> cleanMethodScope = Node.of(
-                move(new Location(Register.RBP, 0*Architecture.BYTES_PER_ENTRY), Register.RBP));
-        Node<Instruction> exitNop = Node.nop();
-
-        BasicFlowGraph.Builder<Instruction> builder = BasicFlowGraph.builder();
-        return builder.append(move(Architecture.MAIN_BASE_POINTER_ERROR_VARIABLE, Register.R10))
-                .append(compareBasePointer)
-                .linkNonJumpBranch(compareBasePointer, cleanMethodScope)
-                .linkJumpBranch(compareBasePointer, JumpType.JE, exitNop)
-                .link(cleanMethodScope, compareBasePointer)  // Connect the back edge.
-                .setEnd(exitNop)
-                .append(move(Register.RBP, Register.RSP))
-                .append(pop(Register.RBP))
-                .append(move(exitValue, Register.RAX))
-                .append(ret())
+        return BasicFlowGraph.<Instruction>builder()
+                .append(move(exitValue, Register.RDI))
+                .append(and(STACK_ALIGNMENT_MASK, Register.RSP))
+                .append(call(EXIT_METHOD_NAME))
                 .build();
     }
 }
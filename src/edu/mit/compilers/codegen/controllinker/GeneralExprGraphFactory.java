@@ -3,6 +3,7 @@ package edu.mit.compilers.codegen.controllinker;
 import java.util.Map;
 
 import edu.mit.compilers.ast.GeneralExpression;
+import edu.mit.compilers.ast.MethodAddress;
 import edu.mit.compilers.ast.NativeExpression;
 import edu.mit.compilers.ast.Scope;
 import edu.mit.compilers.ast.StringLiteral;
@@ -32,6 +33,8 @@ public class GeneralExprGraphFactory implements GraphFactory {
     private GraphFactory getDelegate() {
         if (expr instanceof StringLiteral) {
             return new StringLiteralGraphFactory((StringLiteral) expr);
+        } else if (expr instanceof MethodAddress) {
+            return new MethodAddressGraphFactory((MethodAddress) expr);
         } else if (expr instanceof NativeExpression) {
             return new NativeExprGraphFactory((NativeExpression) expr, scope, allocations);
         } else {
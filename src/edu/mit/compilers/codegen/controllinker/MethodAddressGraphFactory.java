@@ -0,0 +1,26 @@
+package edu.mit.compilers.codegen.controllinker;
+
+import static edu.mit.compilers.codegen.asm.instructions.Instructions.push;
+import edu.mit.compilers.ast.MethodAddress;
+import edu.mit.compilers.codegen.asm.Label;
+import edu.mit.compilers.codegen.asm.Label.LabelType;
+import edu.mit.compilers.codegen.asm.instructions.Instruction;
+import edu.mit.compilers.graph.BasicFlowGraph;
+import edu.mit.compilers.graph.FlowGraph;
+
+/** A GraphFactory that pushes the address of a method onto the stack. */
+public class MethodAddressGraphFactory implements GraphFactory {
+    private final MethodAddress methodAddress;
+
+    public MethodAddressGraphFactory(MethodAddress methodAddress) {
+        this.methodAddress = methodAddress;
+    }
+
+    @Override
+    public FlowGraph<Instruction> getGraph() {
+        Label methodLabel = new Label(LabelType.METHOD_ADDRESS, methodAddress.getMethodName());
+        return BasicFlowGraph.<Instruction>builder()
+                .append(push(methodLabel))
+                .build();
+    }
+}
@@ -1,6 +1,7 @@
 package edu.mit.compilers.codegen.controllinker;
 
 import static edu.mit.compilers.codegen.asm.Register.R10;
+import static edu.mit.compilers.codegen.asm.Register.R11;
 import static edu.mit.compilers.codegen.asm.Register.R8;
 import static edu.mit.compilers.codegen.asm.Register.R9;
 import static edu.mit.compilers.codegen.asm.Register.RAX;
@@ -10,6 +11,7 @@ import static edu.mit.compilers.codegen.asm.Register.RDX;
 import static edu.mit.compilers.codegen.asm.Register.RSI;
 import static edu.mit.compilers.codegen.asm.Register.RSP;
 import static edu.mit.compilers.codegen.asm.instructions.Instructions.add;
+import static edu.mit.compilers.codegen.asm.instructions.Instructions.and;
 import static edu.mit.compilers.codegen.asm.instructions.Instructions.call;
 import static edu.mit.compilers.codegen.asm.instructions.Instructions.move;
 import static edu.mit.compilers.codegen.asm.instructions.Instructions.pop;
@@ -18,11 +20,15 @@ import static edu.mit.compilers.codegen.asm.instructions.Instructions.subtract;
 
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Maps;
 
 import edu.mit.compilers.ast.GeneralExpression;
 import edu.mit.compilers.ast.MethodCall;
+import edu.mit.compilers.ast.NativeExpression;
 import edu.mit.compilers.ast.Scope;
 import edu.mit.compilers.codegen.asm.Architecture;
 import edu.mit.compilers.codegen.asm.Literal;
@@ -32,6 +38,7 @@ import edu.mit.compilers.codegen.asm.instructions.Instruction;
 import edu.mit.compilers.graph.BasicFlowGraph;
 import edu.mit.compilers.graph.FlowGraph;
 import edu.mit.compilers.optimization.ScopedVariable;
+import edu.mit.compilers.optimization.Util;
 
 /**
  * A GraphFactory that calls a method or callout using the GCC calling convention.
@@ -49,6 +56,8 @@ public class MethodCallGraphFactory implements GraphFactory {
      */
     private static final List<Register> ARG_REGISTERS =
             ImmutableList.of(RDI, RSI, RDX, RCX, R8, R9);
+    /** Calls need RSP to be 16-byte aligned. */
+    private static final Literal STACK_ALIGNMENT_MASK = new Literal(-16);
 
     private final MethodCall methodCall;
     private final Scope scope;
@@ -65,58 +74,142 @@ public class MethodCallGraphFactory implements GraphFactory {
 
         List<GeneralExpression> args = ImmutableList.copyOf(methodCall.getParameterValues());
 
-        // Offset the stack.
-        builder.append(subtract(new Literal(args.size() * Architecture.WORD_SIZE), RSP));
+        // Save the argument registers that hold values we need after the call.
+        List<Register> savedRegisters = liveArgumentRegisters();
+        builder.append(RegisterSaver.pushAll(savedRegisters));
 
-        // Stash args for call.  Evaluate them left to right, as Decaf specifies.
+        // Decide which args go straight into their registers, and give the rest a stash slot.
+        Map<Integer, Integer> stashSlots = Maps.newHashMap();
         for (int argNumber = 0; argNumber < args.size(); argNumber++) {
-            builder.append(
-                    // Put the arg on the stack.
-                    new GeneralExprGraphFactory(args.get(argNumber), scope, allocations).getGraph())
-                    // Stash the arg in a temp location.  We'll later move it into place
-                    // as specified by the calling convention.
-                    .append(pop(R10))
-                    .append(move(R10,
-                            new Location(RSP, argNumber * Architecture.BYTES_PER_ENTRY)));
+            if (!isDirect(args, argNumber)) {
+                stashSlots.put(argNumber, stashSlots.size());
+            }
+        }
+
+        // Align the stack.  A call nested in an expression that's evaluated on the stack comes
+        // after that expression's pending pushes, so RSP may be 8 bytes off.  Round it down to
+        // 16 bytes, and keep its old value on top, twice over to stay aligned.
+        builder.append(move(RSP, R11))
+                .append(and(STACK_ALIGNMENT_MASK, RSP))
+                .append(push(R11))
+                .append(push(R11));
+
+        // Offset the stack.  Pad what we push here to a multiple of 16 bytes, too.  The pad sits
+        // above the stash slots, so that the args that go on the stack end up right below the
+        // return address.
+        int stackArgs = Math.max(0, args.size() - ARG_REGISTERS.size());
+        int padding = (stashSlots.size() + stackArgs) % 2;
+        int scratchSlots = stashSlots.size() + padding;
+        if (scratchSlots > 0) {
+            builder.append(subtract(new Literal(scratchSlots * Architecture.WORD_SIZE), RSP));
+        }
+
+        // Evaluate the args left to right, as Decaf specifies.
+        for (int argNumber = 0; argNumber < args.size(); argNumber++) {
+            Register result = evaluate(args.get(argNumber), builder);
+            if (stashSlots.containsKey(argNumber)) {
+                // Stash the arg in a temp location.  We'll later move it into place
+                // as specified by the calling convention.
+                builder.append(move(result, new Location(RSP,
+                        stashSlots.get(argNumber) * Architecture.BYTES_PER_ENTRY)));
+            } else {
+                builder.append(move(result, ARG_REGISTERS.get(argNumber)));
+            }
         }
 
-        builder.append(RegisterSaver.pushAllParameterRegisters());
         // Move stashed values to the spots specified by the x86 calling convention.
         int offset = 0;
         for (int argNumber = args.size() - 1; argNumber >= 0; argNumber--){
+            if (!stashSlots.containsKey(argNumber)) {
+                continue;
+            }
             Location argLocation = new Location(RSP,
-                    (argNumber + ARG_REGISTERS.size() + offset) * Architecture.BYTES_PER_ENTRY);
-        	if(argNumber >= ARG_REGISTERS.size()){
-            	// Take if off the stack and put it in the expected loc at the bottom
+                    (stashSlots.get(argNumber) + offset) * Architecture.BYTES_PER_ENTRY);
+            if (argNumber >= ARG_REGISTERS.size()) {
+                // Take if off the stack and put it in the expected loc at the bottom
                 builder.append(move(argLocation, R10))
                         .append(push(R10));
                 offset++;
-        	} else {
-            	// Take if off the stack and put it in a register for the function call.
+            } else {
+                // Take if off the stack and put it in a register for the function call.
                 builder.append(move(argLocation, ARG_REGISTERS.get(argNumber)));
-        	}
+            }
         }
 
-        // TODO(jasonpr): Do 16-byte alignment.
         // Actually do the call.
         builder.append(call(methodCall.getMethodName()));
 
-        int numOverflowingArgs = args.size() > ARG_REGISTERS.size()
-                ? args.size() - ARG_REGISTERS.size()
-                : 0;
-
         // Do post-call bookkeeping.
-        // Remove the pushed arguments from the stack.
-        builder.append(add(new Literal(numOverflowingArgs * Architecture.WORD_SIZE), RSP))
-                .append(RegisterSaver.popAllParemeterRegsiters())
-                // Remove scratch space.
-                .append(add(new Literal(args.size() * Architecture.WORD_SIZE), RSP))
+        // Remove the pushed arguments and the scratch space from the stack.
+        if (scratchSlots > 0) {
+            builder.append(
+                    add(new Literal((scratchSlots + offset) * Architecture.WORD_SIZE), RSP));
+        }
+        // Undo the alignment.
+        builder.append(move(new Location(RSP, 0L), RSP))
+                .append(RegisterSaver.popAll(savedRegisters))
                 // Push the return value to the stack.
                 .append(push(RAX));
 
         return builder.build();
     }
 
+    /** Evaluates an arg, and gets the register that holds its value. */
+    private Register evaluate(GeneralExpression arg, BasicFlowGraph.Builder<Instruction> builder) {
+        if (arg instanceof NativeExpression) {
+            RegisterExprGraphFactory evaluator =
+                    new RegisterExprGraphFactory((NativeExpression) arg, scope, allocations);
+            builder.append(evaluator.getGraph());
+            return evaluator.getResult();
+        }
+        builder.append(new GeneralExprGraphFactory(arg, scope, allocations).getGraph())
+                .append(pop(R10));
+        return R10;
+    }
+
+    /**
+     * Returns whether an arg can be evaluated straight into its register.
+     *
+     * <p>It can if none of the args after it calls a method, which would clobber the register,
+     * or reads the register's current value.
+     */
+    private boolean isDirect(List<GeneralExpression> args, int argNumber) {
+        if (argNumber >= ARG_REGISTERS.size()) {
+            return false;
+        }
+        Register register = ARG_REGISTERS.get(argNumber);
+        for (GeneralExpression later : args.subList(argNumber + 1, args.size())) {
+            if (Util.containsMethodCall(later) || readRegisters(later).contains(register)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /** Gets the argument registers holding variables that are still needed after the call. */
+    private List<Register> liveArgumentRegisters() {
+        ImmutableList.Builder<Register> live = ImmutableList.builder();
+        for (Register register : ARG_REGISTERS) {
+            if (allocations.containsValue(register)) {
+                live.add(register);
+            }
+        }
+        return live.build();
+    }
+
+    /** Gets the registers whose values an expression reads. */
+    private Set<Register> readRegisters(GeneralExpression expr) {
+        ImmutableSet.Builder<Register> registers = ImmutableSet.builder();
+        for (ScopedVariable variable : ScopedVariable.getVariablesOf(expr, scope)) {
+            if (allocations.containsKey(variable)) {
+                registers.add(allocations.get(variable));
+            } else {
+                registers.addAll(RegisterSaver.parameterRegister(variable).asSet());
+            }
+        }
+        return registers.build();
+    }
+
     @Override
     public FlowGraph<Instruction> getGraph() {
         return calculateGraph(methodCall, scope);
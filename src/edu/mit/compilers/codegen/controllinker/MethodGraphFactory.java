@@ -2,14 +2,15 @@ package edu.mit.compilers.codegen.controllinker;
 
 import static edu.mit.compilers.codegen.asm.instructions.Instructions.enter;
 import static edu.mit.compilers.codegen.asm.instructions.Instructions.leave;
-import static edu.mit.compilers.codegen.asm.instructions.Instructions.move;
 import static edu.mit.compilers.codegen.asm.instructions.Instructions.ret;
 
+import java.util.List;
 import java.util.Map;
 
+import com.google.common.base.Optional;
 import com.google.common.collect.ImmutableMap;
 
-import edu.mit.compilers.codegen.asm.Architecture;
+import edu.mit.compilers.codegen.CompilationContext;
 import edu.mit.compilers.codegen.asm.Literal;
 import edu.mit.compilers.codegen.asm.Register;
 import edu.mit.compilers.codegen.asm.instructions.Instruction;
@@ -18,8 +19,9 @@ import edu.mit.compilers.codegen.dataflow.ScopedStatement;
 import edu.mit.compilers.graph.BasicFlowGraph;
 import edu.mit.compilers.graph.BcrFlowGraph;
 import edu.mit.compilers.graph.FlowGraph;
+import edu.mit.compilers.regalloc.AllocationStrategy;
 import edu.mit.compilers.regalloc.LiveRange;
-import edu.mit.compilers.regalloc.RegisterAllocator;
+import edu.mit.compilers.tools.Profiler;
 
 /**
  * Produce a BiTerminalGraph that represents the entire execution of a method.
@@ -36,38 +38,52 @@ public class MethodGraphFactory {
      * Constructor.
      *
      * @param methodDataFlowGraph The data flow graph representing the method.
-     * @param name The name of the method. (Currently only used to identify the special
-     *      method 'main'.)
+     * @param name The name of the method.  (Currently only used to label profiled phases.)
      * @param isVoid Whether the method has void return type.
      * @param entriesToAllocate How many quadwords of memory need to be allocated on the stack to
      *      hold the variables at and below the method's scope.
+     * @param context The context of the compilation that contains the method.
+     * @param allocator How to put the method's variables in registers, if at all.
      */
     public MethodGraphFactory(BcrFlowGraph<ScopedStatement> methodDataFlowGraph,
-            String name, boolean isVoid, long entriesToAllocate, boolean doRegAlloc) {
-        this.graph = calculateGraph(methodDataFlowGraph, name, isVoid, entriesToAllocate, doRegAlloc);
+            String name, boolean isVoid, long entriesToAllocate, CompilationContext context,
+            Optional<AllocationStrategy> allocator) {
+        this.graph = calculateGraph(methodDataFlowGraph, name, isVoid, entriesToAllocate,
+                context, allocator);
     }
 
     private FlowGraph<Instruction> calculateGraph(BcrFlowGraph<ScopedStatement> methodDataFlowGraph,
-            String name, boolean isVoid, long entriesToAllocate, boolean doRegAlloc) {
-        // If we are the main method, we need to write down the base pointer for error handling
-        boolean isMain = name.equals(Architecture.MAIN_METHOD_NAME);
+            String name, boolean isVoid, long entriesToAllocate, CompilationContext context,
+            Optional<AllocationStrategy> allocator) {
+        // Block graph.
+        Map<LiveRange, Register> allocations = ImmutableMap.of();
+        if (allocator.isPresent()) {
+            Profiler.Phase phase = context.getProfiler().start("regalloc", name);
+            try {
+                allocations = allocator.get().allocations(methodDataFlowGraph);
+            } finally {
+                phase.close();
+            }
+        }
+        BcrFlowGraph<Instruction> blockGraph;
+        Profiler.Phase phase = context.getProfiler().start("dfg-to-cfg", name);
+        try {
+            blockGraph = DataFlowToControlFlowConverter.convert(methodDataFlowGraph, allocations);
+        } finally {
+            phase.close();
+        }
+        // Our caller expects these back as it left them.  Expressions borrow free ones, too.
+        List<Register> savedRegisters = RegisterSaver.usedVariableRegisters(blockGraph);
 
         BasicFlowGraph.Builder<Instruction> builder = BasicFlowGraph.builder();
 
-        // Entry code.
-        builder.append(enter(entriesToAllocate));
-        if (isMain){
-            builder.append(move(Register.RBP, Architecture.MAIN_BASE_POINTER_ERROR_VARIABLE));
-        }
+        // Entry code.  RBP is 16-byte aligned, as calls need RSP to be, so pad the frame and the
+        // saved registers to a multiple of 16 bytes.
+        long paddingEntries = (entriesToAllocate + savedRegisters.size()) % 2;
+        builder.append(enter(entriesToAllocate + paddingEntries, context.containsArrays()));
 
-        builder.append(RegisterSaver.pushAllVariableRegisters());
+        builder.append(RegisterSaver.pushAll(savedRegisters));
 
-        // Block graph.
-        Map<LiveRange, Register> allocations = doRegAlloc
-                ? RegisterAllocator.allocations(methodDataFlowGraph)
-                : ImmutableMap.<LiveRange, Register>of();
-        BcrFlowGraph<Instruction> blockGraph =
-                DataFlowToControlFlowConverter.convert(methodDataFlowGraph, allocations);
         builder.append(blockGraph);
 
         // Fall Through Checking.
@@ -78,7 +94,7 @@ public class MethodGraphFactory {
         }
 
         builder.setEndToSinkFor(builder.getEnd(), blockGraph.getReturnTerminal())
-                .append(RegisterSaver.popAllVariableRegisters())
+                .append(RegisterSaver.popAll(savedRegisters))
                 .append(leave())
                 .append(ret());
 
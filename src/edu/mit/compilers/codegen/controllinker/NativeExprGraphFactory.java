@@ -1,21 +1,23 @@
 package edu.mit.compilers.codegen.controllinker;
 
+import static edu.mit.compilers.codegen.asm.instructions.Instructions.push;
+
 import java.util.Map;
 
-import edu.mit.compilers.ast.BinaryOperation;
-import edu.mit.compilers.ast.Location;
-import edu.mit.compilers.ast.MethodCall;
 import edu.mit.compilers.ast.NativeExpression;
-import edu.mit.compilers.ast.NativeLiteral;
 import edu.mit.compilers.ast.Scope;
-import edu.mit.compilers.ast.TernaryOperation;
-import edu.mit.compilers.ast.UnaryOperation;
 import edu.mit.compilers.codegen.asm.Register;
 import edu.mit.compilers.codegen.asm.instructions.Instruction;
+import edu.mit.compilers.graph.BasicFlowGraph;
 import edu.mit.compilers.graph.FlowGraph;
 import edu.mit.compilers.optimization.ScopedVariable;
 
-/** A GraphFactory that delegates to any NativeExpression's custom factory. */
+/**
+ * A GraphFactory that pushes the value of any NativeExpression onto the stack.
+ *
+ * <p>The expression is evaluated in registers by a RegisterExprGraphFactory.  Callers that can
+ * take the value from a register should use that directly.
+ */
 public class NativeExprGraphFactory implements GraphFactory {
 
     private final NativeExpression expr;
@@ -30,24 +32,11 @@ public class NativeExprGraphFactory implements GraphFactory {
 
     @Override
     public FlowGraph<Instruction> getGraph() {
-        return getDelegate().getGraph();
-    }
-
-    private GraphFactory getDelegate() {
-        if (expr instanceof BinaryOperation) {
-            return new BinOpGraphFactory((BinaryOperation) expr, scope, allocations);
-        } else if (expr instanceof MethodCall) {
-            return new MethodCallGraphFactory((MethodCall) expr, scope, allocations);
-        } else if (expr instanceof TernaryOperation) {
-            return new TernaryOpGraphFactory((TernaryOperation) expr, scope, allocations);
-        } else if (expr instanceof UnaryOperation) {
-            return new UnaryOpGraphFactory((UnaryOperation) expr, scope, allocations);
-        } else if (expr instanceof Location) {
-            return new VariableLoadGraphFactory((Location) expr, scope, allocations);
-        } else if (expr instanceof NativeLiteral) {
-            return new NativeLiteralGraphFactory((NativeLiteral) expr);
-        } else {
-            throw new AssertionError("Unexpeced NativeExpression: " + expr);
-        }
+        RegisterExprGraphFactory evaluator =
+                new RegisterExprGraphFactory(expr, scope, allocations);
+        return BasicFlowGraph.<Instruction>builder()
+                .append(evaluator.getGraph())
+                .append(push(evaluator.getResult()))
+                .build();
     }
 }
@@ -0,0 +1,622 @@
+package edu.mit.compilers.codegen.controllinker;
+
+import static edu.mit.compilers.codegen.asm.Register.R10;
+import static edu.mit.compilers.codegen.asm.Register.R11;
+import static edu.mit.compilers.codegen.asm.Register.RAX;
+import static edu.mit.compilers.codegen.asm.Register.RDX;
+import static edu.mit.compilers.codegen.asm.instructions.Instructions.add;
+import static edu.mit.compilers.codegen.asm.instructions.Instructions.compareFlagged;
+import static edu.mit.compilers.codegen.asm.instructions.Instructions.conditionalMove;
+import static edu.mit.compilers.codegen.asm.instructions.Instructions.divide;
+import static edu.mit.compilers.codegen.asm.instructions.Instructions.loadEffectiveAddress;
+import static edu.mit.compilers.codegen.asm.instructions.Instructions.modulo;
+import static edu.mit.compilers.codegen.asm.instructions.Instructions.move;
+import static edu.mit.compilers.codegen.asm.instructions.Instructions.multiply;
+import static edu.mit.compilers.codegen.asm.instructions.Instructions.negate;
+import static edu.mit.compilers.codegen.asm.instructions.Instructions.pop;
+import static edu.mit.compilers.codegen.asm.instructions.Instructions.push;
+import static edu.mit.compilers.codegen.asm.instructions.Instructions.subtract;
+
+import java.util.List;
+import java.util.Map;
+
+import com.google.common.base.Optional;
+import com.google.common.base.Preconditions;
+import com.google.common.collect.ImmutableList;
+
+import edu.mit.compilers.ast.ArrayLocation;
+import edu.mit.compilers.ast.BinaryOperation;
+import edu.mit.compilers.ast.BinaryOperator;
+import edu.mit.compilers.ast.IntLiteral;
+import edu.mit.compilers.ast.Location;
+import edu.mit.compilers.ast.MethodCall;
+import edu.mit.compilers.ast.NativeExpression;
+import edu.mit.compilers.ast.NativeLiteral;
+import edu.mit.compilers.ast.ScalarLocation;
+import edu.mit.compilers.ast.Scope;
+import edu.mit.compilers.ast.TernaryOperation;
+import edu.mit.compilers.ast.UnaryOperation;
+import edu.mit.compilers.ast.UnaryOperator;
+import edu.mit.compilers.codegen.asm.Address;
+import edu.mit.compilers.codegen.asm.Label;
+import edu.mit.compilers.codegen.asm.Literal;
+import edu.mit.compilers.codegen.asm.Register;
+import edu.mit.compilers.codegen.asm.Value;
+import edu.mit.compilers.codegen.asm.VariableReference;
+import edu.mit.compilers.codegen.asm.instructions.Instruction;
+import edu.mit.compilers.common.Variable;
+import edu.mit.compilers.graph.BasicFlowGraph;
+import edu.mit.compilers.graph.FlowGraph;
+import edu.mit.compilers.optimization.ScopedVariable;
+import edu.mit.compilers.optimization.Util;
+import edu.mit.compilers.regalloc.RegisterAllocator;
+
+/**
+ * Makes instructions that evaluate a NativeExpression into a register.
+ *
+ * <p>Subtrees are numbered as in Sethi and Ullman: a subtree needs as many registers as its
+ * hungrier child, or one more if both children need the same number.  The hungrier child is
+ * evaluated first, as long as that can't change what the program does.  A value is only pushed
+ * onto the stack when the rest of its tree needs more registers than are free.
+ *
+ * <p>Instructions are picked by maximal munch: each subtree is covered by the biggest pattern
+ * that fits it.  Literals, variables and array elements whose index is ready are used as
+ * operands where they stand.  Sums of registers, constants and registers scaled by 2, 4 or 8
+ * are one LEA.  An array element is one load from a base + index * 8 + displacement address.
+ *
+ * <p>The registers are R10, R11, and the callee-saved registers that don't hold a variable
+ * here.  Method calls, ternaries and short-circuit operators are still evaluated on the stack
+ * by their own factories.  They may use any of the registers, so nothing is kept in one while
+ * they run.
+ */
+public class RegisterExprGraphFactory implements GraphFactory {
+
+    private final NativeExpression expr;
+    private final Scope scope;
+    private final Map<ScopedVariable, Register> allocations;
+    private final List<Register> registers;
+
+    public RegisterExprGraphFactory(NativeExpression expr, Scope scope,
+            Map<ScopedVariable, Register> allocations) {
+        this(expr, scope, allocations, freeRegisters(allocations));
+    }
+
+    /**
+     * Evaluates an expression with only some of the free registers.
+     *
+     * <p>There must be at least two of them, unless the expression only needs one.  A tree that
+     * needs one register never touches a second one, and #evaluateBinary() relies on that: when
+     * only one register is left for an operand like a[j], j is evaluated into that register, and
+     * the element is then loaded into it.
+     */
+    public RegisterExprGraphFactory(NativeExpression expr, Scope scope,
+            Map<ScopedVariable, Register> allocations, List<Register> registers) {
+        this.expr = expr;
+        this.scope = scope;
+        this.allocations = allocations;
+        this.registers = registers;
+        Preconditions.checkArgument(
+                registers.size() >= 2 || (registers.size() == 1 && need(expr) == 1),
+                "Need two registers to evaluate %s, but only have %s.", expr, registers);
+    }
+
+    /** Gets the register that the graph leaves the expression's value in. */
+    public Register getResult() {
+        return registers.get(0);
+    }
+
+    @Override
+    public FlowGraph<Instruction> getGraph() {
+        BasicFlowGraph.Builder<Instruction> builder = BasicFlowGraph.builder();
+        evaluate(expr, registers, builder);
+        return builder.build();
+    }
+
+    /** Returns whether the expression is a comparison, whose flags graph we can get. */
+    public boolean isComparison() {
+        return isComparison(expr);
+    }
+
+    /**
+     * Gets a graph that compares the two sides of the expression, and only sets the flags.
+     *
+     * <p>Requires that the expression is a comparison.  Its sides may be swapped, so read the
+     * flags with #getComparison().
+     */
+    public FlowGraph<Instruction> getFlagsGraph() {
+        Preconditions.checkState(isComparison(expr), "Not a comparison: %s", expr);
+        BasicFlowGraph.Builder<Instruction> builder = BasicFlowGraph.builder();
+        evaluateBinary((BinaryOperation) expr, registers, builder, true);
+        return builder.build();
+    }
+
+    /** Gets the comparison that the flags graph's flags hold the result of. */
+    public BinaryOperator getComparison() {
+        Preconditions.checkState(isComparison(expr), "Not a comparison: %s", expr);
+        BinaryOperation binOp = (BinaryOperation) expr;
+        return mirrors(binOp) ? mirror(binOp.getOperator()) : binOp.getOperator();
+    }
+
+    /**
+     * Gets one instruction that puts the expression's value into a target, if it's that simple.
+     *
+     * <p>That's a move of a literal or a variable, or a LEA into a register.
+     */
+    public Optional<Instruction> getSingleInstruction(Value target) {
+        Optional<Value> value = value(expr);
+        if (value.isPresent() && (target instanceof Register || value.get() instanceof Register
+                || (value.get() instanceof Literal && isImmediate((Literal) value.get())))) {
+            return Optional.of(move(value.get(), target));
+        }
+        Optional<Address> address = address(expr);
+        if (address.isPresent() && target instanceof Register) {
+            return Optional.of(loadEffectiveAddress(address.get(), (Register) target));
+        }
+        return Optional.absent();
+    }
+
+    /**
+     * Gets the value of an expression, if it's a literal that fits in an instruction or a
+     * variable that lives in a register.
+     */
+    public static Optional<Value> registerOrImmediate(NativeExpression expr, Scope scope,
+            Map<ScopedVariable, Register> allocations) {
+        if (expr instanceof NativeLiteral) {
+            Literal literal = new Literal((NativeLiteral) expr);
+            return isImmediate(literal) ? Optional.<Value>of(literal) : Optional.<Value>absent();
+        }
+        return Optional.<Value>fromNullable(registerHolding(expr, scope, allocations).orNull());
+    }
+
+    /** Gets the register that holds a variable, if the expression is one that lives in one. */
+    static Optional<Register> registerHolding(NativeExpression expr, Scope scope,
+            Map<ScopedVariable, Register> allocations) {
+        if (!(expr instanceof ScalarLocation)) {
+            return Optional.absent();
+        }
+        Variable variable = ((ScalarLocation) expr).getVariable();
+        ScopedVariable scopedVariable = new ScopedVariable(variable, scope.getLocation(variable));
+        return allocations.containsKey(scopedVariable)
+                ? Optional.of(allocations.get(scopedVariable))
+                : RegisterSaver.parameterRegister(scopedVariable);
+    }
+
+    /** Gets the registers we may use, in the order we prefer them. */
+    public static List<Register> freeRegisters(Map<ScopedVariable, Register> allocations) {
+        ImmutableList.Builder<Register> free = ImmutableList.builder();
+        free.add(R10, R11);
+        for (Register register : RegisterAllocator.REGISTERS) {
+            if (!allocations.containsValue(register)) {
+                free.add(register);
+            }
+        }
+        return free.build();
+    }
+
+    /**
+     * Evaluates an expression into the first of some free registers.
+     *
+     * <p>Any of the free registers may be overwritten.
+     */
+    private void evaluate(NativeExpression expr, List<Register> free,
+            BasicFlowGraph.Builder<Instruction> builder) {
+        Register target = free.get(0);
+        Optional<Value> value = value(expr);
+        Optional<Address> address = address(expr);
+        if (value.isPresent()) {
+            builder.append(move(value.get(), target));
+        } else if (address.isPresent()) {
+            builder.append(loadEffectiveAddress(address.get(), target));
+        } else if (expr instanceof ArrayLocation) {
+            ArrayElementGraphFactory element = new ArrayElementGraphFactory(
+                    (ArrayLocation) expr, scope, allocations, free, true);
+            builder.append(element.getGraph())
+                    .append(move(element.getAddress(), target));
+        } else if (expr instanceof UnaryOperation) {
+            evaluate(((UnaryOperation) expr).getArgument(), free, builder);
+            builder.append(negate(target));
+            if (((UnaryOperation) expr).getOperator() == UnaryOperator.NOT) {
+                // !b is 1 - b.
+                builder.append(add(Literal.TRUE, target));
+            }
+        } else if (isInRegisters(expr)) {
+            evaluateBinary((BinaryOperation) expr, free, builder, false);
+        } else {
+            builder.append(stackGraph(expr))
+                    .append(pop(target));
+        }
+    }
+
+    /**
+     * Evaluates a binary operation into the first of some free registers.
+     *
+     * <p>If 'flagsOnly', the operation is a comparison, and we only set the flags.
+     */
+    private void evaluateBinary(BinaryOperation binOp, List<Register> free,
+            BasicFlowGraph.Builder<Instruction> builder, boolean flagsOnly) {
+        BinaryOperator operator = binOp.getOperator();
+        NativeExpression left = binOp.getLeftArgument();
+        NativeExpression right = binOp.getRightArgument();
+
+        Optional<Value> rightOperand = operand(right, operator);
+        if (rightOperand.isPresent()) {
+            evaluate(left, free, builder);
+            apply(operator, free.get(0), prepare(right, rightOperand.get(), builder), free,
+                    builder, flagsOnly);
+            return;
+        }
+        if (mirrors(binOp)) {
+            evaluate(right, free, builder);
+            apply(mirror(operator), free.get(0), operand(left, operator).get(), free, builder,
+                    flagsOnly);
+            return;
+        }
+
+        boolean leftFirst = !mayReorder(left, right) || need(left) >= need(right);
+        NativeExpression second = leftFirst ? right : left;
+        evaluate(leftFirst ? left : right, free, builder);
+
+        // Every tree that gets here needs two registers, so there's another one free.
+        List<Register> rest = free.subList(1, free.size());
+        Register firstValue;
+        Register secondValue;
+        if (!usesStack(second) && (rest.size() > 1 || need(second) == 1)) {
+            evaluate(second, rest, builder);
+            firstValue = free.get(0);
+            secondValue = rest.get(0);
+        } else {
+            // Keep the first value on the stack while we work out the second.
+            builder.append(push(free.get(0)));
+            evaluate(second, free, builder);
+            builder.append(pop(rest.get(0)));
+            firstValue = rest.get(0);
+            secondValue = free.get(0);
+        }
+        Register leftValue = leftFirst ? firstValue : secondValue;
+        apply(operator, leftValue, leftFirst ? secondValue : firstValue, free, builder,
+                flagsOnly);
+        if (!flagsOnly && !leftValue.equals(free.get(0))) {
+            builder.append(move(leftValue, free.get(0)));
+        }
+    }
+
+    /**
+     * Returns whether we evaluate an operation's right side first, and use its left side as the
+     * operand of the mirrored operator.
+     *
+     * <p>An array element's bounds check stays in order, so it's never the mirrored operand.
+     */
+    private boolean mirrors(BinaryOperation binOp) {
+        BinaryOperator operator = binOp.getOperator();
+        NativeExpression left = binOp.getLeftArgument();
+        NativeExpression right = binOp.getRightArgument();
+        return !operand(right, operator).isPresent()
+                && operand(left, operator).isPresent()
+                && !(left instanceof ArrayLocation)
+                && isMirrorable(operator)
+                && mayReorder(left, right);
+    }
+
+    /** Appends what an operand needs before it's used: an array element's bounds check. */
+    private Value prepare(NativeExpression expr, Value operand,
+            BasicFlowGraph.Builder<Instruction> builder) {
+        if (!(expr instanceof ArrayLocation)) {
+            return operand;
+        }
+        ArrayElementGraphFactory element = new ArrayElementGraphFactory(
+                (ArrayLocation) expr, scope, allocations, registers, true);
+        builder.append(element.getGraph());
+        return element.getAddress();
+    }
+
+    /** Does 'target = target (operator) operand'. */
+    private static void apply(BinaryOperator operator, Register target, Value operand,
+            List<Register> free, BasicFlowGraph.Builder<Instruction> builder, boolean flagsOnly) {
+        switch (operator) {
+            case PLUS:
+                builder.append(add(operand, target));
+                return;
+            case MINUS:
+                builder.append(subtract(operand, target));
+                return;
+            case TIMES:
+                builder.append(multiply(operand, target));
+                return;
+            case DIVIDED_BY:
+                builder.append(divide(operand, target));
+                return;
+            case MODULO:
+                builder.append(modulo(operand, target));
+                return;
+            default:
+                // A comparison.  We need a register to hold 'true' for the conditional move.
+                if (flagsOnly) {
+                    builder.append(compareFlagged(target, operand));
+                    return;
+                }
+                Register truth = free.contains(operand) && !operand.equals(target)
+                        ? (Register) operand
+                        : free.get(free.get(0).equals(target) ? 1 : 0);
+                builder.append(compareFlagged(target, operand))
+                        .append(move(Literal.FALSE, target))
+                        .append(move(Literal.TRUE, truth))
+                        .append(conditionalMove(operator, truth, target));
+        }
+    }
+
+    /** Gets the graph that pushes the value of an expression we don't evaluate ourselves. */
+    private FlowGraph<Instruction> stackGraph(NativeExpression expr) {
+        if (expr instanceof MethodCall) {
+            return new MethodCallGraphFactory((MethodCall) expr, scope, allocations).getGraph();
+        } else if (expr instanceof TernaryOperation) {
+            return new TernaryOpGraphFactory((TernaryOperation) expr, scope, allocations)
+                    .getGraph();
+        } else if (expr instanceof BinaryOperation) {
+            return new BinOpGraphFactory((BinaryOperation) expr, scope, allocations).getGraph();
+        } else {
+            throw new AssertionError("Unexpected NativeExpression: " + expr);
+        }
+    }
+
+    /**
+     * Gets how many registers an expression needs.
+     *
+     * <p>Comparisons need a second register to hold 'true'.
+     */
+    private int need(NativeExpression expr) {
+        if (value(expr).isPresent() || address(expr).isPresent()) {
+            return 1;
+        } else if (expr instanceof ArrayLocation) {
+            // The index is evaluated into the register that the element is loaded into.
+            Optional<NativeExpression> index = ArrayElementGraphFactory.computedIndex(
+                    (ArrayLocation) expr, scope, allocations);
+            return index.isPresent() ? need(index.get()) : 1;
+        } else if (expr instanceof UnaryOperation) {
+            return need(((UnaryOperation) expr).getArgument());
+        } else if (!isInRegisters(expr)) {
+            return 1;
+        }
+        BinaryOperation binOp = (BinaryOperation) expr;
+        BinaryOperator operator = binOp.getOperator();
+        NativeExpression left = binOp.getLeftArgument();
+        NativeExpression right = binOp.getRightArgument();
+        int need;
+        if (operand(right, operator).isPresent()) {
+            need = need(left);
+        } else if (mirrors(binOp)) {
+            need = need(right);
+        } else {
+            int leftNeed = need(left);
+            int rightNeed = need(right);
+            need = leftNeed == rightNeed ? leftNeed + 1 : Math.max(leftNeed, rightNeed);
+        }
+        return isComparison(operator) ? Math.max(need, 2) : need;
+    }
+
+    /** Returns whether an expression is an operation that we evaluate in registers. */
+    private static boolean isInRegisters(NativeExpression expr) {
+        return expr instanceof BinaryOperation
+                && ((BinaryOperation) expr).getOperator() != BinaryOperator.AND
+                && ((BinaryOperation) expr).getOperator() != BinaryOperator.OR;
+    }
+
+    /** Returns whether any part of an expression is evaluated on the stack. */
+    private boolean usesStack(NativeExpression expr) {
+        if (value(expr).isPresent() || address(expr).isPresent()) {
+            return false;
+        } else if (expr instanceof ArrayLocation) {
+            Optional<NativeExpression> index = ArrayElementGraphFactory.computedIndex(
+                    (ArrayLocation) expr, scope, allocations);
+            return index.isPresent() && usesStack(index.get());
+        } else if (expr instanceof UnaryOperation) {
+            return usesStack(((UnaryOperation) expr).getArgument());
+        } else if (isInRegisters(expr)) {
+            return usesStack(((BinaryOperation) expr).getLeftArgument())
+                    || usesStack(((BinaryOperation) expr).getRightArgument());
+        } else {
+            return true;
+        }
+    }
+
+    /**
+     * Returns whether we may evaluate the right side of an operation before its left.
+     *
+     * <p>A method call could write a global that the other side reads, or print something.
+     */
+    private static boolean mayReorder(NativeExpression left, NativeExpression right) {
+        return !Util.containsMethodCall(left) && !Util.containsMethodCall(right);
+    }
+
+    /** Gets the value of a literal, a length or a scalar, if the expression is one. */
+    private Optional<Value> value(NativeExpression expr) {
+        if (expr instanceof NativeLiteral) {
+            return Optional.<Value>of(new Literal((NativeLiteral) expr));
+        } else if (expr instanceof UnaryOperation
+                && ((UnaryOperation) expr).getOperator() == UnaryOperator.ARRAY_LENGTH) {
+            // TODO(jasonpr): Eliminate the need for this cast.
+            Variable array = ((Location) ((UnaryOperation) expr).getArgument()).getVariable();
+            // If these get()s fail, our semantic checker is broken.
+            return Optional.<Value>of(
+                    new Literal(scope.getFromScope(array).get().getLength().get()));
+        } else if (expr instanceof ScalarLocation) {
+            Optional<Register> register = registerHolding(expr, scope, allocations);
+            return register.isPresent()
+                    ? Optional.<Value>of(register.get())
+                    : Optional.<Value>of(
+                            new VariableReference(((ScalarLocation) expr).getVariable(), scope));
+        } else {
+            return Optional.absent();
+        }
+    }
+
+    /**
+     * Gets the value of an expression, if an instruction can use it as an operand as it is.
+     *
+     * <p>An array element is an operand if its index is ready.  Its address is only valid after
+     * #prepare() checks the index.
+     */
+    private Optional<Value> operand(NativeExpression expr, BinaryOperator operator) {
+        if (expr instanceof ArrayLocation && !isDivision(operator)
+                && !ArrayElementGraphFactory.computedIndex((ArrayLocation) expr, scope, allocations)
+                        .isPresent()) {
+            return Optional.<Value>of(new ArrayElementGraphFactory((ArrayLocation) expr, scope,
+                    allocations, registers, false).getAddress());
+        }
+        Optional<Value> value = value(expr);
+        if (!value.isPresent()) {
+            return value;
+        }
+        if (value.get() instanceof Literal) {
+            // IDIV doesn't take immediates at all.
+            return isImmediate((Literal) value.get()) && !isDivision(operator)
+                    ? value
+                    : Optional.<Value>absent();
+        }
+        if (isDivision(operator)) {
+            // IDIV needs an explicit size for memory, and uses RAX and RDX itself.
+            return value.get() instanceof Register
+                    && !value.get().equals(RAX) && !value.get().equals(RDX)
+                    ? value
+                    : Optional.<Value>absent();
+        }
+        return value;
+    }
+
+    /**
+     * Gets the address whose LEA computes an expression, if there is one.
+     *
+     * <p>That's a sum of at most two registers, one of which may be scaled by 2, 4 or 8, and a
+     * constant.  A register times 3, 5 or 9 is the register plus itself scaled.
+     */
+    private Optional<Address> address(NativeExpression expr) {
+        if (!(expr instanceof BinaryOperation)) {
+            return Optional.absent();
+        }
+        AddressTerms terms = new AddressTerms();
+        if (!collectTerms(expr, terms) || terms.displacement != (int) terms.displacement
+                || (!terms.base.isPresent() && !terms.index.isPresent())) {
+            return Optional.absent();
+        }
+        return Optional.of(new Address(Optional.<Label>absent(), terms.displacement,
+                terms.base, terms.index, terms.scale));
+    }
+
+    /** Adds the terms of an expression to an address, and returns whether they all fit. */
+    private boolean collectTerms(NativeExpression expr, AddressTerms terms) {
+        Optional<Register> register = registerHolding(expr, scope, allocations);
+        if (register.isPresent()) {
+            return terms.add(register.get(), 1);
+        } else if (expr instanceof IntLiteral) {
+            return terms.add(((IntLiteral) expr).get64BitValue());
+        } else if (!(expr instanceof BinaryOperation)) {
+            return false;
+        }
+        BinaryOperation binOp = (BinaryOperation) expr;
+        NativeExpression left = binOp.getLeftArgument();
+        NativeExpression right = binOp.getRightArgument();
+        switch (binOp.getOperator()) {
+            case PLUS:
+                return collectTerms(left, terms) && collectTerms(right, terms);
+            case MINUS:
+                return right instanceof IntLiteral && collectTerms(left, terms)
+                        && terms.add(-((IntLiteral) right).get64BitValue());
+            case TIMES:
+                if (left instanceof IntLiteral) {
+                    NativeExpression swap = left;
+                    left = right;
+                    right = swap;
+                }
+                register = registerHolding(left, scope, allocations);
+                if (!register.isPresent() || !(right instanceof IntLiteral)) {
+                    return false;
+                }
+                long factor = ((IntLiteral) right).get64BitValue();
+                if (factor == 3 || factor == 5 || factor == 9) {
+                    return !terms.base.isPresent() && !terms.index.isPresent()
+                            && terms.add(register.get(), 1)
+                            && terms.add(register.get(), factor - 1);
+                }
+                return terms.add(register.get(), factor);
+            default:
+                return false;
+        }
+    }
+
+    /** The parts of an address, as they're collected. */
+    private static class AddressTerms {
+        private long displacement = 0;
+        private Optional<Register> base = Optional.absent();
+        private Optional<Register> index = Optional.absent();
+        private long scale = 1;
+
+        private boolean add(long constant) {
+            displacement += constant;
+            return Math.abs(constant) < Integer.MAX_VALUE;
+        }
+
+        private boolean add(Register register, long factor) {
+            if (factor != 1 && factor != 2 && factor != 4 && factor != 8) {
+                return false;
+            }
+            if (factor == 1 && !base.isPresent()) {
+                base = Optional.of(register);
+            } else if (!index.isPresent()) {
+                index = Optional.of(register);
+                scale = factor;
+            } else {
+                return false;
+            }
+            return true;
+        }
+    }
+
+    /** Returns whether a literal fits in an instruction, which sign-extends 32 bits. */
+    private static boolean isImmediate(Literal literal) {
+        return literal.getValue() == (int) literal.getValue();
+    }
+
+    private static boolean isDivision(BinaryOperator operator) {
+        return operator == BinaryOperator.DIVIDED_BY || operator == BinaryOperator.MODULO;
+    }
+
+    private static boolean isComparison(NativeExpression expr) {
+        return expr instanceof BinaryOperation
+                && isComparison(((BinaryOperation) expr).getOperator());
+    }
+
+    private static boolean isComparison(BinaryOperator operator) {
+        switch (operator) {
+            case DOUBLE_EQUALS:
+            case NOT_EQUALS:
+            case LESS_THAN:
+            case LESS_THAN_OR_EQUAL:
+            case GREATER_THAN:
+            case GREATER_THAN_OR_EQUAL:
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    /** Returns whether swapping an operator's arguments gives an equivalent operator. */
+    private static boolean isMirrorable(BinaryOperator operator) {
+        return operator == BinaryOperator.PLUS || operator == BinaryOperator.TIMES
+                || isComparison(operator);
+    }
+
+    /** Gets the operator that gives the same result with its arguments swapped. */
+    private static BinaryOperator mirror(BinaryOperator operator) {
+        switch (operator) {
+            case LESS_THAN:
+                return BinaryOperator.GREATER_THAN;
+            case LESS_THAN_OR_EQUAL:
+                return BinaryOperator.GREATER_THAN_OR_EQUAL;
+            case GREATER_THAN:
+                return BinaryOperator.LESS_THAN;
+            case GREATER_THAN_OR_EQUAL:
+                return BinaryOperator.LESS_THAN_OR_EQUAL;
+            default:
+                return operator;
+        }
+    }
+}
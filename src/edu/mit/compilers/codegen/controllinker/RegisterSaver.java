@@ -10,14 +10,21 @@ import static edu.mit.compilers.codegen.asm.instructions.Instructions.pop;
 import static edu.mit.compilers.codegen.asm.instructions.Instructions.push;
 
 import java.util.List;
+import java.util.Set;
 
+import com.google.common.base.Optional;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.Lists;
+import com.google.common.collect.Sets;
 
+import edu.mit.compilers.ast.Scope;
+import edu.mit.compilers.ast.ScopeType;
 import edu.mit.compilers.codegen.asm.Register;
 import edu.mit.compilers.codegen.asm.instructions.Instruction;
 import edu.mit.compilers.graph.BasicFlowGraph;
 import edu.mit.compilers.graph.FlowGraph;
+import edu.mit.compilers.graph.Node;
+import edu.mit.compilers.optimization.ScopedVariable;
 import edu.mit.compilers.regalloc.RegisterAllocator;
 
 public class RegisterSaver {
@@ -31,28 +38,52 @@ public class RegisterSaver {
 
     private RegisterSaver() {}
 
-    /** Push all six registers that are used for method calls onto the stack. */
-    public static FlowGraph<Instruction> pushAllParameterRegisters() {
-        return pushAll(PARAMETER_REGISTERS);
-    }
-
-    /** Pop the argument registers, in the reverse order of #pushAll. */
-    public static FlowGraph<Instruction> popAllParemeterRegsiters() {
-        return popAll(PARAMETER_REGISTERS);
-    }
-
-    /** Pop all the registers used in register allocation. */
-    public static FlowGraph<Instruction> pushAllVariableRegisters() {
-        return pushAll(RegisterAllocator.REGISTERS);
+    /**
+     * Gets the register that a parameter arrives in, if it's one of the first six.
+     *
+     * <p>Parameters never move, so that's where they live for the whole method.
+     */
+    public static Optional<Register> parameterRegister(ScopedVariable variable) {
+        Scope scope = variable.getScope();
+        if (scope.getScopeType() != ScopeType.PARAMETER) {
+            return Optional.absent();
+        }
+        long offset = scope.offset(variable.getVariable());
+        return offset < PARAMETER_REGISTERS.size()
+                ? Optional.of(PARAMETER_REGISTERS.get((int) offset))
+                : Optional.<Register>absent();
     }
 
-    /** Push all the registers used in register allocation. */
-    public static FlowGraph<Instruction> popAllVariableRegisters() {
-        return popAll(RegisterAllocator.REGISTERS);
+    /**
+     * Gets the registers used in register allocation that some code uses, in the order of
+     * RegisterAllocator.REGISTERS.
+     *
+     * <p>These are the registers that a method must save for its caller.
+     */
+    public static List<Register> usedVariableRegisters(FlowGraph<Instruction> code) {
+        Set<Register> used = Sets.newHashSet();
+        for (Node<Instruction> node : code.getNodes()) {
+            if (!node.hasValue()) {
+                continue;
+            }
+            String instruction = node.value().inAttSyntax();
+            for (Register register : RegisterAllocator.REGISTERS) {
+                if (instruction.contains(register.inAttSyntax())) {
+                    used.add(register);
+                }
+            }
+        }
+        ImmutableList.Builder<Register> registers = ImmutableList.builder();
+        for (Register register : RegisterAllocator.REGISTERS) {
+            if (used.contains(register)) {
+                registers.add(register);
+            }
+        }
+        return registers.build();
     }
 
-    /** Push the argument registers, in order. */
-    private static FlowGraph<Instruction> pushAll(List<Register> registers) {
+    /** Push some registers, in order. */
+    public static FlowGraph<Instruction> pushAll(List<Register> registers) {
         BasicFlowGraph.Builder<Instruction> pusher = BasicFlowGraph.builder();
         for (Register register : registers) {
             pusher.append(push(register));
@@ -60,8 +91,8 @@ public class RegisterSaver {
         return pusher.build();
     }
 
-    /** Pop the argument registers, in reverse order! */
-    private static FlowGraph<Instruction> popAll(List<Register> registers) {
+    /** Pop some registers, in the reverse order of #pushAll. */
+    public static FlowGraph<Instruction> popAll(List<Register> registers) {
         BasicFlowGraph.Builder<Instruction> popper = BasicFlowGraph.builder();
         for (Register register : Lists.reverse(registers)) {
             popper.append(pop(register));
@@ -27,8 +27,9 @@ public class TernaryOpGraphFactory implements GraphFactory {
 
     @Override
     public FlowGraph<Instruction> getGraph() {
-        FlowGraph<Instruction> comparison =
-                new CompareGraphFactory(operation.getCondition(), scope, allocations).getGraph();
+        CompareGraphFactory comparator =
+                new CompareGraphFactory(operation.getCondition(), scope, allocations);
+        FlowGraph<Instruction> comparison = comparator.getGraph();
         FlowGraph<Instruction> trueBranch =
                 new NativeExprGraphFactory(operation.getTrueResult(), scope, allocations).getGraph();
         FlowGraph<Instruction> falseBranch =
@@ -37,7 +38,8 @@ public class TernaryOpGraphFactory implements GraphFactory {
         return BasicFlowGraph.<Instruction>builder()
                 .append(comparison)
                 .linkNonJumpBranch(comparison.getEnd(), trueBranch)
-                .linkJumpBranch(comparison.getEnd(), JumpType.JNE, falseBranch)
+                .linkJumpBranch(
+                        comparison.getEnd(), comparator.getJumpType(JumpType.JNE), falseBranch)
                 .setEndToSinkFor(trueBranch.getEnd(), falseBranch.getEnd())
                 .build();
     }
@@ -118,7 +118,9 @@ public class VariableLoadGraphFactory implements GraphFactory {
     @Override
     public FlowGraph<Instruction> getGraph() {
         if (location instanceof ArrayLocation) {
-            return calculateLoadFromArray((ArrayLocation) location, scope, allocations, true);
+            ArrayLocation arrayLocation = (ArrayLocation) location;
+            return calculateLoadFromArray(arrayLocation, scope, allocations,
+                    arrayLocation.checksBounds());
         } else if (location instanceof ScalarLocation) {
             return calculateLoadFromScalar((ScalarLocation) location, scope, allocations);
         } else {
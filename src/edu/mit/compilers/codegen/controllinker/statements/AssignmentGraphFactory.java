@@ -3,30 +3,44 @@ package edu.mit.compilers.codegen.controllinker.statements;
 import static edu.mit.compilers.codegen.asm.Register.R10;
 import static edu.mit.compilers.codegen.asm.Register.R11;
 import static edu.mit.compilers.codegen.asm.instructions.Instructions.add;
+import static edu.mit.compilers.codegen.asm.instructions.Instructions.decrement;
+import static edu.mit.compilers.codegen.asm.instructions.Instructions.increment;
+import static edu.mit.compilers.codegen.asm.instructions.Instructions.move;
 import static edu.mit.compilers.codegen.asm.instructions.Instructions.pop;
 import static edu.mit.compilers.codegen.asm.instructions.Instructions.push;
 import static edu.mit.compilers.codegen.asm.instructions.Instructions.subtract;
 
+import java.util.List;
 import java.util.Map;
 
+import com.google.common.base.Optional;
+import com.google.common.collect.Lists;
+
 import edu.mit.compilers.ast.ArrayLocation;
 import edu.mit.compilers.ast.Assignment;
 import edu.mit.compilers.ast.AssignmentOperation;
+import edu.mit.compilers.ast.BinaryOperation;
+import edu.mit.compilers.ast.BinaryOperator;
 import edu.mit.compilers.ast.Location;
 import edu.mit.compilers.ast.NativeExpression;
 import edu.mit.compilers.ast.ScalarLocation;
 import edu.mit.compilers.ast.Scope;
+import edu.mit.compilers.codegen.asm.Address;
+import edu.mit.compilers.codegen.asm.Literal;
 import edu.mit.compilers.codegen.asm.Register;
 import edu.mit.compilers.codegen.asm.Value;
 import edu.mit.compilers.codegen.asm.VariableReference;
 import edu.mit.compilers.codegen.asm.instructions.Instruction;
+import edu.mit.compilers.codegen.controllinker.ArrayElementGraphFactory;
 import edu.mit.compilers.codegen.controllinker.GraphFactory;
 import edu.mit.compilers.codegen.controllinker.NativeExprGraphFactory;
+import edu.mit.compilers.codegen.controllinker.RegisterExprGraphFactory;
 import edu.mit.compilers.codegen.controllinker.VariableLoadGraphFactory;
 import edu.mit.compilers.common.Variable;
 import edu.mit.compilers.graph.BasicFlowGraph;
 import edu.mit.compilers.graph.FlowGraph;
 import edu.mit.compilers.optimization.ScopedVariable;
+import edu.mit.compilers.optimization.Util;
 
 public class AssignmentGraphFactory implements GraphFactory {
 
@@ -65,24 +79,208 @@ public class AssignmentGraphFactory implements GraphFactory {
 
     private FlowGraph<Instruction> calculateStoreToArray(ArrayLocation target, Scope scope){
         // TODO(jasonpr): Have this code live somewhere sensible.
-        return VariableLoadGraphFactory.calculateStoreToArray(target, scope, allocations, check);
+        return VariableLoadGraphFactory.calculateStoreToArray(
+                target, scope, allocations, storeNeedsCheck(target));
+    }
+
+    /**
+     * Returns whether storing to an array element needs its own bounds check.
+     *
+     * <p>A compound assignment loads the element first, and that load already checked the same
+     * index.  Only a method call could change the index's value in between.
+     */
+    private boolean storeNeedsCheck(ArrayLocation target) {
+        if (!check || !target.checksBounds()) {
+            return false;
+        }
+        return op.isAbsolute()
+                || Util.containsMethodCall(target.getIndex())
+                || Util.containsMethodCall(expr);
     }
 
     private FlowGraph<Instruction> calculateStoreToScalar(ScalarLocation target, Scope scope,
             Map<ScopedVariable, Register> allocations){
+        return BasicFlowGraph.<Instruction>builder()
+                .append(pop(recipient(target, scope, allocations)))
+                .build();
+    }
+
+    private static Value recipient(ScalarLocation target, Scope scope,
+            Map<ScopedVariable, Register> allocations) {
         Variable variable = target.getVariable();
         ScopedVariable scopedVariable = new ScopedVariable(variable, scope.getLocation(variable));
 
-        Value recipient = allocations.containsKey(scopedVariable)
+        return allocations.containsKey(scopedVariable)
                 ? allocations.get(scopedVariable)
                 : new VariableReference(target.getVariable(), scope);
+    }
+
+    /**
+     * Evaluates the expression in registers, and applies it to the scalar target directly.
+     *
+     * <p>Only used when it can't reorder anything: a compound assignment must read a global
+     * before any method call in its expression can write it.
+     */
+    private FlowGraph<Instruction> calculateScalarAssignment(ScalarLocation target) {
+        Value recipient = recipient(target, scope, allocations);
+        AssignmentOperation operation = op;
+        NativeExpression operand = expr;
+        if (op.isAbsolute() && expr instanceof BinaryOperation) {
+            // x = x + y is x += y.
+            BinaryOperation binOp = (BinaryOperation) expr;
+            boolean plus = binOp.getOperator() == BinaryOperator.PLUS;
+            if ((plus || binOp.getOperator() == BinaryOperator.MINUS)
+                    && isTarget(binOp.getLeftArgument(), target)) {
+                operation = plus ? AssignmentOperation.PLUS_EQUALS
+                        : AssignmentOperation.MINUS_EQUALS;
+                operand = binOp.getRightArgument();
+            } else if (plus && isTarget(binOp.getRightArgument(), target)) {
+                operation = AssignmentOperation.PLUS_EQUALS;
+                operand = binOp.getLeftArgument();
+            }
+        }
+        Optional<Instruction> update = update(operation, operand, recipient);
+        if (update.isPresent()) {
+            return BasicFlowGraph.<Instruction>builder().append(update.get()).build();
+        }
+
+        RegisterExprGraphFactory evaluator = new RegisterExprGraphFactory(expr, scope, allocations);
+        if (op.isAbsolute()) {
+            Optional<Instruction> single = evaluator.getSingleInstruction(recipient);
+            if (single.isPresent()) {
+                return BasicFlowGraph.<Instruction>builder().append(single.get()).build();
+            }
+        }
+        Instruction store;
+        switch (op) {
+        case MINUS_EQUALS:
+            store = subtract(evaluator.getResult(), recipient);
+            break;
+        case PLUS_EQUALS:
+            store = add(evaluator.getResult(), recipient);
+            break;
+        case SET_EQUALS:
+            store = move(evaluator.getResult(), recipient);
+            break;
+        default:
+            throw new AssertionError("Unexpected operator: " + op.getSymbol());
+        }
         return BasicFlowGraph.<Instruction>builder()
-                .append(pop(recipient))
+                .append(evaluator.getGraph())
+                .append(store)
                 .build();
     }
 
+    /**
+     * Evaluates the expression and the element's index in registers, and applies the expression
+     * to the element in memory.
+     *
+     * <p>Only used when there's no method call, which could clobber the registers.  Like the
+     * stack version, an absolute assignment evaluates the expression first, and a compound one
+     * checks the index first.
+     */
+    private Optional<FlowGraph<Instruction>> calculateArrayAssignment(ArrayLocation target) {
+        BasicFlowGraph.Builder<Instruction> builder = BasicFlowGraph.builder();
+        List<Register> registers =
+                Lists.newArrayList(RegisterExprGraphFactory.freeRegisters(allocations));
+        Optional<Value> operand =
+                RegisterExprGraphFactory.registerOrImmediate(expr, scope, allocations);
+        Value value = operand.orNull();
+        if (op.isAbsolute() && !operand.isPresent()) {
+            RegisterExprGraphFactory evaluator =
+                    new RegisterExprGraphFactory(expr, scope, allocations, registers);
+            builder.append(evaluator.getGraph());
+            value = evaluator.getResult();
+            registers.remove(value);
+        }
+        if (registers.size() < 2) {
+            return Optional.absent();
+        }
+        ArrayElementGraphFactory element =
+                new ArrayElementGraphFactory(target, scope, allocations, registers, check);
+        builder.append(element.getGraph());
+        Address address = element.getAddress();
+        if (op.isAbsolute()) {
+            return Optional.of(builder.append(move(value, address)).build());
+        }
+        Optional<Instruction> update = update(op, expr, address);
+        if (update.isPresent()) {
+            return Optional.of(builder.append(update.get()).build());
+        }
+        if (address.getIndex().isPresent()) {
+            registers.remove(address.getIndex().get());
+        }
+        if (registers.size() < 2) {
+            return Optional.absent();
+        }
+        RegisterExprGraphFactory evaluator =
+                new RegisterExprGraphFactory(expr, scope, allocations, registers);
+        builder.append(evaluator.getGraph());
+        switch (op) {
+        case MINUS_EQUALS:
+            return Optional.of(builder.append(subtract(evaluator.getResult(), address)).build());
+        case PLUS_EQUALS:
+            return Optional.of(builder.append(add(evaluator.getResult(), address)).build());
+        default:
+            throw new AssertionError("Unexpected operator: " + op.getSymbol());
+        }
+    }
+
+    /**
+     * Gets one instruction that does a compound assignment in place, if its operand is a
+     * register or an immediate.
+     *
+     * <p>Adding or subtracting one is an INC or a DEC.
+     */
+    private Optional<Instruction> update(AssignmentOperation operation, NativeExpression operand,
+            Value recipient) {
+        if (operation.isAbsolute()) {
+            return Optional.absent();
+        }
+        Optional<Value> value =
+                RegisterExprGraphFactory.registerOrImmediate(operand, scope, allocations);
+        if (!value.isPresent()) {
+            return Optional.absent();
+        }
+        boolean plus = operation == AssignmentOperation.PLUS_EQUALS;
+        if (value.get() instanceof Register) {
+            return Optional.of(plus
+                    ? add(value.get(), recipient)
+                    : subtract(value.get(), recipient));
+        }
+        long literal = ((Literal) value.get()).getValue();
+        if (literal == 1) {
+            return Optional.of(plus ? increment(recipient) : decrement(recipient));
+        } else if (plus) {
+            return Optional.of(add(value.get(), recipient));
+        }
+        // Subtract has no size suffix for memory, so add the negation.
+        return -literal == (int) -literal
+                ? Optional.of(add(new Literal(-literal), recipient))
+                : Optional.<Instruction>absent();
+    }
+
+    /** Returns whether an expression is the scalar that's being assigned to. */
+    private static boolean isTarget(NativeExpression expr, ScalarLocation target) {
+        return expr instanceof ScalarLocation
+                && ((ScalarLocation) expr).getVariable().equals(target.getVariable());
+    }
+
     @Override
     public FlowGraph<Instruction> getGraph() {
+        if (target instanceof ScalarLocation
+                && (op.isAbsolute() || !Util.containsMethodCall(expr))) {
+            return calculateScalarAssignment((ScalarLocation) target);
+        }
+        if (target instanceof ArrayLocation
+                && !Util.containsMethodCall(((ArrayLocation) target).getIndex())
+                && !Util.containsMethodCall(expr)) {
+            Optional<FlowGraph<Instruction>> graph =
+                    calculateArrayAssignment((ArrayLocation) target);
+            if (graph.isPresent()) {
+                return graph.get();
+            }
+        }
         BasicFlowGraph.Builder<Instruction> builder = BasicFlowGraph.builder();
         switch(op){
         case MINUS_EQUALS:
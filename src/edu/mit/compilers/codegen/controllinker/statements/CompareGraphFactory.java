@@ -1,19 +1,22 @@
 package edu.mit.compilers.codegen.controllinker.statements;
 
-import static edu.mit.compilers.codegen.asm.Register.R10;
 import static edu.mit.compilers.codegen.asm.instructions.Instructions.compareFlagged;
-import static edu.mit.compilers.codegen.asm.instructions.Instructions.pop;
 
 import java.util.Map;
 
+import com.google.common.base.Optional;
+
+import edu.mit.compilers.ast.BinaryOperator;
 import edu.mit.compilers.ast.Condition;
 import edu.mit.compilers.ast.NativeExpression;
 import edu.mit.compilers.ast.Scope;
 import edu.mit.compilers.codegen.asm.Literal;
 import edu.mit.compilers.codegen.asm.Register;
+import edu.mit.compilers.codegen.asm.Value;
 import edu.mit.compilers.codegen.asm.instructions.Instruction;
+import edu.mit.compilers.codegen.asm.instructions.JumpType;
 import edu.mit.compilers.codegen.controllinker.GraphFactory;
-import edu.mit.compilers.codegen.controllinker.NativeExprGraphFactory;
+import edu.mit.compilers.codegen.controllinker.RegisterExprGraphFactory;
 import edu.mit.compilers.graph.BasicFlowGraph;
 import edu.mit.compilers.graph.FlowGraph;
 import edu.mit.compilers.optimization.ScopedVariable;
@@ -36,10 +39,85 @@ public class CompareGraphFactory implements GraphFactory {
 
     @Override
     public FlowGraph<Instruction> getGraph() {
+        RegisterExprGraphFactory evaluator =
+                new RegisterExprGraphFactory(comparison, scope, allocations);
+        if (evaluator.isComparison()) {
+            // Just compare the two sides, and let the jump read the flags.
+            return evaluator.getFlagsGraph();
+        }
+        Optional<Value> value =
+                RegisterExprGraphFactory.registerOrImmediate(comparison, scope, allocations);
+        if (value.isPresent() && value.get() instanceof Register) {
+            return BasicFlowGraph.<Instruction>builder()
+                    .append(compareFlagged((Register) value.get(), Literal.TRUE))
+                    .build();
+        }
         return BasicFlowGraph.<Instruction>builder()
-                .append(new NativeExprGraphFactory(comparison, scope, allocations).getGraph())
-                .append(pop(R10))
-                .append(compareFlagged(R10, Literal.TRUE))
+                .append(evaluator.getGraph())
+                .append(compareFlagged(evaluator.getResult(), Literal.TRUE))
                 .build();
     }
+
+    /**
+     * Gets the jump to follow the graph with, to branch where a jump would after comparing the
+     * condition's value with true.
+     *
+     * <p>Only JE and JNE make sense after that comparison.
+     */
+    public JumpType getJumpType(JumpType jumpType) {
+        RegisterExprGraphFactory evaluator =
+                new RegisterExprGraphFactory(comparison, scope, allocations);
+        if (!evaluator.isComparison()) {
+            return jumpType;
+        }
+        BinaryOperator operator = evaluator.getComparison();
+        switch (jumpType) {
+            case JE:
+                return jumpIf(operator);
+            case JNE:
+                return jumpIf(negation(operator));
+            default:
+                throw new AssertionError("Unexpected jump after a condition: " + jumpType);
+        }
+    }
+
+    /** Gets the jump that's taken when the flags say the comparison holds. */
+    private static JumpType jumpIf(BinaryOperator comparison) {
+        switch (comparison) {
+            case DOUBLE_EQUALS:
+                return JumpType.JE;
+            case NOT_EQUALS:
+                return JumpType.JNE;
+            case LESS_THAN:
+                return JumpType.JL;
+            case LESS_THAN_OR_EQUAL:
+                return JumpType.JLE;
+            case GREATER_THAN:
+                return JumpType.JG;
+            case GREATER_THAN_OR_EQUAL:
+                return JumpType.JGE;
+            default:
+                throw new AssertionError("Unexpected comparison: " + comparison.getSymbol());
+        }
+    }
+
+    /** Gets the comparison that holds exactly when another doesn't. */
+    private static BinaryOperator negation(BinaryOperator comparison) {
+        switch (comparison) {
+            case DOUBLE_EQUALS:
+                return BinaryOperator.NOT_EQUALS;
+            case NOT_EQUALS:
+                return BinaryOperator.DOUBLE_EQUALS;
+            case LESS_THAN:
+                return BinaryOperator.GREATER_THAN_OR_EQUAL;
+            case LESS_THAN_OR_EQUAL:
+                return BinaryOperator.GREATER_THAN;
+            case GREATER_THAN:
+                return BinaryOperator.LESS_THAN_OR_EQUAL;
+            case GREATER_THAN_OR_EQUAL:
+                return BinaryOperator.LESS_THAN;
+            default:
+                throw new AssertionError("Unexpected comparison: " + comparison.getSymbol());
+        }
+    }
 }
@@ -1,7 +1,6 @@
 package edu.mit.compilers.codegen.controllinker.statements;
 
 import static edu.mit.compilers.codegen.asm.Register.RAX;
-import static edu.mit.compilers.codegen.asm.instructions.Instructions.pop;
 
 import java.util.Map;
 
@@ -15,7 +14,7 @@ import edu.mit.compilers.codegen.asm.Register;
 import edu.mit.compilers.codegen.asm.instructions.Instruction;
 import edu.mit.compilers.codegen.asm.instructions.Instructions;
 import edu.mit.compilers.codegen.controllinker.GraphFactory;
-import edu.mit.compilers.codegen.controllinker.NativeExprGraphFactory;
+import edu.mit.compilers.codegen.controllinker.RegisterExprGraphFactory;
 import edu.mit.compilers.graph.BasicFlowGraph;
 import edu.mit.compilers.graph.FlowGraph;
 import edu.mit.compilers.optimization.ScopedVariable;
@@ -44,8 +43,10 @@ public class ReturnStatementGraphFactory implements GraphFactory {
         Optional<NativeExpression> returnValue = rs.getValue();
         // If there is a return expression, evaluate it and move it into RAX.
         if (returnValue.isPresent()) {
-            builder.append(new NativeExprGraphFactory(returnValue.get(), scope, allocations).getGraph())
-                .append(pop(RAX));
+            RegisterExprGraphFactory evaluator =
+                    new RegisterExprGraphFactory(returnValue.get(), scope, allocations);
+            builder.append(evaluator.getGraph())
+                .append(Instructions.move(evaluator.getResult(), RAX));
         } else {
             builder.append(Instructions.move(new Literal(0), RAX));
         }
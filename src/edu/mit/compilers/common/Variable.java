@@ -1,7 +1,5 @@
 package edu.mit.compilers.common;
 
-import edu.mit.compilers.common.variableordering.VariableOrdering;
-
 /**
  * A variable.
  * 
@@ -11,7 +9,6 @@ import edu.mit.compilers.common.variableordering.VariableOrdering;
 public class Variable {
     /** Where a variable came from. */
     private static enum VariableCreator { USER, COMPILER }
-    private static VariableOrdering ORDER = VariableOrdering.BasicOrdering();
     
     private final VariableCreator creator;
     private final String name;
@@ -27,9 +24,7 @@ public class Variable {
      * <p>For example, when the user writes 'int i', we invoke forUser("i").
      */
     public static Variable forUser(String name) {
-    	Variable userVar = new Variable(VariableCreator.USER, name);
-    	ORDER.addToOrdering(userVar);
-        return userVar;
+        return new Variable(VariableCreator.USER, name);
     }
 
     /**
@@ -39,9 +34,7 @@ public class Variable {
      * when doing Common Subexpression Elimination.
      */
     public static Variable forCompiler(String name) {
-    	Variable compilerVar = new Variable(VariableCreator.COMPILER, name);
-    	ORDER.addToOrdering(compilerVar);
-        return compilerVar;
+        return new Variable(VariableCreator.COMPILER, name);
     }
     
     public String asText() {
@@ -50,15 +43,28 @@ public class Variable {
     		   : "C$" + name;
     }
     
+    /**
+     * Compare two variables.
+     *
+     * <p>User variables come before compiler variables, and variables with the same
+     * creator are ordered by name.  The ordering depends only on the variables
+     * themselves, so it is the same no matter which compilation (or which thread)
+     * happened to create them.
+     */
     public int compareTo(Variable other){
-    	return ORDER.compare(this, other);
+        int creatorOrder = creator.compareTo(other.creator);
+        return creatorOrder != 0
+                ? creatorOrder
+                : name.compareTo(other.name);
     }
 
     @Override
     public int hashCode() {
         final int prime = 31;
         int result = 1;
-        result = prime * result + creator.hashCode();
+        // Enums hash by identity, which would make HashSet iteration order, and
+        // so our output, vary from run to run.  Ordinals are stable.
+        result = prime * result + creator.ordinal();
         result = prime * result + name.hashCode();
         return result;
     }
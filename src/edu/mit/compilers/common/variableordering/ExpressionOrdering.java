@@ -4,7 +4,9 @@ import static edu.mit.compilers.ast.BinaryOperator.MINUS;
 import static edu.mit.compilers.ast.BinaryOperator.PLUS;
 import static edu.mit.compilers.ast.BinaryOperator.TIMES;
 
+import java.util.ArrayList;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Set;
 
 import com.google.common.collect.ImmutableList;
@@ -107,8 +109,9 @@ public abstract class ExpressionOrdering {
 		}
 	}
 	
-	private Set<NativeExpression> getMoveableExpressions(NativeExpression expr, BinaryOperator op){
-		HashSet<NativeExpression> moveableExpressions = new HashSet<NativeExpression>();		
+	// A list, not a set, so that repeated operands like the ones in (x * x) are all kept.
+	private List<NativeExpression> getMoveableExpressions(NativeExpression expr, BinaryOperator op){
+		List<NativeExpression> moveableExpressions = new ArrayList<NativeExpression>();
 		if((expr instanceof BinaryOperation) &&
 		   communicativeOperators(((BinaryOperation) expr).getOperator(), op)){
 			BinaryOperation binOp = (BinaryOperation) expr;
@@ -125,7 +128,7 @@ public abstract class ExpressionOrdering {
 	}
 	
 	// Dangerous, but all expression orderings are going to have to implement this or they will break
-	protected NativeExpression orderExpressions(Set<NativeExpression> expressions, BinaryOperator op){
+	protected NativeExpression orderExpressions(List<NativeExpression> expressions, BinaryOperator op){
 		throw new AssertionError("Custom expression ordering does not define an expression ordering");
 	}
 	
@@ -1,6 +1,6 @@
 package edu.mit.compilers.common.variableordering;
 
-import java.util.Set;
+import java.util.List;
 
 import edu.mit.compilers.ast.BinaryOperation;
 import edu.mit.compilers.ast.BinaryOperator;
@@ -12,7 +12,7 @@ public class LeftAssociative extends ExpressionOrdering{
 		super();
 	}
 	
-	protected NativeExpression orderExpressions(Set<NativeExpression> expressions, BinaryOperator op){
+	protected NativeExpression orderExpressions(List<NativeExpression> expressions, BinaryOperator op){
 		NativeExpression head = null;
 		for(NativeExpression expr : expressions){
 			if(head == null){
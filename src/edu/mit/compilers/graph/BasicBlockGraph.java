@@ -0,0 +1,157 @@
+package edu.mit.compilers.graph;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.ImmutableSetMultimap;
+import com.google.common.collect.Iterables;
+
+/**
+ * A view of a digraph in which each maximal single-entry, single-exit chain of nodes is
+ * collapsed into one basic block.
+ *
+ * <p>Each node of this graph holds the nodes of its block, in flow order.  Only the first
+ * node of a block may have several predecessors, and only the last node may have several
+ * successors.  There's an edge between two blocks wherever there's an edge from the last
+ * node of one to the first node of the other.
+ *
+ * <p>Boundary nodes are always blocks by themselves.  For a BcrFlowGraph, the boundaries
+ * are its terminals, so the start and the exits of an analysis stay distinguishable.
+ *
+ * @param <T> The type of element at the underlying graph's nodes.
+ */
+public class BasicBlockGraph<T> implements DiGraph<ImmutableList<Node<T>>> {
+
+    private final Set<Node<ImmutableList<Node<T>>>> blocks;
+    private final Map<Node<T>, Node<ImmutableList<Node<T>>>> blockOf;
+    private final ImmutableSetMultimap<Node<ImmutableList<Node<T>>>, Node<ImmutableList<Node<T>>>>
+            successors;
+    private final ImmutableSetMultimap<Node<ImmutableList<Node<T>>>, Node<ImmutableList<Node<T>>>>
+            predecessors;
+
+    private BasicBlockGraph(Set<Node<ImmutableList<Node<T>>>> blocks,
+            Map<Node<T>, Node<ImmutableList<Node<T>>>> blockOf,
+            ImmutableSetMultimap<Node<ImmutableList<Node<T>>>, Node<ImmutableList<Node<T>>>>
+                    successors) {
+        this.blocks = blocks;
+        this.blockOf = blockOf;
+        this.successors = successors;
+        this.predecessors = successors.inverse();
+    }
+
+    /** Group a flow graph's nodes into basic blocks.  Its terminals are boundaries. */
+    public static <T> BasicBlockGraph<T> of(BcrFlowGraph<T> graph) {
+        return of(graph, ImmutableSet.of(graph.getStart(), graph.getEnd(),
+                graph.getBreakTerminal(), graph.getContinueTerminal(),
+                graph.getReturnTerminal()));
+    }
+
+    /** Group a graph's nodes into basic blocks, never merging any of 'boundaries'. */
+    public static <T> BasicBlockGraph<T> of(DiGraph<T> graph, Collection<Node<T>> boundaries) {
+        Set<Node<T>> boundarySet = ImmutableSet.copyOf(boundaries);
+        Map<Node<T>, Node<ImmutableList<Node<T>>>> blockOf =
+                new HashMap<Node<T>, Node<ImmutableList<Node<T>>>>();
+        // Blocks, in the order in which their leaders appear in the graph.
+        List<Node<ImmutableList<Node<T>>>> blocks = new ArrayList<Node<ImmutableList<Node<T>>>>();
+
+        // Start a block at every leader, then at any node that's still left over.  (Those
+        // are on cycles that no leader can reach, where every node continues its
+        // predecessor's block.)
+        List<Node<T>> leaders = new ArrayList<Node<T>>();
+        List<Node<T>> followers = new ArrayList<Node<T>>();
+        for (Node<T> node : graph.getNodes()) {
+            if (continuesBlock(graph, node, boundarySet)) {
+                followers.add(node);
+            } else {
+                leaders.add(node);
+            }
+        }
+        for (Node<T> leader : Iterables.concat(leaders, followers)) {
+            if (blockOf.containsKey(leader)) {
+                continue;
+            }
+            List<Node<T>> members = new ArrayList<Node<T>>();
+            Node<T> node = leader;
+            while (true) {
+                members.add(node);
+                Node<T> next = onlySuccessor(graph, node);
+                if (next == null || next == leader || !continuesBlock(graph, next, boundarySet)) {
+                    break;
+                }
+                node = next;
+            }
+            Node<ImmutableList<Node<T>>> block = Node.of(ImmutableList.copyOf(members));
+            blocks.add(block);
+            for (Node<T> member : members) {
+                blockOf.put(member, block);
+            }
+        }
+
+        ImmutableSetMultimap.Builder<Node<ImmutableList<Node<T>>>, Node<ImmutableList<Node<T>>>>
+                successors = ImmutableSetMultimap.builder();
+        for (Node<ImmutableList<Node<T>>> block : blocks) {
+            for (Node<T> successor : graph.getSuccessors(Iterables.getLast(block.value()))) {
+                successors.put(block, blockOf.get(successor));
+            }
+        }
+        return new BasicBlockGraph<T>(
+                ImmutableSet.copyOf(blocks), blockOf, successors.build());
+    }
+
+    /**
+     * Returns whether a node belongs in the same block as its predecessor.
+     *
+     * <p>That's so when it's the only successor of its only predecessor, and neither of them
+     * is a boundary.
+     */
+    private static <T> boolean continuesBlock(DiGraph<T> graph, Node<T> node,
+            Set<Node<T>> boundaries) {
+        if (boundaries.contains(node)) {
+            return false;
+        }
+        Node<T> predecessor = onlyElement(graph.getPredecessors(node));
+        return predecessor != null
+                && predecessor != node
+                && !boundaries.contains(predecessor)
+                && onlySuccessor(graph, predecessor) == node;
+    }
+
+    /** Get a node's successor, or null if it doesn't have exactly one. */
+    private static <T> Node<T> onlySuccessor(DiGraph<T> graph, Node<T> node) {
+        return onlyElement(graph.getSuccessors(node));
+    }
+
+    private static <T> Node<T> onlyElement(Iterable<Node<T>> nodes) {
+        return Iterables.size(nodes) == 1 ? Iterables.getOnlyElement(nodes) : null;
+    }
+
+    @Override
+    public Set<Node<ImmutableList<Node<T>>>> getNodes() {
+        return blocks;
+    }
+
+    @Override
+    public Set<Node<ImmutableList<Node<T>>>> getPredecessors(
+            Node<ImmutableList<Node<T>>> block) {
+        return predecessors.get(block);
+    }
+
+    @Override
+    public Set<Node<ImmutableList<Node<T>>>> getSuccessors(Node<ImmutableList<Node<T>>> block) {
+        return successors.get(block);
+    }
+
+    /** Get the block that contains a node of the underlying graph. */
+    public Node<ImmutableList<Node<T>>> getBlock(Node<T> node) {
+        checkArgument(blockOf.containsKey(node), "%s is not in this graph.", node);
+        return blockOf.get(node);
+    }
+}
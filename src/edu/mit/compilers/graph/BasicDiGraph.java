@@ -2,8 +2,8 @@ package edu.mit.compilers.graph;
 
 import java.util.Set;
 
-import com.google.common.collect.HashMultimap;
 import com.google.common.collect.ImmutableMultimap;
+import com.google.common.collect.LinkedHashMultimap;
 import com.google.common.collect.Multimap;
 import com.google.common.collect.Sets;
 
@@ -42,7 +42,7 @@ public class BasicDiGraph<T> implements DiGraph<T> {
         private final Multimap<Node<T>, Node<T>> forwardEdges;
 
         private Builder() {
-            this.forwardEdges = HashMultimap.create();
+            this.forwardEdges = LinkedHashMultimap.create();
         }
 
         public Builder<T> link(Node<T> source, Node<T> sink) {
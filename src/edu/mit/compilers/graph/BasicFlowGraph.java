@@ -3,19 +3,21 @@ package edu.mit.compilers.graph;
 import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.base.Preconditions.checkState;
 
+import java.util.ArrayDeque;
 import java.util.Collection;
-import java.util.HashMap;
+import java.util.Deque;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Set;
 
-import com.google.common.collect.HashMultimap;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableMultimap;
 import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.Iterables;
+import com.google.common.collect.LinkedHashMultimap;
 import com.google.common.collect.Multimap;
 import com.google.common.collect.Sets;
 
@@ -117,11 +119,19 @@ public class BasicFlowGraph<T> implements FlowGraph<T> {
         return new Builder<T>().append(graph);
     }
 
+    /**
+     * Builds a BasicFlowGraph, and edits it in place.
+     *
+     * <p>Forward and backward edges are kept in sync as links are made, so #replace, #remove
+     * and #removeNops only touch the edges around the nodes they change.  Make one builder
+     * per batch of edits, and build it once at the end.
+     */
     public static class Builder<T> {
-        private final Multimap<Node<T>, Node<T>> edges = HashMultimap.create();
-        private final Multimap<Node<T>, Node<T>> backwardEdges = HashMultimap.create();
+        /** Linked, so the graph lists its nodes and edges in the order they were added. */
+        private final Multimap<Node<T>, Node<T>> edges = LinkedHashMultimap.create();
+        private final Multimap<Node<T>, Node<T>> backwardEdges = LinkedHashMultimap.create();
         private final Map<Node<T>, JumpDestination<T>> jumpDestinations =
-                new HashMap<Node<T>, JumpDestination<T>>();
+                new LinkedHashMap<Node<T>, JumpDestination<T>>();
         /**
          * All nodes that have been given a "default" branch.  These nodes must also be given
          * a "jump" branch before the Graph is built.
@@ -313,33 +323,211 @@ public class BasicFlowGraph<T> implements FlowGraph<T> {
         /** Replaces an Node with a FlowGraph. */
         public Builder<T> replace(Node<T> node, FlowGraph<T> replacement) {
             copyIn(replacement);
+            return relink(node, replacement.getStart(), replacement.getEnd());
+        }
+
+        /**
+         * Replaces a Node with another Node, which takes over all of its edges.
+         *
+         * <p>This only touches the edges around 'node'.
+         */
+        public Builder<T> replace(Node<T> node, Node<T> replacement) {
+            if (node.equals(replacement)) {
+                return this;
+            }
+            if (edges.containsEntry(node, node)) {
+                // Moving a self-loop would move both ends of one edge at once.
+                return replace(node, new Builder<T>().append(replacement).build());
+            }
+            return relink(node, replacement, replacement);
+        }
 
+        /**
+         * Points a node's predecessors at 'newStart', and points 'newEnd' at its successors.
+         */
+        private Builder<T> relink(Node<T> node, Node<T> newStart, Node<T> newEnd) {
             // Either this graph is at the beginning, or it needs to be linked up
             // to its predecessors.
             if (node.equals(start)) {
-                start = replacement.getStart();
+                start = newStart;
             } else {
-                // TODO(jasonpr): Deal with this supreme inefficiency. Maybe
-                // use a BiMultiMap lookalike?
-                for (Node<T> predecessor : ImmutableMultimap.copyOf(edges).inverse().get(node)) {
-                    replaceEdgeEnd(predecessor, node, replacement.getStart());
+                for (Node<T> predecessor : ImmutableList.copyOf(backwardEdges.get(node))) {
+                    replaceEdgeEnd(predecessor, node, newStart);
                 }
             }
 
             // Either this graph is at the end, or it needs to be linked up to
             // its successors.
             if (node.equals(end)) {
-                end = replacement.getEnd();
+                end = newEnd;
             } else {
                 Collection<Node<T>> successors = ImmutableList.copyOf(edges.get(node));
                 for (Node<T> successor : successors) {
-                    replaceEdgeStart(successor, node, replacement.getEnd());
+                    replaceEdgeStart(successor, node, newEnd);
+                }
+            }
+
+            return this;
+        }
+
+        /**
+         * Inserts a node just before another, so that all of the node's predecessors flow into
+         * 'inserted', and 'inserted' flows into the node.
+         *
+         * <p>Requires that the node is not a self-loop.  This only touches the edges around
+         * 'node'.
+         */
+        public Builder<T> insertBefore(Node<T> node, Node<T> inserted) {
+            checkArgument(!edges.containsEntry(node, node),
+                    "Cannot insert before self-loop %s.", node);
+            if (node.equals(start)) {
+                start = inserted;
+            } else {
+                for (Node<T> predecessor : ImmutableList.copyOf(backwardEdges.get(node))) {
+                    replaceEdgeEnd(predecessor, node, inserted);
                 }
             }
+            link(inserted, node);
+            return this;
+        }
 
+        /**
+         * Inserts a node on the edge from 'source' to 'sink'.
+         *
+         * <p>Only control that flows along that edge passes through the new node.  If 'source'
+         * is a branch node, the new node takes the edge's place in the branch.
+         */
+        public Builder<T> insertOnEdge(Node<T> source, Node<T> sink, Node<T> inserted) {
+            checkArgument(edges.containsEntry(source, sink),
+                    "There is no edge from %s to %s.", source, sink);
+            checkArgument(!source.equals(sink), "Cannot insert on self-loop %s.", source);
+            replaceEdgeEnd(source, sink, inserted);
+            link(inserted, sink);
             return this;
         }
 
+        /**
+         * Inserts a node on the edges from each of 'sources' to 'sink', so that control coming
+         * from any of them passes through the new node on its way to 'sink'.
+         *
+         * <p>Control that reaches 'sink' along any other edge still goes straight there.
+         */
+        public Builder<T> insertOnEdges(Collection<Node<T>> sources, Node<T> sink,
+                Node<T> inserted) {
+            checkArgument(!sources.isEmpty(), "Cannot insert on no edges.");
+            for (Node<T> source : sources) {
+                checkArgument(edges.containsEntry(source, sink),
+                        "There is no edge from %s to %s.", source, sink);
+                checkArgument(!source.equals(sink), "Cannot insert on self-loop %s.", source);
+            }
+            for (Node<T> source : sources) {
+                replaceEdgeEnd(source, sink, inserted);
+            }
+            link(inserted, sink);
+            return this;
+        }
+
+        /**
+         * Puts a new NOP on every edge into a node with several predecessors, so that code can
+         * be placed on any one of those edges.  This splits every critical edge, too.
+         *
+         * <p>Self-loops are left alone.
+         *
+         * @return The new NOPs.
+         */
+        public Set<Node<T>> splitEdgesIntoJoins() {
+            ImmutableSet.Builder<Node<T>> nops = ImmutableSet.builder();
+            for (Node<T> sink : ImmutableList.copyOf(backwardEdges.keySet())) {
+                if (backwardEdges.get(sink).size() < 2) {
+                    continue;
+                }
+                for (Node<T> source : ImmutableList.copyOf(backwardEdges.get(sink))) {
+                    if (source.equals(sink)) {
+                        continue;
+                    }
+                    Node<T> nop = Node.nop();
+                    insertOnEdge(source, sink, nop);
+                    nops.add(nop);
+                }
+            }
+            return nops.build();
+        }
+
+        /**
+         * Removes a node that has exactly one successor, linking its predecessors straight to
+         * that successor.
+         *
+         * <p>Requires that the node is not a branch node, and is neither the start nor the
+         * end.  This only touches the edges around 'node'.
+         */
+        public Builder<T> remove(Node<T> node) {
+            checkArgument(!isBranch(node), "Cannot remove branch node %s.", node);
+            checkArgument(!node.equals(start) && !node.equals(end),
+                    "Cannot remove terminal %s.", node);
+            Node<T> successor = Iterables.getOnlyElement(edges.get(node));
+            checkArgument(!successor.equals(node), "Cannot remove self-loop %s.", node);
+            edges.remove(node, successor);
+            backwardEdges.remove(successor, node);
+            for (Node<T> predecessor : ImmutableList.copyOf(backwardEdges.get(node))) {
+                replaceEdgeEnd(predecessor, node, successor);
+            }
+            return this;
+        }
+
+        /**
+         * Turns a branch node into an ordinary node that only flows into 'keptSuccessor'.
+         *
+         * <p>The edge to the other successor is dropped.  This only touches the edges out of
+         * 'branchPoint'.
+         */
+        public Builder<T> keepOnlyBranch(Node<T> branchPoint, Node<T> keptSuccessor) {
+            checkArgument(isBranch(branchPoint), "%s is not a branch node.", branchPoint);
+            checkArgument(edges.containsEntry(branchPoint, keptSuccessor),
+                    "%s is not a successor of %s.", keptSuccessor, branchPoint);
+            for (Node<T> successor : edges.removeAll(branchPoint)) {
+                backwardEdges.remove(successor, branchPoint);
+            }
+            jumpDestinations.remove(branchPoint);
+            haveNonJumpBranch.remove(branchPoint);
+            return link(branchPoint, keptSuccessor);
+        }
+
+        /**
+         * Drops every node that can't be reached from the start node, along with all of its
+         * edges.
+         *
+         * <p>The start and end nodes always stay in the graph.
+         */
+        public Builder<T> removeUnreachable() {
+            Set<Node<T>> reachable = new HashSet<Node<T>>();
+            Deque<Node<T>> agenda = new ArrayDeque<Node<T>>();
+            reachable.add(start);
+            agenda.push(start);
+            while (!agenda.isEmpty()) {
+                for (Node<T> successor : edges.get(agenda.pop())) {
+                    if (reachable.add(successor)) {
+                        agenda.push(successor);
+                    }
+                }
+            }
+            Set<Node<T>> nodes = ImmutableSet.copyOf(edges.keySet());
+            for (Node<T> node : nodes) {
+                if (reachable.contains(node)) {
+                    continue;
+                }
+                for (Node<T> successor : edges.removeAll(node)) {
+                    backwardEdges.remove(successor, node);
+                }
+                jumpDestinations.remove(node);
+                haveNonJumpBranch.remove(node);
+            }
+            return this;
+        }
+
+        private boolean isBranch(Node<T> node) {
+            return jumpDestinations.containsKey(node) || haveNonJumpBranch.contains(node);
+        }
+
         /**
          * Remove all removable NOPs.
          *
@@ -348,21 +536,21 @@ public class BasicFlowGraph<T> implements FlowGraph<T> {
          * @param specialNodes All nodes that must not be replaced, such as terminals.
          */
         public Builder<T> removeNops(Set<Node<T>> specialNodes) {
-            FlowGraph<T> currentGraph = build();
-            for (Node<T> node : currentGraph.getNodes()) {
+            // Every node with an edge.  (A node with no edges has no successor, so it's
+            // never removable.)
+            Set<Node<T>> nodes = ImmutableSet.copyOf(
+                    Sets.union(edges.keySet(), backwardEdges.keySet()));
+            for (Node<T> node : nodes) {
                 if (node.hasValue()
                         || edges.get(node).isEmpty()
-                        || currentGraph.isBranch(node)
-                        || specialNodes.contains(node)) {
+                        || edges.containsEntry(node, node)
+                        || isBranch(node)
+                        || specialNodes.contains(node)
+                        || node.equals(start)
+                        || node.equals(end)) {
                     continue;
                 }
-                // There's only one successor, since this is not a branch node.
-                Node<T> successor = Iterables.getOnlyElement(edges.get(node));
-                edges.remove(node, successor);
-                backwardEdges.remove(successor, node);
-                for (Node<T> predecessor : ImmutableList.copyOf(backwardEdges.get(node))) {
-                    replaceEdgeEnd(predecessor, node, successor);
-                }
+                remove(node);
             }
             return this;
         }
@@ -1,5 +1,6 @@
 package edu.mit.compilers.graph;
 
+import java.util.Collection;
 import java.util.Set;
 
 import com.google.common.collect.ImmutableSet;
@@ -21,13 +22,40 @@ public class BcrFlowGraph<T> implements FlowGraph<T> {
     private final Node<T> breakTerminal;
     private final Node<T> continueTerminal;
     private final Node<T> returnTerminal;
+    private final Set<Node<T>> nodes;
 
     private BcrFlowGraph(FlowGraph<T> flowGraph,
             Node<T> breakTerminal, Node<T> continueTerminal, Node<T> returnTerminal) {
+        this(flowGraph, breakTerminal, continueTerminal, returnTerminal,
+                Sets.union(
+                        ImmutableSet.of(breakTerminal, continueTerminal, returnTerminal),
+                        flowGraph.getNodes()));
+    }
+
+    private BcrFlowGraph(FlowGraph<T> flowGraph, Node<T> breakTerminal,
+            Node<T> continueTerminal, Node<T> returnTerminal, Set<Node<T>> nodes) {
         this.flowGraph = flowGraph;
         this.breakTerminal = breakTerminal;
         this.continueTerminal = continueTerminal;
         this.returnTerminal = returnTerminal;
+        this.nodes = nodes;
+    }
+
+    /**
+     * Get a copy of this graph that's backed by a FrozenFlowGraph.
+     *
+     * <p>It has the same nodes, edges and terminals, but it's much cheaper to walk.  Returns
+     * this graph if it's already frozen.
+     */
+    public BcrFlowGraph<T> frozen() {
+        if (flowGraph instanceof FrozenFlowGraph) {
+            return this;
+        }
+        // Freeze this graph, rather than the underlying one, so the frozen graph's nodes
+        // include all the terminals.
+        FrozenFlowGraph<T> frozenGraph = FrozenFlowGraph.copyOf(this);
+        return new BcrFlowGraph<T>(frozenGraph, breakTerminal, continueTerminal, returnTerminal,
+                frozenGraph.getNodes());
     }
 
     @Override
@@ -42,9 +70,7 @@ public class BcrFlowGraph<T> implements FlowGraph<T> {
 
     @Override
     public Set<Node<T>> getNodes() {
-        return Sets.union(
-                ImmutableSet.of(breakTerminal, continueTerminal, returnTerminal),
-                flowGraph.getNodes());
+        return nodes;
     }
 
     @Override
@@ -202,8 +228,62 @@ public class BcrFlowGraph<T> implements FlowGraph<T> {
             return this;
         }
 
+        /** Replaces a Node with another Node.  This only touches the edges around 'node'. */
         public Builder<T> replace(Node<T> node, Node<T> replacement) {
-            return replace(node, new Builder<T>().append(replacement).build());
+            basicBuilder.replace(node, replacement);
+            if (node.equals(returnTerminal)) {
+                setReturnTerminal(replacement);
+            }
+            return this;
+        }
+
+        /** Inserts a node just before another.  See BasicFlowGraph.Builder#insertBefore. */
+        public Builder<T> insertBefore(Node<T> node, Node<T> inserted) {
+            basicBuilder.insertBefore(node, inserted);
+            return this;
+        }
+
+        /** Inserts a node on an edge.  See BasicFlowGraph.Builder#insertOnEdge. */
+        public Builder<T> insertOnEdge(Node<T> source, Node<T> sink, Node<T> inserted) {
+            basicBuilder.insertOnEdge(source, sink, inserted);
+            return this;
+        }
+
+        /** Inserts a node on several edges.  See BasicFlowGraph.Builder#insertOnEdges. */
+        public Builder<T> insertOnEdges(Collection<Node<T>> sources, Node<T> sink,
+                Node<T> inserted) {
+            basicBuilder.insertOnEdges(sources, sink, inserted);
+            return this;
+        }
+
+        /**
+         * Puts a NOP on every edge into a join.  See BasicFlowGraph.Builder#splitEdgesIntoJoins.
+         */
+        public Set<Node<T>> splitEdgesIntoJoins() {
+            return basicBuilder.splitEdgesIntoJoins();
+        }
+
+        /**
+         * Removes a node that has exactly one successor.  See BasicFlowGraph.Builder#remove.
+         */
+        public Builder<T> remove(Node<T> node) {
+            basicBuilder.remove(node);
+            return this;
+        }
+
+        /** Turns a branch into a plain edge.  See BasicFlowGraph.Builder#keepOnlyBranch. */
+        public Builder<T> keepOnlyBranch(Node<T> branchPoint, Node<T> keptSuccessor) {
+            basicBuilder.keepOnlyBranch(branchPoint, keptSuccessor);
+            return this;
+        }
+
+        /**
+         * Drops the nodes that can't be reached from the start node.  The terminals are kept,
+         * even if they're unreachable.
+         */
+        public Builder<T> removeUnreachable() {
+            basicBuilder.removeUnreachable();
+            return this;
         }
 
         public Builder<T> removeNops() {
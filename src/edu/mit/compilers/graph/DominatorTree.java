@@ -0,0 +1,273 @@
+package edu.mit.compilers.graph;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import com.google.common.base.Optional;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.ImmutableSetMultimap;
+
+/**
+ * The dominator tree of a graph, from some root.
+ *
+ * <p>Node a dominates node b if every path from the root to b passes through a.  (So, every
+ * node dominates itself.)  In the tree, each node's parent is its immediate dominator: the
+ * one strict dominator that every other strict dominator dominates.  Only nodes that are
+ * reachable from the root are in the tree.
+ *
+ * <p>Immediate dominators are found with the iterative algorithm of Cooper, Harvey and
+ * Kennedy ("A Simple, Fast Dominance Algorithm"), which is near-linear on the reducible
+ * graphs that we make.  The tree is then numbered in pre- and postorder, so each dominance
+ * query takes constant time.
+ *
+ * <p>As a DiGraph, each node's successors are its children in the tree.
+ *
+ * @param <T> The type of element at the graph's nodes.
+ */
+public class DominatorTree<T> implements DiGraph<T> {
+    private static final int UNDEFINED = -1;
+
+    private final Node<T> root;
+    // Reachable nodes, in reverse postorder of a walk from the root.
+    private final ImmutableList<Node<T>> nodes;
+    private final ImmutableSet<Node<T>> nodeSet;
+    private final Map<Node<T>, Integer> indices;
+    private final int[] immediateDominators;
+    private final ImmutableSetMultimap<Node<T>, Node<T>> children;
+    // Each node's position in pre- and postorder walks of the tree.
+    private final int[] preorder;
+    private final int[] postorder;
+    private final ImmutableSetMultimap<Node<T>, Node<T>> dominanceFrontiers;
+
+    private DominatorTree(DiGraph<T> graph, Node<T> root) {
+        this.root = root;
+        this.nodes = Graphs.reversePostorder(graph, root);
+        this.nodeSet = ImmutableSet.copyOf(nodes);
+        this.indices = new HashMap<Node<T>, Integer>();
+        for (int i = 0; i < nodes.size(); i++) {
+            indices.put(nodes.get(i), i);
+        }
+        int[][] predecessors = new int[nodes.size()][];
+        for (int i = 0; i < nodes.size(); i++) {
+            List<Integer> reachablePredecessors = new ArrayList<Integer>();
+            for (Node<T> predecessor : graph.getPredecessors(nodes.get(i))) {
+                Integer index = indices.get(predecessor);
+                if (index != null) {
+                    reachablePredecessors.add(index);
+                }
+            }
+            predecessors[i] = new int[reachablePredecessors.size()];
+            for (int p = 0; p < predecessors[i].length; p++) {
+                predecessors[i][p] = reachablePredecessors.get(p);
+            }
+        }
+
+        this.immediateDominators = immediateDominators(predecessors);
+
+        ImmutableSetMultimap.Builder<Node<T>, Node<T>> children = ImmutableSetMultimap.builder();
+        for (int i = 1; i < nodes.size(); i++) {
+            children.put(nodes.get(immediateDominators[i]), nodes.get(i));
+        }
+        this.children = children.build();
+
+        this.preorder = new int[nodes.size()];
+        this.postorder = new int[nodes.size()];
+        numberTree();
+
+        this.dominanceFrontiers = dominanceFrontiers(predecessors);
+    }
+
+    /** Get the dominator tree of a flow graph, rooted at its start. */
+    public static <T> DominatorTree<T> dominators(FlowGraph<T> graph) {
+        return new DominatorTree<T>(graph, graph.getStart());
+    }
+
+    /**
+     * Get the post-dominator tree of a flow graph, rooted at its end.
+     *
+     * <p>Node a post-dominates node b if every path from b to the end passes through a.
+     * Nodes that can't reach the end, like those in infinite loops, aren't in the tree.
+     */
+    public static <T> DominatorTree<T> postDominators(FlowGraph<T> graph) {
+        return new DominatorTree<T>(Graphs.inverse(graph), graph.getEnd());
+    }
+
+    /** Get the dominator tree of a graph, from some root. */
+    public static <T> DominatorTree<T> of(DiGraph<T> graph, Node<T> root) {
+        return new DominatorTree<T>(graph, root);
+    }
+
+    /**
+     * Find each node's immediate dominator, by index.
+     *
+     * <p>Requires that nodes are numbered in reverse postorder, from the root, which is 0.
+     * The root is its own immediate dominator.
+     */
+    private static int[] immediateDominators(int[][] predecessors) {
+        int[] idoms = new int[predecessors.length];
+        Arrays.fill(idoms, UNDEFINED);
+        if (idoms.length == 0) {
+            return idoms;
+        }
+        idoms[0] = 0;
+        boolean changed = true;
+        while (changed) {
+            changed = false;
+            for (int node = 1; node < predecessors.length; node++) {
+                int newIdom = UNDEFINED;
+                for (int predecessor : predecessors[node]) {
+                    if (idoms[predecessor] == UNDEFINED) {
+                        // We haven't processed this predecessor yet.
+                        continue;
+                    }
+                    newIdom = (newIdom == UNDEFINED)
+                            ? predecessor
+                            : intersect(idoms, predecessor, newIdom);
+                }
+                if (idoms[node] != newIdom) {
+                    idoms[node] = newIdom;
+                    changed = true;
+                }
+            }
+        }
+        return idoms;
+    }
+
+    /** Find the nearest common dominator of two nodes, by walking up the partial tree. */
+    private static int intersect(int[] idoms, int a, int b) {
+        // In reverse postorder, dominators have smaller indices than the nodes they dominate.
+        while (a != b) {
+            while (a > b) {
+                a = idoms[a];
+            }
+            while (b > a) {
+                b = idoms[b];
+            }
+        }
+        return a;
+    }
+
+    /** Fill in the pre- and postorder numbers of each node in the tree. */
+    private void numberTree() {
+        if (nodes.isEmpty()) {
+            return;
+        }
+        int preCount = 0;
+        int postCount = 0;
+        // An explicit stack, since methods can be long enough to overflow the call stack.
+        List<Node<T>> stack = new ArrayList<Node<T>>();
+        List<Iterator<Node<T>>> unvisitedChildren = new ArrayList<Iterator<Node<T>>>();
+        stack.add(root);
+        unvisitedChildren.add(children.get(root).iterator());
+        preorder[0] = preCount++;
+        while (!stack.isEmpty()) {
+            int top = stack.size() - 1;
+            if (unvisitedChildren.get(top).hasNext()) {
+                Node<T> child = unvisitedChildren.get(top).next();
+                preorder[indices.get(child)] = preCount++;
+                stack.add(child);
+                unvisitedChildren.add(children.get(child).iterator());
+            } else {
+                postorder[indices.get(stack.remove(top))] = postCount++;
+                unvisitedChildren.remove(top);
+            }
+        }
+    }
+
+    /**
+     * Find each node's dominance frontier: the nodes that it doesn't strictly dominate, but
+     * that have a predecessor that it does dominate.
+     */
+    private ImmutableSetMultimap<Node<T>, Node<T>> dominanceFrontiers(int[][] predecessors) {
+        ImmutableSetMultimap.Builder<Node<T>, Node<T>> frontiers = ImmutableSetMultimap.builder();
+        for (int node = 0; node < nodes.size(); node++) {
+            if (predecessors[node].length < 2) {
+                continue;
+            }
+            for (int predecessor : predecessors[node]) {
+                // Every node from the predecessor up to (but not including) this node's
+                // immediate dominator has this node on its frontier.
+                for (int runner = predecessor;
+                        runner != immediateDominators[node];
+                        runner = immediateDominators[runner]) {
+                    frontiers.put(nodes.get(runner), nodes.get(node));
+                    if (runner == 0) {
+                        // The root can only be here if it's on a cycle through this node.
+                        break;
+                    }
+                }
+            }
+        }
+        return frontiers.build();
+    }
+
+    private int index(Node<T> node) {
+        Integer index = indices.get(node);
+        checkArgument(index != null, "%s is not reachable from the root.", node);
+        return index;
+    }
+
+    public Node<T> getRoot() {
+        return root;
+    }
+
+    /** Returns whether a node is reachable from the root, i.e. whether it's in the tree. */
+    public boolean contains(Node<T> node) {
+        return nodeSet.contains(node);
+    }
+
+    /** Get a node's immediate dominator.  It's absent for the root. */
+    public Optional<Node<T>> getImmediateDominator(Node<T> node) {
+        int index = index(node);
+        return index == 0
+                ? Optional.<Node<T>>absent()
+                : Optional.of(nodes.get(immediateDominators[index]));
+    }
+
+    /** Returns whether 'dominator' dominates 'dominated'.  Every node dominates itself. */
+    public boolean dominates(Node<T> dominator, Node<T> dominated) {
+        int a = index(dominator);
+        int b = index(dominated);
+        return preorder[a] <= preorder[b] && postorder[b] <= postorder[a];
+    }
+
+    /** Returns whether 'dominator' dominates 'dominated', and they're different nodes. */
+    public boolean strictlyDominates(Node<T> dominator, Node<T> dominated) {
+        return !dominator.equals(dominated) && dominates(dominator, dominated);
+    }
+
+    /**
+     * Get a node's dominance frontier: the nodes that it doesn't strictly dominate, but that
+     * have a predecessor that it does dominate.
+     */
+    public Set<Node<T>> getDominanceFrontier(Node<T> node) {
+        index(node);
+        return dominanceFrontiers.get(node);
+    }
+
+    /** Get the nodes in the tree, in reverse postorder of the original graph. */
+    @Override
+    public Set<Node<T>> getNodes() {
+        return nodeSet;
+    }
+
+    /** Get a node's immediate dominator, if it has one. */
+    @Override
+    public Set<Node<T>> getPredecessors(Node<T> node) {
+        return getImmediateDominator(node).asSet();
+    }
+
+    /** Get the nodes that a node immediately dominates. */
+    @Override
+    public Set<Node<T>> getSuccessors(Node<T> node) {
+        return children.get(node);
+    }
+}
@@ -0,0 +1,272 @@
+package edu.mit.compilers.graph;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+import java.util.AbstractSet;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+import com.google.common.collect.ImmutableList;
+
+import edu.mit.compilers.codegen.asm.instructions.JumpType;
+
+/**
+ * An immutable FlowGraph that's cheap to walk.
+ *
+ * <p>Each node gets a dense int id, in the order in which the original graph listed its
+ * nodes, and edges are stored in compressed sparse row arrays: the successors of node i
+ * are successorIds[successorStarts[i]] through successorIds[successorStarts[i + 1] - 1].
+ * Walking the graph through the id-based methods allocates nothing.  The Set-based
+ * FlowGraph methods return small views over the same arrays, so they never copy.
+ *
+ * <p>Neighbors are listed in the same order as in the original graph, so freezing a graph
+ * doesn't change the order of any walk over it.
+ *
+ * @param <T> The type of element at this graph's nodes.
+ */
+public class FrozenFlowGraph<T> implements FlowGraph<T> {
+    private static final int NOT_A_BRANCH = -1;
+
+    private final ImmutableList<Node<T>> nodes;
+    private final Map<Node<T>, Integer> ids;
+    private final Set<Node<T>> nodeSet;
+    private final int start;
+    private final int end;
+
+    private final int[] successorStarts;
+    private final int[] successorIds;
+    private final int[] predecessorStarts;
+    private final int[] predecessorIds;
+    // For each node, the id of its jump successor, or NOT_A_BRANCH.
+    private final int[] jumpSuccessors;
+    private final JumpType[] jumpTypes;
+
+    private FrozenFlowGraph(FlowGraph<T> graph) {
+        this.nodes = ImmutableList.copyOf(graph.getNodes());
+        this.ids = new HashMap<Node<T>, Integer>(nodes.size() * 2);
+        for (int id = 0; id < nodes.size(); id++) {
+            ids.put(nodes.get(id), id);
+        }
+        this.nodeSet = new NodeSet();
+        this.start = id(graph.getStart());
+        this.end = id(graph.getEnd());
+
+        this.successorStarts = new int[nodes.size() + 1];
+        this.predecessorStarts = new int[nodes.size() + 1];
+        int edgeCount = 0;
+        for (int id = 0; id < nodes.size(); id++) {
+            int successorCount = graph.getSuccessors(nodes.get(id)).size();
+            successorStarts[id + 1] = successorStarts[id] + successorCount;
+            predecessorStarts[id + 1] = predecessorStarts[id]
+                    + graph.getPredecessors(nodes.get(id)).size();
+            edgeCount += successorCount;
+        }
+        this.successorIds = new int[edgeCount];
+        this.predecessorIds = new int[edgeCount];
+        this.jumpSuccessors = new int[nodes.size()];
+        this.jumpTypes = new JumpType[nodes.size()];
+        for (int id = 0; id < nodes.size(); id++) {
+            Node<T> node = nodes.get(id);
+            int i = successorStarts[id];
+            for (Node<T> successor : graph.getSuccessors(node)) {
+                successorIds[i++] = id(successor);
+            }
+            i = predecessorStarts[id];
+            for (Node<T> predecessor : graph.getPredecessors(node)) {
+                predecessorIds[i++] = id(predecessor);
+            }
+            if (graph.isBranch(node)) {
+                jumpSuccessors[id] = id(graph.getJumpSuccessor(node));
+                jumpTypes[id] = graph.getJumpType(node);
+            } else {
+                jumpSuccessors[id] = NOT_A_BRANCH;
+            }
+        }
+    }
+
+    /** Make a frozen copy of a graph.  Returns the graph itself if it's already frozen. */
+    public static <T> FrozenFlowGraph<T> copyOf(FlowGraph<T> graph) {
+        return graph instanceof FrozenFlowGraph
+                ? (FrozenFlowGraph<T>) graph
+                : new FrozenFlowGraph<T>(graph);
+    }
+
+    private int id(Node<T> node) {
+        Integer id = ids.get(node);
+        checkArgument(id != null, "%s is not in this graph.", node);
+        return id;
+    }
+
+    /** Get the number of nodes in this graph.  Their ids are 0 through size() - 1. */
+    public int size() {
+        return nodes.size();
+    }
+
+    /** Get a node's id. */
+    public int getId(Node<T> node) {
+        return id(node);
+    }
+
+    /** Get the node with some id. */
+    public Node<T> getNode(int id) {
+        return nodes.get(id);
+    }
+
+    /** Get every node, in id order. */
+    public ImmutableList<Node<T>> getNodeList() {
+        return nodes;
+    }
+
+    public int getSuccessorCount(int id) {
+        return successorStarts[id + 1] - successorStarts[id];
+    }
+
+    /** Get the id of a node's i'th successor. */
+    public int getSuccessorId(int id, int i) {
+        return successorIds[successorStarts[id] + i];
+    }
+
+    public int getPredecessorCount(int id) {
+        return predecessorStarts[id + 1] - predecessorStarts[id];
+    }
+
+    /** Get the id of a node's i'th predecessor. */
+    public int getPredecessorId(int id, int i) {
+        return predecessorIds[predecessorStarts[id] + i];
+    }
+
+    @Override
+    public Node<T> getStart() {
+        return nodes.get(start);
+    }
+
+    @Override
+    public Node<T> getEnd() {
+        return nodes.get(end);
+    }
+
+    @Override
+    public Set<Node<T>> getNodes() {
+        return nodeSet;
+    }
+
+    @Override
+    public Set<Node<T>> getSuccessors(Node<T> node) {
+        int id = id(node);
+        return new Neighbors(successorIds, successorStarts[id], successorStarts[id + 1]);
+    }
+
+    @Override
+    public Set<Node<T>> getPredecessors(Node<T> node) {
+        int id = id(node);
+        return new Neighbors(predecessorIds, predecessorStarts[id], predecessorStarts[id + 1]);
+    }
+
+    @Override
+    public boolean isBranch(Node<T> node) {
+        return jumpSuccessors[id(node)] != NOT_A_BRANCH;
+    }
+
+    @Override
+    public Node<T> getNonJumpSuccessor(Node<T> node) {
+        checkArgument(isBranch(node), "Node %s is not a branch node.", node);
+        int id = id(node);
+        // Return the only successor that is not the jump destination.
+        for (int i = successorStarts[id]; i < successorStarts[id + 1]; i++) {
+            if (successorIds[i] != jumpSuccessors[id]) {
+                return nodes.get(successorIds[i]);
+            }
+        }
+        throw new AssertionError("No non-jump successor found for node " + node);
+    }
+
+    @Override
+    public Node<T> getJumpSuccessor(Node<T> node) {
+        checkArgument(isBranch(node), "Node %s is not a branch node.", node);
+        return nodes.get(jumpSuccessors[id(node)]);
+    }
+
+    @Override
+    public JumpType getJumpType(Node<T> node) {
+        checkArgument(isBranch(node), "Node %s is not a branch node.", node);
+        return jumpTypes[id(node)];
+    }
+
+    /** All the nodes of this graph, in id order. */
+    private final class NodeSet extends AbstractSet<Node<T>> {
+        @Override
+        public boolean contains(Object o) {
+            return ids.containsKey(o);
+        }
+
+        @Override
+        public Iterator<Node<T>> iterator() {
+            return nodes.iterator();
+        }
+
+        @Override
+        public int size() {
+            return nodes.size();
+        }
+    }
+
+    /** The nodes whose ids are in one range of a CSR array. */
+    private final class Neighbors extends AbstractSet<Node<T>> {
+        private final int[] neighborIds;
+        private final int from;
+        private final int to;
+
+        private Neighbors(int[] neighborIds, int from, int to) {
+            this.neighborIds = neighborIds;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        public boolean contains(Object o) {
+            Integer id = ids.get(o);
+            if (id == null) {
+                return false;
+            }
+            for (int i = from; i < to; i++) {
+                if (neighborIds[i] == id) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        @Override
+        public Iterator<Node<T>> iterator() {
+            return new Iterator<Node<T>>() {
+                private int next = from;
+
+                @Override
+                public boolean hasNext() {
+                    return next < to;
+                }
+
+                @Override
+                public Node<T> next() {
+                    if (next >= to) {
+                        throw new NoSuchElementException();
+                    }
+                    return nodes.get(neighborIds[next++]);
+                }
+
+                @Override
+                public void remove() {
+                    throw new UnsupportedOperationException();
+                }
+            };
+        }
+
+        @Override
+        public int size() {
+            return to - from;
+        }
+    }
+}
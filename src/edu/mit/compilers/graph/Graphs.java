@@ -3,8 +3,12 @@ package edu.mit.compilers.graph;
 import static com.google.common.base.Preconditions.checkState;
 
 import java.util.ArrayDeque;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Deque;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 
@@ -38,7 +42,7 @@ public class Graphs {
      * from the second node starts, and so on. 
      */
     public static <T> Set<Node<T>> dfs(DiGraph<T> graph, Collection<Node<T>> starts) {
-        Set<Node<T>> visited = Sets.newHashSet();
+        Set<Node<T>> visited = Sets.newLinkedHashSet();
         Deque<Node<T>> agenda = new ArrayDeque<Node<T>>(starts);
 
         while (!agenda.isEmpty()) {
@@ -56,6 +60,32 @@ public class Graphs {
         return visited;
     }
 
+    /** Get the nodes of 'graph' reachable from 'root', in reverse postorder. */
+    public static <T> ImmutableList<Node<T>> reversePostorder(DiGraph<T> graph, Node<T> root) {
+        List<Node<T>> postorder = new ArrayList<Node<T>>();
+        Set<Node<T>> visited = new HashSet<Node<T>>();
+        // An explicit stack, since methods can be long enough to overflow the call stack.
+        List<Node<T>> stack = new ArrayList<Node<T>>();
+        List<Iterator<Node<T>>> successors = new ArrayList<Iterator<Node<T>>>();
+        visited.add(root);
+        stack.add(root);
+        successors.add(graph.getSuccessors(root).iterator());
+        while (!stack.isEmpty()) {
+            int top = stack.size() - 1;
+            if (successors.get(top).hasNext()) {
+                Node<T> successor = successors.get(top).next();
+                if (visited.add(successor)) {
+                    stack.add(successor);
+                    successors.add(graph.getSuccessors(successor).iterator());
+                }
+            } else {
+                postorder.add(stack.remove(top));
+                successors.remove(top);
+            }
+        }
+        return ImmutableList.copyOf(postorder).reverse();
+    }
+
     /**
      * Returns a new graph such that every edge (a, b) of the original graph
      * becomese (b, a) in the new graph. */
@@ -135,7 +165,7 @@ public class Graphs {
         }
 
         // Color them all!
-        Map<Node<T>, C> nodeColors = Maps.newHashMap();
+        Map<Node<T>, C> nodeColors = Maps.newLinkedHashMap();
         for (Node<T> node : removedNodes) {
             ImmutableSet.Builder<C> neighborColorsBuilder = ImmutableSet.builder();
             for (Node<T> neighbor : graph.getSuccessors(node)) {
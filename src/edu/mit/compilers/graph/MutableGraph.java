@@ -4,8 +4,8 @@ import static com.google.common.base.Preconditions.checkState;
 
 import java.util.Set;
 
-import com.google.common.collect.HashMultimap;
 import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.LinkedHashMultimap;
 import com.google.common.collect.Multimap;
 import com.google.common.collect.Sets;
 
@@ -17,8 +17,8 @@ public class MutableGraph<T> implements DiGraph<T> {
     private final Set<Node<T>> nodes;
 
     public MutableGraph() {
-        this.edges = HashMultimap.create();
-        this.nodes = Sets.newHashSet();
+        this.edges = LinkedHashMultimap.create();
+        this.nodes = Sets.newLinkedHashSet();
     }
 
     // TODO(jasonpr): Make an interface containing Graph and MutableGraph.
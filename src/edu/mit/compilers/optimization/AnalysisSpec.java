@@ -3,12 +3,39 @@ package edu.mit.compilers.optimization;
 import java.util.Collection;
 import java.util.Set;
 
+import com.google.common.base.Predicate;
+
 import edu.mit.compilers.graph.Node;
 
 public interface AnalysisSpec<N, T> {
+    /** How the output sets of a node's sources are combined into its input set. */
+    public enum Confluence {
+        /** A fact holds if it holds along any path. */
+        UNION,
+        /** A fact holds only if it holds along every path. */
+        INTERSECTION,
+    }
+
     public boolean isForward();
     public Set<T> getGenSet(Node<N> node, Collection<T> inputs);
-    public boolean mustKill(Node<N> currentNode, T candidate);
-    public Set<T> applyConfluenceOperator(Iterable<Collection<T>> inputs);
+
+    /**
+     * Returns whether getGenSet depends on its 'inputs' argument.
+     *
+     * <p>If it does, the GEN set may only grow as the inputs grow, and getGenSet may only
+     * query the inputs with contains().  (The solver finds the largest possible GEN set by
+     * passing inputs that contain everything.)
+     */
+    public boolean genDependsOnInputs();
+
+    /**
+     * Returns a predicate that holds for the candidates that a node must kill.
+     *
+     * <p>It's asked for once per node, so any work that doesn't depend on the candidate
+     * belongs here, rather than in the predicate.  Return Predicates.alwaysFalse() for a
+     * node that kills nothing.
+     */
+    public Predicate<T> getKillPredicate(Node<N> currentNode);
+    public Confluence getConfluence();
     public boolean gensImmuneToKills();
 }
@@ -1,12 +1,13 @@
 package edu.mit.compilers.optimization;
 
-import static edu.mit.compilers.common.SetOperators.intersection;
 import static edu.mit.compilers.optimization.Util.containsMethodCall;
 import static edu.mit.compilers.optimization.Util.getRedefinedVariables;
 
 import java.util.Collection;
 import java.util.Set;
 
+import com.google.common.base.Predicate;
+import com.google.common.base.Predicates;
 import com.google.common.collect.ImmutableSet;
 
 import edu.mit.compilers.ast.NativeExpression;
@@ -39,19 +40,32 @@ public class AvailabilitySpec implements AnalysisSpec<ScopedStatement, ScopedExp
     }
 
     @Override
-    public boolean mustKill(Node<ScopedStatement> curNode, ScopedExpression candidate) {
-        Set<ScopedVariable> victimVariables = getRedefinedVariables(curNode);
-        for (ScopedVariable victimVariable : victimVariables) {
-            if (candidate.uses(victimVariable)) {
-                return true;
-            }
+    public Predicate<ScopedExpression> getKillPredicate(Node<ScopedStatement> curNode) {
+        final Set<ScopedVariable> victimVariables = getRedefinedVariables(curNode);
+        if (victimVariables.isEmpty()) {
+            return Predicates.alwaysFalse();
         }
+        return new Predicate<ScopedExpression>() {
+            @Override
+            public boolean apply(ScopedExpression candidate) {
+                for (ScopedVariable victimVariable : victimVariables) {
+                    if (candidate.uses(victimVariable)) {
+                        return true;
+                    }
+                }
+                return false;
+            }
+        };
+    }
+
+    @Override
+    public boolean genDependsOnInputs() {
         return false;
     }
 
     @Override
-    public Set<ScopedExpression> applyConfluenceOperator(Iterable<Collection<ScopedExpression>> outSets) {
-        return intersection(outSets);
+    public Confluence getConfluence() {
+        return Confluence.INTERSECTION;
     }
 
     @Override
@@ -0,0 +1,551 @@
+package edu.mit.compilers.optimization;
+
+import static com.google.common.base.Preconditions.checkState;
+
+import java.util.AbstractCollection;
+import java.util.AbstractSet;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+import com.google.common.base.Predicate;
+import com.google.common.base.Predicates;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.ImmutableSetMultimap;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Multimap;
+
+import edu.mit.compilers.graph.BasicBlockGraph;
+import edu.mit.compilers.graph.BcrFlowGraph;
+import edu.mit.compilers.graph.DiGraph;
+import edu.mit.compilers.graph.Graphs;
+import edu.mit.compilers.graph.Node;
+import edu.mit.compilers.optimization.AnalysisSpec.Confluence;
+
+/**
+ * Solves one data flow analysis over one graph, using dense bit vectors over basic blocks.
+ *
+ * <p>Every fact that any statement can generate is numbered, and each block's IN, OUT, GEN
+ * and KILL sets are rows of long[] bit matrices.  A block's GEN set is composed from its
+ * statements' once, up front, and a fact is in a block's KILL set if any of its statements
+ * kills it.  KILL is computed lazily: each fact is tested against a block's kill predicates
+ * at most once, the first time that fact could reach the block.  So the fixed-point
+ * iteration only ever visits blocks, and it allocates nothing.
+ *
+ * <p>Specs whose GEN depends on the inputs can't be composed, so each of their statements
+ * is a block by itself, and its GEN set is recomputed until it stops growing.
+ *
+ * <p>Blocks are taken from a priority worklist, in reverse postorder of a walk from the
+ * analysis's entry blocks along the direction of the analysis.  (For a backward analysis,
+ * that's a walk along predecessors, from the exits.)  So, in the absence of loops, each
+ * block is visited after all of its sources.
+ *
+ * <p>The result is the usual maximal fixed point: blocks start at the top of the lattice
+ * (no facts for unions, all facts for intersections), entry blocks' IN sets are empty, and
+ * so are the IN sets of blocks that have no sources.  It doesn't depend on the order in
+ * which blocks are visited.
+ *
+ * <p>The IN sets of a block's statements are only worked out once one of them is asked for.
+ */
+final class BitVectorSolver<N, T> implements DataFlowSolution<N, T> {
+
+    private final AnalysisSpec<N, T> spec;
+    // Whether each block's GEN set is composed from its statements', rather than
+    // recomputed from its IN set.
+    private final boolean composed;
+    private final BasicBlockGraph<N> blockGraph;
+
+    // Blocks, in priority order.
+    private final List<Node<ImmutableList<Node<N>>>> blocks;
+    private final Map<Node<ImmutableList<Node<N>>>, Integer> blockIndices;
+    // For each block, the indices of the blocks whose OUT sets flow into it, and the indices
+    // of the blocks into which its OUT set flows.
+    private final int[][] sources;
+    private final int[][] sinks;
+    private final boolean[] isEntry;
+
+    // Statements, block by block, each block's in the direction of the analysis.  Block i
+    // holds statements firstStatement[i] through firstStatement[i + 1] - 1.
+    private final List<Node<N>> statements;
+    private final Map<Node<N>, Integer> statementIndices;
+    private final int[] firstStatement;
+    private final List<Predicate<T>> statementKills;
+
+    private final List<T> facts;
+    private final Map<T, Integer> factIndices;
+    // The number of longs in each row.
+    private final int words;
+
+    // Block rows.
+    private final long[] in;
+    private final long[] out;
+    private final long[] gen;
+    // Whether any of each block's statements kills a fact.
+    private final List<Predicate<T>> blockKills;
+    // The rows of 'killed' are only valid where 'killKnown' is set.
+    private final long[] killKnown;
+    private final long[] killed;
+    // For specs whose GEN depends on the inputs, whether each block's GEN has reached its
+    // largest possible value.
+    private final boolean[] genSaturated;
+
+    // Statement rows.  A block's rows of 'statementIn' are only valid once it's expanded.
+    private final long[] statementGen;
+    private final long[] statementIn;
+    private final boolean[] expanded;
+
+    // Scratch space for one row.
+    private final long[] scratch;
+
+    private BitVectorSolver(AnalysisSpec<N, T> spec, BcrFlowGraph<N> graph) {
+        this.spec = spec;
+        this.composed = !spec.genDependsOnInputs();
+        this.blockGraph = composed
+                ? BasicBlockGraph.of(graph)
+                : BasicBlockGraph.of(graph, graph.getNodes());
+        Collection<Node<ImmutableList<Node<N>>>> entries = spec.isForward()
+                ? ImmutableSet.of(blockGraph.getBlock(graph.getStart()))
+                : ImmutableSet.of(blockGraph.getBlock(graph.getReturnTerminal()),
+                        blockGraph.getBlock(graph.getEnd()));
+
+        this.blocks = priorityOrder(
+                spec.isForward() ? blockGraph : Graphs.inverse(blockGraph), entries);
+        this.blockIndices = new HashMap<Node<ImmutableList<Node<N>>>, Integer>();
+        for (int i = 0; i < blocks.size(); i++) {
+            blockIndices.put(blocks.get(i), i);
+        }
+        this.sources = new int[blocks.size()][];
+        this.sinks = new int[blocks.size()][];
+        this.isEntry = new boolean[blocks.size()];
+        this.statements = new ArrayList<Node<N>>();
+        this.statementIndices = new HashMap<Node<N>, Integer>();
+        this.firstStatement = new int[blocks.size() + 1];
+        this.statementKills = new ArrayList<Predicate<T>>();
+        for (int i = 0; i < blocks.size(); i++) {
+            Node<ImmutableList<Node<N>>> block = blocks.get(i);
+            Set<Node<ImmutableList<Node<N>>>> predecessors = blockGraph.getPredecessors(block);
+            Set<Node<ImmutableList<Node<N>>>> successors = blockGraph.getSuccessors(block);
+            sources[i] = indices(spec.isForward() ? predecessors : successors, blockIndices);
+            sinks[i] = indices(spec.isForward() ? successors : predecessors, blockIndices);
+            isEntry[i] = entries.contains(block);
+
+            firstStatement[i] = statements.size();
+            for (Node<N> statement : spec.isForward()
+                    ? block.value()
+                    : Lists.reverse(block.value())) {
+                statementIndices.put(statement, statements.size());
+                statements.add(statement);
+                statementKills.add(spec.getKillPredicate(statement));
+            }
+        }
+        firstStatement[blocks.size()] = statements.size();
+
+        // Number the facts.  For each statement, remember the largest set of facts that it
+        // can generate.
+        this.facts = new ArrayList<T>();
+        this.factIndices = new HashMap<T, Integer>();
+        List<Set<T>> genSets = new ArrayList<Set<T>>(statements.size());
+        for (int i = 0; i < blocks.size(); i++) {
+            Collection<T> inputs = (!composed && !isEntry[i])
+                    ? new Everything<T>()
+                    : ImmutableSet.<T>of();
+            for (int s = firstStatement[i]; s < firstStatement[i + 1]; s++) {
+                Set<T> genSet = spec.getGenSet(statements.get(s), inputs);
+                genSets.add(genSet);
+                for (T fact : genSet) {
+                    if (!factIndices.containsKey(fact)) {
+                        factIndices.put(fact, facts.size());
+                        facts.add(fact);
+                    }
+                }
+            }
+        }
+        this.words = (facts.size() + Long.SIZE - 1) / Long.SIZE;
+
+        this.statementGen = new long[statements.size() * words];
+        this.statementIn = new long[statements.size() * words];
+        this.expanded = new boolean[blocks.size()];
+        for (int s = 0; s < statements.size(); s++) {
+            addFacts(statementGen, s * words, genSets.get(s));
+        }
+
+        this.in = new long[blocks.size() * words];
+        this.out = new long[blocks.size() * words];
+        this.gen = new long[blocks.size() * words];
+        this.blockKills = new ArrayList<Predicate<T>>(blocks.size());
+        this.killKnown = new long[blocks.size() * words];
+        this.killed = new long[blocks.size() * words];
+        this.genSaturated = new boolean[blocks.size()];
+        this.scratch = new long[words];
+        for (int i = 0; i < blocks.size(); i++) {
+            List<Predicate<T>> kills = new ArrayList<Predicate<T>>();
+            for (int s = firstStatement[i]; s < firstStatement[i + 1]; s++) {
+                if (composed) {
+                    // A block's GEN set is what's left after running its statements on an
+                    // empty input.
+                    apply(gen, i * words, s);
+                } else {
+                    System.arraycopy(statementGen, s * words, gen, i * words, words);
+                }
+                if (!statementKills.get(s).equals(Predicates.alwaysFalse())) {
+                    kills.add(statementKills.get(s));
+                }
+            }
+            if (kills.isEmpty()) {
+                blockKills.add(Predicates.<T>alwaysFalse());
+                // There's no need to ask about any fact.
+                fillAll(killKnown, i * words);
+            } else {
+                blockKills.add(kills.size() == 1 ? kills.get(0) : Predicates.or(kills));
+            }
+        }
+    }
+
+    /** Solve a data flow analysis over a graph. */
+    static <N, T> DataFlowSolution<N, T> solve(AnalysisSpec<N, T> spec, BcrFlowGraph<N> graph) {
+        BitVectorSolver<N, T> solver = new BitVectorSolver<N, T>(spec, graph);
+        solver.solve();
+        return solver;
+    }
+
+    private void solve() {
+        BitSet pending = new BitSet(blocks.size());
+        for (int i = 0; i < blocks.size(); i++) {
+            if (isEntry[i]) {
+                // Entry blocks' IN sets are empty, so their OUT sets are just their GEN sets.
+                System.arraycopy(gen, i * words, out, i * words, words);
+            } else {
+                if (spec.getConfluence() == Confluence.INTERSECTION) {
+                    fillAll(out, i * words);
+                }
+                pending.set(i);
+            }
+        }
+
+        for (int i = pending.nextSetBit(0); i >= 0; i = pending.nextSetBit(0)) {
+            pending.clear(i);
+            if (transfer(i)) {
+                for (int sink : sinks[i]) {
+                    if (!isEntry[sink]) {
+                        pending.set(sink);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Recompute the IN and OUT sets of a block.
+     *
+     * @return Whether the OUT set changed.
+     */
+    private boolean transfer(int block) {
+        int row = block * words;
+
+        // IN = the confluence of the sources' OUT sets.
+        Arrays.fill(in, row, row + words, 0);
+        if (sources[block].length > 0) {
+            System.arraycopy(out, sources[block][0] * words, in, row, words);
+            boolean union = spec.getConfluence() == Confluence.UNION;
+            for (int s = 1; s < sources[block].length; s++) {
+                int sourceRow = sources[block][s] * words;
+                for (int w = 0; w < words; w++) {
+                    in[row + w] = union
+                            ? in[row + w] | out[sourceRow + w]
+                            : in[row + w] & out[sourceRow + w];
+                }
+            }
+        }
+
+        long[] genRow = gen;
+        int genOffset = row;
+        if (!composed && !genSaturated[block]) {
+            // The block is a single statement.
+            Arrays.fill(scratch, 0);
+            addFacts(scratch, 0, spec.getGenSet(
+                    statements.get(firstStatement[block]), new FactSet(in, row)));
+            // Once a GEN set reaches its largest value, it stays there, as long as the
+            // inputs only grow.
+            genSaturated[block] = spec.getConfluence() == Confluence.UNION
+                    && rowEquals(scratch, 0, gen, row);
+            genRow = scratch;
+            genOffset = 0;
+        }
+
+        // A composed GEN set already accounts for the block's kills, so it's immune to
+        // them, whatever the spec says.
+        boolean gensImmune = composed || spec.gensImmuneToKills();
+
+        // Decide whether this block kills every fact we haven't asked about yet.
+        Predicate<T> killPredicate = blockKills.get(block);
+        for (int w = 0; w < words; w++) {
+            long candidates = gensImmune
+                    ? in[row + w]
+                    : in[row + w] | genRow[genOffset + w];
+            long unknown = candidates & ~killKnown[row + w];
+            while (unknown != 0) {
+                long bit = Long.lowestOneBit(unknown);
+                unknown &= ~bit;
+                T fact = facts.get(w * Long.SIZE + Long.numberOfTrailingZeros(bit));
+                if (killPredicate.apply(fact)) {
+                    killed[row + w] |= bit;
+                }
+                killKnown[row + w] |= bit;
+            }
+        }
+
+        // OUT = GEN U (IN - KILL), or (GEN U IN) - KILL.
+        boolean changed = false;
+        for (int w = 0; w < words; w++) {
+            long newOut = gensImmune
+                    ? genRow[genOffset + w] | (in[row + w] & ~killed[row + w])
+                    : (genRow[genOffset + w] | in[row + w]) & ~killed[row + w];
+            if (newOut != out[row + w]) {
+                out[row + w] = newOut;
+                changed = true;
+            }
+        }
+        return changed;
+    }
+
+    /**
+     * Apply one statement's transfer function to a row, in place.
+     *
+     * <p>Every candidate is tested against the statement's kill predicate, so this is only
+     * for composing GEN sets and expanding blocks, which each happen once.
+     */
+    private void apply(long[] row, int offset, int statement) {
+        int genRow = statement * words;
+        Predicate<T> killPredicate = statementKills.get(statement);
+        boolean killsNothing = killPredicate.equals(Predicates.alwaysFalse());
+        for (int w = 0; w < words; w++) {
+            long survivors = spec.gensImmuneToKills()
+                    ? row[offset + w]
+                    : row[offset + w] | statementGen[genRow + w];
+            long candidates = killsNothing ? 0 : survivors;
+            while (candidates != 0) {
+                long bit = Long.lowestOneBit(candidates);
+                candidates &= ~bit;
+                if (killPredicate.apply(
+                        facts.get(w * Long.SIZE + Long.numberOfTrailingZeros(bit)))) {
+                    survivors &= ~bit;
+                }
+            }
+            row[offset + w] = spec.gensImmuneToKills()
+                    ? statementGen[genRow + w] | survivors
+                    : survivors;
+        }
+    }
+
+    /** Work out the IN set of each of a block's statements. */
+    private void expand(int block) {
+        int first = firstStatement[block];
+        System.arraycopy(in, block * words, statementIn, first * words, words);
+        for (int s = first + 1; s < firstStatement[block + 1]; s++) {
+            System.arraycopy(statementIn, (s - 1) * words, statementIn, s * words, words);
+            apply(statementIn, s * words, s - 1);
+        }
+        expanded[block] = true;
+    }
+
+    @Override
+    public Set<T> getInputs(Node<N> node) {
+        int block = blockIndices.get(blockGraph.getBlock(node));
+        if (!expanded[block]) {
+            expand(block);
+        }
+        return new FactSet(statementIn, statementIndices.get(node) * words);
+    }
+
+    @Override
+    public Multimap<Node<N>, T> asMultimap() {
+        ImmutableSetMultimap.Builder<Node<N>, T> inSets = ImmutableSetMultimap.builder();
+        for (Node<N> statement : statements) {
+            inSets.putAll(statement, getInputs(statement));
+        }
+        return inSets.build();
+    }
+
+    private void addFacts(long[] row, int offset, Set<T> toAdd) {
+        for (T fact : toAdd) {
+            Integer index = factIndices.get(fact);
+            checkState(index != null,
+                    "%s was generated, but not when the inputs contained everything.", fact);
+            set(row, offset, index);
+        }
+    }
+
+    private boolean rowEquals(long[] a, int aOffset, long[] b, int bOffset) {
+        for (int w = 0; w < words; w++) {
+            if (a[aOffset + w] != b[bOffset + w]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void fillAll(long[] row, int offset) {
+        for (int w = 0; w < words; w++) {
+            row[offset + w] = -1L;
+        }
+        // Don't claim facts that don't exist.
+        int extraBits = words * Long.SIZE - facts.size();
+        if (extraBits > 0) {
+            row[offset + words - 1] >>>= extraBits;
+        }
+    }
+
+    private static void set(long[] row, int offset, int bit) {
+        row[offset + bit / Long.SIZE] |= 1L << (bit % Long.SIZE);
+    }
+
+    private static <B> int[] indices(Collection<Node<B>> nodes, Map<Node<B>, Integer> indices) {
+        int[] result = new int[nodes.size()];
+        int i = 0;
+        for (Node<B> node : nodes) {
+            result[i++] = indices.get(node);
+        }
+        return result;
+    }
+
+    /**
+     * Get all the nodes of a graph, in reverse postorder of a walk from the entries.
+     *
+     * <p>Nodes that the walk can't reach come last.
+     */
+    private static <B> List<Node<B>> priorityOrder(DiGraph<B> graph,
+            Collection<Node<B>> entries) {
+        List<Node<B>> postorder = new ArrayList<Node<B>>();
+        Set<Node<B>> visited = new HashSet<Node<B>>();
+        // An explicit stack, since methods can be long enough to overflow the call stack.
+        List<Node<B>> stack = new ArrayList<Node<B>>();
+        List<Iterator<Node<B>>> children = new ArrayList<Iterator<Node<B>>>();
+        for (Node<B> entry : entries) {
+            if (!visited.add(entry)) {
+                continue;
+            }
+            stack.add(entry);
+            children.add(graph.getSuccessors(entry).iterator());
+            while (!stack.isEmpty()) {
+                int top = stack.size() - 1;
+                if (children.get(top).hasNext()) {
+                    Node<B> child = children.get(top).next();
+                    if (visited.add(child)) {
+                        stack.add(child);
+                        children.add(graph.getSuccessors(child).iterator());
+                    }
+                } else {
+                    postorder.add(stack.remove(top));
+                    children.remove(top);
+                }
+            }
+        }
+        Collections.reverse(postorder);
+        for (Node<B> node : graph.getNodes()) {
+            if (!visited.contains(node)) {
+                postorder.add(node);
+            }
+        }
+        return postorder;
+    }
+
+    /** A read-only view of one row of a bit matrix, as a set of facts. */
+    private final class FactSet extends AbstractSet<T> {
+        private final long[] row;
+        private final int offset;
+
+        private FactSet(long[] row, int offset) {
+            this.row = row;
+            this.offset = offset;
+        }
+
+        @Override
+        public boolean contains(Object o) {
+            Integer index = factIndices.get(o);
+            return index != null
+                    && (row[offset + index / Long.SIZE] & (1L << (index % Long.SIZE))) != 0;
+        }
+
+        @Override
+        public Iterator<T> iterator() {
+            return new Iterator<T>() {
+                private int next = nextFact(0);
+
+                @Override
+                public boolean hasNext() {
+                    return next >= 0;
+                }
+
+                @Override
+                public T next() {
+                    if (next < 0) {
+                        throw new NoSuchElementException();
+                    }
+                    T fact = facts.get(next);
+                    next = nextFact(next + 1);
+                    return fact;
+                }
+
+                @Override
+                public void remove() {
+                    throw new UnsupportedOperationException();
+                }
+            };
+        }
+
+        @Override
+        public int size() {
+            int size = 0;
+            for (int w = 0; w < words; w++) {
+                size += Long.bitCount(row[offset + w]);
+            }
+            return size;
+        }
+
+        /** Get the index of the first fact in this set at or after 'from', or -1. */
+        private int nextFact(int from) {
+            int w = from / Long.SIZE;
+            if (w >= words) {
+                return -1;
+            }
+            long word = row[offset + w] & (-1L << (from % Long.SIZE));
+            while (true) {
+                if (word != 0) {
+                    return w * Long.SIZE + Long.numberOfTrailingZeros(word);
+                }
+                if (++w == words) {
+                    return -1;
+                }
+                word = row[offset + w];
+            }
+        }
+    }
+
+    /** Inputs that contain every fact.  They can only be queried with contains(). */
+    private static final class Everything<T> extends AbstractCollection<T> {
+        @Override
+        public boolean contains(Object o) {
+            return true;
+        }
+
+        @Override
+        public Iterator<T> iterator() {
+            throw new UnsupportedOperationException("Cannot enumerate every fact.");
+        }
+
+        @Override
+        public int size() {
+            throw new UnsupportedOperationException("Cannot count every fact.");
+        }
+    }
+}
@@ -0,0 +1,170 @@
+package edu.mit.compilers.optimization;
+
+import java.util.List;
+
+import com.google.common.collect.Lists;
+
+import edu.mit.compilers.ast.ArrayLocation;
+import edu.mit.compilers.ast.BinaryOperation;
+import edu.mit.compilers.ast.BinaryOperator;
+import edu.mit.compilers.ast.BooleanLiteral;
+import edu.mit.compilers.ast.GeneralExpression;
+import edu.mit.compilers.ast.IntLiteral;
+import edu.mit.compilers.ast.LocationDescriptor;
+import edu.mit.compilers.ast.MethodCall;
+import edu.mit.compilers.ast.NativeExpression;
+import edu.mit.compilers.ast.NativeLiteral;
+import edu.mit.compilers.ast.TernaryOperation;
+import edu.mit.compilers.ast.UnaryOperation;
+
+/**
+ * Evaluates the parts of expressions whose operands are all literals.
+ *
+ * <p>Arithmetic follows Decaf's 64-bit semantics, which are the same as Java's longs: addition,
+ * subtraction and multiplication wrap, and division and modulo round towards zero.  We never
+ * fold anything that would trap at runtime, like division by zero, so those errors still
+ * happen when they should.  We also never fold to a value that doesn't fit in a 32-bit
+ * immediate, because literals are pushed as immediates.
+ */
+public final class ConstantFolder {
+    private ConstantFolder() {}
+
+    /** Get a copy of an expression, with every evaluable subexpression replaced by its value. */
+    public static NativeExpression folded(NativeExpression expr) {
+        if (expr instanceof BinaryOperation) {
+            return folded((BinaryOperation) expr);
+        } else if (expr instanceof UnaryOperation) {
+            return folded((UnaryOperation) expr);
+        } else if (expr instanceof TernaryOperation) {
+            return folded((TernaryOperation) expr);
+        } else if (expr instanceof ArrayLocation) {
+            ArrayLocation location = (ArrayLocation) expr;
+            return location.withIndex(folded(location.getIndex()));
+        } else if (expr instanceof MethodCall) {
+            MethodCall call = (MethodCall) expr;
+            List<GeneralExpression> parameters = Lists.newArrayList();
+            for (GeneralExpression parameter : call.getParameterValues()) {
+                parameters.add(parameter instanceof NativeExpression
+                        ? folded((NativeExpression) parameter)
+                        : parameter);
+            }
+            return new MethodCall(call.getMethodName(), parameters, call.getLocationDescriptor());
+        } else {
+            // Literals and scalars are as folded as they'll get.
+            return expr;
+        }
+    }
+
+    private static NativeExpression folded(BinaryOperation operation) {
+        BinaryOperator operator = operation.getOperator();
+        NativeExpression left = folded(operation.getLeftArgument());
+        NativeExpression right = folded(operation.getRightArgument());
+
+        // && and || short-circuit, so a literal on the left decides whether the right runs.
+        if ((operator == BinaryOperator.AND || operator == BinaryOperator.OR)
+                && left instanceof NativeLiteral) {
+            boolean leftValue = ((NativeLiteral) left).get64BitValue() != 0;
+            boolean shortCircuits = (operator == BinaryOperator.AND) != leftValue;
+            return shortCircuits ? left : right;
+        }
+
+        if (left instanceof NativeLiteral && right instanceof NativeLiteral) {
+            long leftValue = ((NativeLiteral) left).get64BitValue();
+            long rightValue = ((NativeLiteral) right).get64BitValue();
+            switch (operator) {
+                case PLUS:
+                    return intLiteralOrElse(leftValue + rightValue, left, right, operation);
+                case MINUS:
+                    return intLiteralOrElse(leftValue - rightValue, left, right, operation);
+                case TIMES:
+                    return intLiteralOrElse(leftValue * rightValue, left, right, operation);
+                case DIVIDED_BY:
+                    if (canDivide(leftValue, rightValue)) {
+                        return intLiteralOrElse(leftValue / rightValue, left, right, operation);
+                    }
+                    break;
+                case MODULO:
+                    if (canDivide(leftValue, rightValue)) {
+                        return intLiteralOrElse(leftValue % rightValue, left, right, operation);
+                    }
+                    break;
+                case LESS_THAN:
+                    return booleanLiteral(leftValue < rightValue);
+                case GREATER_THAN:
+                    return booleanLiteral(leftValue > rightValue);
+                case LESS_THAN_OR_EQUAL:
+                    return booleanLiteral(leftValue <= rightValue);
+                case GREATER_THAN_OR_EQUAL:
+                    return booleanLiteral(leftValue >= rightValue);
+                case DOUBLE_EQUALS:
+                    return booleanLiteral(leftValue == rightValue);
+                case NOT_EQUALS:
+                    return booleanLiteral(leftValue != rightValue);
+                default:
+                    throw new AssertionError("Unexpected binary operator: " + operator);
+            }
+        }
+        return new BinaryOperation(operator, left, right, operation.getLocationDescriptor());
+    }
+
+    private static NativeExpression folded(UnaryOperation operation) {
+        NativeExpression argument = folded(operation.getArgument());
+        if (argument instanceof NativeLiteral) {
+            long value = ((NativeLiteral) argument).get64BitValue();
+            switch (operation.getOperator()) {
+                case NEGATIVE:
+                    if (fitsInImmediate(-value)) {
+                        return new IntLiteral(-value);
+                    }
+                    break;
+                case NOT:
+                    return booleanLiteral(value == 0);
+                case ARRAY_LENGTH:
+                    // The argument is an array, never a literal.
+                    break;
+                default:
+                    throw new AssertionError("Unexpected unary operator: " + operation.getOperator());
+            }
+        }
+        return new UnaryOperation(operation.getOperator(), argument,
+                operation.getLocationDescriptor());
+    }
+
+    private static NativeExpression folded(TernaryOperation operation) {
+        NativeExpression condition = folded(operation.getCondition());
+        if (condition instanceof NativeLiteral) {
+            // Only the chosen result is ever evaluated, so we can drop the other one.
+            return ((NativeLiteral) condition).get64BitValue() != 0
+                    ? folded(operation.getTrueResult())
+                    : folded(operation.getFalseResult());
+        }
+        return new TernaryOperation(condition, folded(operation.getTrueResult()),
+                folded(operation.getFalseResult()), operation.getLocationDescriptor());
+    }
+
+    /** Returns whether idiv can divide these values without trapping. */
+    private static boolean canDivide(long dividend, long divisor) {
+        return divisor != 0 && !(dividend == Long.MIN_VALUE && divisor == -1);
+    }
+
+    /** Returns whether a value can be pushed as an immediate. */
+    private static boolean fitsInImmediate(long value) {
+        return Integer.MIN_VALUE <= value && value <= Integer.MAX_VALUE;
+    }
+
+    /**
+     * Get a literal for a folded value, or an unfolded operation if the literal wouldn't fit
+     * in an immediate.
+     */
+    private static NativeExpression intLiteralOrElse(long value, NativeExpression left,
+            NativeExpression right, BinaryOperation operation) {
+        return fitsInImmediate(value)
+                ? new IntLiteral(value)
+                : new BinaryOperation(operation.getOperator(), left, right,
+                        operation.getLocationDescriptor());
+    }
+
+    private static BooleanLiteral booleanLiteral(boolean value) {
+        return new BooleanLiteral(Boolean.toString(value), LocationDescriptor.machineCode());
+    }
+}
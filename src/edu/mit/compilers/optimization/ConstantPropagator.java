@@ -23,8 +23,8 @@ public class ConstantPropagator implements DataFlowOptimizer {
     public DataFlowIntRep optimized(DataFlowIntRep ir) {
         BcrFlowGraph<ScopedStatement> dfg = ir.getDataFlowGraph();
 
-        Multimap<Node<ScopedStatement>, ReachingDefinition> reachingDefs =
-                DataFlowAnalyzer.REACHING_DEFINITIONS.calculate(dfg);
+        DataFlowSolution<ScopedStatement, ReachingDefinition> reachingDefs =
+                DataFlowAnalyzer.REACHING_DEFINITIONS.solve(dfg);
 
         // We do not modify the scopes at all, so we use the original method scope.
         return new DataFlowIntRep(constantsPropagated(dfg, reachingDefs), ir.getScope());
@@ -32,10 +32,10 @@ public class ConstantPropagator implements DataFlowOptimizer {
 
     private BcrFlowGraph<ScopedStatement> constantsPropagated(
             BcrFlowGraph<ScopedStatement> original,
-            Multimap<Node<ScopedStatement>, ReachingDefinition> reachingDefs) {
+            DataFlowSolution<ScopedStatement, ReachingDefinition> reachingDefs) {
         BcrFlowGraph.Builder<ScopedStatement> builder = BcrFlowGraph.builderOf(original);
         for (Node<ScopedStatement> node : original.getNodes()) {
-            builder.replace(node, constantsPropagated(node, reachingDefs.get(node)));
+            builder.replace(node, constantsPropagated(node, reachingDefs.getInputs(node)));
         }
         return builder.build();
     }
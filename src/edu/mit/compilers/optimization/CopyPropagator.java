@@ -0,0 +1,105 @@
+package edu.mit.compilers.optimization;
+
+import static edu.mit.compilers.optimization.CopySpec.getCopy;
+import static edu.mit.compilers.optimization.CopySpec.getCopySource;
+
+import java.util.Map;
+
+import com.google.common.base.Optional;
+import com.google.common.collect.Maps;
+
+import edu.mit.compilers.ast.NativeExpression;
+import edu.mit.compilers.ast.ScalarLocation;
+import edu.mit.compilers.ast.Scope;
+import edu.mit.compilers.ast.StaticStatement;
+import edu.mit.compilers.codegen.DataFlowIntRep;
+import edu.mit.compilers.codegen.dataflow.ScopedStatement;
+import edu.mit.compilers.common.Variable;
+import edu.mit.compilers.graph.BcrFlowGraph;
+import edu.mit.compilers.graph.Node;
+
+/**
+ * Replaces uses of a copied variable with the variable it was copied from.
+ *
+ * <p>A use of 'x' becomes a use of 'y' wherever the copy 'x = y' is available.  The copies
+ * themselves are left for the DeadCodeEliminator, which removes the ones that no longer have
+ * any uses.  Copies whose variables are both still live are left for the register allocator
+ * to coalesce.
+ */
+public class CopyPropagator implements DataFlowOptimizer {
+
+    /** How many rounds to run, so that chains of copies collapse to their first source. */
+    private static final int MAX_ROUNDS = 4;
+
+    @Override
+    public DataFlowIntRep optimized(DataFlowIntRep ir) {
+        BcrFlowGraph<ScopedStatement> dfg = ir.getDataFlowGraph();
+        for (int round = 0; round < MAX_ROUNDS; round++) {
+            Optional<BcrFlowGraph<ScopedStatement>> propagated = copiesPropagated(dfg);
+            if (!propagated.isPresent()) {
+                break;
+            }
+            dfg = propagated.get();
+        }
+        // We do not modify the scopes at all, so we use the original method scope.
+        return new DataFlowIntRep(dfg, ir.getScope());
+    }
+
+    /** Returns the graph with copies propagated, or absent if there were none to propagate. */
+    private static Optional<BcrFlowGraph<ScopedStatement>> copiesPropagated(
+            BcrFlowGraph<ScopedStatement> original) {
+        DataFlowSolution<ScopedStatement, Node<ScopedStatement>> availableCopies =
+                DataFlowAnalyzer.AVAILABLE_COPIES.solve(original);
+        BcrFlowGraph.Builder<ScopedStatement> builder = BcrFlowGraph.builderOf(original);
+        boolean changed = false;
+        for (Node<ScopedStatement> node : original.getNodes()) {
+            Optional<Node<ScopedStatement>> replacement =
+                    copiesPropagated(node, availableCopies.getInputs(node));
+            if (replacement.isPresent()) {
+                builder.replace(node, replacement.get());
+                changed = true;
+            }
+        }
+        return changed
+                ? Optional.of(builder.build())
+                : Optional.<BcrFlowGraph<ScopedStatement>>absent();
+    }
+
+    private static Optional<Node<ScopedStatement>> copiesPropagated(Node<ScopedStatement> node,
+            Iterable<Node<ScopedStatement>> availableCopies) {
+        if (!node.hasValue() || !node.value().getStatement().hasExpression()) {
+            return Optional.absent();
+        }
+        Scope scope = node.value().getScope();
+        Map<ScopedVariable, ScopedVariable> sources = Maps.newHashMap();
+        for (Node<ScopedStatement> copy : availableCopies) {
+            ScopedVariable source = getCopySource(copy);
+            if (isVisible(source, scope)) {
+                sources.put(getCopy(copy), source);
+            }
+        }
+
+        NativeExpression expr = node.value().getStatement().getExpression();
+        boolean changed = false;
+        for (ScopedVariable var : ScopedVariable.getVariablesOf(node.value())) {
+            if (!sources.containsKey(var)) {
+                continue;
+            }
+            expr = expr.withReplacements(new ScalarLocation(var.getVariable()),
+                    new ScalarLocation(sources.get(var).getVariable()));
+            changed = true;
+        }
+        if (!changed) {
+            return Optional.absent();
+        }
+        StaticStatement replacement = Util.getReplacement(node.value().getStatement(), expr);
+        return Optional.of(Node.of(new ScopedStatement(replacement, scope)));
+    }
+
+    /** Returns whether 'variable' is the one that its name refers to in 'scope'. */
+    private static boolean isVisible(ScopedVariable variable, Scope scope) {
+        Variable name = variable.getVariable();
+        return scope.isInScope(name)
+                && ScopedVariable.getScopeOf(name, scope).equals(variable.getScope());
+    }
+}
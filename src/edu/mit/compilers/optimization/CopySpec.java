@@ -0,0 +1,98 @@
+package edu.mit.compilers.optimization;
+
+import static edu.mit.compilers.optimization.Util.getRedefinedVariables;
+
+import java.util.Collection;
+import java.util.Set;
+
+import com.google.common.base.Predicate;
+import com.google.common.base.Predicates;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Iterables;
+
+import edu.mit.compilers.ast.Assignment;
+import edu.mit.compilers.ast.AssignmentOperation;
+import edu.mit.compilers.ast.ScalarLocation;
+import edu.mit.compilers.ast.StaticStatement;
+import edu.mit.compilers.codegen.dataflow.ScopedStatement;
+import edu.mit.compilers.graph.Node;
+
+/**
+ * Finds the copies, 'x = y', that are available at each node.
+ *
+ * <p>A copy is available if it runs along every path to the node, and neither of its
+ * variables is redefined between it and the node.  Wherever it's available, 'x' and 'y'
+ * hold the same value.
+ */
+public class CopySpec implements AnalysisSpec<ScopedStatement, Node<ScopedStatement>> {
+
+    @Override
+    public Set<Node<ScopedStatement>>
+            getGenSet(Node<ScopedStatement> node, Collection<Node<ScopedStatement>> inputs) {
+        return isCopy(node) ? ImmutableSet.of(node) : ImmutableSet.<Node<ScopedStatement>>of();
+    }
+
+    /** Kills the copies to or from any variable that this node redefines. */
+    @Override
+    public Predicate<Node<ScopedStatement>> getKillPredicate(Node<ScopedStatement> curNode) {
+        final Set<ScopedVariable> redefined = getRedefinedVariables(curNode);
+        if (redefined.isEmpty()) {
+            return Predicates.alwaysFalse();
+        }
+        return new Predicate<Node<ScopedStatement>>() {
+            @Override
+            public boolean apply(Node<ScopedStatement> copy) {
+                return redefined.contains(getCopy(copy))
+                        || redefined.contains(getCopySource(copy));
+            }
+        };
+    }
+
+    @Override
+    public boolean genDependsOnInputs() {
+        return false;
+    }
+
+    @Override
+    public Confluence getConfluence() {
+        return Confluence.INTERSECTION;
+    }
+
+    /** A copy kills the older copies of its variable, but not itself. */
+    @Override
+    public boolean gensImmuneToKills() {
+        return true;
+    }
+
+    @Override
+    public boolean isForward() {
+        return true;
+    }
+
+    /** Returns whether a node is an assignment 'x = y' from one scalar to a different one. */
+    public static boolean isCopy(Node<ScopedStatement> node) {
+        if (!node.hasValue()) {
+            return false;
+        }
+        StaticStatement statement = node.value().getStatement();
+        if (!(statement instanceof Assignment)) {
+            return false;
+        }
+        Assignment assignment = (Assignment) statement;
+        return assignment.getLocation() instanceof ScalarLocation
+                && assignment.getOperation().equals(AssignmentOperation.SET_EQUALS)
+                && assignment.getExpression() instanceof ScalarLocation
+                && !getCopy(node).equals(getCopySource(node));
+    }
+
+    /** Gets the variable that a copy assigns to. */
+    public static ScopedVariable getCopy(Node<ScopedStatement> copy) {
+        return ScopedVariable.getAssigned(
+                (Assignment) copy.value().getStatement(), copy.value().getScope());
+    }
+
+    /** Gets the variable that a copy reads from. */
+    public static ScopedVariable getCopySource(Node<ScopedStatement> copy) {
+        return Iterables.getOnlyElement(ScopedVariable.getVariablesOf(copy.value()));
+    }
+}
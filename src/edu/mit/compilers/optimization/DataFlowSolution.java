@@ -0,0 +1,24 @@
+package edu.mit.compilers.optimization;
+
+import java.util.Set;
+
+import com.google.common.collect.Multimap;
+
+import edu.mit.compilers.graph.Node;
+
+/**
+ * The facts that a data flow analysis found at each node of a graph.
+ *
+ * <p>A node's facts may only be worked out the first time they're asked for, so a solution
+ * should only be used by one thread at a time.
+ */
+public interface DataFlowSolution<N, T> {
+    /**
+     * Get the input set of a node: the facts that hold just before it, for forward analyses,
+     * or just after it, for backward analyses.
+     */
+    public Set<T> getInputs(Node<N> node);
+
+    /** Get the input set of every node.  Nodes with empty input sets are absent. */
+    public Multimap<Node<N>, T> asMultimap();
+}
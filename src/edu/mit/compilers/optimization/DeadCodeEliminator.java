@@ -2,8 +2,6 @@ package edu.mit.compilers.optimization;
 
 import java.util.Collection;
 
-import com.google.common.collect.Multimap;
-
 import edu.mit.compilers.ast.Assignment;
 import edu.mit.compilers.ast.StaticStatement;
 import edu.mit.compilers.codegen.DataFlowIntRep;
@@ -16,20 +14,20 @@ public class DeadCodeEliminator implements DataFlowOptimizer {
     @Override
     public DataFlowIntRep optimized(DataFlowIntRep intRep) {
         BcrFlowGraph<ScopedStatement> dataFlowGraph = intRep.getDataFlowGraph();
-        Multimap<Node<ScopedStatement>, ScopedVariable> liveVars =
-                DataFlowAnalyzer.LIVE_VARIABLES.calculate(dataFlowGraph);
+        DataFlowSolution<ScopedStatement, ScopedVariable> liveVars =
+                DataFlowAnalyzer.LIVE_VARIABLES.solve(dataFlowGraph);
         return new DataFlowIntRep(deadCodeEliminated(dataFlowGraph, liveVars), intRep.getScope());
     }
 
     private BcrFlowGraph<ScopedStatement> deadCodeEliminated(
             BcrFlowGraph<ScopedStatement> original,
-            Multimap<Node<ScopedStatement>, ScopedVariable> liveVars) {
+            DataFlowSolution<ScopedStatement, ScopedVariable> liveVars) {
         BcrFlowGraph.Builder<ScopedStatement> builder = BcrFlowGraph.builderOf(original);
         for (Node<ScopedStatement> node : original.getNodes()) {
             if (!node.hasValue()) {
                 continue;
             }
-            if (!isLive(node.value(), liveVars.get(node))) {
+            if (!isLive(node.value(), liveVars.getInputs(node))) {
                 // Kill the dead code!
                 builder.replace(node, Node.<ScopedStatement>nop());
             }
@@ -0,0 +1,682 @@
+package edu.mit.compilers.optimization;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import com.google.common.base.Optional;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.LinkedHashMultimap;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Multimap;
+import com.google.common.collect.Sets;
+
+import edu.mit.compilers.ast.ArrayLocation;
+import edu.mit.compilers.ast.Assignment;
+import edu.mit.compilers.ast.AssignmentOperation;
+import edu.mit.compilers.ast.BinaryOperation;
+import edu.mit.compilers.ast.BinaryOperator;
+import edu.mit.compilers.ast.Condition;
+import edu.mit.compilers.ast.GeneralExpression;
+import edu.mit.compilers.ast.Location;
+import edu.mit.compilers.ast.LocationDescriptor;
+import edu.mit.compilers.ast.MethodCall;
+import edu.mit.compilers.ast.NativeExpression;
+import edu.mit.compilers.ast.NativeLiteral;
+import edu.mit.compilers.ast.ReturnStatement;
+import edu.mit.compilers.ast.ScalarLocation;
+import edu.mit.compilers.ast.Scope;
+import edu.mit.compilers.ast.StaticStatement;
+import edu.mit.compilers.ast.TernaryOperation;
+import edu.mit.compilers.ast.UnaryOperation;
+import edu.mit.compilers.ast.UnaryOperator;
+import edu.mit.compilers.codegen.DataFlowIntRep;
+import edu.mit.compilers.codegen.asm.Architecture;
+import edu.mit.compilers.codegen.dataflow.ScopedStatement;
+import edu.mit.compilers.common.Variable;
+import edu.mit.compilers.graph.BasicFlowGraph;
+import edu.mit.compilers.graph.BcrFlowGraph;
+import edu.mit.compilers.graph.DominatorTree;
+import edu.mit.compilers.graph.Node;
+
+/**
+ * Global value numbering.
+ *
+ * <p>Every subexpression gets a value number, and two subexpressions only get the same number
+ * if they always have the same value.  An operation's number is hash-consed from its operator
+ * and its operands' numbers, with the operands of commutative operators sorted.  Statements
+ * are put in the ExpressionOrdering's canonical order first, so that "x + y" is a
+ * subexpression of "y + 1 + x", too.
+ *
+ * <p>A scalar's number is the number of the value last stored in it, so copies share numbers.
+ * An array load's number also depends on a memory version of the array, which every store to
+ * the array changes.  A method call gives every global, and every global array, a new number.
+ * Where writes to a variable merge, at its iterated dominance frontier, the variable gets a
+ * fresh number, just as it would get a phi function in SSA form.  So a number computed at a
+ * node is still right at every node that the node dominates.
+ *
+ * <p>We walk the dominator tree, and look up each subexpression among the numbers computed by
+ * the current node's dominators.  If a visible scalar still holds the value, the subexpression
+ * becomes a read of it.  Otherwise, if a dominator computed the value, the dominator stores it
+ * in a temp, and the subexpression becomes a read of the temp.  Only subexpressions that their
+ * statement always evaluates can fill temps, so the right side of "&&" can use one but not
+ * fill one.
+ */
+public class GlobalValueNumberer implements DataFlowOptimizer {
+
+    private static final String TEMP_VAR_PREFIX = "gvn_temp";
+
+    @Override
+    public DataFlowIntRep optimized(DataFlowIntRep ir) {
+        return new Numbering(ir).optimized();
+    }
+
+    /** A subexpression of one node's statement. */
+    private static final class Occurrence {
+        private final Node<ScopedStatement> node;
+        private final NativeExpression expr;
+
+        public Occurrence(Node<ScopedStatement> node, NativeExpression expr) {
+            this.node = node;
+            this.expr = expr;
+        }
+    }
+
+    /** Numbers the values of one method, and rewrites its redundant subexpressions. */
+    private static final class Numbering {
+        /** Stands for an array load's operator, in the keys of array loads. */
+        private static final String LOAD = "[]";
+
+        private final DataFlowIntRep ir;
+        private final BcrFlowGraph<ScopedStatement> graph;
+        private final DominatorTree<ScopedStatement> dominators;
+        private final Set<ScopedVariable> globals;
+        /** The variables that get fresh numbers on entry to each node, where writes merge. */
+        private final Multimap<Node<ScopedStatement>, ScopedVariable> merges =
+                LinkedHashMultimap.create();
+
+        /** Undoes the changes to the scoped tables, newest last. */
+        private final List<Runnable> undoLog = Lists.newArrayList();
+        /** The number of each variable's value.  For arrays, it's the memory version. */
+        private final UndoableMap<ScopedVariable, Integer> values =
+                new UndoableMap<ScopedVariable, Integer>();
+        /** The number of each operation, keyed by its operator and its operands' numbers. */
+        private final UndoableMap<List<Object>, Integer> numbers =
+                new UndoableMap<List<Object>, Integer>();
+        /** The first unconditional occurrence of each number. */
+        private final UndoableMap<Integer, Occurrence> leaders =
+                new UndoableMap<Integer, Occurrence>();
+        /** The scalars that have been assigned each number, newest last. */
+        private final UndoableMap<Integer, ImmutableList<ScopedVariable>> holders =
+                new UndoableMap<Integer, ImmutableList<ScopedVariable>>();
+        /** The numbers of variables' values on entry to the method. */
+        private final Map<ScopedVariable, Integer> entryValues = Maps.newLinkedHashMap();
+        private final Map<Integer, ScopedVariable> entryHolders = Maps.newLinkedHashMap();
+        /** The literal that has each number, if any. */
+        private final Map<Integer, NativeLiteral> constants = Maps.newLinkedHashMap();
+        private int nextNumber = 0;
+
+        /** The statement that was numbered at each node, in canonical order. */
+        private final Map<Node<ScopedStatement>, StaticStatement> statements =
+                Maps.newLinkedHashMap();
+        /** For each node, what to replace some of its subexpressions with. */
+        private final Map<Node<ScopedStatement>, Map<NativeExpression, NativeExpression>> uses =
+                Maps.newLinkedHashMap();
+        /** For each node, the subexpressions that fill temps, and their temps. */
+        private final Map<Node<ScopedStatement>, Map<NativeExpression, Variable>> fills =
+                Maps.newLinkedHashMap();
+        /** The temp that each leader fills, in the order the temps were made. */
+        private final Map<Occurrence, Variable> temps = Maps.newLinkedHashMap();
+
+        public Numbering(DataFlowIntRep ir) {
+            this.ir = ir;
+            this.graph = ir.getDataFlowGraph();
+            this.dominators = DominatorTree.dominators(graph);
+            this.globals = Util.getGlobalVariables(ir.getScope());
+            findMerges();
+        }
+
+        public DataFlowIntRep optimized() {
+            walk();
+            if (uses.isEmpty()) {
+                return ir;
+            }
+            // Temps live in a new scope just under the method scope, so every scope in the
+            // method has to be copied to sit under it.
+            Map<Scope, Scope> newScopes = temps.isEmpty()
+                    ? Maps.<Scope, Scope>newHashMap()
+                    : Util.augmentedScopes(Util.scopeTree(Util.reachableScopes(graph.getNodes())),
+                            temps.values(), ir.getScope());
+
+            BcrFlowGraph.Builder<ScopedStatement> builder = BcrFlowGraph.builderOf(graph);
+            for (Node<ScopedStatement> node : graph.getNodes()) {
+                if (!node.hasValue()) {
+                    continue;
+                }
+                Scope oldScope = node.value().getScope();
+                Scope scope = newScopes.containsKey(oldScope) ? newScopes.get(oldScope) : oldScope;
+                if (!uses.containsKey(node) && !fills.containsKey(node)) {
+                    if (scope != oldScope) {
+                        builder.replace(node, Node.of(
+                                new ScopedStatement(node.value().getStatement(), scope)));
+                    }
+                    continue;
+                }
+                List<StaticStatement> filled = Lists.newArrayList();
+                StaticStatement statement = rewritten(node, filled);
+                BasicFlowGraph.Builder<ScopedStatement> replacement = BasicFlowGraph.builder();
+                for (StaticStatement fill : filled) {
+                    replacement.append(new ScopedStatement(fill, scope));
+                }
+                replacement.append(new ScopedStatement(statement, scope));
+                builder.replace(node, replacement.build());
+            }
+            return new DataFlowIntRep(builder.build(), ir.getScope());
+        }
+
+        /**
+         * Find where each variable's writes merge: the iterated dominance frontier of the nodes
+         * that write it.
+         */
+        private void findMerges() {
+            Multimap<ScopedVariable, Node<ScopedStatement>> writers = LinkedHashMultimap.create();
+            for (Node<ScopedStatement> node : dominators.getNodes()) {
+                if (!node.hasValue()) {
+                    continue;
+                }
+                StaticStatement statement = node.value().getStatement();
+                if (statement instanceof Assignment) {
+                    writers.put(ScopedVariable.getAssigned(
+                            (Assignment) statement, node.value().getScope()), node);
+                }
+                if (containsCall(statement)) {
+                    for (ScopedVariable global : globals) {
+                        writers.put(global, node);
+                    }
+                }
+            }
+            for (ScopedVariable variable : writers.keySet()) {
+                Set<Node<ScopedStatement>> frontier = Sets.newLinkedHashSet();
+                Deque<Node<ScopedStatement>> agenda =
+                        new ArrayDeque<Node<ScopedStatement>>(writers.get(variable));
+                while (!agenda.isEmpty()) {
+                    for (Node<ScopedStatement> join
+                            : dominators.getDominanceFrontier(agenda.pop())) {
+                        if (frontier.add(join)) {
+                            agenda.push(join);
+                        }
+                    }
+                }
+                for (Node<ScopedStatement> join : frontier) {
+                    merges.put(join, variable);
+                }
+            }
+        }
+
+        /**
+         * Visit the dominator tree in preorder.  When we leave a node, we undo the changes that
+         * it and its subtree made to the scoped tables.
+         */
+        private void walk() {
+            Map<Node<ScopedStatement>, Integer> marks = Maps.newHashMap();
+            Deque<Node<ScopedStatement>> agenda = new ArrayDeque<Node<ScopedStatement>>();
+            agenda.push(dominators.getRoot());
+            while (!agenda.isEmpty()) {
+                Node<ScopedStatement> node = agenda.peek();
+                if (!marks.containsKey(node)) {
+                    marks.put(node, undoLog.size());
+                    visit(node);
+                    for (Node<ScopedStatement> child : dominators.getSuccessors(node)) {
+                        agenda.push(child);
+                    }
+                } else {
+                    agenda.pop();
+                    int mark = marks.get(node);
+                    while (undoLog.size() > mark) {
+                        undoLog.remove(undoLog.size() - 1).run();
+                    }
+                }
+            }
+        }
+
+        private void visit(Node<ScopedStatement> node) {
+            for (ScopedVariable variable : merges.get(node)) {
+                values.put(variable, fresh());
+            }
+            if (!node.hasValue()) {
+                return;
+            }
+            Scope scope = node.value().getScope();
+            StaticStatement statement = node.value().getStatement();
+            boolean hasCall = containsCall(statement);
+            if (!hasCall) {
+                // Reordering operands would reorder calls, so we leave those statements be.
+                statement = ordered(statement);
+            }
+            statements.put(node, statement);
+
+            Map<NativeExpression, Integer> numbered = Maps.newIdentityHashMap();
+            for (NativeExpression expr : evaluated(statement)) {
+                number(expr, scope, hasCall, numbered);
+            }
+            for (NativeExpression expr : evaluated(statement)) {
+                select(expr, node, scope, hasCall, false, numbered);
+            }
+
+            if (hasCall) {
+                for (ScopedVariable global : globals) {
+                    values.put(global, fresh());
+                }
+            }
+            if (statement instanceof Assignment) {
+                assign((Assignment) statement, scope, hasCall, numbered);
+            }
+        }
+
+        /** Record the value that an assignment stores. */
+        private void assign(Assignment assignment, Scope scope, boolean hasCall,
+                Map<NativeExpression, Integer> numbered) {
+            ScopedVariable target = ScopedVariable.getAssigned(assignment, scope);
+            int value = numbered.get(assignment.getExpression());
+            Location location = assignment.getLocation();
+            if (location instanceof ArrayLocation) {
+                int memory = fresh();
+                values.put(target, memory);
+                if (assignment.getOperation() == AssignmentOperation.SET_EQUALS && !hasCall) {
+                    // A load right after the store gets the stored value.
+                    int index = numbered.get(((ArrayLocation) location).getIndex());
+                    numbers.put(ImmutableList.<Object>of(LOAD, target, memory, index), value);
+                }
+                return;
+            }
+            int result;
+            if (hasCall) {
+                result = fresh();
+            } else if (assignment.getOperation() == AssignmentOperation.PLUS_EQUALS) {
+                result = numberOf(commutativeKey(BinaryOperator.PLUS, valueOf(target), value));
+            } else if (assignment.getOperation() == AssignmentOperation.MINUS_EQUALS) {
+                result = numberOf(ImmutableList.<Object>of(
+                        BinaryOperator.MINUS, valueOf(target), value));
+            } else {
+                result = value;
+            }
+            values.put(target, result);
+            ImmutableList<ScopedVariable> previous = holders.containsKey(result)
+                    ? holders.get(result)
+                    : ImmutableList.<ScopedVariable>of();
+            holders.put(result, ImmutableList.<ScopedVariable>builder()
+                    .addAll(previous).add(target).build());
+        }
+
+        /**
+         * Number an expression and its subexpressions, bottom up.
+         *
+         * @param hasCall Whether the statement calls a method, so its reads of globals may see
+         *         the call's writes.
+         */
+        private int number(NativeExpression expr, Scope scope, boolean hasCall,
+                Map<NativeExpression, Integer> numbered) {
+            int number;
+            if (expr instanceof NativeLiteral) {
+                number = numberOf(ImmutableList.<Object>of(
+                        expr.getClass(), ((NativeLiteral) expr).get64BitValue()));
+                constants.put(number, (NativeLiteral) expr);
+            } else if (expr instanceof ScalarLocation) {
+                ScopedVariable variable = scoped(((ScalarLocation) expr).getVariable(), scope);
+                number = hasCall && variable.isGlobal() ? fresh() : valueOf(variable);
+            } else if (expr instanceof ArrayLocation) {
+                ArrayLocation location = (ArrayLocation) expr;
+                int index = number(location.getIndex(), scope, hasCall, numbered);
+                ScopedVariable array = scoped(location.getVariable(), scope);
+                number = hasCall
+                        ? fresh()
+                        : numberOf(ImmutableList.<Object>of(LOAD, array, valueOf(array), index));
+            } else if (expr instanceof UnaryOperation) {
+                UnaryOperation operation = (UnaryOperation) expr;
+                int argument = number(operation.getArgument(), scope, hasCall, numbered);
+                number = numberOf(ImmutableList.<Object>of(operation.getOperator(), argument));
+            } else if (expr instanceof BinaryOperation) {
+                BinaryOperation operation = (BinaryOperation) expr;
+                int left = number(operation.getLeftArgument(), scope, hasCall, numbered);
+                int right = number(operation.getRightArgument(), scope, hasCall, numbered);
+                number = numberOf(isCommutative(operation.getOperator())
+                        ? commutativeKey(operation.getOperator(), left, right)
+                        : ImmutableList.<Object>of(operation.getOperator(), left, right));
+            } else if (expr instanceof TernaryOperation) {
+                TernaryOperation operation = (TernaryOperation) expr;
+                number = numberOf(ImmutableList.<Object>of("?:",
+                        number(operation.getCondition(), scope, hasCall, numbered),
+                        number(operation.getTrueResult(), scope, hasCall, numbered),
+                        number(operation.getFalseResult(), scope, hasCall, numbered)));
+            } else if (expr instanceof MethodCall) {
+                for (GeneralExpression parameter : ((MethodCall) expr).getParameterValues()) {
+                    if (parameter instanceof NativeExpression) {
+                        number((NativeExpression) parameter, scope, hasCall, numbered);
+                    }
+                }
+                number = fresh();
+            } else {
+                number = fresh();
+            }
+            numbered.put(expr, number);
+            return number;
+        }
+
+        /**
+         * Decide which subexpressions to replace, top down.
+         *
+         * @param conditional Whether the statement might not evaluate the expression.
+         */
+        private void select(NativeExpression expr, Node<ScopedStatement> node, Scope scope,
+                boolean hasCall, boolean conditional, Map<NativeExpression, Integer> numbered) {
+            if (isWorthNumbering(expr, scope)) {
+                int number = numbered.get(expr);
+                Optional<NativeExpression> replacement = replacementFor(number, scope, hasCall);
+                if (replacement.isPresent()) {
+                    replace(node, expr, replacement.get());
+                    return;
+                }
+                if (leaders.containsKey(number)) {
+                    replace(node, expr, new ScalarLocation(
+                            tempFor(leaders.get(number)), LocationDescriptor.machineCode()));
+                    return;
+                }
+                if (!conditional) {
+                    leaders.put(number, new Occurrence(node, expr));
+                }
+            }
+            if (expr instanceof ArrayLocation) {
+                select(((ArrayLocation) expr).getIndex(), node, scope, hasCall, conditional,
+                        numbered);
+            } else if (expr instanceof UnaryOperation) {
+                select(((UnaryOperation) expr).getArgument(), node, scope, hasCall, conditional,
+                        numbered);
+            } else if (expr instanceof BinaryOperation) {
+                BinaryOperation operation = (BinaryOperation) expr;
+                boolean shortCircuits = operation.getOperator() == BinaryOperator.AND
+                        || operation.getOperator() == BinaryOperator.OR;
+                select(operation.getLeftArgument(), node, scope, hasCall, conditional,
+                        numbered);
+                select(operation.getRightArgument(), node, scope, hasCall,
+                        conditional || shortCircuits, numbered);
+            } else if (expr instanceof TernaryOperation) {
+                TernaryOperation operation = (TernaryOperation) expr;
+                select(operation.getCondition(), node, scope, hasCall, conditional, numbered);
+                select(operation.getTrueResult(), node, scope, hasCall, true, numbered);
+                select(operation.getFalseResult(), node, scope, hasCall, true, numbered);
+            } else if (expr instanceof MethodCall) {
+                for (GeneralExpression parameter : ((MethodCall) expr).getParameterValues()) {
+                    if (parameter instanceof NativeExpression) {
+                        select((NativeExpression) parameter, node, scope, hasCall,
+                                conditional, numbered);
+                    }
+                }
+            }
+        }
+
+        /**
+         * Get a literal or a visible scalar that has a value, if there is one.
+         *
+         * <p>In a statement that calls a method, a global might change before the value is
+         * needed, so we don't read globals there.
+         */
+        private Optional<NativeExpression> replacementFor(int number, Scope scope,
+                boolean hasCall) {
+            if (constants.containsKey(number)) {
+                return Optional.<NativeExpression>of(constants.get(number));
+            }
+            List<ScopedVariable> candidates = Lists.newArrayList();
+            if (holders.containsKey(number)) {
+                candidates.addAll(holders.get(number).reverse());
+            }
+            if (entryHolders.containsKey(number)) {
+                candidates.add(entryHolders.get(number));
+            }
+            for (ScopedVariable candidate : candidates) {
+                Variable variable = candidate.getVariable();
+                if (valueOf(candidate) == number && !(hasCall && candidate.isGlobal())
+                        && scope.isInScope(variable)
+                        && ScopedVariable.getScopeOf(variable, scope) == candidate.getScope()) {
+                    return Optional.<NativeExpression>of(
+                            new ScalarLocation(variable, LocationDescriptor.machineCode()));
+                }
+            }
+            return Optional.absent();
+        }
+
+        private void replace(Node<ScopedStatement> node, NativeExpression expr,
+                NativeExpression replacement) {
+            if (!uses.containsKey(node)) {
+                uses.put(node, new IdentityHashMap<NativeExpression, NativeExpression>());
+            }
+            uses.get(node).put(expr, replacement);
+        }
+
+        /** Get the temp that a leader fills, and schedule it to be filled if it isn't yet. */
+        private Variable tempFor(Occurrence leader) {
+            Variable temp = temps.get(leader);
+            if (temp == null) {
+                temp = Variable.forCompiler(TEMP_VAR_PREFIX + temps.size());
+                temps.put(leader, temp);
+                if (!fills.containsKey(leader.node)) {
+                    fills.put(leader.node, new IdentityHashMap<NativeExpression, Variable>());
+                }
+                fills.get(leader.node).put(leader.expr, temp);
+            }
+            return temp;
+        }
+
+        /**
+         * Get a node's new statement, and add the temps it fills to 'filled', in the order
+         * that they must be filled.
+         */
+        private StaticStatement rewritten(Node<ScopedStatement> node,
+                List<StaticStatement> filled) {
+            StaticStatement statement = statements.get(node);
+            if (statement instanceof Assignment) {
+                Assignment assignment = (Assignment) statement;
+                Location location = assignment.getLocation();
+                if (location instanceof ArrayLocation) {
+                    ArrayLocation arrayLocation = (ArrayLocation) location;
+                    location = arrayLocation.withIndex(
+                            rewritten(arrayLocation.getIndex(), node, filled));
+                }
+                return new Assignment(location, assignment.getOperation(),
+                        rewritten(assignment.getExpression(), node, filled),
+                        assignment.getLocationDescriptor(), assignment.getFromCompiler());
+            } else if (statement instanceof Condition) {
+                return new Condition(rewritten(statement.getExpression(), node, filled));
+            } else if (statement instanceof ReturnStatement) {
+                return ReturnStatement.of(rewritten(statement.getExpression(), node, filled),
+                        ((ReturnStatement) statement).getLocationDescriptor());
+            } else if (statement instanceof MethodCall) {
+                return (MethodCall) rewritten((MethodCall) statement, node, filled);
+            }
+            throw new AssertionError("Unexpected statement " + statement);
+        }
+
+        private NativeExpression rewritten(NativeExpression expr, Node<ScopedStatement> node,
+                List<StaticStatement> filled) {
+            Map<NativeExpression, NativeExpression> nodeUses = uses.get(node);
+            if (nodeUses != null && nodeUses.containsKey(expr)) {
+                return nodeUses.get(expr);
+            }
+            NativeExpression result;
+            if (expr instanceof ArrayLocation) {
+                ArrayLocation location = (ArrayLocation) expr;
+                result = location.withIndex(rewritten(location.getIndex(), node, filled));
+            } else if (expr instanceof UnaryOperation) {
+                UnaryOperation operation = (UnaryOperation) expr;
+                result = new UnaryOperation(operation.getOperator(),
+                        rewritten(operation.getArgument(), node, filled),
+                        operation.getLocationDescriptor());
+            } else if (expr instanceof BinaryOperation) {
+                BinaryOperation operation = (BinaryOperation) expr;
+                result = new BinaryOperation(operation.getOperator(),
+                        rewritten(operation.getLeftArgument(), node, filled),
+                        rewritten(operation.getRightArgument(), node, filled),
+                        operation.getLocationDescriptor());
+            } else if (expr instanceof TernaryOperation) {
+                TernaryOperation operation = (TernaryOperation) expr;
+                result = new TernaryOperation(
+                        rewritten(operation.getCondition(), node, filled),
+                        rewritten(operation.getTrueResult(), node, filled),
+                        rewritten(operation.getFalseResult(), node, filled),
+                        operation.getLocationDescriptor());
+            } else if (expr instanceof MethodCall) {
+                MethodCall call = (MethodCall) expr;
+                List<GeneralExpression> parameters = Lists.newArrayList();
+                for (GeneralExpression parameter : call.getParameterValues()) {
+                    parameters.add(parameter instanceof NativeExpression
+                            ? rewritten((NativeExpression) parameter, node, filled)
+                            : parameter);
+                }
+                result = new MethodCall(call.getMethodName(), parameters,
+                        call.getLocationDescriptor());
+            } else {
+                result = expr;
+            }
+            Map<NativeExpression, Variable> nodeFills = fills.get(node);
+            if (nodeFills != null && nodeFills.containsKey(expr)) {
+                ScalarLocation temp =
+                        new ScalarLocation(nodeFills.get(expr), LocationDescriptor.machineCode());
+                filled.add(Assignment.compilerAssignment(temp, result));
+                return temp;
+            }
+            return result;
+        }
+
+        private int fresh() {
+            return nextNumber++;
+        }
+
+        /** Get the number of an operation, or give it a fresh one. */
+        private int numberOf(List<Object> key) {
+            if (numbers.containsKey(key)) {
+                return numbers.get(key);
+            }
+            int number = fresh();
+            numbers.put(key, number);
+            return number;
+        }
+
+        private int valueOf(ScopedVariable variable) {
+            if (values.containsKey(variable)) {
+                return values.get(variable);
+            }
+            if (!entryValues.containsKey(variable)) {
+                int number = fresh();
+                entryValues.put(variable, number);
+                if (!variable.isArray()) {
+                    entryHolders.put(number, variable);
+                }
+            }
+            return entryValues.get(variable);
+        }
+
+        private static List<Object> commutativeKey(BinaryOperator operator, int a, int b) {
+            return ImmutableList.<Object>of(operator, Math.min(a, b), Math.max(a, b));
+        }
+
+        private static boolean isCommutative(BinaryOperator operator) {
+            return operator == BinaryOperator.PLUS || operator == BinaryOperator.TIMES
+                    || operator == BinaryOperator.DOUBLE_EQUALS
+                    || operator == BinaryOperator.NOT_EQUALS;
+        }
+
+        /** Returns whether an expression takes enough work that it's worth a temp. */
+        private static boolean isWorthNumbering(NativeExpression expr, Scope scope) {
+            if (expr instanceof UnaryOperation && ((UnaryOperation) expr).getOperator()
+                    == UnaryOperator.ARRAY_LENGTH) {
+                return false;
+            }
+            // Operations on literals alone are constant folding's job.
+            return (expr instanceof ArrayLocation || expr instanceof UnaryOperation
+                    || expr instanceof BinaryOperation || expr instanceof TernaryOperation)
+                    && !ScopedVariable.getVariablesOf(expr, scope).isEmpty();
+        }
+
+        private static ScopedVariable scoped(Variable variable, Scope scope) {
+            return new ScopedVariable(variable, ScopedVariable.getScopeOf(variable, scope));
+        }
+
+        private static boolean containsCall(StaticStatement statement) {
+            if (statement instanceof Assignment
+                    && Util.containsMethodCall(((Assignment) statement).getLocation())) {
+                return true;
+            }
+            return statement.hasExpression() && Util.containsMethodCall(statement.getExpression());
+        }
+
+        /** Get the expressions that a statement evaluates, in order. */
+        private static List<NativeExpression> evaluated(StaticStatement statement) {
+            ImmutableList.Builder<NativeExpression> evaluated = ImmutableList.builder();
+            if (statement instanceof Assignment
+                    && ((Assignment) statement).getLocation() instanceof ArrayLocation) {
+                evaluated.add(((ArrayLocation) ((Assignment) statement).getLocation())
+                        .getIndex());
+            }
+            if (statement.hasExpression()) {
+                evaluated.add(statement.getExpression());
+            }
+            return evaluated.build();
+        }
+
+        /** Get a copy of a statement, with its expressions in canonical order. */
+        private static StaticStatement ordered(StaticStatement statement) {
+            if (statement instanceof Assignment) {
+                Assignment assignment = (Assignment) statement;
+                Location location = assignment.getLocation();
+                if (location instanceof ArrayLocation) {
+                    ArrayLocation arrayLocation = (ArrayLocation) location;
+                    location = arrayLocation.withIndex(ordered(arrayLocation.getIndex()));
+                }
+                return new Assignment(location, assignment.getOperation(),
+                        ordered(assignment.getExpression()), assignment.getLocationDescriptor(),
+                        assignment.getFromCompiler());
+            } else if (statement instanceof Condition) {
+                return new Condition(ordered(statement.getExpression()));
+            } else if (statement instanceof ReturnStatement && statement.hasExpression()) {
+                return ReturnStatement.of(ordered(statement.getExpression()),
+                        ((ReturnStatement) statement).getLocationDescriptor());
+            }
+            return statement;
+        }
+
+        private static NativeExpression ordered(NativeExpression expr) {
+            return Architecture.EXPRESSION_ORDERING.order(expr);
+        }
+
+        /** A map whose changes can be undone, through the undo log. */
+        private final class UndoableMap<K, V> {
+            private final Map<K, V> map = Maps.newHashMap();
+
+            public boolean containsKey(K key) {
+                return map.containsKey(key);
+            }
+
+            public V get(K key) {
+                return map.get(key);
+            }
+
+            public void put(final K key, V value) {
+                final boolean hadKey = map.containsKey(key);
+                final V oldValue = map.put(key, value);
+                undoLog.add(new Runnable() {
+                    @Override
+                    public void run() {
+                        if (hadKey) {
+                            map.put(key, oldValue);
+                        } else {
+                            map.remove(key);
+                        }
+                    }
+                });
+            }
+        }
+    }
+}
@@ -1,11 +1,12 @@
 package edu.mit.compilers.optimization;
 
-import static edu.mit.compilers.common.SetOperators.union;
 import static edu.mit.compilers.optimization.Util.getRedefinedVariables;
 
 import java.util.Collection;
 import java.util.Set;
 
+import com.google.common.base.Predicate;
+import com.google.common.base.Predicates;
 import com.google.common.collect.ImmutableSet;
 
 import edu.mit.compilers.ast.Assignment;
@@ -51,16 +52,29 @@ public class LivenessSpec implements AnalysisSpec<ScopedStatement, ScopedVariabl
 
     /** Kills a ScopedVariable if it was defined. */
     @Override
-    public boolean mustKill(Node<ScopedStatement> currentNode,
-            ScopedVariable candidate) {
-        // Do not kill arrays.  (We don't want A[5] to kill A[4].)
-        return getRedefinedVariables(currentNode).contains(candidate) && !candidate.isArray();
+    public Predicate<ScopedVariable> getKillPredicate(Node<ScopedStatement> currentNode) {
+        final Set<ScopedVariable> redefined = getRedefinedVariables(currentNode);
+        if (redefined.isEmpty()) {
+            return Predicates.alwaysFalse();
+        }
+        return new Predicate<ScopedVariable>() {
+            @Override
+            public boolean apply(ScopedVariable candidate) {
+                // Do not kill arrays.  (We don't want A[5] to kill A[4].)
+                return redefined.contains(candidate) && !candidate.isArray();
+            }
+        };
+    }
+
+    /** An assignment only gens its dependencies if its assigned variable is live. */
+    @Override
+    public boolean genDependsOnInputs() {
+        return true;
     }
 
     @Override
-    public Set<ScopedVariable> applyConfluenceOperator(
-            Iterable<Collection<ScopedVariable>> inputs) {
-        return union(inputs);
+    public Confluence getConfluence() {
+        return Confluence.UNION;
     }
 
     @Override
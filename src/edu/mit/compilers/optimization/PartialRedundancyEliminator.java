@@ -0,0 +1,578 @@
+package edu.mit.compilers.optimization;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import com.google.common.base.Optional;
+import com.google.common.base.Predicate;
+import com.google.common.base.Predicates;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
+
+import edu.mit.compilers.ast.ArrayLocation;
+import edu.mit.compilers.ast.Assignment;
+import edu.mit.compilers.ast.BinaryOperation;
+import edu.mit.compilers.ast.BinaryOperator;
+import edu.mit.compilers.ast.Condition;
+import edu.mit.compilers.ast.GeneralExpression;
+import edu.mit.compilers.ast.Location;
+import edu.mit.compilers.ast.LocationDescriptor;
+import edu.mit.compilers.ast.MethodCall;
+import edu.mit.compilers.ast.NativeExpression;
+import edu.mit.compilers.ast.NativeLiteral;
+import edu.mit.compilers.ast.ReturnStatement;
+import edu.mit.compilers.ast.ScalarLocation;
+import edu.mit.compilers.ast.Scope;
+import edu.mit.compilers.ast.ScopeType;
+import edu.mit.compilers.ast.StaticStatement;
+import edu.mit.compilers.ast.TernaryOperation;
+import edu.mit.compilers.ast.UnaryOperation;
+import edu.mit.compilers.ast.UnaryOperator;
+import edu.mit.compilers.codegen.DataFlowIntRep;
+import edu.mit.compilers.codegen.dataflow.ScopedStatement;
+import edu.mit.compilers.common.Variable;
+import edu.mit.compilers.graph.BasicFlowGraph;
+import edu.mit.compilers.graph.BcrFlowGraph;
+import edu.mit.compilers.graph.Node;
+
+/**
+ * Partial redundancy elimination, by lazy code motion.
+ *
+ * <p>An expression is partially redundant where some, but not all, of the paths that reach it
+ * have already computed it, like an expression computed in one arm of an "if" and again after
+ * the join.  We compute each such expression into a temp as late as possible while still
+ * covering every use, so temps don't live longer than they must.  That takes four analyses,
+ * as in the Dragon Book: anticipated expressions (backward), available expressions (forward),
+ * postponable expressions (forward), and used expressions (backward).  Before them, we put a
+ * NOP on every edge into a join, so that there is somewhere to put code on any edge.
+ *
+ * <p>Only the subexpressions that a statement always evaluates count as its uses, so the
+ * right side of "&&" is left alone.  Moving a computation earlier can move it before a method
+ * call, so an expression that can trap (on a division or an array access) is killed by every
+ * method call.  And in a statement with a method call, we don't count uses of expressions
+ * that read globals, or that can trap, since they might be evaluated after the call.
+ */
+public class PartialRedundancyEliminator implements DataFlowOptimizer {
+
+    private static final String TEMP_VAR_PREFIX = "pre_temp";
+
+    @Override
+    public DataFlowIntRep optimized(DataFlowIntRep ir) {
+        BcrFlowGraph.Builder<ScopedStatement> splitter =
+                BcrFlowGraph.builderOf(ir.getDataFlowGraph());
+        Set<Node<ScopedStatement>> splits = splitter.splitEdgesIntoJoins();
+        Optional<BcrFlowGraph<ScopedStatement>> moved =
+                new CodeMotion(splitter.build().frozen(), ir.getScope()).moved(splits);
+        return moved.isPresent() ? new DataFlowIntRep(moved.get(), ir.getScope()) : ir;
+    }
+
+    /** The analyses of one method, and the placement of its temps. */
+    private static final class CodeMotion {
+        private final BcrFlowGraph<ScopedStatement> graph;
+        private final Scope methodScope;
+
+        /** The expressions that each node always evaluates. */
+        private final Map<Node<ScopedStatement>, Set<ScopedExpression>> uses =
+                Maps.newLinkedHashMap();
+        private final Map<Node<ScopedStatement>, Predicate<ScopedExpression>> kills =
+                Maps.newLinkedHashMap();
+        private final Map<Node<ScopedStatement>, Set<ScopedExpression>> earliest =
+                Maps.newLinkedHashMap();
+        private final Map<Node<ScopedStatement>, Set<ScopedExpression>> latest =
+                Maps.newLinkedHashMap();
+        /** The expressions to compute into temps just before each node. */
+        private final Map<Node<ScopedStatement>, Set<ScopedExpression>> inserts =
+                Maps.newLinkedHashMap();
+        /** The expressions whose temps hold their values when each node runs. */
+        private final Map<Node<ScopedStatement>, Set<ScopedExpression>> readable =
+                Maps.newLinkedHashMap();
+        private final Map<ScopedExpression, Variable> temps = Maps.newLinkedHashMap();
+
+        public CodeMotion(BcrFlowGraph<ScopedStatement> graph, Scope methodScope) {
+            this.graph = graph;
+            this.methodScope = methodScope;
+            Set<ScopedVariable> globals = Util.getGlobalVariables(methodScope);
+            for (Node<ScopedStatement> node : graph.getNodes()) {
+                uses.put(node, usesOf(node));
+                kills.put(node, killsOf(node, globals));
+            }
+            place();
+        }
+
+        /**
+         * Get the graph with the temps filled and read, if anything was redundant.
+         *
+         * @param splits The NOPs that were put on edges into joins.  Those that are left are
+         *         removed again.
+         */
+        public Optional<BcrFlowGraph<ScopedStatement>> moved(Set<Node<ScopedStatement>> splits) {
+            if (temps.isEmpty()) {
+                return Optional.absent();
+            }
+            // Temps live in a new scope just under the method scope, so every scope in the
+            // method has to be copied to sit under it.
+            Map<Scope, Scope> newScopes = Util.augmentedScopes(
+                    Util.scopeTree(Util.reachableScopes(graph.getNodes())), temps.values(),
+                    methodScope);
+
+            BcrFlowGraph.Builder<ScopedStatement> builder = BcrFlowGraph.builderOf(graph);
+            for (Node<ScopedStatement> node : graph.getNodes()) {
+                List<ScopedExpression> filled = Lists.newArrayList(inserts.get(node));
+                // Smaller expressions first, so larger ones can read their temps.
+                Collections.sort(filled, BY_SIZE);
+                List<ScopedStatement> fills = Lists.newArrayList();
+                for (ScopedExpression expr : filled) {
+                    Scope scope = fillScope(expr);
+                    Set<ScopedExpression> tempsBefore =
+                            Sets.difference(readable.get(node), ImmutableSet.of(expr));
+                    fills.add(new ScopedStatement(
+                            Assignment.compilerAssignment(tempFor(expr),
+                                    rewritten(expr.getNativeExpression(), scope, tempsBefore)),
+                            newScopes.get(scope)));
+                }
+                if (!node.hasValue()) {
+                    for (ScopedStatement fill : fills) {
+                        builder.insertBefore(node, Node.of(fill));
+                    }
+                    continue;
+                }
+                Scope scope = node.value().getScope();
+                BasicFlowGraph.Builder<ScopedStatement> replacement = BasicFlowGraph.builder();
+                for (ScopedStatement fill : fills) {
+                    replacement.append(fill);
+                }
+                replacement.append(new ScopedStatement(
+                        rewritten(node.value().getStatement(), scope, readable.get(node)),
+                        newScopes.get(scope)));
+                builder.replace(node, replacement.build());
+            }
+            for (Node<ScopedStatement> split : splits) {
+                builder.remove(split);
+            }
+            return Optional.of(builder.build());
+        }
+
+        /** Run the four analyses, and decide where to fill temps and where to read them. */
+        private void place() {
+            // Anticipated expressions are those that every path from here evaluates before
+            // they're killed.
+            DataFlowSolution<ScopedStatement, ScopedExpression> anticipated =
+                    solve(false, AnalysisSpec.Confluence.INTERSECTION, true, uses, kills);
+            Map<Node<ScopedStatement>, Set<ScopedExpression>> anticipatedIn =
+                    Maps.newLinkedHashMap();
+            for (Node<ScopedStatement> node : graph.getNodes()) {
+                Set<ScopedExpression> in = Sets.newLinkedHashSet(uses.get(node));
+                for (ScopedExpression expr : anticipated.getInputs(node)) {
+                    if (!kills.get(node).apply(expr)) {
+                        in.add(expr);
+                    }
+                }
+                anticipatedIn.put(node, in);
+            }
+
+            // An expression is "available" here, in this sense, if every path here would have
+            // computed it already, had we computed it wherever it was anticipated.
+            DataFlowSolution<ScopedStatement, ScopedExpression> available =
+                    solve(true, AnalysisSpec.Confluence.INTERSECTION, false, anticipatedIn,
+                            kills);
+            for (Node<ScopedStatement> node : graph.getNodes()) {
+                earliest.put(node, ImmutableSet.copyOf(Sets.difference(
+                        anticipatedIn.get(node), available.getInputs(node))));
+            }
+
+            // A computation can be postponed past a node that doesn't use it.
+            Map<Node<ScopedStatement>, Predicate<ScopedExpression>> usedHere =
+                    Maps.newLinkedHashMap();
+            for (Node<ScopedStatement> node : graph.getNodes()) {
+                usedHere.put(node, asPredicate(uses.get(node)));
+            }
+            DataFlowSolution<ScopedStatement, ScopedExpression> postponable =
+                    solve(true, AnalysisSpec.Confluence.INTERSECTION, false, earliest,
+                            usedHere);
+            for (Node<ScopedStatement> node : graph.getNodes()) {
+                latest.put(node, latest(node, postponable));
+            }
+
+            // A temp is only worth filling if something reads it after its latest placement.
+            Map<Node<ScopedStatement>, Predicate<ScopedExpression>> placedHere =
+                    Maps.newLinkedHashMap();
+            for (Node<ScopedStatement> node : graph.getNodes()) {
+                placedHere.put(node, asPredicate(latest.get(node)));
+            }
+            DataFlowSolution<ScopedStatement, ScopedExpression> used =
+                    solve(false, AnalysisSpec.Confluence.UNION, false, uses, placedHere);
+
+            // BasicFlowGraph.Builder can't insert before a self-loop, so give up on any
+            // expression that would need that.
+            Set<ScopedExpression> abandoned = Sets.newLinkedHashSet();
+            for (Node<ScopedStatement> node : graph.getNodes()) {
+                Set<ScopedExpression> filled =
+                        Sets.intersection(latest.get(node), used.getInputs(node));
+                inserts.put(node, ImmutableSet.copyOf(filled));
+                if (!filled.isEmpty() && graph.getSuccessors(node).contains(node)) {
+                    abandoned.addAll(filled);
+                }
+            }
+            for (Node<ScopedStatement> node : graph.getNodes()) {
+                Set<ScopedExpression> filled = Sets.difference(inserts.get(node), abandoned);
+                inserts.put(node, ImmutableSet.copyOf(filled));
+                readable.put(node, ImmutableSet.copyOf(Sets.difference(Sets.union(filled,
+                        Sets.difference(uses.get(node), latest.get(node))), abandoned)));
+                for (ScopedExpression expr : filled) {
+                    tempFor(expr);
+                }
+            }
+        }
+
+        /**
+         * Get the expressions that can be postponed until a node, but no further.
+         *
+         * <p>That's those that the node uses, and those that can't be postponed into one of its
+         * successors.
+         */
+        private Set<ScopedExpression> latest(Node<ScopedStatement> node,
+                DataFlowSolution<ScopedStatement, ScopedExpression> postponable) {
+            Set<ScopedExpression> latest = Sets.newLinkedHashSet();
+            Set<ScopedExpression> candidates =
+                    Sets.union(earliest.get(node), postponable.getInputs(node));
+            for (ScopedExpression expr : candidates) {
+                if (uses.get(node).contains(expr)) {
+                    latest.add(expr);
+                    continue;
+                }
+                for (Node<ScopedStatement> successor : graph.getSuccessors(node)) {
+                    if (!earliest.get(successor).contains(expr)
+                            && !postponable.getInputs(successor).contains(expr)) {
+                        latest.add(expr);
+                        break;
+                    }
+                }
+            }
+            return latest;
+        }
+
+        private DataFlowSolution<ScopedStatement, ScopedExpression> solve(boolean isForward,
+                AnalysisSpec.Confluence confluence, boolean gensImmuneToKills,
+                Map<Node<ScopedStatement>, ? extends Set<ScopedExpression>> gens,
+                Map<Node<ScopedStatement>, Predicate<ScopedExpression>> kills) {
+            return new DataFlowAnalyzer<ScopedStatement, ScopedExpression>(
+                    new MotionSpec(isForward, confluence, gensImmuneToKills, gens, kills))
+                    .solve(graph);
+        }
+
+        private ScalarLocation tempFor(ScopedExpression expr) {
+            Variable temp = temps.get(expr);
+            if (temp == null) {
+                temp = Variable.forCompiler(TEMP_VAR_PREFIX + temps.size());
+                temps.put(expr, temp);
+            }
+            return new ScalarLocation(temp, LocationDescriptor.machineCode());
+        }
+
+        /**
+         * Get the scope to fill an expression's temp in.  Its variables resolve to the same
+         * locations there as they do at its uses, and so does the temp.
+         */
+        private Scope fillScope(ScopedExpression expr) {
+            ScopeType type = expr.getScope().getScopeType();
+            return type == ScopeType.GLOBAL || type == ScopeType.PARAMETER
+                    ? methodScope
+                    : expr.getScope();
+        }
+
+        /** Get a copy of a statement, with the expressions in 'inTemps' read from temps. */
+        private StaticStatement rewritten(StaticStatement statement, Scope scope,
+                Set<ScopedExpression> inTemps) {
+            if (statement instanceof Assignment) {
+                Assignment assignment = (Assignment) statement;
+                Location location = assignment.getLocation();
+                if (location instanceof ArrayLocation) {
+                    ArrayLocation arrayLocation = (ArrayLocation) location;
+                    location = arrayLocation.withIndex(
+                            rewritten(arrayLocation.getIndex(), scope, inTemps));
+                }
+                return new Assignment(location, assignment.getOperation(),
+                        rewritten(assignment.getExpression(), scope, inTemps),
+                        assignment.getLocationDescriptor(), assignment.getFromCompiler());
+            } else if (statement instanceof Condition) {
+                return new Condition(rewritten(statement.getExpression(), scope, inTemps));
+            } else if (statement instanceof ReturnStatement && statement.hasExpression()) {
+                return ReturnStatement.of(rewritten(statement.getExpression(), scope, inTemps),
+                        ((ReturnStatement) statement).getLocationDescriptor());
+            } else if (statement instanceof MethodCall) {
+                return (MethodCall) rewritten((NativeExpression) statement, scope, inTemps);
+            }
+            return statement;
+        }
+
+        /** Get a copy of an expression, with its largest subexpressions in 'inTemps' read. */
+        private NativeExpression rewritten(NativeExpression expr, Scope scope,
+                Set<ScopedExpression> inTemps) {
+            if (isCandidate(expr)) {
+                ScopedExpression scoped = new ScopedExpression(expr, scope);
+                if (inTemps.contains(scoped)) {
+                    return tempFor(scoped);
+                }
+            }
+            if (expr instanceof ArrayLocation) {
+                ArrayLocation location = (ArrayLocation) expr;
+                return location.withIndex(rewritten(location.getIndex(), scope, inTemps));
+            } else if (expr instanceof UnaryOperation) {
+                UnaryOperation operation = (UnaryOperation) expr;
+                return new UnaryOperation(operation.getOperator(),
+                        rewritten(operation.getArgument(), scope, inTemps),
+                        operation.getLocationDescriptor());
+            } else if (expr instanceof BinaryOperation) {
+                BinaryOperation operation = (BinaryOperation) expr;
+                return new BinaryOperation(operation.getOperator(),
+                        rewritten(operation.getLeftArgument(), scope, inTemps),
+                        rewritten(operation.getRightArgument(), scope, inTemps),
+                        operation.getLocationDescriptor());
+            } else if (expr instanceof TernaryOperation) {
+                TernaryOperation operation = (TernaryOperation) expr;
+                return new TernaryOperation(
+                        rewritten(operation.getCondition(), scope, inTemps),
+                        rewritten(operation.getTrueResult(), scope, inTemps),
+                        rewritten(operation.getFalseResult(), scope, inTemps),
+                        operation.getLocationDescriptor());
+            } else if (expr instanceof MethodCall) {
+                MethodCall call = (MethodCall) expr;
+                List<GeneralExpression> parameters = Lists.newArrayList();
+                for (GeneralExpression parameter : call.getParameterValues()) {
+                    parameters.add(parameter instanceof NativeExpression
+                            ? rewritten((NativeExpression) parameter, scope, inTemps)
+                            : parameter);
+                }
+                return new MethodCall(call.getMethodName(), parameters,
+                        call.getLocationDescriptor());
+            }
+            return expr;
+        }
+    }
+
+    /** A data flow analysis over expressions, with precomputed GEN sets and kills. */
+    private static final class MotionSpec
+            implements AnalysisSpec<ScopedStatement, ScopedExpression> {
+        private final boolean isForward;
+        private final Confluence confluence;
+        private final boolean gensImmuneToKills;
+        private final Map<Node<ScopedStatement>, ? extends Set<ScopedExpression>> gens;
+        private final Map<Node<ScopedStatement>, Predicate<ScopedExpression>> kills;
+
+        public MotionSpec(boolean isForward, Confluence confluence, boolean gensImmuneToKills,
+                Map<Node<ScopedStatement>, ? extends Set<ScopedExpression>> gens,
+                Map<Node<ScopedStatement>, Predicate<ScopedExpression>> kills) {
+            this.isForward = isForward;
+            this.confluence = confluence;
+            this.gensImmuneToKills = gensImmuneToKills;
+            this.gens = gens;
+            this.kills = kills;
+        }
+
+        @Override
+        public boolean isForward() {
+            return isForward;
+        }
+
+        @Override
+        public Set<ScopedExpression> getGenSet(Node<ScopedStatement> node,
+                Collection<ScopedExpression> inputs) {
+            return gens.get(node);
+        }
+
+        @Override
+        public boolean genDependsOnInputs() {
+            return false;
+        }
+
+        @Override
+        public Predicate<ScopedExpression> getKillPredicate(Node<ScopedStatement> currentNode) {
+            return kills.get(currentNode);
+        }
+
+        @Override
+        public Confluence getConfluence() {
+            return confluence;
+        }
+
+        @Override
+        public boolean gensImmuneToKills() {
+            return gensImmuneToKills;
+        }
+    }
+
+    private static final Comparator<ScopedExpression> BY_SIZE =
+            new Comparator<ScopedExpression>() {
+                @Override
+                public int compare(ScopedExpression a, ScopedExpression b) {
+                    return Integer.compare(size(a.getNativeExpression()),
+                            size(b.getNativeExpression()));
+                }
+            };
+
+    private static int size(GeneralExpression expr) {
+        int size = 1;
+        for (GeneralExpression child : expr.getChildren()) {
+            size += size(child);
+        }
+        return size;
+    }
+
+    private static Predicate<ScopedExpression> asPredicate(Set<ScopedExpression> exprs) {
+        return exprs.isEmpty()
+                ? Predicates.<ScopedExpression>alwaysFalse()
+                : Predicates.in(exprs);
+    }
+
+    /** Get the expressions that a node always evaluates. */
+    private static Set<ScopedExpression> usesOf(Node<ScopedStatement> node) {
+        if (!node.hasValue()) {
+            return ImmutableSet.of();
+        }
+        StaticStatement statement = node.value().getStatement();
+        Scope scope = node.value().getScope();
+        boolean hasCall = containsCall(statement);
+        ImmutableSet.Builder<ScopedExpression> uses = ImmutableSet.builder();
+        if (statement instanceof Assignment
+                && ((Assignment) statement).getLocation() instanceof ArrayLocation) {
+            addUses(((ArrayLocation) ((Assignment) statement).getLocation()).getIndex(), scope,
+                    hasCall, uses);
+        }
+        if (statement.hasExpression()) {
+            addUses(statement.getExpression(), scope, hasCall, uses);
+        }
+        return uses.build();
+    }
+
+    private static void addUses(NativeExpression expr, Scope scope, boolean hasCall,
+            ImmutableSet.Builder<ScopedExpression> uses) {
+        if (isCandidate(expr)) {
+            ScopedExpression scoped = new ScopedExpression(expr, scope);
+            if (!hasCall || (!mayTrap(expr) && !readsGlobals(scoped))) {
+                uses.add(scoped);
+            }
+        }
+        if (expr instanceof ArrayLocation) {
+            addUses(((ArrayLocation) expr).getIndex(), scope, hasCall, uses);
+        } else if (expr instanceof UnaryOperation) {
+            addUses(((UnaryOperation) expr).getArgument(), scope, hasCall, uses);
+        } else if (expr instanceof BinaryOperation) {
+            BinaryOperation operation = (BinaryOperation) expr;
+            addUses(operation.getLeftArgument(), scope, hasCall, uses);
+            if (operation.getOperator() != BinaryOperator.AND
+                    && operation.getOperator() != BinaryOperator.OR) {
+                addUses(operation.getRightArgument(), scope, hasCall, uses);
+            }
+        } else if (expr instanceof TernaryOperation) {
+            addUses(((TernaryOperation) expr).getCondition(), scope, hasCall, uses);
+        } else if (expr instanceof MethodCall) {
+            for (GeneralExpression parameter : ((MethodCall) expr).getParameterValues()) {
+                if (parameter instanceof NativeExpression) {
+                    addUses((NativeExpression) parameter, scope, hasCall, uses);
+                }
+            }
+        }
+    }
+
+    /** Get a predicate for the expressions that a node kills. */
+    private static Predicate<ScopedExpression> killsOf(Node<ScopedStatement> node,
+            Set<ScopedVariable> globals) {
+        if (!node.hasValue()) {
+            return Predicates.alwaysFalse();
+        }
+        final boolean hasCall = containsCall(node.value().getStatement());
+        final Set<ScopedVariable> redefined = hasCall
+                ? Sets.union(Util.getRedefinedVariables(node), globals)
+                : Util.getRedefinedVariables(node);
+        if (redefined.isEmpty()) {
+            return Predicates.alwaysFalse();
+        }
+        return new Predicate<ScopedExpression>() {
+            @Override
+            public boolean apply(ScopedExpression candidate) {
+                if (hasCall && mayTrap(candidate.getNativeExpression())) {
+                    return true;
+                }
+                for (ScopedVariable variable : redefined) {
+                    if (candidate.uses(variable)) {
+                        return true;
+                    }
+                }
+                return false;
+            }
+        };
+    }
+
+    /** Returns whether an expression is worth a temp, and can be moved at all. */
+    private static boolean isCandidate(NativeExpression expr) {
+        if (expr instanceof UnaryOperation
+                && ((UnaryOperation) expr).getOperator() == UnaryOperator.ARRAY_LENGTH) {
+            return false;
+        }
+        return (expr instanceof ArrayLocation || expr instanceof UnaryOperation
+                || expr instanceof BinaryOperation || expr instanceof TernaryOperation)
+                && !Util.containsMethodCall(expr) && readsVariables(expr);
+    }
+
+    private static boolean readsVariables(GeneralExpression expr) {
+        if (expr instanceof Location) {
+            return true;
+        }
+        for (GeneralExpression child : expr.getChildren()) {
+            if (readsVariables(child)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean readsGlobals(ScopedExpression expr) {
+        for (ScopedVariable variable : expr.getVariables()) {
+            if (variable.isGlobal()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /** Returns whether evaluating an expression might exit the program. */
+    private static boolean mayTrap(GeneralExpression expr) {
+        if (expr instanceof ArrayLocation && ((ArrayLocation) expr).checksBounds()) {
+            return true;
+        }
+        if (expr instanceof BinaryOperation) {
+            BinaryOperation operation = (BinaryOperation) expr;
+            if (operation.getOperator() == BinaryOperator.DIVIDED_BY
+                    || operation.getOperator() == BinaryOperator.MODULO) {
+                // idiv traps on a zero divisor, and on MIN_VALUE / -1.
+                if (!(operation.getRightArgument() instanceof NativeLiteral)) {
+                    return true;
+                }
+                long divisor = ((NativeLiteral) operation.getRightArgument()).get64BitValue();
+                if (divisor == 0 || divisor == -1) {
+                    return true;
+                }
+            }
+        }
+        for (GeneralExpression child : expr.getChildren()) {
+            if (mayTrap(child)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean containsCall(StaticStatement statement) {
+        if (statement instanceof Assignment
+                && Util.containsMethodCall(((Assignment) statement).getLocation())) {
+            return true;
+        }
+        return statement.hasExpression() && Util.containsMethodCall(statement.getExpression());
+    }
+}
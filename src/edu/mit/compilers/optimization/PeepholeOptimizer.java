@@ -9,6 +9,7 @@ import edu.mit.compilers.codegen.asm.instructions.And;
 import edu.mit.compilers.codegen.asm.instructions.Call;
 import edu.mit.compilers.codegen.asm.instructions.Compare;
 import edu.mit.compilers.codegen.asm.instructions.CompareFlagged;
+import edu.mit.compilers.codegen.asm.instructions.ConditionalMove;
 import edu.mit.compilers.codegen.asm.instructions.Decrement;
 import edu.mit.compilers.codegen.asm.instructions.Enter;
 import edu.mit.compilers.codegen.asm.instructions.Increment;
@@ -17,6 +18,7 @@ import edu.mit.compilers.codegen.asm.instructions.Instructions;
 import edu.mit.compilers.codegen.asm.instructions.Jump;
 import edu.mit.compilers.codegen.asm.instructions.JumpTyped;
 import edu.mit.compilers.codegen.asm.instructions.Leave;
+import edu.mit.compilers.codegen.asm.instructions.LoadEffectiveAddress;
 import edu.mit.compilers.codegen.asm.instructions.Modulo;
 import edu.mit.compilers.codegen.asm.instructions.Move;
 import edu.mit.compilers.codegen.asm.instructions.MoveFromMemory;
@@ -125,6 +127,8 @@ public class PeepholeOptimizer {
 				return ((Compare) node.value()).getRightArgument().equals(value);
 			} else if(node.value() instanceof CompareFlagged){
 				return false;
+			} else if(node.value() instanceof ConditionalMove){
+				return ((ConditionalMove) node.value()).getTarget().equals(value);
 			} else if(node.value() instanceof Decrement){
 				return ((Decrement) node.value()).getArgument().equals(value);
 			} else if(node.value() instanceof Enter){
@@ -137,6 +141,8 @@ public class PeepholeOptimizer {
 				return false;
 			} else if(node.value() instanceof Leave){
 				return true;
+			} else if(node.value() instanceof LoadEffectiveAddress){
+				return ((LoadEffectiveAddress) node.value()).getTarget().equals(value);
 			} else if(node.value() instanceof Modulo){
 				return ((Modulo) node.value()).getRightArgument().equals(value);
 			} else if(node.value() instanceof Move){
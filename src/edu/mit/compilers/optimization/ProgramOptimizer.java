@@ -0,0 +1,13 @@
+package edu.mit.compilers.optimization;
+
+import edu.mit.compilers.ast.Program;
+
+public interface ProgramOptimizer {
+
+    /**
+     * Return an optimized Program with the same semantics as the original.
+     *
+     * <p>Unlike a DataFlowOptimizer, it sees every method at once, so it may add methods.
+     */
+    public Program optimized(Program program);
+}
@@ -1,11 +1,12 @@
 package edu.mit.compilers.optimization;
 
-import static edu.mit.compilers.common.SetOperators.union;
 import static edu.mit.compilers.optimization.Util.getRedefinedVariables;
 
 import java.util.Collection;
 import java.util.Set;
 
+import com.google.common.base.Predicate;
+import com.google.common.base.Predicates;
 import com.google.common.collect.ImmutableSet;
 
 import edu.mit.compilers.codegen.dataflow.ScopedStatement;
@@ -15,12 +16,21 @@ import edu.mit.compilers.graph.Node;
 public class ReachingDefSpec implements AnalysisSpec<ScopedStatement, ReachingDefinition> {
 
     /**
-     * Returns whether the reaching definition's variable is redefined at this node.
-     * i.e. returns redefined.curNode.contains(reachingDef.getVariable())
+     * Kills the reaching definitions whose variables are redefined at this node.
+     * i.e. kills reachingDef if redefined.curNode.contains(reachingDef.getVariable())
      * */
     @Override
-    public boolean mustKill(Node<ScopedStatement> curNode, ReachingDefinition reachingDef) {
-        return getRedefinedVariables(curNode).contains(reachingDef.getScopedVariable());
+    public Predicate<ReachingDefinition> getKillPredicate(Node<ScopedStatement> curNode) {
+        final Set<ScopedVariable> redefined = getRedefinedVariables(curNode);
+        if (redefined.isEmpty()) {
+            return Predicates.alwaysFalse();
+        }
+        return new Predicate<ReachingDefinition>() {
+            @Override
+            public boolean apply(ReachingDefinition reachingDef) {
+                return redefined.contains(reachingDef.getScopedVariable());
+            }
+        };
     }
 
     @Override
@@ -35,9 +45,13 @@ public class ReachingDefSpec implements AnalysisSpec<ScopedStatement, ReachingDe
     }
 
     @Override
-    public Set<ReachingDefinition> applyConfluenceOperator(
-            Iterable<Collection<ReachingDefinition>> inputs) {
-        return union(inputs);
+    public boolean genDependsOnInputs() {
+        return false;
+    }
+
+    @Override
+    public Confluence getConfluence() {
+        return Confluence.UNION;
     }
 
     @Override
@@ -1,10 +1,15 @@
 package edu.mit.compilers.optimization;
 
+import static com.google.common.base.Preconditions.checkState;
+
 import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
 import java.util.Set;
 
 import com.google.common.base.Preconditions;
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableMultimap;
 import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.Multimap;
@@ -21,6 +26,7 @@ import edu.mit.compilers.ast.MethodCall;
 import edu.mit.compilers.ast.NativeExpression;
 import edu.mit.compilers.ast.ReturnStatement;
 import edu.mit.compilers.ast.Scope;
+import edu.mit.compilers.ast.ScopeType;
 import edu.mit.compilers.ast.StaticStatement;
 import edu.mit.compilers.ast.TernaryOperation;
 import edu.mit.compilers.ast.UnaryOperation;
@@ -47,6 +53,8 @@ public class Util {
                     || containsMethodCall( ((TernaryOperation) ge).getFalseResult());
         } else if (ge instanceof UnaryOperation) {
             return containsMethodCall( ((UnaryOperation) ge).getArgument());
+        } else if (ge instanceof ArrayLocation) {
+            return containsMethodCall( ((ArrayLocation) ge).getIndex());
         } else {
             return false;
         }
@@ -62,9 +70,9 @@ public class Util {
         ImmutableSet.Builder<ScopedVariable> builder = ImmutableSet.builder();
         Scope globalScope = scope.getGlobalScope();
         for (FieldDescriptor descriptor : globalScope.getVariables()) {
-            for (Location location : descriptor.getLocations()) {
-                builder.add(new ScopedVariable(location.getVariable(), globalScope));
-            }
+            // Every location of an array has the array's variable, so there's no need to
+            // visit each of its elements.
+            builder.add(new ScopedVariable(descriptor.getVariable(), globalScope));
         }
         return builder.build();
     }
@@ -85,7 +93,7 @@ public class Util {
             redefinedBuilder.add(lhs);
         }
 
-        if (Util.containsMethodCall(statement.getExpression())) {
+        if (statement.hasExpression() && Util.containsMethodCall(statement.getExpression())) {
             // For now, just assume that functions can redefine every global!
             // TODO(jasonpr): Only add each function's global write set.
             redefinedBuilder.addAll(Util.getGlobalVariables(scope));
@@ -115,7 +123,7 @@ public class Util {
     	   return ((UnaryOperation) statement).replaceFirst(replace, replacement);
        } else if(statement instanceof ArrayLocation){
     	   ArrayLocation loc = (ArrayLocation) statement;
-    	   return new ArrayLocation(loc.getVariable(), replacement, loc.getLocationDescriptor());
+    	   return loc.withIndex(replacement);
        } else {
            throw new AssertionError("Unexpected NativeExpression type for " + statement);
        }
@@ -181,7 +189,61 @@ public class Util {
        }
        return tree.build();
    }
-   
+
+   /**
+    * Makes a map of original scopes to new, augmented scopes.
+    *
+    * <p>The new variables are put in a new scope between the method scope and its
+    * children, so they're visible to every statement of the method.  Every scope under
+    * the method scope is copied, with its parent pointer pointing to the copy of its parent.
+    *
+    * @param oldScopeTree The (parent -> child) edges of the original tree of scopes.
+    * @param augmentations The new variables to add.
+    * @param methodScope The original method scope.  (The scope right under the PARAMETER scope.)
+    */
+   public static Map<Scope, Scope> augmentedScopes(Multimap<Scope, Scope> oldScopeTree,
+           Collection<Variable> augmentations, Scope methodScope) {
+       Map<Scope, Scope> newScopes = new HashMap<Scope, Scope>();
+       Scope parameterScope = methodScope.getParent().get();
+       checkState(parameterScope.getScopeType() == ScopeType.PARAMETER);
+       Scope globalScope = parameterScope.getParent().get();
+       checkState(globalScope.getScopeType() == ScopeType.GLOBAL);
+
+       // We don't duplicate these higher-than-method scopes.  Map them to themselves.
+       newScopes.put(parameterScope, parameterScope);
+       newScopes.put(globalScope, globalScope);
+
+       // We are going to put our variables in a scope between the method and the body
+       ImmutableList.Builder<FieldDescriptor> fieldDescs =
+               ImmutableList.<FieldDescriptor>builder();
+       for (Variable newVar : augmentations) {
+           fieldDescs.add(new FieldDescriptor(newVar, BaseType.WILDCARD));
+       }
+       newScopes.put(methodScope, new Scope(
+               fieldDescs.build(),
+               methodScope));
+
+       for (Scope methodChild : oldScopeTree.get(methodScope)) {
+           addScopeTree(oldScopeTree, newScopes, methodChild);
+       }
+       return ImmutableMap.copyOf(newScopes);
+   }
+
+   /**
+    * Adds new mappings for the scope tree under 'current' to the 'newScopes' map.
+    *
+    * <p>This is a helper method for augmentedScopes.
+    */
+   private static void addScopeTree(Multimap<Scope, Scope> oldScopeTree,
+           Map<Scope, Scope> newScopes, Scope current) {
+       newScopes.put(current,
+               new Scope(current.getVariables(), newScopes.get(current.getParent().get()),
+                       current.isLoop()));
+       for (Scope methodChild : oldScopeTree.get(current)) {
+           addScopeTree(oldScopeTree, newScopes, methodChild);
+       }
+   }
+
    /** Determines if a GeneralExpression contains expressions which are themselves recursive expressions */
    public static boolean isNested(GeneralExpression ge) {
    	for(GeneralExpression subexpr: ge.getChildren()){
@@ -232,6 +294,11 @@ public class Util {
            }
        }
 
+       // Statements like "return;" don't have an expression to read from.
+       if (!statement.hasExpression()) {
+           return dependencies.build();
+       }
+
        // All the variables that are a part of the expression are dependencies.
        dependencies.addAll(ScopedVariable.getVariablesOf(scopedStatement));
 
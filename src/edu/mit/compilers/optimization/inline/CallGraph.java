@@ -0,0 +1,69 @@
+package edu.mit.compilers.optimization.inline;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Map;
+import java.util.Set;
+
+import com.google.common.collect.HashMultimap;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.SetMultimap;
+import com.google.common.collect.Sets;
+
+import edu.mit.compilers.ast.Method;
+import edu.mit.compilers.ast.MethodCall;
+import edu.mit.compilers.ast.Node;
+
+/** Which methods of a program call which others.  Callouts are left out. */
+final class CallGraph {
+    private final SetMultimap<String, String> callees;
+
+    private CallGraph(SetMultimap<String, String> callees) {
+        this.callees = callees;
+    }
+
+    public static CallGraph of(Map<String, Method> methods) {
+        SetMultimap<String, String> callees = HashMultimap.create();
+        for (Method method : methods.values()) {
+            collectCallees(method.getBlock(), method.getName(), methods, callees);
+        }
+        return new CallGraph(callees);
+    }
+
+    private static void collectCallees(Node node, String caller, Map<String, Method> methods,
+            SetMultimap<String, String> callees) {
+        if (node instanceof MethodCall) {
+            String callee = ((MethodCall) node).getMethodName();
+            if (methods.containsKey(callee)) {
+                callees.put(caller, callee);
+            }
+        }
+        for (Node child : node.getChildren()) {
+            collectCallees(child, caller, methods, callees);
+        }
+    }
+
+    /** Get the methods that can call themselves, directly or through other methods. */
+    public Set<String> getRecursiveMethods() {
+        ImmutableSet.Builder<String> recursive = ImmutableSet.builder();
+        for (String method : callees.keySet()) {
+            if (reachable(method).contains(method)) {
+                recursive.add(method);
+            }
+        }
+        return recursive.build();
+    }
+
+    /** Get the methods that a method's calls can lead to, not counting itself. */
+    private Set<String> reachable(String method) {
+        Set<String> reached = Sets.newHashSet();
+        Deque<String> agenda = new ArrayDeque<String>(callees.get(method));
+        while (!agenda.isEmpty()) {
+            String callee = agenda.pop();
+            if (reached.add(callee)) {
+                agenda.addAll(callees.get(callee));
+            }
+        }
+        return reached;
+    }
+}
@@ -0,0 +1,57 @@
+package edu.mit.compilers.optimization.inline;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+/**
+ * Decides which call sites are worth inlining.
+ *
+ * <p>A callee's cost is the number of statements in its data flow graph.  A call site may
+ * inline a callee that costs at most the callee budget, plus a bonus for each loop around the
+ * call site, since calls in loops run many times.  Once the caller grows past the caller
+ * budget, nothing more is inlined into it.
+ */
+public final class InliningPolicy {
+
+    /** A policy that inlines small helpers, and somewhat larger ones in loops. */
+    public static final InliningPolicy DEFAULT = new InliningPolicy(30, 20, 3, 2000, 3);
+
+    private final int calleeBudget;
+    private final int loopDepthBonus;
+    private final int maxLoopDepth;
+    private final int callerBudget;
+    private final int maxRounds;
+
+    /**
+     * @param calleeBudget The largest callee to inline outside of any loop.
+     * @param loopDepthBonus How much larger a callee may be, for each loop around a call site.
+     * @param maxLoopDepth The number of loops past which the bonus stops growing.
+     * @param callerBudget The size past which a caller gets nothing more inlined.
+     * @param maxRounds How many times to inline the calls that inlining has exposed.
+     */
+    public InliningPolicy(int calleeBudget, int loopDepthBonus, int maxLoopDepth,
+            int callerBudget, int maxRounds) {
+        checkArgument(calleeBudget >= 0 && loopDepthBonus >= 0 && maxLoopDepth >= 0);
+        checkArgument(callerBudget >= 0 && maxRounds >= 0);
+        this.calleeBudget = calleeBudget;
+        this.loopDepthBonus = loopDepthBonus;
+        this.maxLoopDepth = maxLoopDepth;
+        this.callerBudget = callerBudget;
+        this.maxRounds = maxRounds;
+    }
+
+    /**
+     * Returns whether to inline a call.
+     *
+     * @param calleeSize The number of statements in the callee.
+     * @param loopDepth The number of loops around the call site.
+     * @param callerSize The number of statements in the caller, so far.
+     */
+    public boolean shouldInline(int calleeSize, int loopDepth, int callerSize) {
+        int budget = calleeBudget + loopDepthBonus * Math.min(loopDepth, maxLoopDepth);
+        return calleeSize <= budget && callerSize + calleeSize <= callerBudget;
+    }
+
+    public int getMaxRounds() {
+        return maxRounds;
+    }
+}
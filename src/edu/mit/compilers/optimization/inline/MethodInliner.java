@@ -0,0 +1,393 @@
+package edu.mit.compilers.optimization.inline;
+
+import java.util.ArrayDeque;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import com.google.common.base.Optional;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
+
+import edu.mit.compilers.ast.Assignment;
+import edu.mit.compilers.ast.FieldDescriptor;
+import edu.mit.compilers.ast.GeneralExpression;
+import edu.mit.compilers.ast.Method;
+import edu.mit.compilers.ast.MethodCall;
+import edu.mit.compilers.ast.NativeExpression;
+import edu.mit.compilers.ast.ReturnStatement;
+import edu.mit.compilers.ast.ScalarLocation;
+import edu.mit.compilers.ast.Scope;
+import edu.mit.compilers.ast.ScopeType;
+import edu.mit.compilers.ast.StaticStatement;
+import edu.mit.compilers.codegen.DataFlowIntRep;
+import edu.mit.compilers.codegen.dataflow.BlockDataFlowFactory;
+import edu.mit.compilers.codegen.dataflow.ScopedStatement;
+import edu.mit.compilers.common.Variable;
+import edu.mit.compilers.graph.BasicFlowGraph;
+import edu.mit.compilers.graph.BcrFlowGraph;
+import edu.mit.compilers.graph.FlowGraph;
+import edu.mit.compilers.graph.Node;
+import edu.mit.compilers.optimization.DataFlowOptimizer;
+import edu.mit.compilers.optimization.ScopedVariable;
+import edu.mit.compilers.optimization.loops.LoopNestingForest;
+
+/**
+ * Method inlining.
+ *
+ * <p>Replaces calls to small methods with copies of the methods' data flow graphs.  A call can
+ * be inlined when it is a whole statement, the whole right side of an assignment, or the whole
+ * value of a return statement.  Calls inside larger expressions are left alone.
+ *
+ * <p>The arguments are evaluated into temporaries, left to right, in a new scope around the
+ * copy.  Then they're copied into the callee's parameters, which the copy declares as locals.
+ * (The two steps keep an argument from reading a parameter that shadows the caller's
+ * variable.)  Every return in the copy stores its value in a result temporary and goes to the
+ * call's continuation, which does whatever the call site did with the call's value.
+ *
+ * <p>Recursive methods are never inlined, and neither is main.  Neither is a method that can
+ * run off its end without returning a value, since that's a runtime error that we can only
+ * raise in the callee.  Neither is a method whose globals are shadowed at the call site.
+ * Inlining exposes the calls in the callee's body, so it repeats for a few rounds.
+ */
+public class MethodInliner implements DataFlowOptimizer {
+
+    private final Map<String, Method> methods;
+    private final Set<String> recursiveMethods;
+    private final InliningPolicy policy;
+
+    public MethodInliner(Map<String, Method> methods) {
+        this(methods, InliningPolicy.DEFAULT);
+    }
+
+    /** @param methods The program's methods, by name. */
+    public MethodInliner(Map<String, Method> methods, InliningPolicy policy) {
+        this.methods = ImmutableMap.copyOf(methods);
+        this.recursiveMethods = CallGraph.of(methods).getRecursiveMethods();
+        this.policy = policy;
+    }
+
+    @Override
+    public DataFlowIntRep optimized(DataFlowIntRep ir) {
+        Inlining inlining = new Inlining(ir.getDataFlowGraph());
+        for (int round = 0; round < policy.getMaxRounds(); round++) {
+            if (!inlining.inlinedOnce()) {
+                break;
+            }
+        }
+        return new DataFlowIntRep(inlining.graph, ir.getScope());
+    }
+
+    /** The state of inlining into one caller. */
+    private class Inlining {
+        private final Map<String, Callee> callees = Maps.newHashMap();
+        private BcrFlowGraph<ScopedStatement> graph;
+        private int callerSize;
+        private int inlinedCount = 0;
+
+        public Inlining(BcrFlowGraph<ScopedStatement> graph) {
+            this.graph = graph;
+            this.callerSize = size(graph);
+        }
+
+        /**
+         * Inline every call site in the graph that the policy allows.
+         *
+         * <p>Calls in deeper loops go first, so they get first claim on the caller's budget.
+         *
+         * @return Whether anything was inlined.
+         */
+        public boolean inlinedOnce() {
+            final LoopNestingForest<ScopedStatement> forest = LoopNestingForest.of(graph);
+            List<Node<ScopedStatement>> sites = Lists.newArrayList();
+            for (Node<ScopedStatement> node : graph.getNodes()) {
+                if (node.hasValue() && isInlinable(node)) {
+                    sites.add(node);
+                }
+            }
+            final Map<Node<ScopedStatement>, Integer> depths = Maps.newHashMap();
+            for (Node<ScopedStatement> site : sites) {
+                depths.put(site, forest.getDepth(site));
+            }
+            Collections.sort(sites, new Comparator<Node<ScopedStatement>>() {
+                @Override
+                public int compare(Node<ScopedStatement> first, Node<ScopedStatement> second) {
+                    return depths.get(second) - depths.get(first);
+                }
+            });
+
+            BcrFlowGraph.Builder<ScopedStatement> builder = BcrFlowGraph.builderOf(graph);
+            boolean inlined = false;
+            for (Node<ScopedStatement> site : sites) {
+                Callee callee = calleeOf(callOf(site.value().getStatement()).get());
+                if (!policy.shouldInline(callee.size, depths.get(site), callerSize)) {
+                    continue;
+                }
+                builder.replace(site, spliced(site, callee));
+                callerSize += callee.size;
+                inlined = true;
+            }
+            if (inlined) {
+                graph = builder.removeUnreachable().build().frozen();
+            }
+            return inlined;
+        }
+
+        private boolean isInlinable(Node<ScopedStatement> node) {
+            Optional<MethodCall> call = callOf(node.value().getStatement());
+            if (!call.isPresent()) {
+                return false;
+            }
+            String name = call.get().getMethodName();
+            if (!methods.containsKey(name) || methods.get(name).isMain()
+                    || recursiveMethods.contains(name)) {
+                return false;
+            }
+            for (GeneralExpression argument : call.get().getParameterValues()) {
+                if (!(argument instanceof NativeExpression)) {
+                    return false;
+                }
+            }
+            Callee callee = calleeOf(call.get());
+            if (!callee.method.isVoid() && callee.canRunOffEnd) {
+                return false;
+            }
+            Scope scope = node.value().getScope();
+            for (Variable global : callee.globals) {
+                if (ScopedVariable.getScopeOf(global, scope).getScopeType() != ScopeType.GLOBAL) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private Callee calleeOf(MethodCall call) {
+            String name = call.getMethodName();
+            if (!callees.containsKey(name)) {
+                callees.put(name, new Callee(methods.get(name)));
+            }
+            return callees.get(name);
+        }
+
+        /** Build a copy of the callee that does the call site's work, and nothing else. */
+        private FlowGraph<ScopedStatement> spliced(Node<ScopedStatement> site, Callee callee) {
+            StaticStatement statement = site.value().getStatement();
+            List<GeneralExpression> arguments =
+                    ImmutableList.copyOf(callOf(statement).get().getParameterValues());
+            List<FieldDescriptor> parameters =
+                    ImmutableList.copyOf(callee.method.getParameters().getVariables());
+            String prefix = "inline" + inlinedCount++;
+
+            ImmutableList.Builder<FieldDescriptor> temporaries = ImmutableList.builder();
+            List<ScalarLocation> argumentTemporaries = Lists.newArrayList();
+            for (int i = 0; i < parameters.size(); i++) {
+                Variable temporary = Variable.forCompiler(prefix + "_arg" + i);
+                temporaries.add(new FieldDescriptor(temporary, parameters.get(i).getType()));
+                argumentTemporaries.add(new ScalarLocation(temporary));
+            }
+            Optional<ScalarLocation> result = Optional.absent();
+            if (!callee.method.isVoid()) {
+                Variable temporary = Variable.forCompiler(prefix + "_result");
+                temporaries.add(new FieldDescriptor(temporary,
+                        callee.method.getReturnType().getReturnType().get()));
+                result = Optional.of(new ScalarLocation(temporary));
+            }
+            Scope argumentScope = new Scope(temporaries.build(), site.value().getScope());
+            Scope parameterScope = new Scope(parameters, argumentScope);
+
+            BasicFlowGraph.Builder<ScopedStatement> builder = BasicFlowGraph.builder();
+            for (int i = 0; i < parameters.size(); i++) {
+                builder.append(Node.of(new ScopedStatement(Assignment.compilerAssignment(
+                        argumentTemporaries.get(i), (NativeExpression) arguments.get(i)),
+                        argumentScope)));
+            }
+            for (int i = 0; i < parameters.size(); i++) {
+                builder.append(Node.of(new ScopedStatement(Assignment.compilerAssignment(
+                        new ScalarLocation(parameters.get(i).getVariable()),
+                        argumentTemporaries.get(i)), parameterScope)));
+            }
+
+            Map<Node<ScopedStatement>, Node<ScopedStatement>> copies =
+                    copyIn(builder, callee.graph, parameterScope, result);
+            Optional<StaticStatement> continued = continuation(statement, result);
+            Node<ScopedStatement> continuation = continued.isPresent()
+                    ? Node.of(new ScopedStatement(continued.get(), argumentScope))
+                    : Node.<ScopedStatement>nop();
+            builder.link(builder.getEnd(), copies.get(callee.graph.getStart()))
+                    .link(copies.get(callee.graph.getReturnTerminal()), continuation);
+            if (callee.method.isVoid()) {
+                builder.link(copies.get(callee.graph.getEnd()), continuation);
+            }
+            return builder.setEnd(continuation).build();
+        }
+    }
+
+    /**
+     * Copy a callee's graph into a builder, with its scopes under 'parameterScope'.
+     *
+     * <p>Its return statements store their values in 'result', and fall through to its return
+     * terminal.
+     *
+     * @return The copy of each node of the callee.
+     */
+    private static Map<Node<ScopedStatement>, Node<ScopedStatement>> copyIn(
+            BasicFlowGraph.Builder<ScopedStatement> builder, BcrFlowGraph<ScopedStatement> graph,
+            Scope parameterScope, Optional<ScalarLocation> result) {
+        Map<Scope, Scope> scopes = Maps.newIdentityHashMap();
+        Map<Node<ScopedStatement>, Node<ScopedStatement>> copies = Maps.newHashMap();
+        for (Node<ScopedStatement> node : graph.getNodes()) {
+            if (!node.hasValue()) {
+                copies.put(node, Node.<ScopedStatement>nop());
+                continue;
+            }
+            StaticStatement statement = node.value().getStatement();
+            Scope scope = remapped(node.value().getScope(), parameterScope, scopes);
+            if (statement instanceof ReturnStatement) {
+                Optional<NativeExpression> value = ((ReturnStatement) statement).getValue();
+                copies.put(node, value.isPresent()
+                        ? Node.of(new ScopedStatement(
+                                Assignment.compilerAssignment(result.get(), value.get()), scope))
+                        : Node.<ScopedStatement>nop());
+            } else {
+                copies.put(node, Node.of(new ScopedStatement(statement, scope)));
+            }
+        }
+        for (Node<ScopedStatement> node : graph.getNodes()) {
+            Node<ScopedStatement> copy = copies.get(node);
+            if (graph.isBranch(node)) {
+                builder.linkNonJumpBranch(copy, copies.get(graph.getNonJumpSuccessor(node)));
+                builder.linkJumpBranch(copy, graph.getJumpType(node),
+                        copies.get(graph.getJumpSuccessor(node)));
+            } else {
+                for (Node<ScopedStatement> successor : graph.getSuccessors(node)) {
+                    builder.link(copy, copies.get(successor));
+                }
+            }
+        }
+        return copies;
+    }
+
+    /**
+     * Get the copy of a callee's scope.  The callee's parameters become 'parameterScope', and
+     * its globals stay where they are.
+     */
+    private static Scope remapped(Scope scope, Scope parameterScope, Map<Scope, Scope> scopes) {
+        if (scope.getScopeType() == ScopeType.GLOBAL) {
+            return parameterScope.getGlobalScope();
+        } else if (scope.getScopeType() == ScopeType.PARAMETER) {
+            return parameterScope;
+        }
+        if (!scopes.containsKey(scope)) {
+            scopes.put(scope, new Scope(scope.getVariables(),
+                    remapped(scope.getParent().get(), parameterScope, scopes), scope.isLoop()));
+        }
+        return scopes.get(scope);
+    }
+
+    /** Get the call that a statement makes, if the call is the statement's only work. */
+    private static Optional<MethodCall> callOf(StaticStatement statement) {
+        if (statement instanceof MethodCall) {
+            return Optional.of((MethodCall) statement);
+        } else if (statement instanceof Assignment
+                && statement.getExpression() instanceof MethodCall) {
+            return Optional.of((MethodCall) statement.getExpression());
+        } else if (statement instanceof ReturnStatement
+                && ((ReturnStatement) statement).getValue().isPresent()
+                && ((ReturnStatement) statement).getValue().get() instanceof MethodCall) {
+            return Optional.of((MethodCall) ((ReturnStatement) statement).getValue().get());
+        }
+        return Optional.absent();
+    }
+
+    /**
+     * Get what a call site does once its call has stored its value in 'result', if anything.
+     */
+    private static Optional<StaticStatement> continuation(StaticStatement statement,
+            Optional<ScalarLocation> result) {
+        if (statement instanceof Assignment) {
+            return Optional.<StaticStatement>of(
+                    Assignment.assignmentWithReplacementExpr((Assignment) statement, result.get()));
+        } else if (statement instanceof ReturnStatement) {
+            return Optional.<StaticStatement>of(ReturnStatement.of(result.get(),
+                    ((ReturnStatement) statement).getLocationDescriptor()));
+        }
+        return Optional.absent();
+    }
+
+    /** Returns the number of statements in a graph. */
+    private static int size(FlowGraph<ScopedStatement> graph) {
+        int size = 0;
+        for (Node<ScopedStatement> node : graph.getNodes()) {
+            if (node.hasValue()) {
+                size++;
+            }
+        }
+        return size;
+    }
+
+    /** A method that might be inlined, and the facts about it that the policy needs. */
+    private static class Callee {
+        private final Method method;
+        private final BcrFlowGraph<ScopedStatement> graph;
+        private final int size;
+        private final boolean canRunOffEnd;
+        private final Set<Variable> globals;
+
+        public Callee(Method method) {
+            this.method = method;
+            this.graph = new BlockDataFlowFactory(method.getBlock()).getDataFlow()
+                    .asDataFlowGraph().frozen();
+            this.size = size(graph);
+            this.canRunOffEnd = reachable(graph).contains(graph.getEnd());
+
+            ImmutableSet.Builder<Variable> globals = ImmutableSet.builder();
+            for (Node<ScopedStatement> node : graph.getNodes()) {
+                if (!node.hasValue()) {
+                    continue;
+                }
+                for (ScopedVariable variable : variablesOf(node.value())) {
+                    if (variable.isGlobal()) {
+                        globals.add(variable.getVariable());
+                    }
+                }
+            }
+            this.globals = globals.build();
+        }
+
+        private static Set<ScopedVariable> variablesOf(ScopedStatement scopedStatement) {
+            StaticStatement statement = scopedStatement.getStatement();
+            Scope scope = scopedStatement.getScope();
+            ImmutableSet.Builder<ScopedVariable> variables = ImmutableSet.builder();
+            if (statement instanceof Assignment) {
+                variables.addAll(ScopedVariable.getVariablesOf(
+                        ((Assignment) statement).getLocation(), scope));
+            }
+            if (statement.hasExpression()) {
+                variables.addAll(ScopedVariable.getVariablesOf(statement.getExpression(), scope));
+            }
+            return variables.build();
+        }
+
+        private static Set<Node<ScopedStatement>> reachable(FlowGraph<ScopedStatement> graph) {
+            Set<Node<ScopedStatement>> reached = Sets.newHashSet();
+            reached.add(graph.getStart());
+            Deque<Node<ScopedStatement>> agenda = new ArrayDeque<Node<ScopedStatement>>();
+            agenda.push(graph.getStart());
+            while (!agenda.isEmpty()) {
+                for (Node<ScopedStatement> successor : graph.getSuccessors(agenda.pop())) {
+                    if (reached.add(successor)) {
+                        agenda.push(successor);
+                    }
+                }
+            }
+            return reached;
+        }
+    }
+}
@@ -0,0 +1,549 @@
+package edu.mit.compilers.optimization.loops;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import com.google.common.base.Optional;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Iterables;
+import com.google.common.collect.LinkedHashMultimap;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.collect.SetMultimap;
+import com.google.common.collect.Sets;
+
+import edu.mit.compilers.ast.ArrayLocation;
+import edu.mit.compilers.ast.Assignment;
+import edu.mit.compilers.ast.AssignmentOperation;
+import edu.mit.compilers.ast.BinaryOperation;
+import edu.mit.compilers.ast.BinaryOperator;
+import edu.mit.compilers.ast.Condition;
+import edu.mit.compilers.ast.GeneralExpression;
+import edu.mit.compilers.ast.IntLiteral;
+import edu.mit.compilers.ast.Location;
+import edu.mit.compilers.ast.LocationDescriptor;
+import edu.mit.compilers.ast.NativeExpression;
+import edu.mit.compilers.ast.NativeLiteral;
+import edu.mit.compilers.ast.ScalarLocation;
+import edu.mit.compilers.ast.Scope;
+import edu.mit.compilers.ast.StaticStatement;
+import edu.mit.compilers.codegen.DataFlowIntRep;
+import edu.mit.compilers.codegen.asm.instructions.JumpType;
+import edu.mit.compilers.codegen.dataflow.ScopedStatement;
+import edu.mit.compilers.common.Variable;
+import edu.mit.compilers.graph.BasicFlowGraph;
+import edu.mit.compilers.graph.BcrFlowGraph;
+import edu.mit.compilers.graph.FlowGraph;
+import edu.mit.compilers.graph.Node;
+import edu.mit.compilers.optimization.ConstantFolder;
+import edu.mit.compilers.optimization.DataFlowOptimizer;
+import edu.mit.compilers.optimization.ScopedVariable;
+import edu.mit.compilers.optimization.Util;
+
+/**
+ * Array bounds-check elimination.
+ *
+ * <p>Every array access checks that its index is at least zero and less than the array's
+ * length.  An access whose index is an in-bounds literal doesn't need the check at all.
+ *
+ * <p>In a loop, two kinds of index have easy bounds.  An index that doesn't change in the loop
+ * has the same value before the loop as on every access.  An index a*i + b, where a > 0, b
+ * doesn't change, and i is a basic induction variable that never goes down, is at least its
+ * value when the loop is entered.  If it's only read where a test "i < n" has just passed, it's
+ * at most its value when i is n - 1, too.  We check those bounds once, in the loop's
+ * preheader.  If they hold, we run a copy of the loop whose accesses skip their checks, and
+ * otherwise we run the original loop, checks and all.  Often the bounds fold to true, like in
+ * "for (i = 0, 100) { a[i] = 0; }", and then the loop doesn't need a copy.
+ *
+ * <p>Like test replacement, this assumes that the bounds' arithmetic doesn't overflow.  It
+ * should run after the passes that move code around, since an access without a check is only
+ * safe where it was proven safe.
+ */
+public class BoundsCheckEliminator implements DataFlowOptimizer {
+
+    @Override
+    public DataFlowIntRep optimized(DataFlowIntRep ir) {
+        BcrFlowGraph<ScopedStatement> graph = withLiteralIndicesUnchecked(ir.getDataFlowGraph());
+        Versioner versioner = new Versioner();
+        for (Optional<BcrFlowGraph<ScopedStatement>> versioned = versioner.versionedOnce(graph);
+                versioned.isPresent();
+                versioned = versioner.versionedOnce(graph)) {
+            graph = versioned.get();
+        }
+        return new DataFlowIntRep(graph, ir.getScope());
+    }
+
+    /** Drops the checks of accesses whose indices are literals, wherever they are. */
+    private static BcrFlowGraph<ScopedStatement> withLiteralIndicesUnchecked(
+            BcrFlowGraph<ScopedStatement> graph) {
+        BcrFlowGraph.Builder<ScopedStatement> builder = BcrFlowGraph.builderOf(graph);
+        for (Node<ScopedStatement> node : graph.getNodes()) {
+            if (!node.hasValue()) {
+                continue;
+            }
+            Scope scope = node.value().getScope();
+            Set<ArrayLocation> safe = Sets.newHashSet();
+            for (ArrayLocation location : checkedLocations(node.value().getStatement())) {
+                if (location.getIndex() instanceof IntLiteral) {
+                    long index = ((IntLiteral) location.getIndex()).get64BitValue();
+                    if (0 <= index && index < length(location, scope).get64BitValue()) {
+                        safe.add(location);
+                    }
+                }
+            }
+            if (!safe.isEmpty()) {
+                builder.replace(node, Node.of(new ScopedStatement(
+                        withoutChecks(node.value().getStatement(), safe), scope)));
+            }
+        }
+        return builder.build();
+    }
+
+    /**
+     * Versions the loops of one method, one loop per round.
+     *
+     * <p>It remembers the headers of the loops it has handled, and of their copies, so that it
+     * never tries to version the checked copy of a loop again.
+     */
+    private static final class Versioner {
+        private final Set<Node<ScopedStatement>> handledHeaders = Sets.newHashSet();
+
+        /** Versions the first loop that has checks to drop, if there is one. */
+        public Optional<BcrFlowGraph<ScopedStatement>> versionedOnce(
+                BcrFlowGraph<ScopedStatement> graph) {
+            for (NaturalLoop<ScopedStatement> loop : LoopNestingForest.of(graph).getLoops()) {
+                if (!handledHeaders.add(loop.getHeader()) || loop.getEntries(graph).isEmpty()) {
+                    continue;
+                }
+                LoopVersioning versioning = new LoopVersioning(graph, loop);
+                if (versioning.dropsChecks()) {
+                    return Optional.of(versioning.build(handledHeaders));
+                }
+            }
+            return Optional.absent();
+        }
+    }
+
+    /**
+     * A test "i < n" in a loop, where i is a basic induction variable that never goes down.
+     *
+     * <p>It bounds i at the nodes of the loop that control can only reach by passing the test,
+     * without updating i since then.
+     */
+    private static final class BoundingTest {
+        private final Scope scope;
+        /** The largest value i can have where the test bounds it, readable in 'scope'. */
+        private final NativeExpression last;
+        /** The nodes of the loop that the test doesn't bound. */
+        private final Set<Node<ScopedStatement>> unbounded;
+
+        public BoundingTest(Scope scope, NativeExpression last,
+                Set<Node<ScopedStatement>> unbounded) {
+            this.scope = scope;
+            this.last = last;
+            this.unbounded = unbounded;
+        }
+
+        public boolean bounds(Node<ScopedStatement> node) {
+            return !unbounded.contains(node);
+        }
+    }
+
+    /** Finds the checks that one loop can drop, and makes its unchecked copy. */
+    private static final class LoopVersioning {
+        private final BcrFlowGraph<ScopedStatement> graph;
+        private final NaturalLoop<ScopedStatement> loop;
+        private final LoopFacts facts;
+        /** Literals that scalars are known to hold when the loop is entered. */
+        private final Map<ScopedVariable, IntLiteral> entryValues;
+        private final SetMultimap<ScopedVariable, BoundingTest> tests =
+                LinkedHashMultimap.create();
+
+        /** The accesses that can skip their checks, by the nodes that make them. */
+        private final SetMultimap<Node<ScopedStatement>, ArrayLocation> unchecked =
+                LinkedHashMultimap.create();
+        /** The conditions that the preheader must check, by the scope to check them in. */
+        private final SetMultimap<Scope, NativeExpression> guards = LinkedHashMultimap.create();
+
+        public LoopVersioning(BcrFlowGraph<ScopedStatement> graph,
+                NaturalLoop<ScopedStatement> loop) {
+            this.graph = graph;
+            this.loop = loop;
+            this.facts = LoopFacts.of(loop);
+            this.entryValues = entryValues(graph, loop);
+
+            for (ScopedVariable scalar : facts.getDefinedScalars()) {
+                Optional<Map<Node<ScopedStatement>, Long>> steps = facts.getSteps(scalar);
+                if (steps.isPresent() && neverDecreases(steps.get().values())) {
+                    findTests(scalar, steps.get().keySet());
+                }
+            }
+            for (Node<ScopedStatement> node : loop.getBody()) {
+                if (!node.hasValue()) {
+                    continue;
+                }
+                for (ArrayLocation location : checkedLocations(node.value().getStatement())) {
+                    boundAccess(node, location);
+                }
+            }
+        }
+
+        public boolean dropsChecks() {
+            return !unchecked.isEmpty();
+        }
+
+        /**
+         * Build a copy of the graph, where the loop's proven accesses skip their checks.
+         *
+         * @param handledHeaders The headers of handled loops, which gets the headers of any
+         * copies of them.
+         */
+        public BcrFlowGraph<ScopedStatement> build(Set<Node<ScopedStatement>> handledHeaders) {
+            BcrFlowGraph.Builder<ScopedStatement> builder = BcrFlowGraph.builderOf(graph);
+            if (guards.isEmpty()) {
+                // Nothing needs checking at runtime, so the loop doesn't need a copy.
+                for (Node<ScopedStatement> node : unchecked.keySet()) {
+                    builder.replace(node, uncheckedCopy(node));
+                }
+                return builder.build();
+            }
+
+            Map<Node<ScopedStatement>, Node<ScopedStatement>> copies = Maps.newHashMap();
+            for (Node<ScopedStatement> node : loop.getBody()) {
+                Node<ScopedStatement> copy = uncheckedCopy(node);
+                copies.put(node, copy);
+                if (handledHeaders.contains(node)) {
+                    handledHeaders.add(copy);
+                }
+            }
+            // The copy's exits lead to the same places as the original's.
+            for (Node<ScopedStatement> node : loop.getBody()) {
+                Node<ScopedStatement> copy = copies.get(node);
+                if (graph.isBranch(node)) {
+                    builder.linkNonJumpBranch(copy,
+                            copyOrSelf(graph.getNonJumpSuccessor(node), copies));
+                    builder.linkJumpBranch(copy, graph.getJumpType(node),
+                            copyOrSelf(graph.getJumpSuccessor(node), copies));
+                } else {
+                    for (Node<ScopedStatement> successor : graph.getSuccessors(node)) {
+                        builder.link(copy, copyOrSelf(successor, copies));
+                    }
+                }
+            }
+
+            Node<ScopedStatement> preheader = LoopUtil.insertPreheader(builder, graph, loop);
+            builder.replace(preheader, guard(copies.get(loop.getHeader())));
+            return builder.build();
+        }
+
+        /** Finds the tests in the loop that bound a basic induction variable from above. */
+        private void findTests(ScopedVariable scalar, Set<Node<ScopedStatement>> steps) {
+            for (Node<ScopedStatement> node : loop.getBody()) {
+                if (!node.hasValue()) {
+                    continue;
+                }
+                Optional<BinaryOperation> comparison =
+                        LoopUtil.normalizedComparison(node.value(), scalar, facts);
+                if (!comparison.isPresent()) {
+                    continue;
+                }
+                BinaryOperator operator = comparison.get().getOperator();
+                if (operator != BinaryOperator.LESS_THAN
+                        && operator != BinaryOperator.LESS_THAN_OR_EQUAL) {
+                    continue;
+                }
+                Set<Node<ScopedStatement>> successors = graph.getSuccessors(node);
+                if (successors.size() != 1) {
+                    continue;
+                }
+                Node<ScopedStatement> branch = Iterables.getOnlyElement(successors);
+                if (!graph.isBranch(branch) || graph.getJumpType(branch) != JumpType.JNE) {
+                    continue;
+                }
+
+                NativeExpression limit = comparison.get().getRightArgument();
+                NativeExpression last = operator == BinaryOperator.LESS_THAN
+                        ? new BinaryOperation(BinaryOperator.MINUS, limit, new IntLiteral(1L),
+                                LocationDescriptor.machineCode())
+                        : limit;
+                tests.put(scalar, new BoundingTest(node.value().getScope(), last,
+                        unboundedBy(node, graph.getJumpSuccessor(branch), steps)));
+            }
+        }
+
+        /**
+         * Get the nodes of the loop that control can reach without passing a test, or after it
+         * fails, or after a step of the variable it tests.
+         */
+        private Set<Node<ScopedStatement>> unboundedBy(Node<ScopedStatement> test,
+                Node<ScopedStatement> failed, Set<Node<ScopedStatement>> steps) {
+            Deque<Node<ScopedStatement>> agenda = new ArrayDeque<Node<ScopedStatement>>();
+            agenda.push(loop.getHeader());
+            agenda.push(failed);
+            for (Node<ScopedStatement> step : steps) {
+                agenda.addAll(graph.getSuccessors(step));
+            }
+            Set<Node<ScopedStatement>> reached = Sets.newHashSet();
+            while (!agenda.isEmpty()) {
+                Node<ScopedStatement> node = agenda.pop();
+                if (!loop.contains(node) || !reached.add(node) || node.equals(test)) {
+                    continue;
+                }
+                agenda.addAll(graph.getSuccessors(node));
+            }
+            return reached;
+        }
+
+        /**
+         * Drops an access's check from the loop's copy, if its index can be bounded before the
+         * loop.
+         */
+        private void boundAccess(Node<ScopedStatement> node, ArrayLocation location) {
+            Scope scope = node.value().getScope();
+            NativeExpression index = location.getIndex();
+            Optional<Linear> linear = Linear.of(index, scope, tests.keySet(), facts);
+            if (!linear.isPresent()) {
+                return;
+            }
+            if (!linear.get().getBasis().isPresent()) {
+                // The index has the same value in the preheader as everywhere in the loop.
+                addChecks(node, location, index, scope);
+                return;
+            }
+            if (linear.get().getCoefficient() < 0) {
+                return;
+            }
+            ScopedVariable basis = linear.get().getBasis().get();
+            for (BoundingTest test : tests.get(basis)) {
+                if (test.bounds(node) && resolvesAlike(index, scope, test.scope)
+                        && addChecks(node, location, LoopUtil.substituted(
+                                index, scope, ImmutableMap.of(basis, test.last)), test.scope)) {
+                    return;
+                }
+            }
+        }
+
+        /**
+         * Drops an access's check from the loop's copy, unless its bounds are known to fail.
+         *
+         * <p>In the preheader, the index is at its lowest.
+         *
+         * @param highest The index's greatest value in the loop, readable in 'scope'.
+         * @param scope The scope to check the bounds in, where the index means the same as it
+         * does in the loop.
+         */
+        private boolean addChecks(Node<ScopedStatement> node, ArrayLocation location,
+                NativeExpression highest, Scope scope) {
+            Optional<List<NativeExpression>> checks = checksAtEntry(ImmutableList.of(
+                    comparison(BinaryOperator.GREATER_THAN_OR_EQUAL, location.getIndex(),
+                            new IntLiteral(0L)),
+                    comparison(BinaryOperator.LESS_THAN, highest,
+                            length(location, node.value().getScope()))),
+                    scope);
+            if (!checks.isPresent()) {
+                return false;
+            }
+            guards.putAll(scope, checks.get());
+            unchecked.put(node, location);
+            return true;
+        }
+
+        /**
+         * Get the conditions that still need to be checked in the preheader, unless one of
+         * them is known to fail.
+         */
+        private Optional<List<NativeExpression>> checksAtEntry(List<NativeExpression> conditions,
+                Scope scope) {
+            List<NativeExpression> checks = Lists.newArrayList();
+            for (NativeExpression condition : conditions) {
+                NativeExpression folded = ConstantFolder.folded(
+                        LoopUtil.substituted(condition, scope, entryValues));
+                if (!(folded instanceof NativeLiteral)) {
+                    checks.add(folded);
+                } else if (((NativeLiteral) folded).get64BitValue() == 0) {
+                    return Optional.absent();
+                }
+            }
+            return Optional.<List<NativeExpression>>of(checks);
+        }
+
+        /** Get a copy of a node for the unchecked loop. */
+        private Node<ScopedStatement> uncheckedCopy(Node<ScopedStatement> node) {
+            if (!unchecked.containsKey(node)) {
+                return Node.copyOf(node);
+            }
+            return Node.of(new ScopedStatement(
+                    withoutChecks(node.value().getStatement(), unchecked.get(node)),
+                    node.value().getScope()));
+        }
+
+        /** Build the preheader's checks, which lead into the unchecked loop if they all pass. */
+        private FlowGraph<ScopedStatement> guard(Node<ScopedStatement> uncheckedHeader) {
+            BasicFlowGraph.Builder<ScopedStatement> builder = BasicFlowGraph.builder();
+            // The guard's end leads into the original loop.
+            Node<ScopedStatement> failed = Node.nop();
+            for (Scope scope : guards.keySet()) {
+                Node<ScopedStatement> branch = Node.nop();
+                Node<ScopedStatement> passed = Node.nop();
+                builder.append(Node.of(new ScopedStatement(
+                                new Condition(conjunction(guards.get(scope))), scope)))
+                        .append(branch)
+                        .linkNonJumpBranch(branch, passed)
+                        .linkJumpBranch(branch, JumpType.JNE, failed)
+                        .setEnd(passed);
+            }
+            return builder.link(builder.getEnd(), uncheckedHeader).setEnd(failed).build();
+        }
+    }
+
+    /**
+     * Get the literals that scalars are known to hold when a loop is entered.
+     *
+     * <p>We only look back along the straight line of code that leads to the loop's only
+     * entry, which is where a ForLoop sets its variable and its range's end.
+     */
+    private static Map<ScopedVariable, IntLiteral> entryValues(
+            BcrFlowGraph<ScopedStatement> graph, NaturalLoop<ScopedStatement> loop) {
+        Map<ScopedVariable, IntLiteral> values = Maps.newHashMap();
+        Set<Node<ScopedStatement>> entries = loop.getEntries(graph);
+        if (entries.size() != 1) {
+            return values;
+        }
+        Set<ScopedVariable> assigned = Sets.newHashSet();
+        Set<Node<ScopedStatement>> visited = Sets.newHashSet();
+        for (Node<ScopedStatement> node = Iterables.getOnlyElement(entries);
+                visited.add(node);
+                node = Iterables.getOnlyElement(graph.getPredecessors(node))) {
+            if (node.hasValue()) {
+                StaticStatement statement = node.value().getStatement();
+                if (statement.hasExpression()
+                        && Util.containsMethodCall(statement.getExpression())) {
+                    // The call might have changed any global.
+                    break;
+                }
+                if (statement instanceof Assignment
+                        && ((Assignment) statement).getLocation() instanceof ScalarLocation) {
+                    Assignment assignment = (Assignment) statement;
+                    ScopedVariable scalar =
+                            ScopedVariable.getAssigned(assignment, node.value().getScope());
+                    // Going backwards, only the first assignment we see still holds.
+                    if (assigned.add(scalar)
+                            && assignment.getOperation() == AssignmentOperation.SET_EQUALS
+                            && assignment.getExpression() instanceof IntLiteral) {
+                        values.put(scalar, (IntLiteral) assignment.getExpression());
+                    }
+                }
+            }
+            if (graph.getPredecessors(node).size() != 1) {
+                break;
+            }
+        }
+        return values;
+    }
+
+    private static boolean neverDecreases(Iterable<Long> steps) {
+        for (long step : steps) {
+            if (step < 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /** Returns whether every scalar in an expression is the same variable in both scopes. */
+    private static boolean resolvesAlike(GeneralExpression expr, Scope scope, Scope otherScope) {
+        if (expr instanceof ScalarLocation) {
+            Variable variable = ((ScalarLocation) expr).getVariable();
+            return otherScope.isInScope(variable)
+                    && ScopedVariable.getScopeOf(variable, scope)
+                            .equals(ScopedVariable.getScopeOf(variable, otherScope));
+        }
+        for (GeneralExpression child : expr.getChildren()) {
+            if (!resolvesAlike(child, scope, otherScope)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static Node<ScopedStatement> copyOrSelf(Node<ScopedStatement> node,
+            Map<Node<ScopedStatement>, Node<ScopedStatement>> copies) {
+        return copies.containsKey(node) ? copies.get(node) : node;
+    }
+
+    private static BinaryOperation comparison(BinaryOperator operator, NativeExpression left,
+            NativeExpression right) {
+        return new BinaryOperation(operator, left, right, LocationDescriptor.machineCode());
+    }
+
+    private static NativeExpression conjunction(Iterable<NativeExpression> conditions) {
+        NativeExpression conjunction = null;
+        for (NativeExpression condition : conditions) {
+            conjunction = conjunction == null
+                    ? condition
+                    : comparison(BinaryOperator.AND, conjunction, condition);
+        }
+        return conjunction;
+    }
+
+    private static IntLiteral length(ArrayLocation location, Scope scope) {
+        return scope.getFromScope(location.getVariable()).get().getLength().get();
+    }
+
+    /** Get the array locations that a statement accesses, which still check their bounds. */
+    private static Set<ArrayLocation> checkedLocations(StaticStatement statement) {
+        Set<ArrayLocation> locations = Sets.newLinkedHashSet();
+        if (statement.hasExpression()) {
+            addCheckedLocations(statement.getExpression(), locations);
+        }
+        if (statement instanceof Assignment) {
+            addCheckedLocations(((Assignment) statement).getLocation(), locations);
+        }
+        return locations;
+    }
+
+    private static void addCheckedLocations(GeneralExpression expr,
+            Set<ArrayLocation> locations) {
+        if (expr instanceof ArrayLocation && ((ArrayLocation) expr).checksBounds()) {
+            locations.add((ArrayLocation) expr);
+        }
+        for (GeneralExpression child : expr.getChildren()) {
+            addCheckedLocations(child, locations);
+        }
+    }
+
+    /** Get a copy of a statement, where some of its accesses skip their checks. */
+    private static StaticStatement withoutChecks(StaticStatement statement,
+            Set<ArrayLocation> safe) {
+        StaticStatement replacement = statement.hasExpression()
+                ? Util.getReplacement(statement, withoutChecks(statement.getExpression(), safe))
+                : statement;
+        if (replacement instanceof Assignment) {
+            Assignment assignment = (Assignment) replacement;
+            if (assignment.getLocation() instanceof ArrayLocation) {
+                replacement = new Assignment(
+                        (Location) withoutChecks(assignment.getLocation(), safe),
+                        assignment.getOperation(), assignment.getExpression(),
+                        assignment.getLocationDescriptor(), assignment.getFromCompiler());
+            }
+        }
+        return replacement;
+    }
+
+    /**
+     * Get a copy of an expression, where some of its accesses skip their checks.
+     *
+     * <p>None of them is nested in another's index, since those indices have no array reads.
+     */
+    private static NativeExpression withoutChecks(NativeExpression expr,
+            Set<ArrayLocation> safe) {
+        for (ArrayLocation location : safe) {
+            expr = expr.withReplacements(location, location.withoutBoundsCheck());
+        }
+        return expr;
+    }
+}
@@ -1,9 +1,10 @@
 package edu.mit.compilers.optimization.loops;
 
-import static edu.mit.compilers.common.SetOperators.intersection;
 import java.util.Collection;
 import java.util.Set;
 
+import com.google.common.base.Predicate;
+import com.google.common.base.Predicates;
 import com.google.common.collect.ImmutableSet;
 import edu.mit.compilers.graph.Node;
 import edu.mit.compilers.optimization.AnalysisSpec;
@@ -36,19 +37,24 @@ public class DominatorSpec <N> implements AnalysisSpec<N, Node<N>> {
     }
 
     @Override
-    public boolean mustKill(Node<N> currentNode, Node<N> candidate) {
+    public Predicate<Node<N>> getKillPredicate(Node<N> currentNode) {
         // Never kill a node.
+        return Predicates.alwaysFalse();
+    }
+
+    @Override
+    public boolean genDependsOnInputs() {
         return false;
     }
 
     @Override
-    public Set<Node<N>> applyConfluenceOperator(Iterable<Collection<Node<N>>> inputs) {
+    public Confluence getConfluence() {
         /*
          * Node n dominates Node m means that
          * ALL paths to Node m must pass through
          * Node n.
          */
-        return intersection(inputs);
+        return Confluence.INTERSECTION;
     }
 
     @Override
@@ -0,0 +1,535 @@
+package edu.mit.compilers.optimization.loops;
+
+import java.util.List;
+import java.util.Map;
+
+import com.google.common.base.Optional;
+import com.google.common.collect.HashBasedTable;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Iterables;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Table;
+
+import edu.mit.compilers.ast.ArrayLocation;
+import edu.mit.compilers.ast.Assignment;
+import edu.mit.compilers.ast.AssignmentOperation;
+import edu.mit.compilers.ast.BinaryOperation;
+import edu.mit.compilers.ast.BinaryOperator;
+import edu.mit.compilers.ast.Condition;
+import edu.mit.compilers.ast.GeneralExpression;
+import edu.mit.compilers.ast.IntLiteral;
+import edu.mit.compilers.ast.Location;
+import edu.mit.compilers.ast.LocationDescriptor;
+import edu.mit.compilers.ast.MethodCall;
+import edu.mit.compilers.ast.NativeExpression;
+import edu.mit.compilers.ast.ScalarLocation;
+import edu.mit.compilers.ast.Scope;
+import edu.mit.compilers.ast.StaticStatement;
+import edu.mit.compilers.ast.TernaryOperation;
+import edu.mit.compilers.ast.UnaryOperation;
+import edu.mit.compilers.codegen.DataFlowIntRep;
+import edu.mit.compilers.codegen.dataflow.ScopedStatement;
+import edu.mit.compilers.common.Variable;
+import edu.mit.compilers.graph.BcrFlowGraph;
+import edu.mit.compilers.graph.Node;
+import edu.mit.compilers.optimization.DataFlowAnalyzer;
+import edu.mit.compilers.optimization.DataFlowOptimizer;
+import edu.mit.compilers.optimization.DataFlowSolution;
+import edu.mit.compilers.optimization.ScopedVariable;
+import edu.mit.compilers.optimization.Util;
+
+/**
+ * Induction-variable strength reduction, with linear-function test replacement.
+ *
+ * <p>A basic induction variable is a local scalar whose only assignments in a loop add literals
+ * to it, like a ForLoop's loop variable.  A derived induction variable is an expression a*i + b,
+ * where i is a basic induction variable, a is a literal, and b doesn't change in the loop.  When
+ * such an expression has a multiplication in it, like the "r * 2193 + c * 3" of an array index,
+ * we keep its value in a temp instead.  The temp is set in the loop's preheader, and a*c is added
+ * to it right after each statement that adds c to i.  So, each multiplication becomes an
+ * addition.
+ *
+ * <p>Then, if i is only read by the loop's exit test "i < n", we test "t < a*n + b" instead,
+ * and drop i's updates from the loop entirely.  (If a is negative, the comparison flips.)  Like
+ * gcc's, this assumes that a*n + b doesn't overflow.
+ *
+ * <p>Arithmetic wraps the same way on both sides of the change, so the temps always equal the
+ * expressions they replace.  Each addition must fit in an immediate, though.
+ */
+public class InductionVariableReducer implements DataFlowOptimizer {
+
+    private static final String TEMP_VAR_PREFIX = "iv_temp";
+
+    private final boolean replaceTests;
+
+    public InductionVariableReducer() {
+        this(true);
+    }
+
+    /**
+     * @param replaceTests Whether to do linear-function test replacement, which eliminates basic
+     * induction variables that are only read by their loop's exit test.
+     */
+    public InductionVariableReducer(boolean replaceTests) {
+        this.replaceTests = replaceTests;
+    }
+
+    @Override
+    public DataFlowIntRep optimized(DataFlowIntRep ir) {
+        Reducer reducer = new Reducer(ir.getScope(), replaceTests);
+        for (Optional<DataFlowIntRep> reduced = reducer.reducedOnce(ir);
+                reduced.isPresent();
+                reduced = reducer.reducedOnce(ir)) {
+            ir = reduced.get();
+        }
+        return ir;
+    }
+
+    /**
+     * Reduces the induction variables in the loops of one method.
+     *
+     * <p>It numbers the temps, so that those made in later rounds don't shadow earlier ones.
+     */
+    private static final class Reducer {
+        private final Scope methodScope;
+        private final boolean replaceTests;
+        private int tempNumber = 0;
+
+        public Reducer(Scope methodScope, boolean replaceTests) {
+            this.methodScope = methodScope;
+            this.replaceTests = replaceTests;
+        }
+
+        /** Reduces in the first loop that has anything to reduce, if there is one. */
+        public Optional<DataFlowIntRep> reducedOnce(DataFlowIntRep ir) {
+            BcrFlowGraph<ScopedStatement> graph = ir.getDataFlowGraph();
+            LoopNestingForest<ScopedStatement> forest = LoopNestingForest.of(graph);
+            if (forest.getLoops().isEmpty()) {
+                return Optional.absent();
+            }
+            DataFlowSolution<ScopedStatement, ScopedVariable> liveness =
+                    DataFlowAnalyzer.LIVE_VARIABLES.solve(graph);
+
+            for (NaturalLoop<ScopedStatement> loop : forest.getLoops()) {
+                if (loop.getEntries(graph).isEmpty()) {
+                    // There's nowhere to put a preheader.
+                    continue;
+                }
+                LoopReduction reduction =
+                        new LoopReduction(graph, loop, liveness, tempNumber, replaceTests);
+                if (reduction.hasReduced()) {
+                    tempNumber += reduction.getTemps().size();
+                    return Optional.of(
+                            new DataFlowIntRep(reduction.build(methodScope), methodScope));
+                }
+            }
+            return Optional.absent();
+        }
+    }
+
+    /** A derived induction variable, and the temp that holds its value. */
+    private static final class Family {
+        private final ScopedVariable basis;
+        private final long coefficient;
+        private final NativeExpression expression;
+        private final Scope scope;
+        private final Variable temp;
+
+        public Family(ScopedVariable basis, long coefficient, NativeExpression expression,
+                Scope scope, Variable temp) {
+            this.basis = basis;
+            this.coefficient = coefficient;
+            this.expression = expression;
+            this.scope = scope;
+            this.temp = temp;
+        }
+    }
+
+    /** Finds the induction variables of one loop, and reduces them. */
+    private static final class LoopReduction {
+        private final BcrFlowGraph<ScopedStatement> graph;
+        private final NaturalLoop<ScopedStatement> loop;
+        private final DataFlowSolution<ScopedStatement, ScopedVariable> liveness;
+        private final LoopFacts facts;
+        private final int firstTempNumber;
+
+        /** The amount that each assignment to each basic induction variable adds to it. */
+        private final Map<ScopedVariable, Map<Node<ScopedStatement>, Long>> steps =
+                Maps.newLinkedHashMap();
+
+        /** The derived induction variables we've replaced with temps, by where they're read. */
+        private final Table<Scope, NativeExpression, Family> families = HashBasedTable.create();
+        private final List<Family> familyList = Lists.newArrayList();
+        /** The statements to put in the preheader, in order. */
+        private final List<ScopedStatement> preheaderStatements = Lists.newArrayList();
+        /** The nodes that were rewritten, and their new statements. */
+        private final Map<Node<ScopedStatement>, StaticStatement> rewritten =
+                Maps.newLinkedHashMap();
+        /** The assignments to eliminated induction variables. */
+        private final List<Node<ScopedStatement>> removed = Lists.newArrayList();
+        private final List<Variable> tempVariables = Lists.newArrayList();
+
+        public LoopReduction(BcrFlowGraph<ScopedStatement> graph,
+                NaturalLoop<ScopedStatement> loop,
+                DataFlowSolution<ScopedStatement, ScopedVariable> liveness, int firstTempNumber,
+                boolean replaceTests) {
+            this.graph = graph;
+            this.loop = loop;
+            this.liveness = liveness;
+            this.firstTempNumber = firstTempNumber;
+            this.facts = LoopFacts.of(loop);
+
+            for (ScopedVariable scalar : facts.getDefinedScalars()) {
+                Optional<Map<Node<ScopedStatement>, Long>> scalarSteps = stepsOf(scalar);
+                if (scalarSteps.isPresent()) {
+                    steps.put(scalar, scalarSteps.get());
+                }
+            }
+            if (steps.isEmpty()) {
+                return;
+            }
+
+            for (Node<ScopedStatement> node : loop.getBody()) {
+                if (!node.hasValue() || isStep(node)) {
+                    continue;
+                }
+                StaticStatement statement = node.value().getStatement();
+                StaticStatement replacement = withFamiliesReduced(statement, node);
+                if (!replacement.equals(statement)) {
+                    rewritten.put(node, replacement);
+                }
+            }
+
+            if (replaceTests) {
+                for (ScopedVariable basis : steps.keySet()) {
+                    replaceTest(basis);
+                }
+            }
+        }
+
+        public boolean hasReduced() {
+            return !familyList.isEmpty();
+        }
+
+        public List<Variable> getTemps() {
+            return tempVariables;
+        }
+
+        /** Build a copy of the graph, with the reduced code. */
+        public BcrFlowGraph<ScopedStatement> build(Scope methodScope) {
+            Map<Scope, Scope> newScopes = LoopUtil.newScopes(graph, tempVariables, methodScope);
+
+            BcrFlowGraph.Builder<ScopedStatement> builder = BcrFlowGraph.builderOf(graph);
+            Node<ScopedStatement> previous = LoopUtil.insertPreheader(builder, graph, loop);
+            for (ScopedStatement statement : preheaderStatements) {
+                Node<ScopedStatement> node = Node.of(new ScopedStatement(
+                        statement.getStatement(), newScopes.get(statement.getScope())));
+                builder.insertOnEdge(previous, loop.getHeader(), node);
+                previous = node;
+            }
+
+            // Each temp gets its update right after each step of its basis.
+            Map<Node<ScopedStatement>, Node<ScopedStatement>> afterSteps = Maps.newLinkedHashMap();
+            for (Family family : familyList) {
+                for (Map.Entry<Node<ScopedStatement>, Long> step
+                        : steps.get(family.basis).entrySet()) {
+                    Node<ScopedStatement> stepNode = step.getKey();
+                    Node<ScopedStatement> update = Node.of(new ScopedStatement(
+                            increment(family.temp, family.coefficient * step.getValue()),
+                            newScopes.get(stepNode.value().getScope())));
+                    Node<ScopedStatement> afterStep = afterSteps.containsKey(stepNode)
+                            ? afterSteps.get(stepNode)
+                            : Iterables.getOnlyElement(graph.getSuccessors(stepNode));
+                    builder.insertOnEdge(stepNode, afterStep, update);
+                    afterSteps.put(stepNode, update);
+                }
+            }
+
+            for (Node<ScopedStatement> node : removed) {
+                builder.remove(node);
+            }
+            for (Node<ScopedStatement> node : graph.getNodes()) {
+                if (!node.hasValue() || removed.contains(node)) {
+                    continue;
+                }
+                StaticStatement statement = rewritten.containsKey(node)
+                        ? rewritten.get(node)
+                        : node.value().getStatement();
+                builder.replace(node, Node.of(new ScopedStatement(
+                        statement, newScopes.get(node.value().getScope()))));
+            }
+            return builder.build();
+        }
+
+        /**
+         * Get the amount each of a scalar's assignments in the loop adds to it, if the scalar
+         * is a basic induction variable whose updates we can put code after.
+         */
+        private Optional<Map<Node<ScopedStatement>, Long>> stepsOf(ScopedVariable scalar) {
+            Optional<Map<Node<ScopedStatement>, Long>> scalarSteps = facts.getSteps(scalar);
+            if (!scalarSteps.isPresent()) {
+                return scalarSteps;
+            }
+            for (Node<ScopedStatement> node : scalarSteps.get().keySet()) {
+                if (graph.getSuccessors(node).size() != 1) {
+                    return Optional.absent();
+                }
+            }
+            return scalarSteps;
+        }
+
+        private boolean isStep(Node<ScopedStatement> node) {
+            for (Map<Node<ScopedStatement>, Long> scalarSteps : steps.values()) {
+                if (scalarSteps.containsKey(node)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        /** Get a copy of a statement, with its derived induction variables read from temps. */
+        private StaticStatement withFamiliesReduced(StaticStatement statement,
+                Node<ScopedStatement> node) {
+            if (!statement.hasExpression()) {
+                return statement;
+            }
+            StaticStatement replacement = Util.getReplacement(
+                    statement, withFamiliesReduced(statement.getExpression(), node));
+            if (replacement instanceof Assignment) {
+                Assignment assignment = (Assignment) replacement;
+                if (assignment.getLocation() instanceof ArrayLocation) {
+                    Location location = withFamiliesReduced(
+                            (ArrayLocation) assignment.getLocation(), node);
+                    replacement = new Assignment(location, assignment.getOperation(),
+                            assignment.getExpression(), assignment.getLocationDescriptor(),
+                            assignment.getFromCompiler());
+                }
+            }
+            return replacement;
+        }
+
+        /** Get a copy of an expression, with its derived induction variables read from temps. */
+        private NativeExpression withFamiliesReduced(NativeExpression expr,
+                Node<ScopedStatement> node) {
+            Scope scope = node.value().getScope();
+            if (containsMultiplication(expr)) {
+                Optional<Family> family = familyOf(expr, scope);
+                if (family.isPresent()) {
+                    return new ScalarLocation(family.get().temp, LocationDescriptor.machineCode());
+                }
+            }
+            if (expr instanceof BinaryOperation) {
+                BinaryOperation operation = (BinaryOperation) expr;
+                return new BinaryOperation(operation.getOperator(),
+                        withFamiliesReduced(operation.getLeftArgument(), node),
+                        withFamiliesReduced(operation.getRightArgument(), node),
+                        operation.getLocationDescriptor());
+            } else if (expr instanceof UnaryOperation) {
+                UnaryOperation operation = (UnaryOperation) expr;
+                return new UnaryOperation(operation.getOperator(),
+                        withFamiliesReduced(operation.getArgument(), node),
+                        operation.getLocationDescriptor());
+            } else if (expr instanceof TernaryOperation) {
+                TernaryOperation operation = (TernaryOperation) expr;
+                return new TernaryOperation(
+                        withFamiliesReduced(operation.getCondition(), node),
+                        withFamiliesReduced(operation.getTrueResult(), node),
+                        withFamiliesReduced(operation.getFalseResult(), node),
+                        operation.getLocationDescriptor());
+            } else if (expr instanceof ArrayLocation) {
+                return withFamiliesReduced((ArrayLocation) expr, node);
+            } else if (expr instanceof MethodCall) {
+                MethodCall call = (MethodCall) expr;
+                List<GeneralExpression> parameters = Lists.newArrayList();
+                for (GeneralExpression parameter : call.getParameterValues()) {
+                    parameters.add(parameter instanceof NativeExpression
+                            ? withFamiliesReduced((NativeExpression) parameter, node)
+                            : parameter);
+                }
+                return new MethodCall(call.getMethodName(), parameters,
+                        call.getLocationDescriptor());
+            } else {
+                return expr;
+            }
+        }
+
+        private ArrayLocation withFamiliesReduced(ArrayLocation location,
+                Node<ScopedStatement> node) {
+            return location.withIndex(withFamiliesReduced(location.getIndex(), node));
+        }
+
+        /**
+         * Get the family an expression belongs to, if it's a derived induction variable that
+         * we can reduce.  The family is made if it doesn't exist yet.
+         */
+        private Optional<Family> familyOf(NativeExpression expr, Scope scope) {
+            if (families.contains(scope, expr)) {
+                return Optional.of(families.get(scope, expr));
+            }
+            Optional<Linear> linear = Linear.of(expr, scope, steps.keySet(), facts);
+            if (!linear.isPresent() || !linear.get().getBasis().isPresent()
+                    || linear.get().getCoefficient() == 0) {
+                return Optional.absent();
+            }
+            ScopedVariable basis = linear.get().getBasis().get();
+            long coefficient = linear.get().getCoefficient();
+            for (long step : steps.get(basis).values()) {
+                if (!fitsInImmediate(coefficient * step)) {
+                    return Optional.absent();
+                }
+            }
+
+            Variable temp = newTemp();
+            Family family = new Family(basis, coefficient, expr, scope, temp);
+            families.put(scope, expr, family);
+            familyList.add(family);
+            // The expression is evaluated in its original scope, so its variables still
+            // resolve to the same locations.
+            preheaderStatements.add(new ScopedStatement(Assignment.compilerAssignment(
+                    new ScalarLocation(temp, LocationDescriptor.machineCode()), expr), scope));
+            return Optional.of(family);
+        }
+
+        /**
+         * Replaces a basic induction variable's exit test with a test on one of its families,
+         * and removes the variable's updates, if nothing else in the loop reads it.
+         */
+        private void replaceTest(ScopedVariable basis) {
+            Optional<Family> family = Optional.absent();
+            for (Family candidate : familyList) {
+                if (candidate.basis.equals(basis)) {
+                    family = Optional.of(candidate);
+                    break;
+                }
+            }
+            if (!family.isPresent()) {
+                return;
+            }
+
+            // The variable must be read only by one comparison, and by its own updates.
+            Optional<Node<ScopedStatement>> test = Optional.absent();
+            for (Node<ScopedStatement> node : loop.getBody()) {
+                if (!node.hasValue() || steps.get(basis).containsKey(node)) {
+                    continue;
+                }
+                StaticStatement statement = rewritten.containsKey(node)
+                        ? rewritten.get(node)
+                        : node.value().getStatement();
+                if (reads(statement, node.value().getScope(), basis)) {
+                    if (test.isPresent()) {
+                        return;
+                    }
+                    test = Optional.of(node);
+                }
+            }
+            if (!test.isPresent()) {
+                return;
+            }
+            Optional<BinaryOperation> comparison =
+                    LoopUtil.normalizedComparison(test.get().value(), basis, facts);
+            if (!comparison.isPresent()) {
+                return;
+            }
+
+            // After the loop, the variable must be dead.
+            for (Node<ScopedStatement> exiting : loop.getExitingNodes(graph)) {
+                for (Node<ScopedStatement> successor : graph.getSuccessors(exiting)) {
+                    if (!loop.contains(successor)
+                            && LoopUtil.isLiveInto(successor, basis, liveness)) {
+                        return;
+                    }
+                }
+            }
+
+            // The limit is copied into a temp first, since the family's expression might be
+            // from a scope where the limit's variable isn't visible.
+            NativeExpression limit = comparison.get().getRightArgument();
+            if (!(limit instanceof IntLiteral)) {
+                Variable limitTemp = newTemp();
+                preheaderStatements.add(new ScopedStatement(Assignment.compilerAssignment(
+                        new ScalarLocation(limitTemp, LocationDescriptor.machineCode()), limit),
+                        test.get().value().getScope()));
+                limit = new ScalarLocation(limitTemp, LocationDescriptor.machineCode());
+            }
+            Variable bound = newTemp();
+            preheaderStatements.add(new ScopedStatement(Assignment.compilerAssignment(
+                    new ScalarLocation(bound, LocationDescriptor.machineCode()),
+                    LoopUtil.substituted(family.get().expression, family.get().scope,
+                            ImmutableMap.of(basis, limit))),
+                    family.get().scope));
+
+            BinaryOperator operator = comparison.get().getOperator();
+            rewritten.put(test.get(), new Condition(new BinaryOperation(
+                    family.get().coefficient > 0 ? operator : LoopUtil.mirrored(operator),
+                    new ScalarLocation(family.get().temp, LocationDescriptor.machineCode()),
+                    new ScalarLocation(bound, LocationDescriptor.machineCode()),
+                    LocationDescriptor.machineCode())));
+            removed.addAll(steps.get(basis).keySet());
+        }
+
+        private Variable newTemp() {
+            Variable temp = Variable.forCompiler(
+                    TEMP_VAR_PREFIX + (firstTempNumber + tempVariables.size()));
+            tempVariables.add(temp);
+            return temp;
+        }
+    }
+
+    /**
+     * Returns whether a statement reads a scalar.
+     *
+     * <p>Unlike Util#dependencies, this works on statements that read temps that haven't been
+     * declared yet.
+     */
+    private static boolean reads(StaticStatement statement, Scope scope, ScopedVariable scalar) {
+        if (statement.hasExpression() && reads(statement.getExpression(), scope, scalar)) {
+            return true;
+        }
+        if (statement instanceof Assignment) {
+            Assignment assignment = (Assignment) statement;
+            return assignment.getOperation().isAbsolute()
+                    ? assignment.getLocation() instanceof ArrayLocation
+                            && reads(assignment.getLocation(), scope, scalar)
+                    : reads(assignment.getLocation(), scope, scalar);
+        }
+        return false;
+    }
+
+    private static boolean reads(GeneralExpression expr, Scope scope, ScopedVariable scalar) {
+        if (expr instanceof NativeExpression
+                && LoopUtil.isRead((NativeExpression) expr, scope, scalar)) {
+            return true;
+        }
+        for (GeneralExpression child : expr.getChildren()) {
+            if (reads(child, scope, scalar)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean containsMultiplication(NativeExpression expr) {
+        if (expr instanceof BinaryOperation) {
+            BinaryOperation operation = (BinaryOperation) expr;
+            return operation.getOperator() == BinaryOperator.TIMES
+                    || containsMultiplication(operation.getLeftArgument())
+                    || containsMultiplication(operation.getRightArgument());
+        } else if (expr instanceof UnaryOperation) {
+            return containsMultiplication(((UnaryOperation) expr).getArgument());
+        }
+        return false;
+    }
+
+    /** Get an assignment that adds a literal to a scalar. */
+    private static Assignment increment(Variable scalar, long amount) {
+        return new Assignment(new ScalarLocation(scalar, LocationDescriptor.machineCode()),
+                amount < 0 ? AssignmentOperation.MINUS_EQUALS : AssignmentOperation.PLUS_EQUALS,
+                new IntLiteral(Math.abs(amount)), LocationDescriptor.machineCode(), true);
+    }
+
+    /** Returns whether a value can be pushed as an immediate. */
+    private static boolean fitsInImmediate(long value) {
+        return Integer.MIN_VALUE <= value && value <= Integer.MAX_VALUE;
+    }
+}
@@ -0,0 +1,119 @@
+package edu.mit.compilers.optimization.loops;
+
+import java.util.Set;
+
+import com.google.common.base.Optional;
+
+import edu.mit.compilers.ast.BinaryOperation;
+import edu.mit.compilers.ast.IntLiteral;
+import edu.mit.compilers.ast.NativeExpression;
+import edu.mit.compilers.ast.ScalarLocation;
+import edu.mit.compilers.ast.Scope;
+import edu.mit.compilers.ast.UnaryOperation;
+import edu.mit.compilers.ast.UnaryOperator;
+import edu.mit.compilers.common.Variable;
+import edu.mit.compilers.optimization.ScopedVariable;
+
+/**
+ * An expression's coefficient in some basic induction variable.
+ *
+ * <p>A linear expression without any induction variable in it has no basis, and a zero
+ * coefficient.
+ */
+final class Linear {
+    private static final Linear INVARIANT = new Linear(Optional.<ScopedVariable>absent(), 0);
+
+    private final Optional<ScopedVariable> basis;
+    private final long coefficient;
+
+    private Linear(Optional<ScopedVariable> basis, long coefficient) {
+        this.basis = basis;
+        this.coefficient = coefficient;
+    }
+
+    /**
+     * Get an expression's coefficient in one of a loop's basic induction variables, if it's a
+     * linear function of that variable with the rest invariant.
+     *
+     * <p>Only addition, subtraction, negation, and multiplication by a literal are allowed,
+     * so evaluating one of these expressions early can never trap.
+     *
+     * @param bases The loop's basic induction variables.
+     */
+    public static Optional<Linear> of(NativeExpression expr, Scope scope,
+            Set<ScopedVariable> bases, LoopFacts facts) {
+        if (expr instanceof IntLiteral) {
+            return Optional.of(INVARIANT);
+        } else if (expr instanceof ScalarLocation) {
+            Variable variable = ((ScalarLocation) expr).getVariable();
+            ScopedVariable scalar =
+                    new ScopedVariable(variable, ScopedVariable.getScopeOf(variable, scope));
+            if (bases.contains(scalar)) {
+                return Optional.of(new Linear(Optional.of(scalar), 1));
+            } else if (facts.isInvariant(scalar)) {
+                return Optional.of(INVARIANT);
+            }
+            return Optional.absent();
+        } else if (expr instanceof UnaryOperation) {
+            UnaryOperation operation = (UnaryOperation) expr;
+            if (operation.getOperator() != UnaryOperator.NEGATIVE) {
+                return Optional.absent();
+            }
+            Optional<Linear> argument = of(operation.getArgument(), scope, bases, facts);
+            return argument.isPresent()
+                    ? Optional.of(argument.get().times(-1))
+                    : argument;
+        } else if (expr instanceof BinaryOperation) {
+            BinaryOperation operation = (BinaryOperation) expr;
+            Optional<Linear> left = of(operation.getLeftArgument(), scope, bases, facts);
+            Optional<Linear> right = of(operation.getRightArgument(), scope, bases, facts);
+            if (!left.isPresent() || !right.isPresent()) {
+                return Optional.absent();
+            }
+            switch (operation.getOperator()) {
+                case PLUS:
+                    return left.get().plus(right.get());
+                case MINUS:
+                    return left.get().plus(right.get().times(-1));
+                case TIMES:
+                    if (operation.getLeftArgument() instanceof IntLiteral) {
+                        return Optional.of(right.get().times(
+                                ((IntLiteral) operation.getLeftArgument()).get64BitValue()));
+                    } else if (operation.getRightArgument() instanceof IntLiteral) {
+                        return Optional.of(left.get().times(
+                                ((IntLiteral) operation.getRightArgument()).get64BitValue()));
+                    } else if (!left.get().basis.isPresent()
+                            && !right.get().basis.isPresent()) {
+                        return Optional.of(INVARIANT);
+                    }
+                    return Optional.absent();
+                default:
+                    return Optional.absent();
+            }
+        } else {
+            return Optional.absent();
+        }
+    }
+
+    /** Get the induction variable, if the expression depends on one. */
+    public Optional<ScopedVariable> getBasis() {
+        return basis;
+    }
+
+    public long getCoefficient() {
+        return coefficient;
+    }
+
+    private Linear times(long factor) {
+        return new Linear(basis, coefficient * factor);
+    }
+
+    /** Get the sum of two linear expressions, if they have the same basis. */
+    private Optional<Linear> plus(Linear other) {
+        if (basis.isPresent() && other.basis.isPresent()
+                && !basis.get().equals(other.basis.get())) {
+            return Optional.absent();
+        }
+        return Optional.of(new Linear(basis.or(other.basis), coefficient + other.coefficient));
+    }
+}
@@ -0,0 +1,158 @@
+package edu.mit.compilers.optimization.loops;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.Set;
+
+import com.google.common.base.Optional;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.ImmutableSetMultimap;
+import com.google.common.collect.Maps;
+import com.google.common.collect.SetMultimap;
+
+import edu.mit.compilers.ast.ArrayLocation;
+import edu.mit.compilers.ast.Assignment;
+import edu.mit.compilers.ast.BinaryOperation;
+import edu.mit.compilers.ast.BinaryOperator;
+import edu.mit.compilers.ast.IntLiteral;
+import edu.mit.compilers.ast.NativeExpression;
+import edu.mit.compilers.ast.Scope;
+import edu.mit.compilers.ast.StaticStatement;
+import edu.mit.compilers.codegen.dataflow.ScopedStatement;
+import edu.mit.compilers.graph.Node;
+import edu.mit.compilers.optimization.ScopedVariable;
+import edu.mit.compilers.optimization.Util;
+
+/** What the statements in one loop write, for deciding what stays the same in it. */
+final class LoopFacts {
+    private final boolean callsMethods;
+    /** The nodes in the loop that assign each scalar. */
+    private final SetMultimap<ScopedVariable, Node<ScopedStatement>> definitions;
+    private final Set<ScopedVariable> storedArrays;
+
+    private LoopFacts(boolean callsMethods,
+            SetMultimap<ScopedVariable, Node<ScopedStatement>> definitions,
+            Set<ScopedVariable> storedArrays) {
+        this.callsMethods = callsMethods;
+        this.definitions = definitions;
+        this.storedArrays = storedArrays;
+    }
+
+    public static LoopFacts of(NaturalLoop<ScopedStatement> loop) {
+        boolean callsMethods = false;
+        ImmutableSetMultimap.Builder<ScopedVariable, Node<ScopedStatement>> definitions =
+                ImmutableSetMultimap.builder();
+        ImmutableSet.Builder<ScopedVariable> storedArrays = ImmutableSet.builder();
+        for (Node<ScopedStatement> node : loop.getBody()) {
+            if (!node.hasValue()) {
+                continue;
+            }
+            StaticStatement statement = node.value().getStatement();
+            if (statement.hasExpression() && Util.containsMethodCall(statement.getExpression())) {
+                callsMethods = true;
+            }
+            if (statement instanceof Assignment) {
+                Assignment assignment = (Assignment) statement;
+                ScopedVariable assigned =
+                        ScopedVariable.getAssigned(assignment, node.value().getScope());
+                if (assignment.getLocation() instanceof ArrayLocation) {
+                    storedArrays.add(assigned);
+                } else {
+                    definitions.put(assigned, node);
+                }
+            }
+        }
+        return new LoopFacts(callsMethods, definitions.build(), storedArrays.build());
+    }
+
+    /** Returns whether anything in the loop calls a method, which might write any global. */
+    public boolean callsMethods() {
+        return callsMethods;
+    }
+
+    /** Get the scalars that the loop assigns to. */
+    public Set<ScopedVariable> getDefinedScalars() {
+        return definitions.keySet();
+    }
+
+    /** Get the nodes in the loop that assign to a scalar. */
+    public Collection<Node<ScopedStatement>> getDefinitions(ScopedVariable scalar) {
+        return definitions.get(scalar);
+    }
+
+    /**
+     * Get the literal that each of a scalar's assignments in the loop adds to it, if the
+     * scalar is a basic induction variable: a local whose assignments only ever add literals.
+     */
+    public Optional<Map<Node<ScopedStatement>, Long>> getSteps(ScopedVariable scalar) {
+        if (scalar.isGlobal() || !definitions.containsKey(scalar)) {
+            return Optional.absent();
+        }
+        Map<Node<ScopedStatement>, Long> steps = Maps.newLinkedHashMap();
+        for (Node<ScopedStatement> node : definitions.get(scalar)) {
+            Optional<Long> step = stepOf((Assignment) node.value().getStatement(),
+                    node.value().getScope(), scalar);
+            if (!step.isPresent()) {
+                return Optional.absent();
+            }
+            steps.put(node, step.get());
+        }
+        return Optional.of(steps);
+    }
+
+    /** Get the literal that an assignment adds to a scalar, if it only adds a literal. */
+    private static Optional<Long> stepOf(Assignment assignment, Scope scope,
+            ScopedVariable scalar) {
+        NativeExpression expr = assignment.getExpression();
+        switch (assignment.getOperation()) {
+            case PLUS_EQUALS:
+                return literalValue(expr);
+            case MINUS_EQUALS:
+                return negated(literalValue(expr));
+            case SET_EQUALS:
+                if (!(expr instanceof BinaryOperation)) {
+                    return Optional.absent();
+                }
+                BinaryOperation operation = (BinaryOperation) expr;
+                NativeExpression left = operation.getLeftArgument();
+                NativeExpression right = operation.getRightArgument();
+                if (operation.getOperator() == BinaryOperator.PLUS) {
+                    if (LoopUtil.isRead(left, scope, scalar)) {
+                        return literalValue(right);
+                    } else if (LoopUtil.isRead(right, scope, scalar)) {
+                        return literalValue(left);
+                    }
+                } else if (operation.getOperator() == BinaryOperator.MINUS
+                        && LoopUtil.isRead(left, scope, scalar)) {
+                    return negated(literalValue(right));
+                }
+                return Optional.absent();
+            default:
+                throw new AssertionError(
+                        "Unexpected assignment operation: " + assignment.getOperation());
+        }
+    }
+
+    private static Optional<Long> literalValue(NativeExpression expr) {
+        return expr instanceof IntLiteral
+                ? Optional.of(((IntLiteral) expr).get64BitValue())
+                : Optional.<Long>absent();
+    }
+
+    private static Optional<Long> negated(Optional<Long> value) {
+        return value.isPresent() ? Optional.of(-value.get()) : value;
+    }
+
+    /** Returns whether the loop stores into any element of an array. */
+    public boolean storesInto(ScopedVariable array) {
+        return storedArrays.contains(array);
+    }
+
+    /** Returns whether nothing in the loop can write to a scalar. */
+    public boolean isInvariant(ScopedVariable scalar) {
+        if (scalar.isGlobal() && callsMethods) {
+            return false;
+        }
+        return !definitions.containsKey(scalar);
+    }
+}
@@ -0,0 +1,399 @@
+package edu.mit.compilers.optimization.loops;
+
+import java.util.List;
+import java.util.Map;
+
+import com.google.common.base.Optional;
+import com.google.common.collect.HashBasedTable;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Table;
+
+import edu.mit.compilers.ast.ArrayLocation;
+import edu.mit.compilers.ast.Assignment;
+import edu.mit.compilers.ast.AssignmentOperation;
+import edu.mit.compilers.ast.BinaryOperation;
+import edu.mit.compilers.ast.BinaryOperator;
+import edu.mit.compilers.ast.GeneralExpression;
+import edu.mit.compilers.ast.IntLiteral;
+import edu.mit.compilers.ast.Location;
+import edu.mit.compilers.ast.LocationDescriptor;
+import edu.mit.compilers.ast.MethodCall;
+import edu.mit.compilers.ast.NativeExpression;
+import edu.mit.compilers.ast.NativeLiteral;
+import edu.mit.compilers.ast.ScalarLocation;
+import edu.mit.compilers.ast.Scope;
+import edu.mit.compilers.ast.StaticStatement;
+import edu.mit.compilers.ast.TernaryOperation;
+import edu.mit.compilers.ast.UnaryOperation;
+import edu.mit.compilers.ast.UnaryOperator;
+import edu.mit.compilers.codegen.DataFlowIntRep;
+import edu.mit.compilers.codegen.dataflow.ScopedStatement;
+import edu.mit.compilers.common.Variable;
+import edu.mit.compilers.graph.BcrFlowGraph;
+import edu.mit.compilers.graph.DominatorTree;
+import edu.mit.compilers.graph.Node;
+import edu.mit.compilers.optimization.DataFlowAnalyzer;
+import edu.mit.compilers.optimization.DataFlowOptimizer;
+import edu.mit.compilers.optimization.DataFlowSolution;
+import edu.mit.compilers.optimization.ScopedVariable;
+import edu.mit.compilers.optimization.Util;
+
+/**
+ * Loop-invariant code motion.
+ *
+ * <p>A computation is invariant in a loop if it gets the same value on every iteration, because
+ * nothing in the loop writes to its operands.  We move invariant computations into the loop's
+ * preheader, so they run once each time the loop is entered instead of once per iteration.  An
+ * assignment "x = e" moves as a whole when it is the only definition of x in the loop, x isn't
+ * live into the loop, and x isn't live out of any exit that the assignment might not have run
+ * before.  Otherwise, the largest invariant subexpressions of a statement are computed into
+ * temps.
+ *
+ * <p>The preheader runs even when the code we took from the loop wouldn't have, so we only move
+ * computations that can't trap, and never method calls.  Globals are only invariant in loops
+ * that don't call any methods.  Array elements are only invariant in loops that don't call any
+ * methods or store into the array, and only when their index is a literal in bounds.
+ *
+ * <p>We hoist out of one loop at a time, innermost first, and then look at the whole graph
+ * again.  Hoisting out of an inner loop can make code invariant in the loop around it, so we
+ * keep going until nothing moves.
+ */
+public class LoopInvariantCodeMotion implements DataFlowOptimizer {
+
+    private static final String TEMP_VAR_PREFIX = "licm_temp";
+
+    @Override
+    public DataFlowIntRep optimized(DataFlowIntRep ir) {
+        Hoister hoister = new Hoister(ir.getScope());
+        for (Optional<DataFlowIntRep> hoisted = hoister.hoistedOnce(ir);
+                hoisted.isPresent();
+                hoisted = hoister.hoistedOnce(ir)) {
+            ir = hoisted.get();
+        }
+        return ir;
+    }
+
+    /**
+     * Hoists code out of the loops of one method.
+     *
+     * <p>It numbers the temps, so that those made in later rounds don't shadow earlier ones.
+     */
+    private static final class Hoister {
+        private final Scope methodScope;
+        private int tempNumber = 0;
+
+        public Hoister(Scope methodScope) {
+            this.methodScope = methodScope;
+        }
+
+        /** Hoists out of the first loop that has anything to hoist, if there is one. */
+        public Optional<DataFlowIntRep> hoistedOnce(DataFlowIntRep ir) {
+            BcrFlowGraph<ScopedStatement> graph = ir.getDataFlowGraph();
+            LoopNestingForest<ScopedStatement> forest = LoopNestingForest.of(graph);
+            if (forest.getLoops().isEmpty()) {
+                return Optional.absent();
+            }
+            DominatorTree<ScopedStatement> dominators = DominatorTree.dominators(graph);
+            DataFlowSolution<ScopedStatement, ScopedVariable> liveness =
+                    DataFlowAnalyzer.LIVE_VARIABLES.solve(graph);
+
+            for (NaturalLoop<ScopedStatement> loop : forest.getLoops()) {
+                if (loop.getEntries(graph).isEmpty()) {
+                    // There's nowhere to put a preheader.
+                    continue;
+                }
+                LoopHoisting hoisting =
+                        new LoopHoisting(graph, loop, dominators, liveness, tempNumber);
+                if (hoisting.hasHoisted()) {
+                    tempNumber += hoisting.getTemps().size();
+                    return Optional.of(
+                            new DataFlowIntRep(hoisting.build(methodScope), methodScope));
+                }
+            }
+            return Optional.absent();
+        }
+    }
+
+    /** Finds what can be hoisted out of one loop, and hoists it. */
+    private static final class LoopHoisting {
+        private final BcrFlowGraph<ScopedStatement> graph;
+        private final NaturalLoop<ScopedStatement> loop;
+        private final DominatorTree<ScopedStatement> dominators;
+        private final DataFlowSolution<ScopedStatement, ScopedVariable> liveness;
+
+        private final LoopFacts facts;
+
+        /** The statements to put in the preheader, in order. */
+        private final List<ScopedStatement> hoisted = Lists.newArrayList();
+        /** The nodes whose whole statements were hoisted. */
+        private final List<Node<ScopedStatement>> removed = Lists.newArrayList();
+        /** The nodes that now read temps, and their new statements. */
+        private final Map<Node<ScopedStatement>, StaticStatement> rewritten =
+                Maps.newLinkedHashMap();
+        /** The temp that holds each hoisted expression, by the scope it was evaluated in. */
+        private final Table<Scope, NativeExpression, Variable> temps = HashBasedTable.create();
+        private final List<Variable> tempVariables = Lists.newArrayList();
+        private final int firstTempNumber;
+
+        public LoopHoisting(BcrFlowGraph<ScopedStatement> graph,
+                NaturalLoop<ScopedStatement> loop, DominatorTree<ScopedStatement> dominators,
+                DataFlowSolution<ScopedStatement, ScopedVariable> liveness, int firstTempNumber) {
+            this.graph = graph;
+            this.loop = loop;
+            this.dominators = dominators;
+            this.liveness = liveness;
+            this.firstTempNumber = firstTempNumber;
+            this.facts = LoopFacts.of(loop);
+
+            for (Node<ScopedStatement> node : loop.getBody()) {
+                if (!node.hasValue()) {
+                    continue;
+                }
+                if (isHoistableAssignment(node)) {
+                    hoisted.add(node.value());
+                    removed.add(node);
+                } else {
+                    StaticStatement statement = node.value().getStatement();
+                    StaticStatement replacement = withInvariantsHoisted(statement, node);
+                    if (!replacement.equals(statement)) {
+                        rewritten.put(node, replacement);
+                    }
+                }
+            }
+        }
+
+        public boolean hasHoisted() {
+            return !hoisted.isEmpty();
+        }
+
+        public List<Variable> getTemps() {
+            return tempVariables;
+        }
+
+        /** Build a copy of the graph, with the hoisted code moved into a new preheader. */
+        public BcrFlowGraph<ScopedStatement> build(Scope methodScope) {
+            // Temps live in a new scope just under the method scope, so every scope in the
+            // method has to be copied to sit under it.
+            Map<Scope, Scope> newScopes =
+                    LoopUtil.newScopes(graph, tempVariables, methodScope);
+
+            BcrFlowGraph.Builder<ScopedStatement> builder = BcrFlowGraph.builderOf(graph);
+            Node<ScopedStatement> previous = LoopUtil.insertPreheader(builder, graph, loop);
+            for (ScopedStatement statement : hoisted) {
+                Node<ScopedStatement> node = Node.of(new ScopedStatement(
+                        statement.getStatement(), newScopes.get(statement.getScope())));
+                builder.insertOnEdge(previous, loop.getHeader(), node);
+                previous = node;
+            }
+            for (Node<ScopedStatement> node : removed) {
+                builder.remove(node);
+            }
+            if (!tempVariables.isEmpty() || !rewritten.isEmpty()) {
+                for (Node<ScopedStatement> node : graph.getNodes()) {
+                    if (!node.hasValue() || removed.contains(node)) {
+                        continue;
+                    }
+                    StaticStatement statement = rewritten.containsKey(node)
+                            ? rewritten.get(node)
+                            : node.value().getStatement();
+                    builder.replace(node, Node.of(new ScopedStatement(
+                            statement, newScopes.get(node.value().getScope()))));
+                }
+            }
+            return builder.build();
+        }
+
+        /**
+         * Returns whether a node is an assignment that can move to the preheader whole.
+         *
+         * <p>That's when it sets a local scalar to an invariant value, and nothing else could
+         * tell that it ran earlier.  It must be the only assignment to the variable in the loop,
+         * the variable must not be live into the loop, and if it's live out of an exit, the
+         * assignment must have run before any exit there.
+         */
+        private boolean isHoistableAssignment(Node<ScopedStatement> node) {
+            StaticStatement statement = node.value().getStatement();
+            if (!(statement instanceof Assignment)) {
+                return false;
+            }
+            Assignment assignment = (Assignment) statement;
+            if (assignment.getOperation() != AssignmentOperation.SET_EQUALS
+                    || !(assignment.getLocation() instanceof ScalarLocation)) {
+                return false;
+            }
+            ScopedVariable assigned =
+                    ScopedVariable.getAssigned(assignment, node.value().getScope());
+            if (assigned.isGlobal() || facts.getDefinitions(assigned).size() != 1
+                    || !isInvariant(assignment.getExpression(), node)
+                    || LoopUtil.isLiveInto(loop.getHeader(), assigned, liveness)) {
+                return false;
+            }
+            for (Node<ScopedStatement> exiting : loop.getExitingNodes(graph)) {
+                if (dominators.dominates(node, exiting)) {
+                    continue;
+                }
+                for (Node<ScopedStatement> successor : graph.getSuccessors(exiting)) {
+                    if (!loop.contains(successor)
+                            && LoopUtil.isLiveInto(successor, assigned, liveness)) {
+                        return false;
+                    }
+                }
+            }
+            return true;
+        }
+
+        /** Get a copy of a statement, with its largest invariant subexpressions in temps. */
+        private StaticStatement withInvariantsHoisted(StaticStatement statement,
+                Node<ScopedStatement> node) {
+            if (!statement.hasExpression()) {
+                return statement;
+            }
+            StaticStatement replacement = Util.getReplacement(
+                    statement, withInvariantsHoisted(statement.getExpression(), node));
+            if (replacement instanceof Assignment) {
+                Assignment assignment = (Assignment) replacement;
+                if (assignment.getLocation() instanceof ArrayLocation) {
+                    Location location = withInvariantsHoisted(
+                            (ArrayLocation) assignment.getLocation(), node);
+                    replacement = new Assignment(location, assignment.getOperation(),
+                            assignment.getExpression(), assignment.getLocationDescriptor(),
+                            assignment.getFromCompiler());
+                }
+            }
+            return replacement;
+        }
+
+        /** Get a copy of an expression, with its largest invariant subexpressions in temps. */
+        private NativeExpression withInvariantsHoisted(NativeExpression expr,
+                Node<ScopedStatement> node) {
+            if (isWorthHoisting(expr) && isInvariant(expr, node)) {
+                return tempFor(expr, node.value().getScope());
+            }
+            if (expr instanceof BinaryOperation) {
+                BinaryOperation operation = (BinaryOperation) expr;
+                return new BinaryOperation(operation.getOperator(),
+                        withInvariantsHoisted(operation.getLeftArgument(), node),
+                        withInvariantsHoisted(operation.getRightArgument(), node),
+                        operation.getLocationDescriptor());
+            } else if (expr instanceof UnaryOperation) {
+                UnaryOperation operation = (UnaryOperation) expr;
+                return new UnaryOperation(operation.getOperator(),
+                        withInvariantsHoisted(operation.getArgument(), node),
+                        operation.getLocationDescriptor());
+            } else if (expr instanceof TernaryOperation) {
+                TernaryOperation operation = (TernaryOperation) expr;
+                return new TernaryOperation(
+                        withInvariantsHoisted(operation.getCondition(), node),
+                        withInvariantsHoisted(operation.getTrueResult(), node),
+                        withInvariantsHoisted(operation.getFalseResult(), node),
+                        operation.getLocationDescriptor());
+            } else if (expr instanceof ArrayLocation) {
+                return withInvariantsHoisted((ArrayLocation) expr, node);
+            } else if (expr instanceof MethodCall) {
+                MethodCall call = (MethodCall) expr;
+                List<GeneralExpression> parameters = Lists.newArrayList();
+                for (GeneralExpression parameter : call.getParameterValues()) {
+                    parameters.add(parameter instanceof NativeExpression
+                            ? withInvariantsHoisted((NativeExpression) parameter, node)
+                            : parameter);
+                }
+                return new MethodCall(call.getMethodName(), parameters,
+                        call.getLocationDescriptor());
+            } else {
+                return expr;
+            }
+        }
+
+        private ArrayLocation withInvariantsHoisted(ArrayLocation location,
+                Node<ScopedStatement> node) {
+            return location.withIndex(withInvariantsHoisted(location.getIndex(), node));
+        }
+
+        /**
+         * Get the temp that holds an expression, and schedule the temp to be filled in the
+         * preheader if it isn't already.
+         */
+        private ScalarLocation tempFor(NativeExpression expr, Scope scope) {
+            Variable temp = temps.get(scope, expr);
+            if (temp == null) {
+                temp = Variable.forCompiler(
+                        TEMP_VAR_PREFIX + (firstTempNumber + tempVariables.size()));
+                temps.put(scope, expr, temp);
+                tempVariables.add(temp);
+                // The expression is evaluated in its original scope, so its variables still
+                // resolve to the same locations.
+                hoisted.add(new ScopedStatement(Assignment.compilerAssignment(
+                        new ScalarLocation(temp, LocationDescriptor.machineCode()), expr),
+                        scope));
+            }
+            return new ScalarLocation(temp, LocationDescriptor.machineCode());
+        }
+
+        /** Returns whether an expression takes enough work that it's worth a temp. */
+        private static boolean isWorthHoisting(NativeExpression expr) {
+            return expr instanceof BinaryOperation
+                    || expr instanceof TernaryOperation
+                    || (expr instanceof UnaryOperation
+                            && ((UnaryOperation) expr).getOperator()
+                                    != UnaryOperator.ARRAY_LENGTH);
+        }
+
+        /**
+         * Returns whether an expression has the same value every time it's evaluated in the
+         * loop, and can be evaluated in the preheader without trapping.
+         */
+        private boolean isInvariant(NativeExpression expr, Node<ScopedStatement> node) {
+            Scope scope = node.value().getScope();
+            if (expr instanceof NativeLiteral) {
+                return true;
+            } else if (expr instanceof ScalarLocation) {
+                Variable variable = ((ScalarLocation) expr).getVariable();
+                return facts.isInvariant(
+                        new ScopedVariable(variable, ScopedVariable.getScopeOf(variable, scope)));
+            } else if (expr instanceof ArrayLocation) {
+                ArrayLocation location = (ArrayLocation) expr;
+                Variable variable = location.getVariable();
+                ScopedVariable array =
+                        new ScopedVariable(variable, ScopedVariable.getScopeOf(variable, scope));
+                if (facts.callsMethods() || facts.storesInto(array)
+                        || !(location.getIndex() instanceof IntLiteral)) {
+                    return false;
+                }
+                // An out-of-bounds read would trap, so only literal, in-bounds indices are safe.
+                long index = ((IntLiteral) location.getIndex()).get64BitValue();
+                long length = array.getScope().getDescriptor(variable).getLength().get()
+                        .get64BitValue();
+                return 0 <= index && index < length;
+            } else if (expr instanceof UnaryOperation) {
+                UnaryOperation operation = (UnaryOperation) expr;
+                // An array's length never changes.
+                return operation.getOperator() == UnaryOperator.ARRAY_LENGTH
+                        || isInvariant(operation.getArgument(), node);
+            } else if (expr instanceof BinaryOperation) {
+                BinaryOperation operation = (BinaryOperation) expr;
+                if (operation.getOperator() == BinaryOperator.DIVIDED_BY
+                        || operation.getOperator() == BinaryOperator.MODULO) {
+                    // idiv traps on a zero divisor, and on MIN_VALUE / -1.
+                    if (!(operation.getRightArgument() instanceof NativeLiteral)) {
+                        return false;
+                    }
+                    long divisor = ((NativeLiteral) operation.getRightArgument()).get64BitValue();
+                    if (divisor == 0 || divisor == -1) {
+                        return false;
+                    }
+                }
+                return isInvariant(operation.getLeftArgument(), node)
+                        && isInvariant(operation.getRightArgument(), node);
+            } else if (expr instanceof TernaryOperation) {
+                TernaryOperation operation = (TernaryOperation) expr;
+                return isInvariant(operation.getCondition(), node)
+                        && isInvariant(operation.getTrueResult(), node)
+                        && isInvariant(operation.getFalseResult(), node);
+            } else {
+                // Method calls may have side effects, or return something new each time.
+                return false;
+            }
+        }
+    }
+}
@@ -0,0 +1,158 @@
+package edu.mit.compilers.optimization.loops;
+
+import java.util.ArrayDeque;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import com.google.common.base.Optional;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableListMultimap;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.LinkedHashMultimap;
+import com.google.common.collect.ListMultimap;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Multimap;
+
+import edu.mit.compilers.graph.DominatorTree;
+import edu.mit.compilers.graph.FlowGraph;
+import edu.mit.compilers.graph.Node;
+
+/**
+ * The natural loops of a flow graph, and how they nest.
+ *
+ * <p>An edge from n to h is a back edge if h dominates n.  Each header gets one loop, made of
+ * all its back edges together, so two natural loops are always either disjoint or nested.  A
+ * loop's parent is the smallest loop that contains it.
+ *
+ * <p>Unreachable nodes are never in any loop.
+ */
+public final class LoopNestingForest<T> {
+    private final List<NaturalLoop<T>> loops;
+    private final Map<NaturalLoop<T>, NaturalLoop<T>> parents;
+    private final ListMultimap<NaturalLoop<T>, NaturalLoop<T>> children;
+
+    private LoopNestingForest(List<NaturalLoop<T>> loops,
+            Map<NaturalLoop<T>, NaturalLoop<T>> parents) {
+        this.loops = ImmutableList.copyOf(loops);
+        this.parents = ImmutableMap.copyOf(parents);
+        ImmutableListMultimap.Builder<NaturalLoop<T>, NaturalLoop<T>> children =
+                ImmutableListMultimap.builder();
+        for (NaturalLoop<T> loop : loops) {
+            if (parents.containsKey(loop)) {
+                children.put(parents.get(loop), loop);
+            }
+        }
+        this.children = children.build();
+    }
+
+    /** Find the loops of a flow graph. */
+    public static <T> LoopNestingForest<T> of(FlowGraph<T> graph) {
+        DominatorTree<T> dominators = DominatorTree.dominators(graph);
+
+        // Iterating over the graph's nodes, rather than over some hash set, keeps the order of
+        // the loops stable from one compilation to the next.
+        Multimap<Node<T>, Node<T>> latchesByHeader = LinkedHashMultimap.create();
+        for (Node<T> node : graph.getNodes()) {
+            if (!dominators.contains(node)) {
+                continue;
+            }
+            for (Node<T> successor : graph.getSuccessors(node)) {
+                if (dominators.dominates(successor, node)) {
+                    latchesByHeader.put(successor, node);
+                }
+            }
+        }
+
+        List<NaturalLoop<T>> loops = Lists.newArrayList();
+        for (Node<T> header : latchesByHeader.keySet()) {
+            loops.add(naturalLoop(graph, dominators, header, latchesByHeader.get(header)));
+        }
+
+        // A loop nested in another is strictly smaller, so sorting by size puts inner loops
+        // first, and makes the first later loop that contains a header its parent.
+        Collections.sort(loops, new Comparator<NaturalLoop<T>>() {
+            @Override
+            public int compare(NaturalLoop<T> first, NaturalLoop<T> second) {
+                return Integer.compare(first.getBody().size(), second.getBody().size());
+            }
+        });
+        Map<NaturalLoop<T>, NaturalLoop<T>> parents =
+                new LinkedHashMap<NaturalLoop<T>, NaturalLoop<T>>();
+        for (int i = 0; i < loops.size(); i++) {
+            NaturalLoop<T> loop = loops.get(i);
+            for (NaturalLoop<T> candidate : loops.subList(i + 1, loops.size())) {
+                if (candidate.contains(loop.getHeader())) {
+                    parents.put(loop, candidate);
+                    break;
+                }
+            }
+        }
+        return new LoopNestingForest<T>(loops, parents);
+    }
+
+    /** Collect the nodes that reach a header's latches without passing through the header. */
+    private static <T> NaturalLoop<T> naturalLoop(FlowGraph<T> graph,
+            DominatorTree<T> dominators, Node<T> header, Iterable<Node<T>> latches) {
+        Set<Node<T>> body = new LinkedHashSet<Node<T>>();
+        body.add(header);
+        Deque<Node<T>> worklist = new ArrayDeque<Node<T>>();
+        for (Node<T> latch : latches) {
+            worklist.push(latch);
+        }
+        while (!worklist.isEmpty()) {
+            Node<T> node = worklist.pop();
+            if (!body.add(node)) {
+                continue;
+            }
+            for (Node<T> predecessor : graph.getPredecessors(node)) {
+                if (dominators.contains(predecessor)) {
+                    worklist.push(predecessor);
+                }
+            }
+        }
+        return new NaturalLoop<T>(header, body, ImmutableSet.copyOf(latches));
+    }
+
+    /** Get every loop, with each loop before any loop that contains it. */
+    public List<NaturalLoop<T>> getLoops() {
+        return loops;
+    }
+
+    /** Get the smallest loop that contains a loop, if there is one. */
+    public Optional<NaturalLoop<T>> getParent(NaturalLoop<T> loop) {
+        return Optional.fromNullable(parents.get(loop));
+    }
+
+    /** Get the loops whose parent is 'loop'. */
+    public List<NaturalLoop<T>> getChildren(NaturalLoop<T> loop) {
+        return children.get(loop);
+    }
+
+    /** Get the smallest loop that contains a node, if there is one. */
+    public Optional<NaturalLoop<T>> getInnermostLoop(Node<T> node) {
+        for (NaturalLoop<T> loop : loops) {
+            if (loop.contains(node)) {
+                return Optional.of(loop);
+            }
+        }
+        return Optional.absent();
+    }
+
+    /** Get the number of loops that contain a node. */
+    public int getDepth(Node<T> node) {
+        int depth = 0;
+        for (Optional<NaturalLoop<T>> loop = getInnermostLoop(node);
+                loop.isPresent();
+                loop = getParent(loop.get())) {
+            depth++;
+        }
+        return depth;
+    }
+}
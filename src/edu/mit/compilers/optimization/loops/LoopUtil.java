@@ -0,0 +1,179 @@
+package edu.mit.compilers.optimization.loops;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.Set;
+
+import com.google.common.base.Functions;
+import com.google.common.base.Optional;
+import com.google.common.collect.Maps;
+
+import edu.mit.compilers.ast.BinaryOperation;
+import edu.mit.compilers.ast.BinaryOperator;
+import edu.mit.compilers.ast.Condition;
+import edu.mit.compilers.ast.IntLiteral;
+import edu.mit.compilers.ast.NativeExpression;
+import edu.mit.compilers.ast.ScalarLocation;
+import edu.mit.compilers.ast.Scope;
+import edu.mit.compilers.ast.UnaryOperation;
+import edu.mit.compilers.codegen.dataflow.ScopedStatement;
+import edu.mit.compilers.common.Variable;
+import edu.mit.compilers.graph.BcrFlowGraph;
+import edu.mit.compilers.graph.FlowGraph;
+import edu.mit.compilers.graph.Node;
+import edu.mit.compilers.optimization.DataFlowSolution;
+import edu.mit.compilers.optimization.ScopedVariable;
+import edu.mit.compilers.optimization.Util;
+
+public class LoopUtil {
+    private LoopUtil() {}
+
+    /**
+     * Inserts a preheader for a loop, and returns it.
+     *
+     * <p>The preheader is a new NOP that every entry into the loop passes through, and that the
+     * loop's back edges skip.  Code put just after it runs once each time the loop is entered,
+     * before the header.
+     *
+     * @param builder A builder of 'graph', to insert the preheader with.
+     */
+    public static <T> Node<T> insertPreheader(BcrFlowGraph.Builder<T> builder,
+            FlowGraph<T> graph, NaturalLoop<T> loop) {
+        Set<Node<T>> entries = loop.getEntries(graph);
+        checkArgument(!entries.isEmpty(), "Loop %s cannot be entered.", loop);
+        Node<T> preheader = Node.nop();
+        builder.insertOnEdges(entries, loop.getHeader(), preheader);
+        return preheader;
+    }
+
+    /**
+     * Returns whether a variable is live just before a node runs.
+     *
+     * @param liveness The solution of LIVE_VARIABLES for the node's graph.
+     */
+    static boolean isLiveInto(Node<ScopedStatement> node, ScopedVariable variable,
+            DataFlowSolution<ScopedStatement, ScopedVariable> liveness) {
+        if (node.hasValue()) {
+            if (Util.dependencies(node.value()).contains(variable)) {
+                return true;
+            }
+            if (Util.getRedefinedVariables(node).contains(variable)) {
+                return false;
+            }
+        }
+        // For a backwards analysis, the inputs are what's live after the node.
+        return liveness.getInputs(node).contains(variable);
+    }
+
+    /**
+     * Maps each scope in a method's graph to the scope its nodes should have once some temps
+     * are declared.  See Util#augmentedScopes.
+     *
+     * <p>If there are no temps, every scope maps to itself.
+     */
+    static Map<Scope, Scope> newScopes(FlowGraph<ScopedStatement> graph,
+            Collection<Variable> temps, Scope methodScope) {
+        Set<Scope> scopes = Util.reachableScopes(graph.getNodes());
+        return temps.isEmpty()
+                ? Maps.asMap(scopes, Functions.<Scope>identity())
+                : Util.augmentedScopes(Util.scopeTree(scopes), temps, methodScope);
+    }
+
+    /** Returns whether an expression is exactly a read of some scalar. */
+    static boolean isRead(NativeExpression expr, Scope scope, ScopedVariable scalar) {
+        if (!(expr instanceof ScalarLocation)) {
+            return false;
+        }
+        Variable variable = ((ScalarLocation) expr).getVariable();
+        return variable.equals(scalar.getVariable())
+                && ScopedVariable.getScopeOf(variable, scope).equals(scalar.getScope());
+    }
+
+    /** Get a copy of a linear expression, with every read of some scalars replaced. */
+    static NativeExpression substituted(NativeExpression expr, Scope scope,
+            Map<ScopedVariable, ? extends NativeExpression> replacements) {
+        for (Map.Entry<ScopedVariable, ? extends NativeExpression> replacement
+                : replacements.entrySet()) {
+            if (isRead(expr, scope, replacement.getKey())) {
+                return replacement.getValue();
+            }
+        }
+        if (expr instanceof BinaryOperation) {
+            BinaryOperation operation = (BinaryOperation) expr;
+            return new BinaryOperation(operation.getOperator(),
+                    substituted(operation.getLeftArgument(), scope, replacements),
+                    substituted(operation.getRightArgument(), scope, replacements),
+                    operation.getLocationDescriptor());
+        } else if (expr instanceof UnaryOperation) {
+            UnaryOperation operation = (UnaryOperation) expr;
+            return new UnaryOperation(operation.getOperator(),
+                    substituted(operation.getArgument(), scope, replacements),
+                    operation.getLocationDescriptor());
+        } else {
+            return expr;
+        }
+    }
+
+    /**
+     * Get a condition as "i < n", where i is a basic induction variable and n is a literal or
+     * an invariant scalar, if it is an ordering comparison of that form, in either order.
+     */
+    static Optional<BinaryOperation> normalizedComparison(ScopedStatement scopedStatement,
+            ScopedVariable basis, LoopFacts facts) {
+        if (!(scopedStatement.getStatement() instanceof Condition)
+                || !(scopedStatement.getStatement().getExpression()
+                        instanceof BinaryOperation)) {
+            return Optional.absent();
+        }
+        Scope scope = scopedStatement.getScope();
+        BinaryOperation comparison =
+                (BinaryOperation) scopedStatement.getStatement().getExpression();
+        BinaryOperator operator = comparison.getOperator();
+        if (operator != BinaryOperator.LESS_THAN
+                && operator != BinaryOperator.LESS_THAN_OR_EQUAL
+                && operator != BinaryOperator.GREATER_THAN
+                && operator != BinaryOperator.GREATER_THAN_OR_EQUAL) {
+            return Optional.absent();
+        }
+        NativeExpression left = comparison.getLeftArgument();
+        NativeExpression right = comparison.getRightArgument();
+        if (!isRead(left, scope, basis)) {
+            NativeExpression swap = left;
+            left = right;
+            right = swap;
+            operator = mirrored(operator);
+        }
+        if (!isRead(left, scope, basis)) {
+            return Optional.absent();
+        }
+        if (right instanceof ScalarLocation) {
+            Variable variable = ((ScalarLocation) right).getVariable();
+            if (!facts.isInvariant(new ScopedVariable(
+                    variable, ScopedVariable.getScopeOf(variable, scope)))) {
+                return Optional.absent();
+            }
+        } else if (!(right instanceof IntLiteral)) {
+            return Optional.absent();
+        }
+        return Optional.of(new BinaryOperation(operator, left, right,
+                comparison.getLocationDescriptor()));
+    }
+
+    /** Get the operator that means the same thing with its arguments swapped. */
+    static BinaryOperator mirrored(BinaryOperator operator) {
+        switch (operator) {
+            case LESS_THAN:
+                return BinaryOperator.GREATER_THAN;
+            case LESS_THAN_OR_EQUAL:
+                return BinaryOperator.GREATER_THAN_OR_EQUAL;
+            case GREATER_THAN:
+                return BinaryOperator.LESS_THAN;
+            case GREATER_THAN_OR_EQUAL:
+                return BinaryOperator.LESS_THAN_OR_EQUAL;
+            default:
+                throw new AssertionError("Unexpected comparison: " + operator);
+        }
+    }
+}
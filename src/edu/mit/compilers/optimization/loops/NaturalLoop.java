@@ -0,0 +1,73 @@
+package edu.mit.compilers.optimization.loops;
+
+import java.util.Set;
+
+import com.google.common.collect.ImmutableSet;
+
+import edu.mit.compilers.graph.FlowGraph;
+import edu.mit.compilers.graph.Node;
+
+/**
+ * A natural loop: a header, and the nodes that can reach one of the header's back edges without
+ * passing through the header.
+ *
+ * <p>The header dominates every node in the loop, so control can only enter the loop through
+ * it.  A latch is a node in the loop with an edge back to the header.
+ */
+public final class NaturalLoop<T> {
+    private final Node<T> header;
+    private final Set<Node<T>> body;
+    private final Set<Node<T>> latches;
+
+    NaturalLoop(Node<T> header, Set<Node<T>> body, Set<Node<T>> latches) {
+        this.header = header;
+        this.body = ImmutableSet.copyOf(body);
+        this.latches = ImmutableSet.copyOf(latches);
+    }
+
+    public Node<T> getHeader() {
+        return header;
+    }
+
+    /** Get every node in the loop, including the header. */
+    public Set<Node<T>> getBody() {
+        return body;
+    }
+
+    public Set<Node<T>> getLatches() {
+        return latches;
+    }
+
+    public boolean contains(Node<T> node) {
+        return body.contains(node);
+    }
+
+    /** Get the header's predecessors from outside the loop. */
+    public Set<Node<T>> getEntries(FlowGraph<T> graph) {
+        ImmutableSet.Builder<Node<T>> entries = ImmutableSet.builder();
+        for (Node<T> predecessor : graph.getPredecessors(header)) {
+            if (!contains(predecessor)) {
+                entries.add(predecessor);
+            }
+        }
+        return entries.build();
+    }
+
+    /** Get the nodes in the loop that have a successor outside of it. */
+    public Set<Node<T>> getExitingNodes(FlowGraph<T> graph) {
+        ImmutableSet.Builder<Node<T>> exiting = ImmutableSet.builder();
+        for (Node<T> node : body) {
+            for (Node<T> successor : graph.getSuccessors(node)) {
+                if (!contains(successor)) {
+                    exiting.add(node);
+                }
+            }
+        }
+        return exiting.build();
+    }
+
+    @Override
+    public String toString() {
+        return "NaturalLoop[header=" + header + ", size=" + body.size() + "]";
+    }
+}
@@ -0,0 +1,340 @@
+package edu.mit.compilers.optimization.parallel;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import com.google.common.base.Optional;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
+
+import edu.mit.compilers.ast.ArrayLocation;
+import edu.mit.compilers.ast.Assignment;
+import edu.mit.compilers.ast.AssignmentOperation;
+import edu.mit.compilers.ast.BaseType;
+import edu.mit.compilers.ast.BinaryOperation;
+import edu.mit.compilers.ast.BinaryOperator;
+import edu.mit.compilers.ast.Block;
+import edu.mit.compilers.ast.Callout;
+import edu.mit.compilers.ast.FieldDescriptor;
+import edu.mit.compilers.ast.ForLoop;
+import edu.mit.compilers.ast.GeneralExpression;
+import edu.mit.compilers.ast.IfStatement;
+import edu.mit.compilers.ast.IntLiteral;
+import edu.mit.compilers.ast.LocationDescriptor;
+import edu.mit.compilers.ast.Method;
+import edu.mit.compilers.ast.MethodAddress;
+import edu.mit.compilers.ast.MethodCall;
+import edu.mit.compilers.ast.NativeExpression;
+import edu.mit.compilers.ast.ParameterScope;
+import edu.mit.compilers.ast.Program;
+import edu.mit.compilers.ast.ReturnType;
+import edu.mit.compilers.ast.ScalarLocation;
+import edu.mit.compilers.ast.Scope;
+import edu.mit.compilers.ast.Statement;
+import edu.mit.compilers.ast.TernaryOperation;
+import edu.mit.compilers.ast.WhileLoop;
+import edu.mit.compilers.common.Variable;
+import edu.mit.compilers.optimization.ProgramOptimizer;
+import edu.mit.compilers.optimization.ScopedVariable;
+
+/**
+ * Runs loops whose iterations are independent on several threads.
+ *
+ * <p>Each such loop's body is moved into a new worker method, which runs one contiguous
+ * chunk of the iterations, picked by the thread id that lib6035 passes it.  The loop itself is
+ * replaced with a call to create_and_run_threads.  Workers can't see their caller's stack, so
+ * the loop's bounds, the locals it reads, and each thread's share of every sum it accumulates
+ * are passed through new globals.  Neither the loop's bounds nor its body may call a method,
+ * so nothing can reenter the loop, and overwrite those globals, while they are in use.
+ *
+ * <p>Only the outermost parallel loop of a nest is parallelized.
+ */
+public class LoopParallelizer implements ProgramOptimizer {
+    private static final int NUM_THREADS = 4;
+    private static final String SET_NUM_THREADS = "set_num_threads";
+    private static final String CREATE_AND_RUN_THREADS = "create_and_run_threads";
+
+    @Override
+    public Program optimized(Program program) {
+        List<FieldDescriptor> newGlobals = Lists.newArrayList();
+        ImmutableList.Builder<Method> methods = ImmutableList.builder();
+        boolean changed = false;
+        for (Method method : program.getMethods()) {
+            MethodRewriter rewriter = new MethodRewriter(method, program.getGlobals(), newGlobals);
+            Block body = rewriter.rewritten(method.getBlock());
+            if (rewriter.workers.isEmpty()) {
+                methods.add(method);
+                continue;
+            }
+            changed = true;
+            methods.add(new Method(method.getName(), method.getReturnType(),
+                    method.getParameters(), body, method.getLocationDescriptor()));
+            methods.addAll(rewriter.workers);
+        }
+        if (!changed) {
+            return program;
+        }
+
+        // Only add the globals once every loop has been analyzed, because they change the
+        // global scope's hash code.
+        for (FieldDescriptor global : newGlobals) {
+            program.getGlobals().addVariable(global);
+        }
+        return new Program(withThreadCallouts(program.getCallouts().getChildren()),
+                program.getGlobals(), methods.build(), program.getLocationDescriptor());
+    }
+
+    private static List<Callout> withThreadCallouts(Iterable<Callout> callouts) {
+        Set<String> names = Sets.newHashSet();
+        for (Callout callout : callouts) {
+            names.add(callout.getName());
+        }
+        ImmutableList.Builder<Callout> withThreads =
+                ImmutableList.<Callout>builder().addAll(callouts);
+        for (String name : ImmutableList.of(SET_NUM_THREADS, CREATE_AND_RUN_THREADS)) {
+            if (!names.contains(name)) {
+                withThreads.add(new Callout(name, LocationDescriptor.machineCode()));
+            }
+        }
+        return withThreads.build();
+    }
+
+    /** Rewrites one method, collecting the workers that its parallel loops turn into. */
+    private static class MethodRewriter {
+        private final Method method;
+        private final Scope globals;
+        private final List<FieldDescriptor> newGlobals;
+        private final List<Method> workers = Lists.newArrayList();
+
+        private MethodRewriter(Method method, Scope globals, List<FieldDescriptor> newGlobals) {
+            this.method = method;
+            this.globals = globals;
+            this.newGlobals = newGlobals;
+        }
+
+        /** Get a copy of a block, in which parallel loops are replaced.  It keeps its scope. */
+        private Block rewritten(Block block) {
+            ImmutableList.Builder<Statement> statements = ImmutableList.builder();
+            for (Statement statement : block.getStatements()) {
+                statements.addAll(rewritten(statement, block.getScope()));
+            }
+            return new Block(null, block.getScope(), statements.build(),
+                    block.getLocationDescriptor());
+        }
+
+        private List<Statement> rewritten(Statement statement, Scope scope) {
+            if (statement instanceof ForLoop) {
+                ForLoop forLoop = (ForLoop) statement;
+                Optional<ParallelLoop> parallel =
+                        ParallelLoop.of(forLoop, scope, method.getBlock());
+                if (parallel.isPresent()) {
+                    return parallelized(parallel.get());
+                }
+                return ImmutableList.<Statement>of(new ForLoop(forLoop.getLoopVariable(),
+                        forLoop.getRangeStart(), forLoop.getRangeEnd(),
+                        rewritten(forLoop.getBody()), forLoop.getLocationDescriptor()));
+            } else if (statement instanceof IfStatement) {
+                IfStatement ifStatement = (IfStatement) statement;
+                Block thenBlock = rewritten(ifStatement.getThenBlock());
+                return ImmutableList.<Statement>of(ifStatement.getElseBlock().isPresent()
+                        ? IfStatement.ifThenElse(ifStatement.getCondition(), thenBlock,
+                                rewritten(ifStatement.getElseBlock().get()),
+                                ifStatement.getLocationDescriptor())
+                        : IfStatement.ifThen(ifStatement.getCondition(), thenBlock,
+                                ifStatement.getLocationDescriptor()));
+            } else if (statement instanceof WhileLoop) {
+                WhileLoop whileLoop = (WhileLoop) statement;
+                Block body = rewritten(whileLoop.getBody());
+                return ImmutableList.<Statement>of(whileLoop.getMaxRepetitions().isPresent()
+                        ? WhileLoop.limited(whileLoop.getCondition(),
+                                whileLoop.getMaxRepetitions().get(), body,
+                                whileLoop.getLocationDescriptor())
+                        : WhileLoop.simple(whileLoop.getCondition(), body,
+                                whileLoop.getLocationDescriptor()));
+            }
+            return ImmutableList.of(statement);
+        }
+
+        /** Get the statements that run a loop on the worker threads, and make the worker. */
+        private List<Statement> parallelized(ParallelLoop parallel) {
+            ForLoop loop = parallel.getLoop();
+            Scope scope = parallel.getScope();
+            ScalarLocation index = loop.getLoopVariable();
+            String loopName = method.getName() + "_loop" + workers.size();
+            String workerName = Variable.forCompiler(loopName).generateName();
+            ScalarLocation start = scalar(newGlobal(loopName + "_start"));
+            ScalarLocation end = scalar(newGlobal(loopName + "_end"));
+            Scope spawnScope = parallel.getGuard().isPresent()
+                    ? new Scope(ImmutableList.<FieldDescriptor>of(), scope)
+                    : scope;
+
+            Map<ScopedVariable, Variable> sharedCopies = Maps.newLinkedHashMap();
+            Map<ScopedVariable, Variable> partialSums = Maps.newLinkedHashMap();
+            List<Statement> spawn = Lists.newArrayList();
+            for (ScopedVariable shared : parallel.getShared()) {
+                FieldDescriptor descriptor = descriptorOf(shared);
+                Variable copy = newGlobal(loopName + "_" + shared.getVariable(),
+                        descriptor.getLength(), descriptor.getType());
+                sharedCopies.put(shared, copy);
+                spawn.add(copied(shared.getVariable(), copy, descriptor, index, spawnScope));
+            }
+            spawn.add(new MethodCall(SET_NUM_THREADS,
+                    ImmutableList.<GeneralExpression>of(new IntLiteral((long) NUM_THREADS))));
+            spawn.add(new MethodCall(CREATE_AND_RUN_THREADS,
+                    ImmutableList.<GeneralExpression>of(new MethodAddress(workerName))));
+            for (ScopedVariable reduction : parallel.getReductions()) {
+                Variable partials = newGlobal(loopName + "_" + reduction.getVariable(),
+                        Optional.of(new IntLiteral((long) NUM_THREADS)), BaseType.INTEGER);
+                partialSums.put(reduction, partials);
+                spawn.add(ParallelUtil.forLoop(index, new IntLiteral(0L),
+                        new IntLiteral((long) NUM_THREADS),
+                        ImmutableList.of(new Assignment(scalar(reduction.getVariable()),
+                                AssignmentOperation.PLUS_EQUALS, element(partials, index),
+                                LocationDescriptor.machineCode())),
+                        spawnScope));
+            }
+            // The loop leaves its variable at the larger of its bounds.
+            spawn.add(Assignment.compilerAssignment(index, new TernaryOperation(
+                    new BinaryOperation(BinaryOperator.LESS_THAN, start, end), end, start)));
+
+            workers.add(worker(workerName, parallel, start, end, sharedCopies, partialSums));
+
+            ImmutableList.Builder<Statement> statements = ImmutableList.builder();
+            statements.add(Assignment.compilerAssignment(start, loop.getRangeStart()));
+            statements.add(Assignment.compilerAssignment(end, loop.getRangeEnd()));
+            if (parallel.getGuard().isPresent()) {
+                Scope sequentialScope = new Scope(ImmutableList.<FieldDescriptor>of(), scope);
+                Block sequential = new Block(null, sequentialScope,
+                        ImmutableList.<Statement>of(new ForLoop(index, start, end,
+                                ParallelUtil.copyOf(loop.getBody(), sequentialScope),
+                                loop.getLocationDescriptor())),
+                        LocationDescriptor.machineCode());
+                statements.add(IfStatement.ifThenElse(parallel.getGuard().get(),
+                        new Block(null, spawnScope, ImmutableList.copyOf(spawn),
+                                LocationDescriptor.machineCode()),
+                        sequential,
+                        LocationDescriptor.machineCode()));
+            } else {
+                statements.addAll(spawn);
+            }
+            return statements.build();
+        }
+
+        /**
+         * Make the worker method for a loop, which takes its thread's id.
+         *
+         * @param sharedCopies The global that each shared local is copied into.
+         * @param partialSums The global array that each thread stores its share of each
+         *         reduction in.
+         */
+        private Method worker(String name, ParallelLoop parallel, ScalarLocation start,
+                ScalarLocation end, Map<ScopedVariable, Variable> sharedCopies,
+                Map<ScopedVariable, Variable> partialSums) {
+            ForLoop loop = parallel.getLoop();
+            ScalarLocation threadId = scalar(Variable.forCompiler("thread_id"));
+            ScalarLocation chunk = scalar(Variable.forCompiler("chunk"));
+            ScalarLocation low = scalar(Variable.forCompiler("low"));
+            ScalarLocation high = scalar(Variable.forCompiler("high"));
+            ParameterScope parameters = new ParameterScope(
+                    ImmutableList.of(integer(threadId.getVariable())), globals,
+                    LocationDescriptor.machineCode());
+
+            ImmutableList.Builder<FieldDescriptor> locals = ImmutableList.builder();
+            locals.add(descriptorOf(parallel.getIndex()));
+            for (List<ScopedVariable> variables : ImmutableList.of(parallel.getShared(),
+                    parallel.getPrivates(), parallel.getReductions())) {
+                for (ScopedVariable variable : variables) {
+                    locals.add(descriptorOf(variable));
+                }
+            }
+            locals.add(integer(chunk.getVariable()));
+            locals.add(integer(low.getVariable()));
+            locals.add(integer(high.getVariable()));
+            Scope scope = new Scope(locals.build(), parameters);
+
+            ImmutableList.Builder<Statement> statements = ImmutableList.builder();
+            for (Map.Entry<ScopedVariable, Variable> shared : sharedCopies.entrySet()) {
+                statements.add(copied(shared.getValue(), shared.getKey().getVariable(),
+                        descriptorOf(shared.getKey()), loop.getLoopVariable(), scope));
+            }
+            NativeExpression threads = new IntLiteral((long) NUM_THREADS);
+            statements.add(Assignment.compilerAssignment(chunk, new BinaryOperation(
+                    BinaryOperator.DIVIDED_BY,
+                    new BinaryOperation(BinaryOperator.PLUS,
+                            new BinaryOperation(BinaryOperator.MINUS, end, start),
+                            new IntLiteral((long) NUM_THREADS - 1)),
+                    threads)));
+            statements.add(Assignment.compilerAssignment(low, new BinaryOperation(
+                    BinaryOperator.PLUS, start,
+                    new BinaryOperation(BinaryOperator.TIMES, threadId, chunk))));
+            statements.add(Assignment.compilerAssignment(high,
+                    new BinaryOperation(BinaryOperator.PLUS, low, chunk)));
+            statements.add(Assignment.compilerAssignment(high, new TernaryOperation(
+                    new BinaryOperation(BinaryOperator.LESS_THAN, high, end), high, end)));
+            statements.add(new ForLoop(loop.getLoopVariable(), low, high,
+                    ParallelUtil.copyOf(loop.getBody(), scope), loop.getLocationDescriptor()));
+            for (Map.Entry<ScopedVariable, Variable> partials : partialSums.entrySet()) {
+                statements.add(Assignment.compilerAssignment(
+                        element(partials.getValue(), threadId),
+                        scalar(partials.getKey().getVariable())));
+            }
+            Block body = new Block(null, scope, statements.build(),
+                    LocationDescriptor.machineCode());
+            return new Method(name, ReturnType.fromVoid(LocationDescriptor.machineCode()),
+                    parameters, body, LocationDescriptor.machineCode());
+        }
+
+        /**
+         * Get a statement that copies one variable into another.
+         *
+         * <p>Arrays are copied element by element, counting with 'counter'.
+         *
+         * @param scope The scope that the statement is in.
+         */
+        private static Statement copied(Variable from, Variable to, FieldDescriptor descriptor,
+                ScalarLocation counter, Scope scope) {
+            if (!descriptor.isArray()) {
+                return Assignment.compilerAssignment(scalar(to), scalar(from));
+            }
+            return ParallelUtil.forLoop(counter, new IntLiteral(0L), descriptor.getLength().get(),
+                    ImmutableList.of(Assignment.compilerAssignment(
+                            element(to, counter), element(from, counter))),
+                    scope);
+        }
+
+        private Variable newGlobal(String name) {
+            return newGlobal(name, Optional.<IntLiteral>absent(), BaseType.INTEGER);
+        }
+
+        private Variable newGlobal(String name, Optional<IntLiteral> length, BaseType type) {
+            Variable variable = Variable.forCompiler(name);
+            newGlobals.add(length.isPresent()
+                    ? new FieldDescriptor(variable, length.get(), type,
+                            LocationDescriptor.machineCode())
+                    : new FieldDescriptor(variable, type, LocationDescriptor.machineCode()));
+            return variable;
+        }
+
+        private static FieldDescriptor descriptorOf(ScopedVariable variable) {
+            return variable.getScope().getDescriptor(variable.getVariable());
+        }
+
+        private static FieldDescriptor integer(Variable variable) {
+            return new FieldDescriptor(variable, BaseType.INTEGER,
+                    LocationDescriptor.machineCode());
+        }
+
+        private static ScalarLocation scalar(Variable variable) {
+            return new ScalarLocation(variable);
+        }
+
+        /** Get an array element whose index is always in bounds. */
+        private static ArrayLocation element(Variable array, NativeExpression index) {
+            return new ArrayLocation(array, index, LocationDescriptor.machineCode())
+                    .withoutBoundsCheck();
+        }
+    }
+}
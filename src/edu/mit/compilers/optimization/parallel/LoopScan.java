@@ -0,0 +1,340 @@
+package edu.mit.compilers.optimization.parallel;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import com.google.common.base.Optional;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
+
+import edu.mit.compilers.ast.ArrayLocation;
+import edu.mit.compilers.ast.Assignment;
+import edu.mit.compilers.ast.BinaryOperation;
+import edu.mit.compilers.ast.BinaryOperator;
+import edu.mit.compilers.ast.Block;
+import edu.mit.compilers.ast.BreakStatement;
+import edu.mit.compilers.ast.ContinueStatement;
+import edu.mit.compilers.ast.ForLoop;
+import edu.mit.compilers.ast.GeneralExpression;
+import edu.mit.compilers.ast.IfStatement;
+import edu.mit.compilers.ast.IntLiteral;
+import edu.mit.compilers.ast.Location;
+import edu.mit.compilers.ast.MethodCall;
+import edu.mit.compilers.ast.NativeExpression;
+import edu.mit.compilers.ast.ReturnStatement;
+import edu.mit.compilers.ast.ScalarLocation;
+import edu.mit.compilers.ast.Scope;
+import edu.mit.compilers.ast.Statement;
+import edu.mit.compilers.ast.WhileLoop;
+import edu.mit.compilers.optimization.ScopedVariable;
+
+/**
+ * Every variable reference in the body of one for loop, as one of its iterations sees them.
+ *
+ * <p>The scan follows each iteration's statements in order, so it knows which reads only see
+ * values that the same iteration wrote.
+ */
+final class LoopScan {
+
+    /** One read or write of a variable, or of an element of an array. */
+    static final class Reference {
+        private final ScopedVariable variable;
+        private final Location location;
+        private final Scope scope;
+        private final boolean isWrite;
+        private final boolean isCovered;
+        private final boolean inReduction;
+        private final List<ForLoop> loops;
+
+        private Reference(ScopedVariable variable, Location location, Scope scope,
+                boolean isWrite, boolean isCovered, boolean inReduction, List<ForLoop> loops) {
+            this.variable = variable;
+            this.location = location;
+            this.scope = scope;
+            this.isWrite = isWrite;
+            this.isCovered = isCovered;
+            this.inReduction = inReduction;
+            this.loops = loops;
+        }
+
+        public ScopedVariable getVariable() {
+            return variable;
+        }
+
+        public Location getLocation() {
+            return location;
+        }
+
+        /** Get the scope that the reference's expression is evaluated in. */
+        public Scope getScope() {
+            return scope;
+        }
+
+        public boolean isWrite() {
+            return isWrite;
+        }
+
+        /** Returns whether this is a read of something the same iteration surely wrote first. */
+        public boolean isCovered() {
+            return isCovered;
+        }
+
+        /** Returns whether this reference only accumulates into its variable. */
+        public boolean inReduction() {
+            return inReduction;
+        }
+
+        /** Get the for loops around the reference, starting with the scanned one. */
+        public List<ForLoop> getLoops() {
+            return loops;
+        }
+    }
+
+    /** A scalar, or one element of an array. */
+    private static final class Cell {
+        private final ScopedVariable variable;
+        private final Optional<Long> element;
+
+        private Cell(ScopedVariable variable, Optional<Long> element) {
+            this.variable = variable;
+            this.element = element;
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * variable.hashCode() + element.hashCode();
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (!(obj instanceof Cell)) {
+                return false;
+            }
+            Cell other = (Cell) obj;
+            return variable.equals(other.variable) && element.equals(other.element);
+        }
+    }
+
+    private final List<Reference> references = Lists.newArrayList();
+    private final List<ForLoop> loops = Lists.newArrayList();
+    private final Map<ForLoop, Scope> loopScopes = Maps.newIdentityHashMap();
+    private final Set<Scope> innerScopes = Sets.newIdentityHashSet();
+    private final Set<ScopedVariable> assigned = Sets.newHashSet();
+    private final Set<ScopedVariable> loopVariables = Sets.newHashSet();
+    private boolean escapes = false;
+
+    private LoopScan() {}
+
+    /**
+     * Scan a for loop.
+     *
+     * @param scope The scope that the loop statement is in.
+     */
+    public static LoopScan of(ForLoop loop, Scope scope) {
+        LoopScan scan = new LoopScan();
+        scan.loops.add(loop);
+        scan.loopScopes.put(loop, scope);
+        ScopedVariable index = scoped(loop.getLoopVariable(), scope);
+        scan.loopVariables.add(index);
+        Set<Cell> written = Sets.newHashSet(new Cell(index, Optional.<Long>absent()));
+        scan.scanBlock(loop.getBody(), written, ImmutableList.of(loop), false);
+        return scan;
+    }
+
+    public List<Reference> getReferences() {
+        return Collections.unmodifiableList(references);
+    }
+
+    /** Get the scanned loop, and then every for loop in its body, in source order. */
+    public List<ForLoop> getLoops() {
+        return Collections.unmodifiableList(loops);
+    }
+
+    /** Get the scope that one of the scanned for loops is in. */
+    public Scope getScopeOf(ForLoop loop) {
+        return loopScopes.get(loop);
+    }
+
+    /** Returns whether a scope is declared somewhere in the loop's body. */
+    public boolean isInner(Scope scope) {
+        return innerScopes.contains(scope);
+    }
+
+    /** Returns whether an assignment in the loop writes a variable. */
+    public boolean isAssigned(ScopedVariable variable) {
+        return assigned.contains(variable);
+    }
+
+    /** Returns whether anything in the loop writes a variable, including a for loop. */
+    public boolean isWritten(ScopedVariable variable) {
+        return assigned.contains(variable) || loopVariables.contains(variable);
+    }
+
+    /**
+     * Returns whether the body might leave the loop other than by finishing an iteration, or do
+     * anything that the loop's own code can't see, i.e. call a method.
+     */
+    public boolean escapes() {
+        return escapes;
+    }
+
+    private void scanBlock(Block block, Set<Cell> written, List<ForLoop> enclosing,
+            boolean inNestedLoop) {
+        innerScopes.add(block.getScope());
+        for (Statement statement : block.getStatements()) {
+            scanStatement(statement, block.getScope(), written, enclosing, inNestedLoop);
+        }
+    }
+
+    private void scanStatement(Statement statement, Scope scope, Set<Cell> written,
+            List<ForLoop> enclosing, boolean inNestedLoop) {
+        if (statement instanceof Assignment) {
+            Assignment assignment = (Assignment) statement;
+            Location target = assignment.getLocation();
+            Optional<ScopedVariable> accumulated = reductionOf(assignment, scope);
+            scanReads(assignment.getExpression(), scope, written, enclosing, accumulated);
+            if (target instanceof ArrayLocation) {
+                scanReads(((ArrayLocation) target).getIndex(), scope, written, enclosing,
+                        Optional.<ScopedVariable>absent());
+            }
+            if (!assignment.getOperation().isAbsolute()) {
+                record(target, scope, false, written, enclosing, accumulated.isPresent());
+            }
+            record(target, scope, true, written, enclosing, accumulated.isPresent());
+            assigned.add(scoped(target, scope));
+            Optional<Cell> cell = cellOf(target, scope);
+            if (assignment.getOperation().isAbsolute() && cell.isPresent()) {
+                written.add(cell.get());
+            }
+        } else if (statement instanceof MethodCall || statement instanceof ReturnStatement) {
+            escapes = true;
+        } else if (statement instanceof BreakStatement) {
+            escapes |= !inNestedLoop;
+        } else if (statement instanceof ContinueStatement) {
+            // Continuing just starts the next iteration early.
+        } else if (statement instanceof IfStatement) {
+            IfStatement ifStatement = (IfStatement) statement;
+            scanReads(ifStatement.getCondition(), scope, written, enclosing,
+                    Optional.<ScopedVariable>absent());
+            scanBlock(ifStatement.getThenBlock(), Sets.newHashSet(written), enclosing,
+                    inNestedLoop);
+            if (ifStatement.getElseBlock().isPresent()) {
+                scanBlock(ifStatement.getElseBlock().get(), Sets.newHashSet(written), enclosing,
+                        inNestedLoop);
+            }
+        } else if (statement instanceof WhileLoop) {
+            WhileLoop whileLoop = (WhileLoop) statement;
+            scanReads(whileLoop.getCondition(), scope, written, enclosing,
+                    Optional.<ScopedVariable>absent());
+            scanBlock(whileLoop.getBody(), Sets.newHashSet(written), enclosing, true);
+        } else if (statement instanceof ForLoop) {
+            ForLoop forLoop = (ForLoop) statement;
+            loops.add(forLoop);
+            loopScopes.put(forLoop, scope);
+            scanReads(forLoop.getRangeStart(), scope, written, enclosing,
+                    Optional.<ScopedVariable>absent());
+            scanReads(forLoop.getRangeEnd(), scope, written, enclosing,
+                    Optional.<ScopedVariable>absent());
+            ScalarLocation index = forLoop.getLoopVariable();
+            record(index, scope, true, written, enclosing, false);
+            loopVariables.add(scoped(index, scope));
+            written.add(cellOf(index, scope).get());
+            scanBlock(forLoop.getBody(), Sets.newHashSet(written),
+                    ImmutableList.<ForLoop>builder().addAll(enclosing).add(forLoop).build(),
+                    true);
+        } else {
+            throw new AssertionError("Unexpected statement: " + statement);
+        }
+    }
+
+    private void scanReads(GeneralExpression expr, Scope scope, Set<Cell> written,
+            List<ForLoop> enclosing, Optional<ScopedVariable> accumulated) {
+        if (expr instanceof MethodCall) {
+            escapes = true;
+            return;
+        }
+        if (expr instanceof Location) {
+            Location location = (Location) expr;
+            record(location, scope, false, written, enclosing,
+                    accumulated.equals(Optional.of(scoped(location, scope))));
+        }
+        for (GeneralExpression child : expr.getChildren()) {
+            scanReads(child, scope, written, enclosing, accumulated);
+        }
+    }
+
+    private void record(Location location, Scope scope, boolean isWrite, Set<Cell> written,
+            List<ForLoop> enclosing, boolean inReduction) {
+        Optional<Cell> cell = cellOf(location, scope);
+        boolean isCovered = !isWrite && cell.isPresent() && written.contains(cell.get());
+        references.add(new Reference(scoped(location, scope), location, scope, isWrite,
+                isCovered, inReduction, enclosing));
+    }
+
+    /**
+     * Get the variable that an assignment accumulates into, if it only adds something that
+     * doesn't depend on that variable, like "sum += a[i]" or "sum = sum - a[i]".
+     */
+    private static Optional<ScopedVariable> reductionOf(Assignment assignment, Scope scope) {
+        if (!(assignment.getLocation() instanceof ScalarLocation)) {
+            return Optional.absent();
+        }
+        ScopedVariable target = scoped(assignment.getLocation(), scope);
+        NativeExpression expr = assignment.getExpression();
+        if (!assignment.getOperation().isAbsolute()) {
+            return reads(expr, scope, target)
+                    ? Optional.<ScopedVariable>absent()
+                    : Optional.of(target);
+        }
+        if (!(expr instanceof BinaryOperation)) {
+            return Optional.absent();
+        }
+        BinaryOperation operation = (BinaryOperation) expr;
+        NativeExpression left = operation.getLeftArgument();
+        NativeExpression right = operation.getRightArgument();
+        boolean leftIsTarget = isScalar(left, scope, target);
+        boolean rightIsTarget = isScalar(right, scope, target);
+        if (operation.getOperator() == BinaryOperator.PLUS) {
+            if ((leftIsTarget && !reads(right, scope, target))
+                    || (rightIsTarget && !reads(left, scope, target))) {
+                return Optional.of(target);
+            }
+        } else if (operation.getOperator() == BinaryOperator.MINUS) {
+            if (leftIsTarget && !reads(right, scope, target)) {
+                return Optional.of(target);
+            }
+        }
+        return Optional.absent();
+    }
+
+    private static boolean isScalar(NativeExpression expr, Scope scope, ScopedVariable variable) {
+        return expr instanceof ScalarLocation
+                && scoped((ScalarLocation) expr, scope).equals(variable);
+    }
+
+    private static boolean reads(NativeExpression expr, Scope scope, ScopedVariable variable) {
+        return ScopedVariable.getVariablesOf(expr, scope).contains(variable);
+    }
+
+    /** Get the cell that a location names, if it names one cell no matter what. */
+    private static Optional<Cell> cellOf(Location location, Scope scope) {
+        ScopedVariable variable = scoped(location, scope);
+        if (location instanceof ScalarLocation) {
+            return Optional.of(new Cell(variable, Optional.<Long>absent()));
+        }
+        NativeExpression index = ((ArrayLocation) location).getIndex();
+        return index instanceof IntLiteral
+                ? Optional.of(new Cell(variable,
+                        Optional.of(((IntLiteral) index).get64BitValue())))
+                : Optional.<Cell>absent();
+    }
+
+    static ScopedVariable scoped(Location location, Scope scope) {
+        return new ScopedVariable(location.getVariable(),
+                ScopedVariable.getScopeOf(location.getVariable(), scope));
+    }
+}
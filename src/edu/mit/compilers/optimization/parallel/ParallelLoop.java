@@ -0,0 +1,367 @@
+package edu.mit.compilers.optimization.parallel;
+
+import java.math.RoundingMode;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.SortedMap;
+
+import com.google.common.base.Optional;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.LinkedListMultimap;
+import com.google.common.collect.ListMultimap;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
+import com.google.common.math.LongMath;
+
+import decaf.Parallel.Analyze;
+import decaf.Parallel.Analyze.AccessPattern;
+import edu.mit.compilers.ast.ArrayLocation;
+import edu.mit.compilers.ast.BinaryOperation;
+import edu.mit.compilers.ast.BinaryOperator;
+import edu.mit.compilers.ast.Block;
+import edu.mit.compilers.ast.ForLoop;
+import edu.mit.compilers.ast.IntLiteral;
+import edu.mit.compilers.ast.NativeExpression;
+import edu.mit.compilers.ast.ScalarLocation;
+import edu.mit.compilers.ast.Scope;
+import edu.mit.compilers.ast.UnaryOperation;
+import edu.mit.compilers.ast.UnaryOperator;
+import edu.mit.compilers.optimization.ScopedVariable;
+import edu.mit.compilers.optimization.Util;
+import edu.mit.compilers.optimization.parallel.LoopScan.Reference;
+
+/**
+ * A for loop whose iterations are independent of each other, so that they can run at once.
+ *
+ * <p>Each variable from outside the loop that it uses is shared (it only reads it), private
+ * (each iteration writes it before reading it, and nothing reads it after the loop), or a
+ * reduction (the iterations only add to it).  The only other variables that the loop may write
+ * are global arrays, and then no two iterations may touch the same element, unless one of them
+ * only reads it.
+ *
+ * <p>decaf.Parallel.Analyze ignores the loops' bounds, so it reports a dependence between
+ * a[i*303 + j] and itself, although the j loop never runs 303 times.  Such a loop is still
+ * parallel, as long as a guard that checks the inner loop's span passes at run time.
+ *
+ * <p>A loop whose bounds aren't literals is guarded too, so that it only starts threads if it
+ * runs at least MIN_ITERATIONS times.  Its bounds may not call methods, because the
+ * parallelized loop keeps them in globals that such a call could reenter and overwrite.
+ */
+final class ParallelLoop {
+    /** Loops with fewer iterations than this aren't worth starting threads for. */
+    private static final long MIN_ITERATIONS = 1000;
+
+    private final ForLoop loop;
+    private final Scope scope;
+    private final List<ScopedVariable> shared;
+    private final List<ScopedVariable> privates;
+    private final List<ScopedVariable> reductions;
+    private final Optional<NativeExpression> guard;
+
+    private ParallelLoop(ForLoop loop, Scope scope, List<ScopedVariable> shared,
+            List<ScopedVariable> privates, List<ScopedVariable> reductions,
+            Optional<NativeExpression> guard) {
+        this.loop = loop;
+        this.scope = scope;
+        this.shared = shared;
+        this.privates = privates;
+        this.reductions = reductions;
+        this.guard = guard;
+    }
+
+    /**
+     * Get a loop's parallel form, if its iterations are independent.
+     *
+     * @param scope The scope that the loop is in.
+     * @param methodBody The body of the method that the loop is in.
+     */
+    public static Optional<ParallelLoop> of(ForLoop loop, Scope scope, Block methodBody) {
+        LoopScan scan = LoopScan.of(loop, scope);
+        ScopedVariable index = LoopScan.scoped(loop.getLoopVariable(), scope);
+        if (scan.escapes() || scan.isAssigned(index)
+                || ScopedVariable.getVariablesOf(loop.getRangeEnd(), scope).contains(index)
+                || Util.containsMethodCall(loop.getRangeStart())
+                || Util.containsMethodCall(loop.getRangeEnd())
+                || isTooShort(loop)) {
+            return Optional.absent();
+        }
+        for (ForLoop inner : scan.getLoops()) {
+            if (scan.isAssigned(LoopScan.scoped(inner.getLoopVariable(), scan.getScopeOf(inner)))) {
+                return Optional.absent();
+            }
+        }
+
+        ListMultimap<ScopedVariable, Reference> references = LinkedListMultimap.create();
+        for (Reference reference : scan.getReferences()) {
+            references.put(reference.getVariable(), reference);
+        }
+        ImmutableList.Builder<ScopedVariable> shared = ImmutableList.builder();
+        ImmutableList.Builder<ScopedVariable> privates = ImmutableList.builder();
+        ImmutableList.Builder<ScopedVariable> reductions = ImmutableList.builder();
+        // The most times that each inner loop (by its position in the nest) may run.
+        SortedMap<Integer, Long> spanLimits = Maps.newTreeMap();
+        for (ScopedVariable variable : references.keySet()) {
+            if (variable.equals(index) || scan.isInner(variable.getScope())) {
+                continue;
+            }
+            List<Reference> uses = references.get(variable);
+            if (!scan.isWritten(variable)) {
+                if (!variable.isGlobal()) {
+                    shared.add(variable);
+                }
+            } else if (!variable.isArray() && allInReduction(uses)) {
+                reductions.add(variable);
+            } else if (!variable.isGlobal() && allReadsCovered(uses)
+                    && !ParallelUtil.readsOutside(methodBody, loop, variable)) {
+                privates.add(variable);
+            } else if (!variable.isGlobal() || !variable.isArray()
+                    || !addSpanLimits(scan, uses, spanLimits)) {
+                return Optional.absent();
+            }
+        }
+
+        Optional<NativeExpression> guard = hasLiteralBounds(loop)
+                ? Optional.<NativeExpression>absent()
+                : Optional.<NativeExpression>of(new BinaryOperation(
+                        BinaryOperator.GREATER_THAN_OR_EQUAL, span(loop),
+                        new IntLiteral(MIN_ITERATIONS)));
+        for (Map.Entry<Integer, Long> limit : spanLimits.entrySet()) {
+            ForLoop inner = scan.getLoops().get(limit.getKey());
+            NativeExpression check = new BinaryOperation(BinaryOperator.LESS_THAN_OR_EQUAL,
+                    span(inner), new IntLiteral(limit.getValue()));
+            guard = Optional.of(guard.isPresent()
+                    ? new BinaryOperation(BinaryOperator.AND, guard.get(), check)
+                    : check);
+        }
+        return Optional.of(new ParallelLoop(loop, scope, shared.build(), privates.build(),
+                reductions.build(), guard));
+    }
+
+    private static boolean hasLiteralBounds(ForLoop loop) {
+        return loop.getRangeStart() instanceof IntLiteral
+                && loop.getRangeEnd() instanceof IntLiteral;
+    }
+
+    /** Get how many times a loop runs, if it runs at all. */
+    private static NativeExpression span(ForLoop loop) {
+        return new BinaryOperation(BinaryOperator.MINUS, loop.getRangeEnd(),
+                loop.getRangeStart());
+    }
+
+    private static boolean isTooShort(ForLoop loop) {
+        if (!hasLiteralBounds(loop)) {
+            // The guard checks at run time.
+            return false;
+        }
+        long start = ((IntLiteral) loop.getRangeStart()).get64BitValue();
+        long end = ((IntLiteral) loop.getRangeEnd()).get64BitValue();
+        return end - start < MIN_ITERATIONS;
+    }
+
+    private static boolean allInReduction(Collection<Reference> uses) {
+        for (Reference use : uses) {
+            if (!use.inReduction()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean allReadsCovered(Collection<Reference> uses) {
+        for (Reference use : uses) {
+            if (!use.isWrite() && !use.isCovered()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Check that no two iterations of the scanned loop touch the same element of an array,
+     * where at least one of them writes it.
+     *
+     * <p>Some pairs of accesses are only independent if an inner loop runs few enough times.
+     * Then the limits on those loops are added to 'spanLimits'.
+     *
+     * @return Whether the iterations are independent, given the limits.
+     */
+    private static boolean addSpanLimits(LoopScan scan, List<Reference> uses,
+            Map<Integer, Long> spanLimits) {
+        for (Reference write : uses) {
+            if (!write.isWrite()) {
+                continue;
+            }
+            Optional<Subscript> writeSubscript = subscriptOf(scan, write);
+            if (!writeSubscript.isPresent()) {
+                return false;
+            }
+            for (Reference other : uses) {
+                Optional<Subscript> otherSubscript = subscriptOf(scan, other);
+                if (!otherSubscript.isPresent()
+                        || !addSpanLimits(scan, writeSubscript.get(), otherSubscript.get(),
+                                spanLimits)) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    private static boolean addSpanLimits(LoopScan scan, Subscript first, Subscript second,
+            Map<Integer, Long> spanLimits) {
+        if (!first.isComparableTo(second)) {
+            return false;
+        }
+        if (first.isLoopInvariant() && second.isLoopInvariant()) {
+            // Analyze compares these constants as Integer objects, so we do it ourselves.
+            return first.getConstant() != second.getConstant();
+        }
+        Optional<Integer[]> firstVector = first.asAccessVector();
+        Optional<Integer[]> secondVector = second.asAccessVector();
+        if (!firstVector.isPresent() || !secondVector.isPresent()) {
+            return false;
+        }
+        AccessPattern pattern =
+                Analyze.getAccessPattern(firstVector.get(), secondVector.get());
+        if (pattern == null) {
+            return false;
+        } else if (!pattern.distanceExists) {
+            return true;
+        } else if (pattern.distance[0] == null) {
+            // Any two iterations might collide.
+            return false;
+        } else if (pattern.step == null) {
+            return pattern.distance[0] == 0;
+        }
+
+        // The distances between colliding iterations are distance + k * step.  They have two
+        // dimensions: the scanned loop's, and some inner loop's.
+        Integer[] coefficients = firstVector.get();
+        int inner = 1;
+        while (pattern.step[inner] == null) {
+            inner++;
+        }
+        long outerDistance = pattern.distance[0];
+        long innerDistance = pattern.distance[inner];
+        long outerStep = pattern.step[0];
+        long innerStep = pattern.step[inner];
+        // Analyze trusts disabled assertions, so check its answer.
+        long difference = (long) coefficients[coefficients.length - 1]
+                - secondVector.get()[coefficients.length - 1];
+        if (coefficients[0] * outerDistance + coefficients[inner] * innerDistance != difference
+                || outerStep == 0 || innerStep == 0 || outerDistance % outerStep != 0) {
+            return false;
+        }
+        // Within one iteration of the scanned loop, order doesn't matter.  Find how far that
+        // solution's collisions are from every other solution's, in the inner dimension.
+        long sameIteration = innerDistance - (outerDistance / outerStep) * innerStep;
+        long limit = nearestOtherMultiple(sameIteration, innerStep);
+        ForLoop innerLoop = scan.getLoops().get(inner);
+        if (limit <= 0 || !isInvariant(scan, innerLoop.getRangeStart(), scan.getScopeOf(innerLoop))
+                || !isInvariant(scan, innerLoop.getRangeEnd(), scan.getScopeOf(innerLoop))) {
+            return false;
+        }
+        spanLimits.put(inner, spanLimits.containsKey(inner)
+                ? Math.min(spanLimits.get(inner), limit)
+                : limit);
+        return true;
+    }
+
+    /** Get min |offset + t * step| over every t except 0. */
+    private static long nearestOtherMultiple(long offset, long step) {
+        long nearest = LongMath.divide(-offset, step, RoundingMode.FLOOR);
+        long best = Long.MAX_VALUE;
+        for (long t : new long[] {nearest - 1, nearest, nearest + 1, nearest + 2, -1, 1}) {
+            if (t != 0) {
+                best = Math.min(best, Math.abs(offset + t * step));
+            }
+        }
+        return best;
+    }
+
+    private static Optional<Subscript> subscriptOf(LoopScan scan, Reference reference) {
+        Map<ScopedVariable, Integer> dimensions = Maps.newHashMap();
+        for (ForLoop enclosing : reference.getLoops()) {
+            ScopedVariable variable = LoopScan.scoped(enclosing.getLoopVariable(),
+                    scan.getScopeOf(enclosing));
+            if (dimensions.put(variable, positionOf(scan.getLoops(), enclosing)) != null) {
+                // The loops in the nest share a variable.
+                return Optional.absent();
+            }
+        }
+        return Subscript.of(((ArrayLocation) reference.getLocation()).getIndex(),
+                reference.getScope(), dimensions, scan.getLoops().size(), scan);
+    }
+
+    private static int positionOf(List<ForLoop> loops, ForLoop loop) {
+        for (int i = 0; i < loops.size(); i++) {
+            if (loops.get(i) == loop) {
+                return i;
+            }
+        }
+        throw new AssertionError("Loop is not in the nest: " + loop);
+    }
+
+    /** Returns whether an expression has the same value everywhere in the scanned loop. */
+    private static boolean isInvariant(LoopScan scan, NativeExpression expr, Scope scope) {
+        if (expr instanceof IntLiteral) {
+            return true;
+        } else if (expr instanceof ScalarLocation) {
+            ScopedVariable variable = LoopScan.scoped((ScalarLocation) expr, scope);
+            return !scan.isWritten(variable) && !scan.isInner(variable.getScope());
+        } else if (expr instanceof UnaryOperation) {
+            UnaryOperation operation = (UnaryOperation) expr;
+            return operation.getOperator() == UnaryOperator.NEGATIVE
+                    && isInvariant(scan, operation.getArgument(), scope);
+        } else if (expr instanceof BinaryOperation) {
+            BinaryOperation operation = (BinaryOperation) expr;
+            Set<BinaryOperator> arithmetic = Sets.immutableEnumSet(
+                    BinaryOperator.PLUS, BinaryOperator.MINUS, BinaryOperator.TIMES);
+            return arithmetic.contains(operation.getOperator())
+                    && isInvariant(scan, operation.getLeftArgument(), scope)
+                    && isInvariant(scan, operation.getRightArgument(), scope);
+        }
+        return false;
+    }
+
+    public ForLoop getLoop() {
+        return loop;
+    }
+
+    /** Get the scope that the loop is in. */
+    public Scope getScope() {
+        return scope;
+    }
+
+    /** Get the loop's variable. */
+    public ScopedVariable getIndex() {
+        return LoopScan.scoped(loop.getLoopVariable(), scope);
+    }
+
+    /** Get the locals that the loop only reads, which each thread needs a copy of. */
+    public List<ScopedVariable> getShared() {
+        return shared;
+    }
+
+    /** Get the locals that each iteration writes before it reads them. */
+    public List<ScopedVariable> getPrivates() {
+        return privates;
+    }
+
+    /** Get the scalars that the loop only adds to. */
+    public List<ScopedVariable> getReductions() {
+        return reductions;
+    }
+
+    /**
+     * Get a condition that must hold for the iterations to be independent, and for the loop
+     * to be long enough to be worth running in parallel, if there is one.
+     *
+     * <p>It is evaluated in the loop's scope, just before the loop.
+     */
+    public Optional<NativeExpression> getGuard() {
+        return guard;
+    }
+}
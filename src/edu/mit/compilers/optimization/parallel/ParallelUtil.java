@@ -0,0 +1,145 @@
+package edu.mit.compilers.optimization.parallel;
+
+import java.util.List;
+
+import com.google.common.collect.ImmutableList;
+
+import edu.mit.compilers.ast.ArrayLocation;
+import edu.mit.compilers.ast.Assignment;
+import edu.mit.compilers.ast.Block;
+import edu.mit.compilers.ast.FieldDescriptor;
+import edu.mit.compilers.ast.ForLoop;
+import edu.mit.compilers.ast.IfStatement;
+import edu.mit.compilers.ast.LocationDescriptor;
+import edu.mit.compilers.ast.NativeExpression;
+import edu.mit.compilers.ast.ScalarLocation;
+import edu.mit.compilers.ast.Scope;
+import edu.mit.compilers.ast.Statement;
+import edu.mit.compilers.ast.StaticStatement;
+import edu.mit.compilers.ast.WhileLoop;
+import edu.mit.compilers.optimization.ScopedVariable;
+
+/** Helpers for moving loops around in the AST. */
+final class ParallelUtil {
+    private ParallelUtil() {}
+
+    /**
+     * Get a copy of a block, whose scopes (and its nested blocks' scopes) are new.
+     *
+     * <p>The statements themselves are immutable, so they are shared with the original.
+     *
+     * @param parent The scope that the copy is in.
+     */
+    public static Block copyOf(Block block, Scope parent) {
+        Scope scope = new Scope(block.getScope().getVariables(), parent,
+                block.getScope().isLoop());
+        ImmutableList.Builder<Statement> statements = ImmutableList.builder();
+        for (Statement statement : block.getStatements()) {
+            statements.add(copyOf(statement, scope));
+        }
+        return new Block(null, scope, statements.build(), block.getLocationDescriptor());
+    }
+
+    private static Statement copyOf(Statement statement, Scope scope) {
+        if (statement instanceof IfStatement) {
+            IfStatement ifStatement = (IfStatement) statement;
+            Block thenBlock = copyOf(ifStatement.getThenBlock(), scope);
+            return ifStatement.getElseBlock().isPresent()
+                    ? IfStatement.ifThenElse(ifStatement.getCondition(), thenBlock,
+                            copyOf(ifStatement.getElseBlock().get(), scope),
+                            ifStatement.getLocationDescriptor())
+                    : IfStatement.ifThen(ifStatement.getCondition(), thenBlock,
+                            ifStatement.getLocationDescriptor());
+        } else if (statement instanceof ForLoop) {
+            ForLoop forLoop = (ForLoop) statement;
+            return new ForLoop(forLoop.getLoopVariable(), forLoop.getRangeStart(),
+                    forLoop.getRangeEnd(), copyOf(forLoop.getBody(), scope),
+                    forLoop.getLocationDescriptor());
+        } else if (statement instanceof WhileLoop) {
+            WhileLoop whileLoop = (WhileLoop) statement;
+            Block body = copyOf(whileLoop.getBody(), scope);
+            return whileLoop.getMaxRepetitions().isPresent()
+                    ? WhileLoop.limited(whileLoop.getCondition(),
+                            whileLoop.getMaxRepetitions().get(), body,
+                            whileLoop.getLocationDescriptor())
+                    : WhileLoop.simple(whileLoop.getCondition(), body,
+                            whileLoop.getLocationDescriptor());
+        }
+        return statement;
+    }
+
+    /**
+     * Make a for loop, with a body that declares no variables.
+     *
+     * @param scope The scope that the loop is in.
+     */
+    public static ForLoop forLoop(ScalarLocation loopVariable, NativeExpression rangeStart,
+            NativeExpression rangeEnd, List<? extends Statement> body, Scope scope) {
+        Block block = new Block(null,
+                new Scope(ImmutableList.<FieldDescriptor>of(), scope, true),
+                ImmutableList.copyOf(body), LocationDescriptor.machineCode());
+        return new ForLoop(loopVariable, rangeStart, rangeEnd, block,
+                LocationDescriptor.machineCode());
+    }
+
+    /**
+     * Returns whether anything in a block reads a variable, other than a loop in it.
+     *
+     * <p>The loop's range is evaluated outside of its body, so a variable that the range reads
+     * does count.
+     */
+    public static boolean readsOutside(Block block, ForLoop loop, ScopedVariable variable) {
+        Scope scope = block.getScope();
+        for (Statement statement : block.getStatements()) {
+            if (statement == loop) {
+                if (reads(loop.getRangeStart(), scope, variable)
+                        || reads(loop.getRangeEnd(), scope, variable)) {
+                    return true;
+                }
+            } else if (statement instanceof Assignment) {
+                Assignment assignment = (Assignment) statement;
+                if (reads(assignment.getExpression(), scope, variable)
+                        || (assignment.getLocation() instanceof ArrayLocation
+                                && reads(((ArrayLocation) assignment.getLocation()).getIndex(),
+                                        scope, variable))
+                        || (!assignment.getOperation().isAbsolute()
+                                && LoopScan.scoped(assignment.getLocation(), scope)
+                                        .equals(variable))) {
+                    return true;
+                }
+            } else if (statement instanceof StaticStatement) {
+                StaticStatement staticStatement = (StaticStatement) statement;
+                if (staticStatement.hasExpression()
+                        && reads(staticStatement.getExpression(), scope, variable)) {
+                    return true;
+                }
+            } else if (statement instanceof IfStatement) {
+                IfStatement ifStatement = (IfStatement) statement;
+                if (reads(ifStatement.getCondition(), scope, variable)
+                        || readsOutside(ifStatement.getThenBlock(), loop, variable)
+                        || (ifStatement.getElseBlock().isPresent() && readsOutside(
+                                ifStatement.getElseBlock().get(), loop, variable))) {
+                    return true;
+                }
+            } else if (statement instanceof ForLoop) {
+                ForLoop forLoop = (ForLoop) statement;
+                if (reads(forLoop.getRangeStart(), scope, variable)
+                        || reads(forLoop.getRangeEnd(), scope, variable)
+                        || readsOutside(forLoop.getBody(), loop, variable)) {
+                    return true;
+                }
+            } else if (statement instanceof WhileLoop) {
+                WhileLoop whileLoop = (WhileLoop) statement;
+                if (reads(whileLoop.getCondition(), scope, variable)
+                        || readsOutside(whileLoop.getBody(), loop, variable)) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    private static boolean reads(NativeExpression expr, Scope scope, ScopedVariable variable) {
+        return ScopedVariable.getVariablesOf(expr, scope).contains(variable);
+    }
+}
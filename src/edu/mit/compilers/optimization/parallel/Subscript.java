@@ -0,0 +1,204 @@
+package edu.mit.compilers.optimization.parallel;
+
+import java.util.Arrays;
+import java.util.Map;
+
+import com.google.common.base.Optional;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Maps;
+import com.google.common.math.LongMath;
+import com.google.common.primitives.Ints;
+
+import edu.mit.compilers.ast.BinaryOperation;
+import edu.mit.compilers.ast.IntLiteral;
+import edu.mit.compilers.ast.NativeExpression;
+import edu.mit.compilers.ast.ScalarLocation;
+import edu.mit.compilers.ast.Scope;
+import edu.mit.compilers.ast.UnaryOperation;
+import edu.mit.compilers.ast.UnaryOperator;
+import edu.mit.compilers.optimization.ScopedVariable;
+
+/**
+ * An array index that is an affine function of the loop variables of a loop nest.
+ *
+ * <p>Besides the loop variables, the index may add multiples of scalars that the nest never
+ * writes.  Two subscripts can only be compared if they add the same multiples of them, because
+ * then they cancel out.
+ */
+final class Subscript {
+    private final long[] coefficients;
+    private final Map<ScopedVariable, Long> symbols;
+    private final long constant;
+
+    private Subscript(long[] coefficients, Map<ScopedVariable, Long> symbols, long constant) {
+        this.coefficients = coefficients;
+        this.symbols = symbols;
+        this.constant = constant;
+    }
+
+    /**
+     * Get the subscript that an index computes, if it is affine.
+     *
+     * @param scope The scope that the index is evaluated in.
+     * @param dimensions The loops around the index, as a map from their loop variables to their
+     *         positions in the nest.
+     * @param dimensionCount The number of loops in the nest.
+     * @param scan The scan of the nest's outermost loop, to tell which scalars it never writes.
+     */
+    public static Optional<Subscript> of(NativeExpression index, Scope scope,
+            Map<ScopedVariable, Integer> dimensions, int dimensionCount, LoopScan scan) {
+        try {
+            return affine(index, scope, dimensions, dimensionCount, scan);
+        } catch (ArithmeticException e) {
+            // The index overflows, which we won't reason about.
+            return Optional.absent();
+        }
+    }
+
+    private static Optional<Subscript> affine(NativeExpression expr, Scope scope,
+            Map<ScopedVariable, Integer> dimensions, int dimensionCount, LoopScan scan) {
+        if (expr instanceof IntLiteral) {
+            return Optional.of(new Subscript(new long[dimensionCount],
+                    ImmutableMap.<ScopedVariable, Long>of(),
+                    ((IntLiteral) expr).get64BitValue()));
+        } else if (expr instanceof ScalarLocation) {
+            ScopedVariable variable = LoopScan.scoped((ScalarLocation) expr, scope);
+            long[] coefficients = new long[dimensionCount];
+            if (dimensions.containsKey(variable)) {
+                coefficients[dimensions.get(variable)] = 1;
+                return Optional.of(new Subscript(coefficients,
+                        ImmutableMap.<ScopedVariable, Long>of(), 0));
+            } else if (!scan.isWritten(variable) && !scan.isInner(variable.getScope())) {
+                return Optional.of(new Subscript(coefficients,
+                        ImmutableMap.of(variable, 1L), 0));
+            }
+            return Optional.absent();
+        } else if (expr instanceof UnaryOperation) {
+            UnaryOperation operation = (UnaryOperation) expr;
+            if (operation.getOperator() != UnaryOperator.NEGATIVE) {
+                return Optional.absent();
+            }
+            Optional<Subscript> argument =
+                    affine(operation.getArgument(), scope, dimensions, dimensionCount, scan);
+            return argument.isPresent()
+                    ? Optional.of(argument.get().times(-1))
+                    : argument;
+        } else if (expr instanceof BinaryOperation) {
+            BinaryOperation operation = (BinaryOperation) expr;
+            Optional<Subscript> left = affine(operation.getLeftArgument(), scope, dimensions,
+                    dimensionCount, scan);
+            Optional<Subscript> right = affine(operation.getRightArgument(), scope, dimensions,
+                    dimensionCount, scan);
+            if (!left.isPresent() || !right.isPresent()) {
+                return Optional.absent();
+            }
+            switch (operation.getOperator()) {
+                case PLUS:
+                    return Optional.of(left.get().plus(right.get(), 1));
+                case MINUS:
+                    return Optional.of(left.get().plus(right.get(), -1));
+                case TIMES:
+                    if (right.get().isConstant()) {
+                        return Optional.of(left.get().times(right.get().constant));
+                    } else if (left.get().isConstant()) {
+                        return Optional.of(right.get().times(left.get().constant));
+                    }
+                    return Optional.absent();
+                default:
+                    return Optional.absent();
+            }
+        }
+        return Optional.absent();
+    }
+
+    private boolean isConstant() {
+        for (long coefficient : coefficients) {
+            if (coefficient != 0) {
+                return false;
+            }
+        }
+        return symbols.isEmpty();
+    }
+
+    /** Get this subscript plus a multiple of another. */
+    private Subscript plus(Subscript other, long multiple) {
+        long[] sumCoefficients = new long[coefficients.length];
+        for (int i = 0; i < coefficients.length; i++) {
+            sumCoefficients[i] = LongMath.checkedAdd(coefficients[i],
+                    LongMath.checkedMultiply(multiple, other.coefficients[i]));
+        }
+        Map<ScopedVariable, Long> sumSymbols = Maps.newHashMap(symbols);
+        for (Map.Entry<ScopedVariable, Long> entry : other.symbols.entrySet()) {
+            long sum = LongMath.checkedAdd(
+                    sumSymbols.containsKey(entry.getKey()) ? sumSymbols.get(entry.getKey()) : 0,
+                    LongMath.checkedMultiply(multiple, entry.getValue()));
+            if (sum == 0) {
+                sumSymbols.remove(entry.getKey());
+            } else {
+                sumSymbols.put(entry.getKey(), sum);
+            }
+        }
+        return new Subscript(sumCoefficients, ImmutableMap.copyOf(sumSymbols),
+                LongMath.checkedAdd(constant, LongMath.checkedMultiply(multiple, other.constant)));
+    }
+
+    private Subscript times(long factor) {
+        if (factor == 0) {
+            return new Subscript(new long[coefficients.length],
+                    ImmutableMap.<ScopedVariable, Long>of(), 0);
+        }
+        long[] productCoefficients = new long[coefficients.length];
+        for (int i = 0; i < coefficients.length; i++) {
+            productCoefficients[i] = LongMath.checkedMultiply(factor, coefficients[i]);
+        }
+        ImmutableMap.Builder<ScopedVariable, Long> productSymbols = ImmutableMap.builder();
+        for (Map.Entry<ScopedVariable, Long> entry : symbols.entrySet()) {
+            productSymbols.put(entry.getKey(), LongMath.checkedMultiply(factor, entry.getValue()));
+        }
+        return new Subscript(productCoefficients, productSymbols.build(),
+                LongMath.checkedMultiply(factor, constant));
+    }
+
+    /** Returns whether two subscripts only differ in their loop variables and constants. */
+    public boolean isComparableTo(Subscript other) {
+        return symbols.equals(other.symbols);
+    }
+
+    /** Returns whether the subscript doesn't depend on any loop variable. */
+    public boolean isLoopInvariant() {
+        for (long coefficient : coefficients) {
+            if (coefficient != 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public long getConstant() {
+        return constant;
+    }
+
+    /**
+     * Get the subscript in the form that decaf.Parallel.Analyze takes: the coefficient of each
+     * loop variable, and then the constant.
+     */
+    public Optional<Integer[]> asAccessVector() {
+        Integer[] vector = new Integer[coefficients.length + 1];
+        for (int i = 0; i < coefficients.length; i++) {
+            if (coefficients[i] != (int) coefficients[i]) {
+                return Optional.absent();
+            }
+            vector[i] = Ints.checkedCast(coefficients[i]);
+        }
+        if (constant != (int) constant) {
+            return Optional.absent();
+        }
+        vector[coefficients.length] = Ints.checkedCast(constant);
+        return Optional.of(vector);
+    }
+
+    @Override
+    public String toString() {
+        return Arrays.toString(coefficients) + " + " + symbols + " + " + constant;
+    }
+}
@@ -0,0 +1,109 @@
+package edu.mit.compilers.optimization.ssa;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+import java.util.Map;
+
+import com.google.common.base.Optional;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+
+import edu.mit.compilers.ast.NativeExpression;
+import edu.mit.compilers.ast.ScalarLocation;
+import edu.mit.compilers.ast.StaticStatement;
+import edu.mit.compilers.codegen.dataflow.ScopedStatement;
+import edu.mit.compilers.common.Variable;
+import edu.mit.compilers.graph.Node;
+
+/**
+ * A phi function: target = phi(operand for each way in).
+ *
+ * <p>Phi functions only exist in SSA form.  They sit in a chain of nodes just before a join
+ * node, and they execute in parallel, as control enters the chain.  Each operand is keyed
+ * by the node from which control enters: a predecessor of the first node of the chain.
+ *
+ * <p>This "statement" is not a true Decaf statement, and it never reaches code generation.
+ * SsaDestructor replaces each one with copies on the edges into its chain.
+ */
+public class PhiFunction extends StaticStatement {
+
+    private final Variable target;
+    private final ImmutableMap<Node<ScopedStatement>, Variable> operands;
+
+    public PhiFunction(Variable target, Map<Node<ScopedStatement>, Variable> operands) {
+        this.target = target;
+        this.operands = ImmutableMap.copyOf(operands);
+    }
+
+    public Variable getTarget() {
+        return target;
+    }
+
+    public ImmutableMap<Node<ScopedStatement>, Variable> getOperands() {
+        return operands;
+    }
+
+    /** Get the operand for control that enters from 'predecessor'. */
+    public Variable getOperand(Node<ScopedStatement> predecessor) {
+        checkArgument(operands.containsKey(predecessor),
+                "%s has no operand for %s.", this, predecessor);
+        return operands.get(predecessor);
+    }
+
+    /** A phi function has no expression.  Its operands are read on the way in. */
+    @Override
+    protected Optional<NativeExpression> expression() {
+        return Optional.absent();
+    }
+
+    @Override
+    public Iterable<ScalarLocation> getChildren() {
+        ImmutableList.Builder<ScalarLocation> children = ImmutableList.builder();
+        children.add(new ScalarLocation(target));
+        for (Variable operand : operands.values()) {
+            children.add(new ScalarLocation(operand));
+        }
+        return children.build();
+    }
+
+    @Override
+    public String getName() {
+        return "phi";
+    }
+
+    @Override
+    public boolean canReturn() {
+        return false;
+    }
+
+    @Override
+    public long getMemorySize() {
+        return 0;
+    }
+
+    @Override
+    public int hashCode() {
+        final int prime = 31;
+        int result = 1;
+        result = prime * result + target.hashCode();
+        result = prime * result + operands.hashCode();
+        return result;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) {
+            return true;
+        }
+        if (!(obj instanceof PhiFunction)) {
+            return false;
+        }
+        PhiFunction other = (PhiFunction) obj;
+        return target.equals(other.target) && operands.equals(other.operands);
+    }
+
+    @Override
+    public String toString() {
+        return target + " = phi" + operands.values();
+    }
+}
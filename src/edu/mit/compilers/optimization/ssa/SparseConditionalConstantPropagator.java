@@ -0,0 +1,444 @@
+package edu.mit.compilers.optimization.ssa;
+
+import static com.google.common.base.Preconditions.checkState;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Set;
+
+import com.google.common.base.Optional;
+import com.google.common.collect.Iterables;
+import com.google.common.collect.LinkedHashMultimap;
+import com.google.common.collect.Multimap;
+
+import edu.mit.compilers.ast.ArrayLocation;
+import edu.mit.compilers.ast.Assignment;
+import edu.mit.compilers.ast.Condition;
+import edu.mit.compilers.ast.Location;
+import edu.mit.compilers.ast.NativeExpression;
+import edu.mit.compilers.ast.NativeLiteral;
+import edu.mit.compilers.ast.Scope;
+import edu.mit.compilers.ast.StaticStatement;
+import edu.mit.compilers.codegen.DataFlowIntRep;
+import edu.mit.compilers.codegen.dataflow.ScopedStatement;
+import edu.mit.compilers.common.Variable;
+import edu.mit.compilers.graph.BcrFlowGraph;
+import edu.mit.compilers.graph.Node;
+import edu.mit.compilers.optimization.ConstantFolder;
+import edu.mit.compilers.optimization.DataFlowOptimizer;
+import edu.mit.compilers.optimization.ScopedVariable;
+import edu.mit.compilers.optimization.Util;
+
+/**
+ * Sparse conditional constant propagation, as in Wegman and Zadeck, "Constant Propagation with
+ * Conditional Branches".
+ *
+ * <p>Every version starts out undefined, and every edge starts out unexecuted.  We only
+ * evaluate statements once control can reach them, and a branch whose condition is constant
+ * only lets control along one of its edges.  So a constant can flow through a phi function
+ * whose other operands come in along edges that never run, and a branch on that constant can
+ * make even more code dead.
+ *
+ * <p>Then, every read of a constant is replaced by a literal, every expression is folded as
+ * far as it goes, constant branches become straight edges, and the code they cut off is
+ * removed.
+ */
+public class SparseConditionalConstantPropagator implements DataFlowOptimizer {
+
+    @Override
+    public DataFlowIntRep optimized(DataFlowIntRep ir) {
+        return SsaDestructor.outOfSsaForm(optimized(SsaConstructor.inSsaForm(ir)));
+    }
+
+    /** Propagate constants through a graph that's already in SSA form. */
+    public static SsaIntRep optimized(SsaIntRep ssa) {
+        return ssa.withIntRep(new Propagation(ssa).propagated());
+    }
+
+    /** A value in the constant propagation lattice. */
+    private static final class LatticeValue {
+        /** No definition has been seen yet. */
+        private static final LatticeValue UNDEFINED =
+                new LatticeValue(Optional.<NativeLiteral>absent());
+        /** Not known to be constant. */
+        private static final LatticeValue VARYING =
+                new LatticeValue(Optional.<NativeLiteral>absent());
+
+        private final Optional<NativeLiteral> constant;
+
+        private LatticeValue(Optional<NativeLiteral> constant) {
+            this.constant = constant;
+        }
+
+        private static LatticeValue of(NativeLiteral constant) {
+            return new LatticeValue(Optional.of(constant));
+        }
+
+        private boolean isConstant() {
+            return constant.isPresent();
+        }
+
+        private NativeLiteral getConstant() {
+            return constant.get();
+        }
+
+        private LatticeValue meet(LatticeValue other) {
+            if (this == UNDEFINED) {
+                return other;
+            } else if (other == UNDEFINED) {
+                return this;
+            } else if (this == VARYING || other == VARYING) {
+                return VARYING;
+            } else {
+                return isSameConstant(other) ? this : VARYING;
+            }
+        }
+
+        private boolean isSameConstant(LatticeValue other) {
+            // BooleanLiterals don't define equals(Object), so compare by class and value.
+            NativeLiteral mine = getConstant();
+            NativeLiteral theirs = other.getConstant();
+            return mine.getClass().equals(theirs.getClass())
+                    && mine.get64BitValue() == theirs.get64BitValue();
+        }
+
+        private boolean isSameAs(LatticeValue other) {
+            if (this == other) {
+                return true;
+            }
+            return isConstant() && other.isConstant() && isSameConstant(other);
+        }
+    }
+
+    /** One run of the propagation over one graph. */
+    private static final class Propagation {
+        private final SsaIntRep ssa;
+        private final BcrFlowGraph<ScopedStatement> graph;
+
+        private final Map<ScopedVariable, LatticeValue> values =
+                new HashMap<ScopedVariable, LatticeValue>();
+        private final Multimap<ScopedVariable, Node<ScopedStatement>> uses =
+                LinkedHashMultimap.create();
+        // The first phi function in each phi function's chain.
+        private final Map<Node<ScopedStatement>, Node<ScopedStatement>> chainHeads =
+                new HashMap<Node<ScopedStatement>, Node<ScopedStatement>>();
+
+        // Linked, so that the rewrite visits the nodes in the order control reached them.
+        private final Set<Node<ScopedStatement>> executable =
+                new LinkedHashSet<Node<ScopedStatement>>();
+        private final Multimap<Node<ScopedStatement>, Node<ScopedStatement>> executableEdges =
+                LinkedHashMultimap.create();
+        // Nodes that control has just reached.
+        private final Deque<Node<ScopedStatement>> flowWorklist =
+                new ArrayDeque<Node<ScopedStatement>>();
+        // Reached nodes that read a value that has just changed.
+        private final Deque<Node<ScopedStatement>> ssaWorklist =
+                new ArrayDeque<Node<ScopedStatement>>();
+
+        private Propagation(SsaIntRep ssa) {
+            this.ssa = ssa;
+            this.graph = ssa.getIntRep().getDataFlowGraph();
+        }
+
+        private DataFlowIntRep propagated() {
+            initialize();
+            markExecutable(graph.getStart());
+            while (!flowWorklist.isEmpty() || !ssaWorklist.isEmpty()) {
+                if (!flowWorklist.isEmpty()) {
+                    visit(flowWorklist.pop());
+                } else {
+                    Node<ScopedStatement> node = ssaWorklist.pop();
+                    if (executable.contains(node)) {
+                        visit(node);
+                    }
+                }
+            }
+            return new DataFlowIntRep(rewritten(), ssa.getIntRep().getScope());
+        }
+
+        private void initialize() {
+            // The original variables hold the values from before the method was called.
+            for (ScopedVariable original : ssa.getOriginals().values()) {
+                values.put(original, LatticeValue.VARYING);
+            }
+            for (Node<ScopedStatement> node : graph.getNodes()) {
+                if (!node.hasValue()) {
+                    continue;
+                }
+                for (ScopedVariable read : SsaUtil.reads(node.value())) {
+                    uses.put(read, node);
+                }
+                if (isPhi(node)) {
+                    Node<ScopedStatement> head = node;
+                    while (graph.getPredecessors(head).size() == 1
+                            && isPhi(Iterables.getOnlyElement(graph.getPredecessors(head)))) {
+                        head = Iterables.getOnlyElement(graph.getPredecessors(head));
+                    }
+                    chainHeads.put(node, head);
+                }
+            }
+        }
+
+        private void visit(Node<ScopedStatement> node) {
+            if (node.hasValue()) {
+                StaticStatement statement = node.value().getStatement();
+                Scope scope = node.value().getScope();
+                if (statement instanceof PhiFunction) {
+                    PhiFunction phi = (PhiFunction) statement;
+                    Node<ScopedStatement> head = chainHeads.get(node);
+                    LatticeValue value = LatticeValue.UNDEFINED;
+                    for (Entry<Node<ScopedStatement>, Variable> operand
+                            : phi.getOperands().entrySet()) {
+                        if (executableEdges.containsEntry(operand.getKey(), head)) {
+                            value = value.meet(valueOf(resolved(operand.getValue(), scope)));
+                        }
+                    }
+                    lower(resolved(phi.getTarget(), scope), value);
+                } else {
+                    Optional<ScopedVariable> written = SsaUtil.written(node.value());
+                    if (written.isPresent()) {
+                        Assignment assignment = (Assignment) statement;
+                        lower(written.get(), assignment.getOperation().isAbsolute()
+                                ? evaluate(assignment.getExpression(), scope)
+                                : LatticeValue.VARYING);
+                    }
+                }
+            }
+
+            if (graph.isBranch(node)) {
+                LatticeValue condition = conditionOf(node);
+                if (condition.isConstant()) {
+                    markEdge(node, takenBranch(node, condition));
+                } else if (condition == LatticeValue.VARYING) {
+                    markEdge(node, graph.getNonJumpSuccessor(node));
+                    markEdge(node, graph.getJumpSuccessor(node));
+                }
+            } else {
+                for (Node<ScopedStatement> successor : graph.getSuccessors(node)) {
+                    markEdge(node, successor);
+                }
+            }
+
+            if (isCondition(node)) {
+                // The branch after a condition depends on it, even though it reads nothing.
+                for (Node<ScopedStatement> successor : graph.getSuccessors(node)) {
+                    ssaWorklist.add(successor);
+                }
+            }
+        }
+
+        private void markExecutable(Node<ScopedStatement> node) {
+            if (executable.add(node)) {
+                flowWorklist.add(node);
+            }
+        }
+
+        private void markEdge(Node<ScopedStatement> source, Node<ScopedStatement> sink) {
+            if (!executableEdges.put(source, sink)) {
+                return;
+            }
+            if (!executable.contains(sink)) {
+                markExecutable(sink);
+                return;
+            }
+            // A new edge into a phi chain can change any of its phi functions.
+            for (Node<ScopedStatement> phi = sink; isPhi(phi);
+                    phi = Iterables.getOnlyElement(graph.getSuccessors(phi))) {
+                ssaWorklist.add(phi);
+            }
+        }
+
+        /** Lower a variable's value to meet a new value, and revisit its uses if it changed. */
+        private void lower(ScopedVariable variable, LatticeValue value) {
+            LatticeValue oldValue = valueOf(variable);
+            LatticeValue newValue = oldValue.meet(value);
+            if (newValue.isSameAs(oldValue)) {
+                return;
+            }
+            values.put(variable, newValue);
+            for (Node<ScopedStatement> use : uses.get(variable)) {
+                if (executable.contains(use)) {
+                    ssaWorklist.add(use);
+                }
+            }
+        }
+
+        private LatticeValue valueOf(ScopedVariable variable) {
+            if (values.containsKey(variable)) {
+                return values.get(variable);
+            }
+            // Anything else that isn't a version is out of our hands.
+            return ssa.isVersion(variable) ? LatticeValue.UNDEFINED : LatticeValue.VARYING;
+        }
+
+        private LatticeValue evaluate(NativeExpression expr, Scope scope) {
+            Map<Variable, NativeLiteral> constants = new HashMap<Variable, NativeLiteral>();
+            for (ScopedVariable read : ScopedVariable.getVariablesOf(expr, scope)) {
+                if (!SsaUtil.isRenameable(read)) {
+                    continue;
+                }
+                LatticeValue value = valueOf(read);
+                if (value == LatticeValue.UNDEFINED) {
+                    return LatticeValue.UNDEFINED;
+                } else if (value.isConstant()) {
+                    constants.put(read.getVariable(), value.getConstant());
+                }
+            }
+            NativeExpression folded = ConstantFolder.folded(SsaUtil.replaced(expr, constants));
+            return folded instanceof NativeLiteral
+                    ? LatticeValue.of((NativeLiteral) folded)
+                    : LatticeValue.VARYING;
+        }
+
+        /** Get the value of the condition that a branch node branches on. */
+        private LatticeValue conditionOf(Node<ScopedStatement> branch) {
+            Set<Node<ScopedStatement>> predecessors = graph.getPredecessors(branch);
+            if (predecessors.size() != 1 || !isCondition(Iterables.getOnlyElement(predecessors))) {
+                return LatticeValue.VARYING;
+            }
+            ScopedStatement condition = Iterables.getOnlyElement(predecessors).value();
+            return evaluate(condition.getStatement().getExpression(), condition.getScope());
+        }
+
+        /** Get the successor a branch takes, when its condition has a constant value. */
+        private Node<ScopedStatement> takenBranch(
+                Node<ScopedStatement> branch, LatticeValue condition) {
+            // We jump when the condition is false.
+            return condition.getConstant().get64BitValue() != 0
+                    ? graph.getNonJumpSuccessor(branch)
+                    : graph.getJumpSuccessor(branch);
+        }
+
+        /** Build the new graph, with constants substituted and dead branches pruned. */
+        private BcrFlowGraph<ScopedStatement> rewritten() {
+            BcrFlowGraph.Builder<ScopedStatement> builder = BcrFlowGraph.builderOf(graph);
+            Map<Node<ScopedStatement>, Node<ScopedStatement>> replacements =
+                    new HashMap<Node<ScopedStatement>, Node<ScopedStatement>>();
+
+            for (Node<ScopedStatement> node : executable) {
+                if (graph.isBranch(node)) {
+                    LatticeValue condition = conditionOf(node);
+                    checkState(condition != LatticeValue.UNDEFINED,
+                            "Reached a branch on an undefined condition.");
+                    if (condition.isConstant()) {
+                        builder.keepOnlyBranch(node, takenBranch(node, condition));
+                        // Nothing needs to examine the condition anymore.
+                        Node<ScopedStatement> conditionNode =
+                                Iterables.getOnlyElement(graph.getPredecessors(node));
+                        Node<ScopedStatement> nop = Node.nop();
+                        builder.replace(conditionNode, nop);
+                        replacements.put(conditionNode, nop);
+                    }
+                }
+            }
+            for (Node<ScopedStatement> node : executable) {
+                if (!node.hasValue() || isPhi(node) || replacements.containsKey(node)) {
+                    continue;
+                }
+                StaticStatement statement = node.value().getStatement();
+                StaticStatement newStatement = folded(
+                        SsaUtil.withReadsReplaced(statement, constantReads(node.value())));
+                if (!newStatement.equals(statement)) {
+                    Node<ScopedStatement> newNode = Node.of(
+                            new ScopedStatement(newStatement, node.value().getScope()));
+                    builder.replace(node, newNode);
+                    replacements.put(node, newNode);
+                }
+            }
+
+            // Phi functions are keyed by their predecessors, so we do them last, once we know
+            // the predecessors' new nodes.  Edges that never run don't bring in any operands.
+            for (Node<ScopedStatement> node : executable) {
+                if (!isPhi(node)) {
+                    continue;
+                }
+                PhiFunction phi = (PhiFunction) node.value().getStatement();
+                Scope scope = node.value().getScope();
+                ScopedVariable target = resolved(phi.getTarget(), scope);
+                if (valueOf(target).isConstant() && !isReadByPhi(target)) {
+                    // Every read of the target now reads a literal.  Phi functions can't read
+                    // literals, though, so the target stays defined while one still reads it.
+                    builder.remove(node);
+                    continue;
+                }
+                Node<ScopedStatement> head = chainHeads.get(node);
+                Map<Node<ScopedStatement>, Variable> operands =
+                        new LinkedHashMap<Node<ScopedStatement>, Variable>();
+                for (Entry<Node<ScopedStatement>, Variable> operand
+                        : phi.getOperands().entrySet()) {
+                    Node<ScopedStatement> predecessor = operand.getKey();
+                    if (executableEdges.containsEntry(predecessor, head)) {
+                        operands.put(replacements.containsKey(predecessor)
+                                ? replacements.get(predecessor)
+                                : predecessor,
+                                operand.getValue());
+                    }
+                }
+                builder.replace(node, Node.of(new ScopedStatement(
+                        new PhiFunction(phi.getTarget(), operands), scope)));
+            }
+
+            return builder.removeUnreachable().build();
+        }
+
+        private boolean isReadByPhi(ScopedVariable variable) {
+            for (Node<ScopedStatement> use : uses.get(variable)) {
+                if (isPhi(use) && executable.contains(use)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        /** Get the literal values of the variables a statement reads, where they're known. */
+        private Map<Variable, NativeLiteral> constantReads(ScopedStatement scopedStatement) {
+            Map<Variable, NativeLiteral> constants = new HashMap<Variable, NativeLiteral>();
+            for (ScopedVariable read : SsaUtil.reads(scopedStatement)) {
+                LatticeValue value = valueOf(read);
+                if (value.isConstant()) {
+                    constants.put(read.getVariable(), value.getConstant());
+                }
+            }
+            return constants;
+        }
+
+        private boolean isCondition(Node<ScopedStatement> node) {
+            return node.hasValue() && node.value().getStatement() instanceof Condition;
+        }
+    }
+
+    /** Get a copy of a statement with all of its expressions folded. */
+    private static StaticStatement folded(StaticStatement statement) {
+        if (statement instanceof Assignment) {
+            Assignment assignment = (Assignment) statement;
+            Location location = assignment.getLocation();
+            if (location instanceof ArrayLocation) {
+                location = (Location) ConstantFolder.folded(location);
+            }
+            return new Assignment(location, assignment.getOperation(),
+                    ConstantFolder.folded(assignment.getExpression()),
+                    assignment.getLocationDescriptor(), assignment.getFromCompiler());
+        } else if (statement.hasExpression()) {
+            NativeExpression expr = statement.getExpression();
+            NativeExpression foldedExpr = ConstantFolder.folded(expr);
+            return foldedExpr.equals(expr)
+                    ? statement
+                    : Util.getReplacement(statement, foldedExpr);
+        } else {
+            return statement;
+        }
+    }
+
+    private static ScopedVariable resolved(Variable variable, Scope scope) {
+        return new ScopedVariable(variable, ScopedVariable.getScopeOf(variable, scope));
+    }
+
+    private static boolean isPhi(Node<ScopedStatement> node) {
+        return node.hasValue() && node.value().getStatement() instanceof PhiFunction;
+    }
+}
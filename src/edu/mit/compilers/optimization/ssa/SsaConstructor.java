@@ -0,0 +1,361 @@
+package edu.mit.compilers.optimization.ssa;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Set;
+
+import com.google.common.base.Optional;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.LinkedHashMultimap;
+import com.google.common.collect.Multimap;
+
+import edu.mit.compilers.ast.Assignment;
+import edu.mit.compilers.ast.AssignmentOperation;
+import edu.mit.compilers.ast.BinaryOperation;
+import edu.mit.compilers.ast.BinaryOperator;
+import edu.mit.compilers.ast.NativeExpression;
+import edu.mit.compilers.ast.ScalarLocation;
+import edu.mit.compilers.ast.Scope;
+import edu.mit.compilers.ast.ScopeType;
+import edu.mit.compilers.ast.StaticStatement;
+import edu.mit.compilers.codegen.DataFlowIntRep;
+import edu.mit.compilers.codegen.dataflow.ScopedStatement;
+import edu.mit.compilers.common.Variable;
+import edu.mit.compilers.graph.BasicBlockGraph;
+import edu.mit.compilers.graph.BcrFlowGraph;
+import edu.mit.compilers.graph.DominatorTree;
+import edu.mit.compilers.graph.Node;
+import edu.mit.compilers.optimization.ScopedVariable;
+import edu.mit.compilers.optimization.Util;
+
+/**
+ * Puts a DataFlowIntRep into SSA (static single assignment) form.
+ *
+ * <p>Every write to a local scalar gets a new version of that scalar.  Where versions meet,
+ * at joins, phi functions pick the version for the way that control came in.  Phi
+ * functions go at the iterated dominance frontiers of each variable's writes, as in Cytron
+ * et al., "Efficiently Computing Static Single Assignment Form and the Control Dependence
+ * Graph."  Only variables that are read outside the basic block that writes them get phi
+ * functions, which makes this "semi-pruned" SSA.  Reads are then renamed in one walk over
+ * the dominator tree.
+ *
+ * <p>Relative assignments like x += y are rewritten as absolute ones, x1 = x0 + y, so
+ * every version is written exactly once.  Globals and arrays are never renamed.
+ *
+ * <p>SsaDestructor takes the graph back out of SSA form.
+ */
+public class SsaConstructor {
+    private static final String VERSION_PREFIX = "ssa";
+
+    private final DataFlowIntRep ir;
+    private final BcrFlowGraph<ScopedStatement> graph;
+    private final DominatorTree<ScopedStatement> dominators;
+
+    // The variables that need phi functions at each join, in the order of their phis.
+    private final Multimap<Node<ScopedStatement>, ScopedVariable> phiVariables =
+            LinkedHashMultimap.create();
+    // For each join, for each of its phi functions, the version that comes in from each
+    // predecessor.
+    private final Map<Node<ScopedStatement>, Map<ScopedVariable, Map<Node<ScopedStatement>, Variable>>>
+            phiOperands = new HashMap<Node<ScopedStatement>,
+                    Map<ScopedVariable, Map<Node<ScopedStatement>, Variable>>>();
+    private final Map<Node<ScopedStatement>, Map<ScopedVariable, Variable>> phiTargets =
+            new HashMap<Node<ScopedStatement>, Map<ScopedVariable, Variable>>();
+    private final Map<Node<ScopedStatement>, StaticStatement> renamedStatements =
+            new HashMap<Node<ScopedStatement>, StaticStatement>();
+    // Maps each version to the original variable it's a version of.
+    private final Map<Variable, ScopedVariable> versions =
+            new LinkedHashMap<Variable, ScopedVariable>();
+    // The versions of each original variable that are visible at the current node of the
+    // walk, most recent last.
+    private final Map<ScopedVariable, List<Variable>> visibleVersions =
+            new HashMap<ScopedVariable, List<Variable>>();
+
+    private SsaConstructor(DataFlowIntRep ir) {
+        this.ir = ir;
+        this.graph = ir.getDataFlowGraph();
+        this.dominators = DominatorTree.dominators(graph);
+    }
+
+    /** Get a DataFlowIntRep in SSA form, with the same semantics as the original. */
+    public static SsaIntRep inSsaForm(DataFlowIntRep ir) {
+        return new SsaConstructor(ir).construct();
+    }
+
+    private SsaIntRep construct() {
+        checkArgument(graph.getPredecessors(graph.getStart()).isEmpty(),
+                "Cannot put a graph whose start has predecessors in SSA form.");
+        placePhis();
+        rename();
+        return materialized();
+    }
+
+    /** Decide which variables need phi functions at which joins. */
+    private void placePhis() {
+        Multimap<ScopedVariable, Node<ScopedStatement>> writes = LinkedHashMultimap.create();
+        for (Node<ScopedStatement> node : dominators.getNodes()) {
+            if (node.hasValue()) {
+                Optional<ScopedVariable> written = SsaUtil.written(node.value());
+                if (written.isPresent()) {
+                    writes.put(written.get(), node);
+                }
+            }
+        }
+
+        Set<ScopedVariable> nonLocal = nonLocalVariables();
+        for (ScopedVariable variable : writes.keySet()) {
+            if (!nonLocal.contains(variable)) {
+                continue;
+            }
+            Set<Node<ScopedStatement>> hasPhi = new HashSet<Node<ScopedStatement>>();
+            List<Node<ScopedStatement>> worklist =
+                    new ArrayList<Node<ScopedStatement>>(writes.get(variable));
+            // The start node writes each variable's entry value.
+            worklist.add(graph.getStart());
+            Set<Node<ScopedStatement>> everWorked =
+                    new HashSet<Node<ScopedStatement>>(worklist);
+            while (!worklist.isEmpty()) {
+                Node<ScopedStatement> node = worklist.remove(worklist.size() - 1);
+                for (Node<ScopedStatement> join : dominators.getDominanceFrontier(node)) {
+                    if (hasPhi.add(join)) {
+                        phiVariables.put(join, variable);
+                        // The phi function is a new write, so it has a frontier, too.
+                        if (everWorked.add(join)) {
+                            worklist.add(join);
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Get the variables that are read in some basic block before that block writes them.
+     *
+     * <p>Any other variable is only ever read in the block that wrote it, so it never needs
+     * a phi function.
+     */
+    private Set<ScopedVariable> nonLocalVariables() {
+        Set<ScopedVariable> nonLocal = new HashSet<ScopedVariable>();
+        BasicBlockGraph<ScopedStatement> blocks = BasicBlockGraph.of(graph);
+        for (Node<ImmutableList<Node<ScopedStatement>>> block : blocks.getNodes()) {
+            Set<ScopedVariable> written = new HashSet<ScopedVariable>();
+            for (Node<ScopedStatement> node : block.value()) {
+                if (!node.hasValue()) {
+                    continue;
+                }
+                for (ScopedVariable read : SsaUtil.reads(node.value())) {
+                    if (!written.contains(read)) {
+                        nonLocal.add(read);
+                    }
+                }
+                written.addAll(SsaUtil.written(node.value()).asSet());
+            }
+        }
+        return nonLocal;
+    }
+
+    /** Rename every read and write, walking the dominator tree in preorder. */
+    private void rename() {
+        // An explicit stack, since methods can be long enough to overflow the call stack.
+        List<Iterator<Node<ScopedStatement>>> unvisitedChildren =
+                new ArrayList<Iterator<Node<ScopedStatement>>>();
+        List<List<ScopedVariable>> pushed = new ArrayList<List<ScopedVariable>>();
+        Node<ScopedStatement> root = dominators.getRoot();
+        pushed.add(visit(root));
+        unvisitedChildren.add(dominators.getSuccessors(root).iterator());
+        while (!unvisitedChildren.isEmpty()) {
+            int top = unvisitedChildren.size() - 1;
+            if (unvisitedChildren.get(top).hasNext()) {
+                Node<ScopedStatement> child = unvisitedChildren.get(top).next();
+                pushed.add(visit(child));
+                unvisitedChildren.add(dominators.getSuccessors(child).iterator());
+            } else {
+                // Leaving this subtree, so its versions are no longer visible.
+                for (ScopedVariable variable : pushed.remove(top)) {
+                    List<Variable> stack = visibleVersions.get(variable);
+                    stack.remove(stack.size() - 1);
+                }
+                unvisitedChildren.remove(top);
+            }
+        }
+    }
+
+    /**
+     * Rename the phi functions and the statement at a node, and fill in the operands of its
+     * successors' phi functions.
+     *
+     * @return The variables that got new versions at this node.
+     */
+    private List<ScopedVariable> visit(Node<ScopedStatement> node) {
+        List<ScopedVariable> pushed = new ArrayList<ScopedVariable>();
+        Map<ScopedVariable, Variable> targets = new LinkedHashMap<ScopedVariable, Variable>();
+        for (ScopedVariable variable : phiVariables.get(node)) {
+            targets.put(variable, pushVersion(variable));
+            pushed.add(variable);
+        }
+        phiTargets.put(node, targets);
+
+        if (node.hasValue()) {
+            renamedStatements.put(node, renamed(node.value(), pushed));
+        }
+
+        for (Node<ScopedStatement> successor : graph.getSuccessors(node)) {
+            for (ScopedVariable variable : phiVariables.get(successor)) {
+                operandsOf(successor, variable).put(node, currentVersion(variable));
+            }
+        }
+        return pushed;
+    }
+
+    /** Rename a statement's reads and its write, pushing a new version for its write. */
+    private StaticStatement renamed(ScopedStatement scopedStatement, List<ScopedVariable> pushed) {
+        Map<Variable, Variable> renaming = new HashMap<Variable, Variable>();
+        for (ScopedVariable read : SsaUtil.reads(scopedStatement)) {
+            renaming.put(read.getVariable(), currentVersion(read));
+        }
+        StaticStatement statement =
+                SsaUtil.withReadsRenamed(scopedStatement.getStatement(), renaming);
+
+        Optional<ScopedVariable> written = SsaUtil.written(scopedStatement);
+        if (!written.isPresent()) {
+            return statement;
+        }
+        Assignment assignment = (Assignment) statement;
+        NativeExpression value = assignment.getExpression();
+        if (!assignment.getOperation().isAbsolute()) {
+            BinaryOperator operator =
+                    assignment.getOperation() == AssignmentOperation.PLUS_EQUALS
+                            ? BinaryOperator.PLUS
+                            : BinaryOperator.MINUS;
+            value = new BinaryOperation(operator,
+                    new ScalarLocation(currentVersion(written.get())), value);
+        }
+        Variable version = pushVersion(written.get());
+        pushed.add(written.get());
+        return new Assignment(new ScalarLocation(version), AssignmentOperation.SET_EQUALS,
+                value, assignment.getLocationDescriptor(), assignment.getFromCompiler());
+    }
+
+    private Map<Node<ScopedStatement>, Variable> operandsOf(
+            Node<ScopedStatement> join, ScopedVariable variable) {
+        if (!phiOperands.containsKey(join)) {
+            phiOperands.put(join,
+                    new HashMap<ScopedVariable, Map<Node<ScopedStatement>, Variable>>());
+        }
+        Map<ScopedVariable, Map<Node<ScopedStatement>, Variable>> operands =
+                phiOperands.get(join);
+        if (!operands.containsKey(variable)) {
+            operands.put(variable, new HashMap<Node<ScopedStatement>, Variable>());
+        }
+        return operands.get(variable);
+    }
+
+    /** Make a new version of a variable, and make it the visible one. */
+    private Variable pushVersion(ScopedVariable variable) {
+        Variable version = Variable.forCompiler(VERSION_PREFIX + versions.size());
+        versions.put(version, variable);
+        if (!visibleVersions.containsKey(variable)) {
+            visibleVersions.put(variable, new ArrayList<Variable>());
+        }
+        visibleVersions.get(variable).add(version);
+        return version;
+    }
+
+    /** Get the visible version of a variable.  The variable itself holds its entry value. */
+    private Variable currentVersion(ScopedVariable variable) {
+        List<Variable> stack = visibleVersions.get(variable);
+        return stack == null || stack.isEmpty()
+                ? variable.getVariable()
+                : stack.get(stack.size() - 1);
+    }
+
+    /** Build the SSA graph, with every version declared, and phi functions in place. */
+    private SsaIntRep materialized() {
+        Scope methodScope = ir.getScope();
+        Map<Scope, Scope> newScopes = Util.augmentedScopes(
+                Util.scopeTree(Util.reachableScopes(graph.getNodes())), versions.keySet(),
+                methodScope);
+        Scope versionScope = newScopes.get(methodScope);
+
+        BcrFlowGraph.Builder<ScopedStatement> builder = BcrFlowGraph.builderOf(graph);
+        Map<Node<ScopedStatement>, Node<ScopedStatement>> newNodes =
+                new HashMap<Node<ScopedStatement>, Node<ScopedStatement>>();
+        for (Node<ScopedStatement> node : graph.getNodes()) {
+            if (!node.hasValue()) {
+                newNodes.put(node, node);
+                continue;
+            }
+            // Unreachable statements keep their original names.  They never run, anyway.
+            StaticStatement statement = renamedStatements.containsKey(node)
+                    ? renamedStatements.get(node)
+                    : node.value().getStatement();
+            Node<ScopedStatement> newNode = Node.of(new ScopedStatement(
+                    statement, newScope(node.value().getScope(), newScopes)));
+            builder.replace(node, newNode);
+            newNodes.put(node, newNode);
+        }
+
+        for (Node<ScopedStatement> join : phiVariables.keySet()) {
+            for (ScopedVariable variable : phiVariables.get(join)) {
+                Map<Node<ScopedStatement>, Variable> operands =
+                        new LinkedHashMap<Node<ScopedStatement>, Variable>();
+                for (Node<ScopedStatement> predecessor : graph.getPredecessors(join)) {
+                    // Unreachable predecessors bring in the entry value.
+                    Map<Node<ScopedStatement>, Variable> known = operandsOf(join, variable);
+                    operands.put(newNodes.get(predecessor), known.containsKey(predecessor)
+                            ? known.get(predecessor)
+                            : variable.getVariable());
+                }
+                PhiFunction phi =
+                        new PhiFunction(phiTargets.get(join).get(variable), operands);
+                builder.insertBefore(newNodes.get(join), Node.of(new ScopedStatement(
+                        phi, phiScope(variable, newScopes, versionScope))));
+            }
+        }
+
+        Map<ScopedVariable, ScopedVariable> originals =
+                new LinkedHashMap<ScopedVariable, ScopedVariable>();
+        for (Entry<Variable, ScopedVariable> version : versions.entrySet()) {
+            // Method-level locals are still declared in the method scope, above the versions.
+            Variable original = version.getValue().getVariable();
+            Scope originalScope = ScopedVariable.getScopeOf(original,
+                    newScope(version.getValue().getScope(), newScopes));
+            originals.put(new ScopedVariable(version.getKey(), versionScope),
+                    new ScopedVariable(original, originalScope));
+        }
+        Map<Scope, Scope> originalScopes = new HashMap<Scope, Scope>();
+        for (Entry<Scope, Scope> scope : newScopes.entrySet()) {
+            originalScopes.put(scope.getValue(), scope.getKey());
+        }
+        return new SsaIntRep(new DataFlowIntRep(builder.build(), methodScope),
+                versionScope, originals, originalScopes);
+    }
+
+    private static Scope newScope(Scope scope, Map<Scope, Scope> newScopes) {
+        return newScopes.containsKey(scope)
+                ? newScopes.get(scope)
+                : scope;
+    }
+
+    /**
+     * Get the scope for a variable's phi functions.
+     *
+     * <p>It's the variable's own scope, so that its entry value is visible, unless that's the
+     * parameter scope, where the versions aren't visible.
+     */
+    private static Scope phiScope(ScopedVariable variable, Map<Scope, Scope> newScopes,
+            Scope versionScope) {
+        return variable.getScope().getScopeType() == ScopeType.PARAMETER
+                ? versionScope
+                : newScope(variable.getScope(), newScopes);
+    }
+}
@@ -0,0 +1,575 @@
+package edu.mit.compilers.optimization.ssa;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Set;
+
+import com.google.common.base.Optional;
+import com.google.common.base.Predicate;
+import com.google.common.collect.HashMultimap;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Iterables;
+import com.google.common.collect.LinkedHashMultimap;
+import com.google.common.collect.Multimap;
+
+import edu.mit.compilers.ast.Assignment;
+import edu.mit.compilers.ast.AssignmentOperation;
+import edu.mit.compilers.ast.BinaryOperation;
+import edu.mit.compilers.ast.BinaryOperator;
+import edu.mit.compilers.ast.NativeExpression;
+import edu.mit.compilers.ast.ScalarLocation;
+import edu.mit.compilers.ast.Scope;
+import edu.mit.compilers.ast.ScopeType;
+import edu.mit.compilers.ast.StaticStatement;
+import edu.mit.compilers.codegen.DataFlowIntRep;
+import edu.mit.compilers.codegen.dataflow.ScopedStatement;
+import edu.mit.compilers.common.Variable;
+import edu.mit.compilers.graph.BcrFlowGraph;
+import edu.mit.compilers.graph.Node;
+import edu.mit.compilers.optimization.ScopedVariable;
+import edu.mit.compilers.optimization.Util;
+
+/**
+ * Takes a DataFlowIntRep out of SSA form.
+ *
+ * <p>Each chain of phi functions becomes a set of parallel copies on each edge into the
+ * chain.  Since the copies go on the edges, rather than at the ends of the predecessors,
+ * a copy only runs when control actually takes its edge.  Parallel copies are then ordered
+ * so that no source is overwritten before it's read, using a temp to break cycles.
+ *
+ * <p>Before that, versions are coalesced, as in Budimlic et al., "Fast Copy Coalescing and
+ * Live-Range Identification": a phi function's target and operands are merged into one
+ * variable, and so are the versions of each original variable, wherever their live ranges
+ * don't overlap.  Copies between merged versions disappear.  Straight out of
+ * SsaConstructor, every version merges back into its original variable, so the round trip
+ * gives back the original graph.  Once an optimization has made live ranges overlap, the
+ * versions that can't merge keep names of their own, so each stays a separate live range.
+ */
+public class SsaDestructor {
+    private static final String SWAP_TEMP_NAME = "ssa_swap";
+
+    private final SsaIntRep ssa;
+    private final BcrFlowGraph<ScopedStatement> graph;
+    // Every version, and every original variable.
+    private final Set<ScopedVariable> ssaVariables;
+    // The nodes that write each variable.  The start node writes each entry value.
+    private final Multimap<ScopedVariable, Node<ScopedStatement>> writers =
+            HashMultimap.create();
+    // The scopes of all the statements that mention each variable.
+    private final Multimap<ScopedVariable, Scope> mentions = HashMultimap.create();
+    private final Map<Node<ScopedStatement>, Set<ScopedVariable>> liveOut =
+            new HashMap<Node<ScopedStatement>, Set<ScopedVariable>>();
+
+    // A union-find forest of coalesced variables, and the members of each tree.
+    private final Map<ScopedVariable, ScopedVariable> parents =
+            new HashMap<ScopedVariable, ScopedVariable>();
+    private final Multimap<ScopedVariable, ScopedVariable> members =
+            LinkedHashMultimap.create();
+
+    // The name of each coalesced variable, by the root of its tree.
+    private final Map<ScopedVariable, Variable> names = new HashMap<ScopedVariable, Variable>();
+    // Variables that must be declared for the new graph.
+    private final Set<Variable> temps = new LinkedHashSet<Variable>();
+    // Parameters whose values must be copied into temps on entry, keyed by temp.
+    private final Map<Variable, Variable> entryCopies = new LinkedHashMap<Variable, Variable>();
+
+    private SsaDestructor(SsaIntRep ssa) {
+        this.ssa = ssa;
+        this.graph = ssa.getIntRep().getDataFlowGraph();
+        this.ssaVariables = new LinkedHashSet<ScopedVariable>(ssa.getOriginals().keySet());
+        ssaVariables.addAll(ssa.getOriginals().values());
+    }
+
+    /** Get a DataFlowIntRep with no phi functions, with the same semantics as the original. */
+    public static DataFlowIntRep outOfSsaForm(SsaIntRep ssa) {
+        return new SsaDestructor(ssa).destruct();
+    }
+
+    private DataFlowIntRep destruct() {
+        findMentions();
+        findLiveness();
+        coalesce();
+        nameVariables();
+        return rewritten();
+    }
+
+    /** Find every variable's writers, and the scopes in which it's mentioned. */
+    private void findMentions() {
+        for (ScopedVariable original : ssa.getOriginals().values()) {
+            writers.put(original, graph.getStart());
+        }
+        for (Node<ScopedStatement> node : graph.getNodes()) {
+            if (!node.hasValue()) {
+                continue;
+            }
+            Scope scope = node.value().getScope();
+            for (ScopedVariable read : ssaReads(node.value())) {
+                mentions.put(read, scope);
+            }
+            Optional<ScopedVariable> written = ssaWritten(node.value());
+            if (written.isPresent()) {
+                writers.put(written.get(), node);
+                mentions.put(written.get(), scope);
+            }
+        }
+    }
+
+    /**
+     * Find the variables that are live out of each node.
+     *
+     * <p>In SSA form, a variable is live wherever there's a path from that point to a read
+     * that doesn't pass through a write, so we just walk backwards from each read.  A phi
+     * function's operand is only read at the end of the predecessor that it's keyed by.
+     */
+    private void findLiveness() {
+        for (Node<ScopedStatement> node : graph.getNodes()) {
+            if (!node.hasValue()) {
+                continue;
+            }
+            StaticStatement statement = node.value().getStatement();
+            if (statement instanceof PhiFunction) {
+                Scope scope = node.value().getScope();
+                for (Entry<Node<ScopedStatement>, Variable> operand
+                        : ((PhiFunction) statement).getOperands().entrySet()) {
+                    ScopedVariable read = resolved(operand.getValue(), scope);
+                    if (ssaVariables.contains(read)) {
+                        markLiveOut(operand.getKey(), read);
+                    }
+                }
+            } else {
+                for (ScopedVariable read : ssaReads(node.value())) {
+                    for (Node<ScopedStatement> predecessor : graph.getPredecessors(node)) {
+                        markLiveOut(predecessor, read);
+                    }
+                }
+            }
+        }
+    }
+
+    /** Mark a variable live out of a node, and up through its predecessors until a write. */
+    private void markLiveOut(Node<ScopedStatement> node, ScopedVariable variable) {
+        List<Node<ScopedStatement>> worklist = new ArrayList<Node<ScopedStatement>>();
+        worklist.add(node);
+        while (!worklist.isEmpty()) {
+            Node<ScopedStatement> current = worklist.remove(worklist.size() - 1);
+            if (!liveOut.containsKey(current)) {
+                liveOut.put(current, new HashSet<ScopedVariable>());
+            }
+            if (!liveOut.get(current).add(variable)
+                    || writers.containsEntry(variable, current)) {
+                continue;
+            }
+            worklist.addAll(graph.getPredecessors(current));
+        }
+    }
+
+    /**
+     * Merge phi functions' targets with their operands, and versions with their original
+     * variables, wherever they don't interfere.
+     */
+    private void coalesce() {
+        for (ScopedVariable variable : ssaVariables) {
+            parents.put(variable, variable);
+            members.put(variable, variable);
+        }
+        for (Node<ScopedStatement> node : graph.getNodes()) {
+            if (node.hasValue() && node.value().getStatement() instanceof PhiFunction) {
+                PhiFunction phi = (PhiFunction) node.value().getStatement();
+                Scope scope = node.value().getScope();
+                ScopedVariable target = resolved(phi.getTarget(), scope);
+                for (Variable operand : phi.getOperands().values()) {
+                    ScopedVariable read = resolved(operand, scope);
+                    if (ssaVariables.contains(read)) {
+                        tryToMerge(target, read);
+                    }
+                }
+            }
+        }
+        for (Entry<ScopedVariable, ScopedVariable> version : ssa.getOriginals().entrySet()) {
+            tryToMerge(version.getKey(), version.getValue());
+        }
+    }
+
+    private ScopedVariable find(ScopedVariable variable) {
+        ScopedVariable root = variable;
+        while (!parents.get(root).equals(root)) {
+            root = parents.get(root);
+        }
+        // Compress the path, so later finds are fast.
+        while (!variable.equals(root)) {
+            ScopedVariable parent = parents.get(variable);
+            parents.put(variable, root);
+            variable = parent;
+        }
+        return root;
+    }
+
+    private void tryToMerge(ScopedVariable a, ScopedVariable b) {
+        ScopedVariable rootA = find(a);
+        ScopedVariable rootB = find(b);
+        if (rootA.equals(rootB) || isLiveAtWrites(rootA, rootB) || isLiveAtWrites(rootB, rootA)) {
+            return;
+        }
+        parents.put(rootB, rootA);
+        members.putAll(rootA, members.removeAll(rootB));
+    }
+
+    /**
+     * Returns whether any member of one merged variable is live just after a write to any
+     * member of another.
+     *
+     * <p>In SSA form, two live ranges overlap iff one of them is live just after the other's
+     * write, so this finds every interference.
+     */
+    private boolean isLiveAtWrites(ScopedVariable liveRoot, ScopedVariable writtenRoot) {
+        for (ScopedVariable member : members.get(writtenRoot)) {
+            for (Node<ScopedStatement> writer : writers.get(member)) {
+                if (!liveOut.containsKey(writer)) {
+                    continue;
+                }
+                for (ScopedVariable live : liveOut.get(writer)) {
+                    if (find(live).equals(liveRoot)) {
+                        return true;
+                    }
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Name each merged variable.
+     *
+     * <p>A merged variable keeps the name of an original variable in it, if that name means
+     * that original variable everywhere the merged variable is mentioned.  Otherwise, it's
+     * named after one of its versions, which gets declared for the whole method.
+     */
+    private void nameVariables() {
+        Set<ScopedVariable> originals = new HashSet<ScopedVariable>(ssa.getOriginals().values());
+        for (ScopedVariable root : ImmutableList.copyOf(members.keySet())) {
+            Optional<ScopedVariable> keptOriginal = Optional.absent();
+            for (ScopedVariable member : members.get(root)) {
+                if (originals.contains(member) && meansEverywhere(root, member)) {
+                    keptOriginal = Optional.of(member);
+                    break;
+                }
+            }
+            if (keptOriginal.isPresent()) {
+                names.put(root, keptOriginal.get().getVariable());
+                continue;
+            }
+
+            Variable temp = Iterables.getFirst(members.get(root), root).getVariable();
+            for (ScopedVariable member : members.get(root)) {
+                if (ssa.isVersion(member)) {
+                    temp = member.getVariable();
+                    break;
+                }
+            }
+            names.put(root, temp);
+            temps.add(temp);
+            // A parameter's entry value has to be copied into the temp.  Any other original
+            // variable is written before it's read, so its entry value doesn't matter.
+            for (ScopedVariable member : members.get(root)) {
+                if (originals.contains(member)
+                        && member.getScope().getScopeType() == ScopeType.PARAMETER
+                        && liveOut.containsKey(graph.getStart())
+                        && liveOut.get(graph.getStart()).contains(member)) {
+                    entryCopies.put(temp, member.getVariable());
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns whether an original variable's name refers to that variable in every statement
+     * that mentions any member of a merged variable.
+     */
+    private boolean meansEverywhere(ScopedVariable root, ScopedVariable original) {
+        for (ScopedVariable member : members.get(root)) {
+            for (Scope scope : mentions.get(member)) {
+                if (!refersTo(original.getVariable(), scope, original.getScope())) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    /** Returns whether a name, in some scope, refers to the variable in 'declaringScope'. */
+    private static boolean refersTo(Variable name, Scope scope, Scope declaringScope) {
+        for (Scope ancestor : scope.lineage()) {
+            if (ancestor.isInScopeImmediately(name)) {
+                return ancestor.equals(declaringScope);
+            }
+        }
+        return false;
+    }
+
+    /** Build the new graph, with everything renamed, and copies in place of phi functions. */
+    private DataFlowIntRep rewritten() {
+        Scope methodScope = ssa.getIntRep().getScope();
+        Variable swapTemp = Variable.forCompiler(SWAP_TEMP_NAME);
+        boolean usesSwapTemp = false;
+        BcrFlowGraph.Builder<ScopedStatement> builder = BcrFlowGraph.builderOf(graph);
+
+        // Replace phi functions with copies.  Do this first, while the predecessors that key
+        // the phi functions' operands are still in the graph.
+        Map<Node<ScopedStatement>, List<Copy>> copies =
+                new LinkedHashMap<Node<ScopedStatement>, List<Copy>>();
+        Map<Node<ScopedStatement>, Node<ScopedStatement>> chainHeads =
+                new HashMap<Node<ScopedStatement>, Node<ScopedStatement>>();
+        List<Node<ScopedStatement>> phiNodes = new ArrayList<Node<ScopedStatement>>();
+        for (Node<ScopedStatement> head : graph.getNodes()) {
+            if (!isPhi(head) || Iterables.any(graph.getPredecessors(head), IS_PHI)) {
+                continue;
+            }
+            List<Node<ScopedStatement>> chain = new ArrayList<Node<ScopedStatement>>();
+            for (Node<ScopedStatement> node = head; isPhi(node);
+                    node = Iterables.getOnlyElement(graph.getSuccessors(node))) {
+                chain.add(node);
+            }
+            phiNodes.addAll(chain);
+            for (Node<ScopedStatement> predecessor : graph.getPredecessors(head)) {
+                List<Copy> parallel = new ArrayList<Copy>();
+                for (Node<ScopedStatement> phiNode : chain) {
+                    PhiFunction phi = (PhiFunction) phiNode.value().getStatement();
+                    Scope scope = phiNode.value().getScope();
+                    parallel.add(new Copy(nameOf(phi.getTarget(), scope),
+                            nameOf(phi.getOperand(predecessor), scope), scope));
+                }
+                List<Copy> sequential = sequentialized(parallel, swapTemp);
+                for (Copy copy : sequential) {
+                    usesSwapTemp |= copy.destination.equals(swapTemp);
+                }
+                copies.put(predecessor, sequential);
+                chainHeads.put(predecessor, head);
+            }
+        }
+        if (usesSwapTemp) {
+            temps.add(swapTemp);
+        }
+
+        Map<Scope, Scope> newScopes = newScopes(methodScope);
+        for (Entry<Node<ScopedStatement>, List<Copy>> edge : copies.entrySet()) {
+            Node<ScopedStatement> previous = edge.getKey();
+            Node<ScopedStatement> head = chainHeads.get(previous);
+            for (Copy copy : edge.getValue()) {
+                Node<ScopedStatement> copyNode = Node.of(new ScopedStatement(
+                        Assignment.compilerAssignment(new ScalarLocation(copy.destination),
+                                new ScalarLocation(copy.source)),
+                        newScope(copy.scope, newScopes)));
+                builder.insertOnEdge(previous, head, copyNode);
+                previous = copyNode;
+            }
+        }
+        for (Node<ScopedStatement> phiNode : phiNodes) {
+            builder.remove(phiNode);
+        }
+
+        // Rename everything else.
+        for (Node<ScopedStatement> node : graph.getNodes()) {
+            if (!node.hasValue() || isPhi(node)) {
+                continue;
+            }
+            StaticStatement statement = renamed(node.value());
+            if (isSelfCopy(statement) && graph.getSuccessors(node).size() == 1
+                    && !node.equals(graph.getStart()) && !node.equals(graph.getEnd())) {
+                builder.remove(node);
+            } else {
+                builder.replace(node, Node.of(new ScopedStatement(
+                        statement, newScope(node.value().getScope(), newScopes))));
+            }
+        }
+
+        if (!entryCopies.isEmpty()) {
+            Node<ScopedStatement> start = graph.getStart();
+            Node<ScopedStatement> first = Iterables.getOnlyElement(graph.getSuccessors(start));
+            Node<ScopedStatement> previous = start;
+            for (Entry<Variable, Variable> entryCopy : entryCopies.entrySet()) {
+                Node<ScopedStatement> copyNode = Node.of(new ScopedStatement(
+                        Assignment.compilerAssignment(new ScalarLocation(entryCopy.getKey()),
+                                new ScalarLocation(entryCopy.getValue())),
+                        newScope(ssa.getVersionScope(), newScopes)));
+                builder.insertOnEdge(previous, first, copyNode);
+                previous = copyNode;
+            }
+        }
+
+        return new DataFlowIntRep(builder.build(), methodScope);
+    }
+
+    /** Map each original scope to a copy that declares the temps, if there are any. */
+    private Map<Scope, Scope> newScopes(Scope methodScope) {
+        if (temps.isEmpty()) {
+            return new HashMap<Scope, Scope>();
+        }
+        Set<Scope> originalScopes = new HashSet<Scope>();
+        for (Node<ScopedStatement> node : graph.getNodes()) {
+            if (node.hasValue()) {
+                Iterables.addAll(originalScopes,
+                        ssa.getOriginalScope(node.value().getScope()).lineage());
+            }
+        }
+        return Util.augmentedScopes(Util.scopeTree(originalScopes), temps, methodScope);
+    }
+
+    /** Get the new scope for a scope of the SSA graph. */
+    private Scope newScope(Scope scope, Map<Scope, Scope> newScopes) {
+        Scope original = ssa.getOriginalScope(scope);
+        return newScopes.containsKey(original)
+                ? newScopes.get(original)
+                : original;
+    }
+
+    /**
+     * Rename a statement's variables to the names of their merged variables.
+     *
+     * <p>Where that turns x1 = x0 + y into x = x + y, we give back x += y.
+     */
+    private StaticStatement renamed(ScopedStatement scopedStatement) {
+        Map<Variable, Variable> renaming = new HashMap<Variable, Variable>();
+        for (ScopedVariable read : ssaReads(scopedStatement)) {
+            renaming.put(read.getVariable(), names.get(find(read)));
+        }
+        StaticStatement statement =
+                SsaUtil.withReadsRenamed(scopedStatement.getStatement(), renaming);
+
+        Optional<ScopedVariable> written = ssaWritten(scopedStatement);
+        if (!written.isPresent()) {
+            return statement;
+        }
+        Assignment assignment = (Assignment) statement;
+        Variable name = names.get(find(written.get()));
+        AssignmentOperation operation = assignment.getOperation();
+        NativeExpression value = assignment.getExpression();
+        if (operation == AssignmentOperation.SET_EQUALS && value instanceof BinaryOperation) {
+            BinaryOperation binaryOperation = (BinaryOperation) value;
+            boolean isPlus = binaryOperation.getOperator() == BinaryOperator.PLUS;
+            boolean isMinus = binaryOperation.getOperator() == BinaryOperator.MINUS;
+            if ((isPlus || isMinus)
+                    && binaryOperation.getLeftArgument().equals(new ScalarLocation(name))) {
+                operation = isPlus
+                        ? AssignmentOperation.PLUS_EQUALS
+                        : AssignmentOperation.MINUS_EQUALS;
+                value = binaryOperation.getRightArgument();
+            }
+        }
+        return new Assignment(new ScalarLocation(name), operation, value,
+                assignment.getLocationDescriptor(), assignment.getFromCompiler());
+    }
+
+    private static boolean isSelfCopy(StaticStatement statement) {
+        if (!(statement instanceof Assignment)) {
+            return false;
+        }
+        Assignment assignment = (Assignment) statement;
+        return assignment.getOperation() == AssignmentOperation.SET_EQUALS
+                && assignment.getLocation() instanceof ScalarLocation
+                && assignment.getExpression().equals(assignment.getLocation());
+    }
+
+    /**
+     * Order a set of parallel copies so that no source is overwritten before it's read.
+     *
+     * <p>Copies whose destinations aren't sources of other copies go first.  When only
+     * cycles are left, like a = b, b = a, one destination is saved in 'swapTemp', and the
+     * copies that read it read the temp instead.
+     */
+    private static List<Copy> sequentialized(List<Copy> parallel, Variable swapTemp) {
+        List<Copy> pending = new ArrayList<Copy>();
+        for (Copy copy : parallel) {
+            if (!copy.destination.equals(copy.source)) {
+                pending.add(copy);
+            }
+        }
+        List<Copy> sequential = new ArrayList<Copy>();
+        while (!pending.isEmpty()) {
+            Set<Variable> sources = new HashSet<Variable>();
+            for (Copy copy : pending) {
+                sources.add(copy.source);
+            }
+            Copy ready = null;
+            for (Copy copy : pending) {
+                if (!sources.contains(copy.destination)) {
+                    ready = copy;
+                    break;
+                }
+            }
+            if (ready != null) {
+                sequential.add(ready);
+                pending.remove(ready);
+                continue;
+            }
+            // Everything left is on a cycle.  Break one.
+            Copy broken = pending.get(0);
+            sequential.add(new Copy(swapTemp, broken.destination, broken.scope));
+            for (int i = 0; i < pending.size(); i++) {
+                Copy copy = pending.get(i);
+                if (copy.source.equals(broken.destination)) {
+                    pending.set(i, new Copy(copy.destination, swapTemp, copy.scope));
+                }
+            }
+        }
+        return sequential;
+    }
+
+    private Variable nameOf(Variable variable, Scope scope) {
+        ScopedVariable resolved = resolved(variable, scope);
+        return ssaVariables.contains(resolved)
+                ? names.get(find(resolved))
+                : variable;
+    }
+
+    private Set<ScopedVariable> ssaReads(ScopedStatement scopedStatement) {
+        Set<ScopedVariable> reads = new LinkedHashSet<ScopedVariable>();
+        for (ScopedVariable read : SsaUtil.reads(scopedStatement)) {
+            if (ssaVariables.contains(read)) {
+                reads.add(read);
+            }
+        }
+        return reads;
+    }
+
+    private Optional<ScopedVariable> ssaWritten(ScopedStatement scopedStatement) {
+        Optional<ScopedVariable> written = SsaUtil.written(scopedStatement);
+        return written.isPresent() && ssaVariables.contains(written.get())
+                ? written
+                : Optional.<ScopedVariable>absent();
+    }
+
+    private static ScopedVariable resolved(Variable variable, Scope scope) {
+        return new ScopedVariable(variable, ScopedVariable.getScopeOf(variable, scope));
+    }
+
+    private static boolean isPhi(Node<ScopedStatement> node) {
+        return node.hasValue() && node.value().getStatement() instanceof PhiFunction;
+    }
+
+    private static final Predicate<Node<ScopedStatement>> IS_PHI =
+            new Predicate<Node<ScopedStatement>>() {
+                @Override
+                public boolean apply(Node<ScopedStatement> node) {
+                    return isPhi(node);
+                }
+            };
+
+    /** A copy, destination = source, to be made in some scope. */
+    private static final class Copy {
+        private final Variable destination;
+        private final Variable source;
+        private final Scope scope;
+
+        private Copy(Variable destination, Variable source, Scope scope) {
+            this.destination = destination;
+            this.source = source;
+            this.scope = scope;
+        }
+    }
+}
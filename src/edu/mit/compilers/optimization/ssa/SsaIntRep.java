@@ -0,0 +1,80 @@
+package edu.mit.compilers.optimization.ssa;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+import java.util.Map;
+
+import com.google.common.collect.ImmutableMap;
+
+import edu.mit.compilers.ast.Scope;
+import edu.mit.compilers.codegen.DataFlowIntRep;
+import edu.mit.compilers.optimization.ScopedVariable;
+
+/**
+ * A DataFlowIntRep in SSA form, along with what it takes to get back out of SSA form.
+ *
+ * <p>Every version is a new variable, declared in one scope that's visible to the whole
+ * method.  Each version remembers the variable it's a version of.  Each scope of the SSA
+ * graph remembers the scope of the original graph that it's a copy of.
+ *
+ * <p>The original variables are still the versions that hold their values on entry to the
+ * method.  Like the versions, they're stated in terms of the SSA graph's scopes.
+ */
+public class SsaIntRep {
+    private final DataFlowIntRep ir;
+    private final Scope versionScope;
+    private final ImmutableMap<ScopedVariable, ScopedVariable> originals;
+    private final ImmutableMap<Scope, Scope> originalScopes;
+
+    public SsaIntRep(DataFlowIntRep ir, Scope versionScope,
+            Map<ScopedVariable, ScopedVariable> originals, Map<Scope, Scope> originalScopes) {
+        this.ir = ir;
+        this.versionScope = versionScope;
+        this.originals = ImmutableMap.copyOf(originals);
+        this.originalScopes = ImmutableMap.copyOf(originalScopes);
+    }
+
+    /**
+     * Get a copy of this SSA form, but with a new graph.
+     *
+     * <p>The new graph must still be in SSA form, and it must not introduce any versions.
+     */
+    public SsaIntRep withIntRep(DataFlowIntRep newIr) {
+        return new SsaIntRep(newIr, versionScope, originals, originalScopes);
+    }
+
+    public DataFlowIntRep getIntRep() {
+        return ir;
+    }
+
+    /** Get the scope in which every version is declared. */
+    public Scope getVersionScope() {
+        return versionScope;
+    }
+
+    /** Get every version, mapped to the original variable it's a version of. */
+    public ImmutableMap<ScopedVariable, ScopedVariable> getOriginals() {
+        return originals;
+    }
+
+    public boolean isVersion(ScopedVariable variable) {
+        return originals.containsKey(variable);
+    }
+
+    /** Get the original variable that a version is a version of. */
+    public ScopedVariable getOriginal(ScopedVariable version) {
+        checkArgument(isVersion(version), "%s is not an SSA version.", version);
+        return originals.get(version);
+    }
+
+    /**
+     * Get the scope of the original graph that a scope of the SSA graph is a copy of.
+     *
+     * <p>Returns the scope itself if it isn't a copy, e.g. if a later pass made it.
+     */
+    public Scope getOriginalScope(Scope scope) {
+        return originalScopes.containsKey(scope)
+                ? originalScopes.get(scope)
+                : scope;
+    }
+}
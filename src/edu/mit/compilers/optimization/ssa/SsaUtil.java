@@ -0,0 +1,157 @@
+package edu.mit.compilers.optimization.ssa;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Set;
+
+import com.google.common.base.Optional;
+import com.google.common.collect.ImmutableSet;
+
+import edu.mit.compilers.ast.ArrayLocation;
+import edu.mit.compilers.ast.Assignment;
+import edu.mit.compilers.ast.Location;
+import edu.mit.compilers.ast.NativeExpression;
+import edu.mit.compilers.ast.ScalarLocation;
+import edu.mit.compilers.ast.Scope;
+import edu.mit.compilers.ast.StaticStatement;
+import edu.mit.compilers.codegen.dataflow.ScopedStatement;
+import edu.mit.compilers.common.Variable;
+import edu.mit.compilers.optimization.ScopedVariable;
+import edu.mit.compilers.optimization.Util;
+
+/** Helpers for getting into and out of SSA form. */
+final class SsaUtil {
+    private SsaUtil() {}
+
+    /**
+     * Returns whether a variable gets versions in SSA form.
+     *
+     * <p>Only local scalars do.  Method calls can write globals behind our backs, and a write
+     * to one element of an array doesn't redefine the rest of it.
+     */
+    static boolean isRenameable(ScopedVariable variable) {
+        return !variable.isGlobal() && !variable.isArray();
+    }
+
+    /** Get the renameable variables that a statement reads. */
+    static Set<ScopedVariable> reads(ScopedStatement scopedStatement) {
+        StaticStatement statement = scopedStatement.getStatement();
+        Scope scope = scopedStatement.getScope();
+        ImmutableSet.Builder<ScopedVariable> reads = ImmutableSet.builder();
+        if (statement instanceof PhiFunction) {
+            for (Variable operand : ((PhiFunction) statement).getOperands().values()) {
+                reads.add(new ScopedVariable(operand, ScopedVariable.getScopeOf(operand, scope)));
+            }
+        }
+        if (statement.hasExpression()) {
+            reads.addAll(ScopedVariable.getVariablesOf(statement.getExpression(), scope));
+        }
+        if (statement instanceof Assignment) {
+            Assignment assignment = (Assignment) statement;
+            Location location = assignment.getLocation();
+            if (location instanceof ArrayLocation) {
+                reads.addAll(ScopedVariable.getVariablesOf(
+                        ((ArrayLocation) location).getIndex(), scope));
+            } else if (!assignment.getOperation().isAbsolute()) {
+                // The LHS is read by statements like x += 1.
+                reads.add(ScopedVariable.getAssigned(assignment, scope));
+            }
+        }
+
+        ImmutableSet.Builder<ScopedVariable> renameable = ImmutableSet.builder();
+        for (ScopedVariable read : reads.build()) {
+            if (isRenameable(read)) {
+                renameable.add(read);
+            }
+        }
+        return renameable.build();
+    }
+
+    /** Get the renameable variable that a statement writes, if there is one. */
+    static Optional<ScopedVariable> written(ScopedStatement scopedStatement) {
+        StaticStatement statement = scopedStatement.getStatement();
+        Scope scope = scopedStatement.getScope();
+        if (statement instanceof PhiFunction) {
+            Variable target = ((PhiFunction) statement).getTarget();
+            return Optional.of(
+                    new ScopedVariable(target, ScopedVariable.getScopeOf(target, scope)));
+        }
+        if (statement instanceof Assignment
+                && ((Assignment) statement).getLocation() instanceof ScalarLocation) {
+            ScopedVariable assigned =
+                    ScopedVariable.getAssigned((Assignment) statement, scope);
+            if (isRenameable(assigned)) {
+                return Optional.of(assigned);
+            }
+        }
+        return Optional.absent();
+    }
+
+    /** Get a copy of an expression, with some scalar variables renamed. */
+    static NativeExpression renamed(NativeExpression expr, Map<Variable, Variable> renaming) {
+        return replaced(expr, asLocations(renaming));
+    }
+
+    /** Get a copy of an expression, with some scalar variables replaced by expressions. */
+    static NativeExpression replaced(NativeExpression expr,
+            Map<Variable, ? extends NativeExpression> replacements) {
+        NativeExpression replaced = expr;
+        for (Entry<Variable, ? extends NativeExpression> entry : replacements.entrySet()) {
+            ScalarLocation location = new ScalarLocation(entry.getKey());
+            if (!location.equals(entry.getValue())) {
+                replaced = replaced.withReplacements(location, entry.getValue());
+            }
+        }
+        return replaced;
+    }
+
+    /**
+     * Get a copy of a statement, with some variables renamed wherever they're read.
+     *
+     * <p>A scalar on the left of an assignment keeps its name, even if the assignment reads
+     * it.  Phi functions are left alone.
+     *
+     * <p>Requires that no variable is renamed to a variable that's also renamed.
+     */
+    static StaticStatement withReadsRenamed(
+            StaticStatement statement, Map<Variable, Variable> renaming) {
+        return withReadsReplaced(statement, asLocations(renaming));
+    }
+
+    /**
+     * Get a copy of a statement, with some scalar variables replaced by expressions wherever
+     * they're read.  See #withReadsRenamed.
+     */
+    static StaticStatement withReadsReplaced(StaticStatement statement,
+            Map<Variable, ? extends NativeExpression> replacements) {
+        if (statement instanceof Assignment) {
+            Assignment assignment = (Assignment) statement;
+            Location location = assignment.getLocation();
+            if (location instanceof ArrayLocation) {
+                ArrayLocation arrayLocation = (ArrayLocation) location;
+                location = arrayLocation.withIndex(
+                        replaced(arrayLocation.getIndex(), replacements));
+            }
+            return new Assignment(location, assignment.getOperation(),
+                    replaced(assignment.getExpression(), replacements),
+                    assignment.getLocationDescriptor(), assignment.getFromCompiler());
+        } else if (statement.hasExpression()) {
+            NativeExpression expr = statement.getExpression();
+            NativeExpression replacedExpr = replaced(expr, replacements);
+            return replacedExpr.equals(expr)
+                    ? statement
+                    : Util.getReplacement(statement, replacedExpr);
+        } else {
+            return statement;
+        }
+    }
+
+    private static Map<Variable, ScalarLocation> asLocations(Map<Variable, Variable> renaming) {
+        Map<Variable, ScalarLocation> locations = new HashMap<Variable, ScalarLocation>();
+        for (Entry<Variable, Variable> entry : renaming.entrySet()) {
+            locations.put(entry.getKey(), new ScalarLocation(entry.getValue()));
+        }
+        return locations;
+    }
+}
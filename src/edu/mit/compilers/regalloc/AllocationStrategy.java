@@ -0,0 +1,28 @@
+package edu.mit.compilers.regalloc;
+
+import java.util.Map;
+
+import edu.mit.compilers.codegen.asm.Register;
+import edu.mit.compilers.codegen.dataflow.ScopedStatement;
+import edu.mit.compilers.graph.BcrFlowGraph;
+
+/** The ways we can assign registers to the live ranges of a method. */
+public enum AllocationStrategy {
+    /** Color the conflict graph of the live ranges.  Slower, but packs registers tighter. */
+    GRAPH_COLORING {
+        @Override
+        public Map<LiveRange, Register> allocations(BcrFlowGraph<ScopedStatement> dfg) {
+            return RegisterAllocator.allocations(dfg);
+        }
+    },
+    /** Scan the live ranges in program order.  Fast, for big methods and quick builds. */
+    LINEAR_SCAN {
+        @Override
+        public Map<LiveRange, Register> allocations(BcrFlowGraph<ScopedStatement> dfg) {
+            return LinearScanAllocator.allocations(dfg);
+        }
+    };
+
+    /** Map each live range of a method to a register that can hold its variable's values. */
+    public abstract Map<LiveRange, Register> allocations(BcrFlowGraph<ScopedStatement> dfg);
+}
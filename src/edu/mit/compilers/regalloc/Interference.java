@@ -0,0 +1,300 @@
+package edu.mit.compilers.regalloc;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import com.google.common.base.Supplier;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.LinkedHashMultimap;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Multimap;
+import com.google.common.collect.Sets;
+import com.google.common.collect.Table;
+import com.google.common.collect.Tables;
+
+import edu.mit.compilers.ast.Scope;
+import edu.mit.compilers.codegen.dataflow.ScopedStatement;
+import edu.mit.compilers.graph.BcrFlowGraph;
+import edu.mit.compilers.graph.Graphs;
+import edu.mit.compilers.graph.Node;
+import edu.mit.compilers.optimization.CopySpec;
+import edu.mit.compilers.optimization.DataFlowAnalyzer;
+import edu.mit.compilers.optimization.DataFlowSolution;
+import edu.mit.compilers.optimization.ReachingDefinition;
+import edu.mit.compilers.optimization.ScopedVariable;
+import edu.mit.compilers.optimization.Util;
+
+/**
+ * The live ranges of a method's local scalars, and which of them may not share a register.
+ *
+ * <p>Each (node, variable) pair where a variable is defined or used is an element of a
+ * union-find, and each def-use chain joins its two ends.  The resulting sets are the webs.  A
+ * web is live at its definitions and uses, and at every node where its variable is live and
+ * one of its definitions reaches.
+ *
+ * <p>Following Chaitin, interferences are only found at definitions: the defined web
+ * interferes with every other web that is live after the node.  That's one pass over the
+ * method, rather than a comparison of every pair of ranges.  The two ends of a copy don't
+ * interfere there, and are recorded as a copy instead.
+ *
+ * <p>The nodes are visited in reverse postorder, and every table keeps its insertion order,
+ * so the webs are numbered the same way on every run.
+ */
+final class Interference {
+
+    private static final DataFlowAnalyzer<ScopedStatement, ScopedVariable> LIVE_SCALARS =
+            new DataFlowAnalyzer<ScopedStatement, ScopedVariable>(new LiveScalarSpec());
+
+    private final List<LiveRange> liveRanges;
+    private final List<LiveRange[]> interferences;
+    private final List<LiveRange[]> copies;
+
+    private Interference(List<LiveRange> liveRanges, List<LiveRange[]> interferences,
+            List<LiveRange[]> copies) {
+        this.liveRanges = liveRanges;
+        this.interferences = interferences;
+        this.copies = copies;
+    }
+
+    /**
+     * Finds the live ranges of a method.
+     *
+     * <p>Variables that are live on entry, like parameters, get no live ranges, since their
+     * values arrive elsewhere.  Neither do definitions that are never used.
+     */
+    public static Interference of(BcrFlowGraph<ScopedStatement> dfg) {
+        DataFlowSolution<ScopedStatement, ReachingDefinition> reachingDefs =
+                DataFlowAnalyzer.REACHING_DEFINITIONS.solve(dfg);
+        DataFlowSolution<ScopedStatement, ScopedVariable> liveOuts = LIVE_SCALARS.solve(dfg);
+        Set<ScopedVariable> liveOnEntry = ImmutableSet.copyOf(liveOuts.getInputs(dfg.getStart()));
+        List<Node<ScopedStatement>> order = reversePostorder(dfg);
+
+        // Join each use to the definitions that reach it.
+        Table<Node<ScopedStatement>, ScopedVariable, Integer> elements = linkedTable();
+        UnionFind webs = new UnionFind();
+        for (Node<ScopedStatement> node : order) {
+            Set<ScopedVariable> uses = uses(node);
+            if (uses.isEmpty()) {
+                continue;
+            }
+            Multimap<ScopedVariable, Node<ScopedStatement>> defs =
+                    definitionsOf(uses, reachingDefs.getInputs(node));
+            for (ScopedVariable var : uses) {
+                int use = element(elements, webs, node, var);
+                for (Node<ScopedStatement> def : defs.get(var)) {
+                    webs.union(use, element(elements, webs, def, var));
+                }
+            }
+        }
+
+        // Sweep the live variables of each node into the webs they belong to.
+        Table<Node<ScopedStatement>, ScopedVariable, Integer> webAt = linkedTable();
+        for (Node<ScopedStatement> node : order) {
+            Set<ScopedVariable> liveIn = Sets.newLinkedHashSet(liveOuts.getInputs(node));
+            liveIn.removeAll(Util.getRedefinedVariables(node));
+            liveIn.addAll(uses(node));
+            liveIn.removeAll(liveOnEntry);
+            Multimap<ScopedVariable, Node<ScopedStatement>> defs =
+                    definitionsOf(liveIn, reachingDefs.getInputs(node));
+            for (ScopedVariable var : liveIn) {
+                Integer element = elements.get(node, var);
+                if (element == null && !defs.get(var).isEmpty()) {
+                    // Every definition that reaches here is in the same web.
+                    element = elements.get(defs.get(var).iterator().next(), var);
+                }
+                if (element != null) {
+                    webAt.put(node, var, webs.find(element));
+                }
+            }
+            for (ScopedVariable var : localDefinitions(node)) {
+                Integer element = elements.get(node, var);
+                if (element != null && !liveOnEntry.contains(var)) {
+                    webAt.put(node, var, webs.find(element));
+                }
+            }
+        }
+
+        Map<Integer, LiveRange> liveRanges = liveRanges(webAt);
+        ImmutableList.Builder<LiveRange[]> interferences = ImmutableList.builder();
+        ImmutableList.Builder<LiveRange[]> copies = ImmutableList.builder();
+        for (Node<ScopedStatement> node : order) {
+            Map<ScopedVariable, Integer> nodeWebs = webAt.row(node);
+            Set<ScopedVariable> copied = CopySpec.isCopy(node)
+                    ? ImmutableSet.of(CopySpec.getCopy(node), CopySpec.getCopySource(node))
+                    : ImmutableSet.<ScopedVariable>of();
+            for (ScopedVariable def : localDefinitions(node)) {
+                if (!nodeWebs.containsKey(def)) {
+                    continue;
+                }
+                LiveRange defined = liveRanges.get(nodeWebs.get(def));
+                for (ScopedVariable live : liveOuts.getInputs(node)) {
+                    if (live.equals(def) || !nodeWebs.containsKey(live)
+                            || (copied.contains(def) && copied.contains(live))) {
+                        continue;
+                    }
+                    interferences.add(
+                            new LiveRange[] {defined, liveRanges.get(nodeWebs.get(live))});
+                }
+            }
+            if (!copied.isEmpty() && nodeWebs.keySet().containsAll(copied)) {
+                LiveRange target = liveRanges.get(nodeWebs.get(CopySpec.getCopy(node)));
+                LiveRange source = liveRanges.get(nodeWebs.get(CopySpec.getCopySource(node)));
+                copies.add(new LiveRange[] {target, source});
+            }
+        }
+        return new Interference(ImmutableList.copyOf(liveRanges.values()),
+                interferences.build(), copies.build());
+    }
+
+    /** Gets the live ranges of the method, in the order their webs first appear. */
+    public List<LiveRange> getLiveRanges() {
+        return liveRanges;
+    }
+
+    /**
+     * Gets the pairs of ranges that may not share a register.
+     *
+     * <p>A pair may appear more than once.
+     */
+    public List<LiveRange[]> getInterferences() {
+        return interferences;
+    }
+
+    /** Gets the pairs of ranges joined by a copy, which would be free if they shared one. */
+    public List<LiveRange[]> getCopies() {
+        return copies;
+    }
+
+    /** Builds the live range of each web from the nodes it was found at. */
+    private static Map<Integer, LiveRange> liveRanges(
+            Table<Node<ScopedStatement>, ScopedVariable, Integer> webAt) {
+        Multimap<Integer, Node<ScopedStatement>> nodes = LinkedHashMultimap.create();
+        Map<Integer, ScopedVariable> variables = Maps.newLinkedHashMap();
+        for (Table.Cell<Node<ScopedStatement>, ScopedVariable, Integer> cell : webAt.cellSet()) {
+            nodes.put(cell.getValue(), cell.getRowKey());
+            variables.put(cell.getValue(), cell.getColumnKey());
+        }
+        Map<Integer, LiveRange> liveRanges = Maps.newLinkedHashMap();
+        for (Integer web : nodes.keySet()) {
+            liveRanges.put(web, new LiveRange(variables.get(web), nodes.get(web)));
+        }
+        return liveRanges;
+    }
+
+    /** Gets the nodes of a method in reverse postorder, then those the walk can't reach. */
+    private static List<Node<ScopedStatement>> reversePostorder(
+            BcrFlowGraph<ScopedStatement> dfg) {
+        List<Node<ScopedStatement>> order =
+                Lists.newArrayList(Graphs.reversePostorder(dfg, dfg.getStart()));
+        Set<Node<ScopedStatement>> reached = ImmutableSet.copyOf(order);
+        for (Node<ScopedStatement> node : dfg.getNodes()) {
+            if (!reached.contains(node)) {
+                order.add(node);
+            }
+        }
+        return order;
+    }
+
+    /** Makes an empty table whose rows and columns keep their insertion order. */
+    private static <R, C, V> Table<R, C, V> linkedTable() {
+        return Tables.newCustomTable(Maps.<R, Map<C, V>>newLinkedHashMap(),
+                new Supplier<Map<C, V>>() {
+                    @Override
+                    public Map<C, V> get() {
+                        return Maps.newLinkedHashMap();
+                    }
+                });
+    }
+
+    /** Gets the local scalars that a node reads. */
+    private static Set<ScopedVariable> uses(Node<ScopedStatement> node) {
+        return node.hasValue()
+                ? DefUseChain.localScalarDependencies(node.value())
+                : ImmutableSet.<ScopedVariable>of();
+    }
+
+    /** Gets the local scalars that a node writes. */
+    private static Set<ScopedVariable> localDefinitions(Node<ScopedStatement> node) {
+        if (!node.hasValue()) {
+            return ImmutableSet.of();
+        }
+        ImmutableSet.Builder<ScopedVariable> defs = ImmutableSet.builder();
+        Scope globalScope = node.value().getScope().getGlobalScope();
+        for (ScopedVariable var : Util.getRedefinedVariables(node)) {
+            if (!var.getScope().equals(globalScope) && !var.isArray()) {
+                defs.add(var);
+            }
+        }
+        return defs.build();
+    }
+
+    /** Groups the definitions of some variables among those reaching a node. */
+    private static Multimap<ScopedVariable, Node<ScopedStatement>> definitionsOf(
+            Set<ScopedVariable> variables, Collection<ReachingDefinition> reachingDefs) {
+        Multimap<ScopedVariable, Node<ScopedStatement>> defs = LinkedHashMultimap.create();
+        for (ReachingDefinition reachingDef : reachingDefs) {
+            if (variables.contains(reachingDef.getScopedVariable())) {
+                defs.put(reachingDef.getScopedVariable(), reachingDef.getNode());
+            }
+        }
+        return defs;
+    }
+
+    /** Gets the union-find element of a variable at a node, making one if there isn't one. */
+    private static int element(Table<Node<ScopedStatement>, ScopedVariable, Integer> elements,
+            UnionFind webs, Node<ScopedStatement> node, ScopedVariable var) {
+        Integer element = elements.get(node, var);
+        if (element == null) {
+            element = webs.add();
+            elements.put(node, var, element);
+        }
+        return element;
+    }
+
+    /** Disjoint sets of ints, with path halving and union by size. */
+    private static final class UnionFind {
+        private int[] parents = new int[16];
+        private int[] sizes = new int[16];
+        private int size = 0;
+
+        /** Adds a new element in a set of its own, and returns it. */
+        public int add() {
+            if (size == parents.length) {
+                parents = Arrays.copyOf(parents, 2 * size);
+                sizes = Arrays.copyOf(sizes, 2 * size);
+            }
+            parents[size] = size;
+            sizes[size] = 1;
+            return size++;
+        }
+
+        /** Gets the representative of an element's set. */
+        public int find(int element) {
+            while (parents[element] != element) {
+                parents[element] = parents[parents[element]];
+                element = parents[element];
+            }
+            return element;
+        }
+
+        public void union(int first, int second) {
+            first = find(first);
+            second = find(second);
+            if (first == second) {
+                return;
+            }
+            if (sizes[first] < sizes[second]) {
+                int swap = first;
+                first = second;
+                second = swap;
+            }
+            parents[second] = first;
+            sizes[first] += sizes[second];
+        }
+    }
+}
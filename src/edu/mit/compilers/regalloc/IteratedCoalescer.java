@@ -0,0 +1,398 @@
+package edu.mit.compilers.regalloc;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Maps;
+
+import edu.mit.compilers.codegen.asm.Register;
+
+/**
+ * Colors an interference graph of live ranges by iterated register coalescing (George and
+ * Appel).
+ *
+ * <p>Nodes are sorted into worklists by degree: low-degree nodes without moves, low-degree
+ * nodes with moves, and high-degree nodes.  Low-degree nodes without moves are simplified
+ * away.  Moves are coalesced when the Briggs test (or the George test, for a register) shows
+ * that the merged node can still be colored.  When neither works, a move-related node is
+ * frozen, giving up on its moves.  When only high-degree nodes are left, the one with the
+ * lowest spill cost per edge is pushed optimistically, and may still find a register.
+ *
+ * <p>Registers that only some ranges may use are precolored nodes.  The ranges that may not
+ * use them interfere with them.
+ *
+ * <p>A spilled range simply gets no register: unallocated ranges already live in memory, so
+ * there's nothing to rewrite.
+ */
+final class IteratedCoalescer {
+    private static final int NO_COLOR = -1;
+
+    private final List<Register> registers;
+    private final int k;
+    private final int numRanges;
+    private final List<LiveRange> ranges;
+    private final double[] spillCosts;
+
+    // The interference graph.  Precolored nodes come after the ranges, and keep no adjacency
+    // lists, since their degree is effectively infinite.
+    private final BitSet[] adjacencies;
+    private final List<List<Integer>> adjacencyLists;
+    private final int[] degrees;
+
+    // Moves are pairs of nodes, indexed by position in 'moves'.
+    private final List<int[]> moves;
+    private final List<Set<Integer>> moveLists;
+
+    private final int[] aliases;
+    private final int[] colors;
+
+    // The node worklists, and the other sets that each node is in exactly one of.
+    private final Set<Integer> simplifyWorklist = new LinkedHashSet<Integer>();
+    private final Set<Integer> freezeWorklist = new LinkedHashSet<Integer>();
+    private final Set<Integer> spillWorklist = new LinkedHashSet<Integer>();
+    private final BitSet coalescedNodes = new BitSet();
+    private final BitSet onStack = new BitSet();
+    private final Deque<Integer> selectStack = new ArrayDeque<Integer>();
+
+    // The moves that might still be coalesced.  The rest are coalesced, constrained or frozen,
+    // and no longer matter.
+    private final Set<Integer> worklistMoves = new LinkedHashSet<Integer>();
+    private final Set<Integer> activeMoves = new LinkedHashSet<Integer>();
+
+    /**
+     * @param ranges The live ranges to allocate.
+     * @param interferences Pairs of ranges that may not share a register.
+     * @param copies Pairs of ranges that would rather share a register.
+     * @param spillCosts Roughly how many loads and stores keeping each range in memory costs.
+     * @param registers Every register that may be allocated.
+     * @param restrictedRegisters The registers that only some ranges may use.
+     * @param restrictedRanges The ranges that may not use the restricted registers.
+     */
+    public IteratedCoalescer(List<LiveRange> ranges, Iterable<LiveRange[]> interferences,
+            Iterable<LiveRange[]> copies, Map<LiveRange, Double> spillCosts,
+            List<Register> registers, List<Register> restrictedRegisters,
+            Set<LiveRange> restrictedRanges) {
+        this.registers = ImmutableList.copyOf(registers);
+        this.k = registers.size();
+        this.numRanges = ranges.size();
+        this.ranges = ImmutableList.copyOf(ranges);
+
+        int numNodes = numRanges + restrictedRegisters.size();
+        this.spillCosts = new double[numRanges];
+        this.adjacencies = new BitSet[numNodes];
+        this.adjacencyLists = new ArrayList<List<Integer>>(numNodes);
+        this.degrees = new int[numNodes];
+        this.moveLists = new ArrayList<Set<Integer>>(numNodes);
+        this.aliases = new int[numNodes];
+        this.colors = new int[numNodes];
+        for (int node = 0; node < numNodes; node++) {
+            adjacencies[node] = new BitSet(numNodes);
+            adjacencyLists.add(new ArrayList<Integer>());
+            moveLists.add(new LinkedHashSet<Integer>());
+            aliases[node] = node;
+            colors[node] = node < numRanges
+                    ? NO_COLOR
+                    : registers.indexOf(restrictedRegisters.get(node - numRanges));
+        }
+
+        Map<LiveRange, Integer> indices = Maps.newLinkedHashMap();
+        for (int node = 0; node < numRanges; node++) {
+            indices.put(ranges.get(node), node);
+            this.spillCosts[node] = spillCosts.get(ranges.get(node));
+        }
+        for (LiveRange[] pair : interferences) {
+            addEdge(indices.get(pair[0]), indices.get(pair[1]));
+        }
+        for (LiveRange range : restrictedRanges) {
+            for (int register = numRanges; register < numNodes; register++) {
+                addEdge(indices.get(range), register);
+            }
+        }
+        this.moves = new ArrayList<int[]>();
+        for (LiveRange[] pair : copies) {
+            int move = moves.size();
+            int[] ends = {indices.get(pair[0]), indices.get(pair[1])};
+            moves.add(ends);
+            moveLists.get(ends[0]).add(move);
+            moveLists.get(ends[1]).add(move);
+            worklistMoves.add(move);
+        }
+    }
+
+    /** Map each range that gets a register to its register. */
+    public Map<LiveRange, Register> allocations() {
+        makeWorklists();
+        while (!simplifyWorklist.isEmpty() || !worklistMoves.isEmpty()
+                || !freezeWorklist.isEmpty() || !spillWorklist.isEmpty()) {
+            if (!simplifyWorklist.isEmpty()) {
+                simplify();
+            } else if (!worklistMoves.isEmpty()) {
+                coalesce();
+            } else if (!freezeWorklist.isEmpty()) {
+                freeze();
+            } else {
+                selectSpill();
+            }
+        }
+        assignColors();
+
+        ImmutableMap.Builder<LiveRange, Register> allocations = ImmutableMap.builder();
+        for (int node = 0; node < numRanges; node++) {
+            if (colors[node] != NO_COLOR) {
+                allocations.put(ranges.get(node), registers.get(colors[node]));
+            }
+        }
+        return allocations.build();
+    }
+
+    private boolean isPrecolored(int node) {
+        return node >= numRanges;
+    }
+
+    private void addEdge(int u, int v) {
+        if (u == v || adjacencies[u].get(v)) {
+            return;
+        }
+        adjacencies[u].set(v);
+        adjacencies[v].set(u);
+        if (!isPrecolored(u)) {
+            adjacencyLists.get(u).add(v);
+            degrees[u]++;
+        }
+        if (!isPrecolored(v)) {
+            adjacencyLists.get(v).add(u);
+            degrees[v]++;
+        }
+    }
+
+    private void makeWorklists() {
+        for (int node = 0; node < numRanges; node++) {
+            if (degrees[node] >= k) {
+                spillWorklist.add(node);
+            } else if (isMoveRelated(node)) {
+                freezeWorklist.add(node);
+            } else {
+                simplifyWorklist.add(node);
+            }
+        }
+    }
+
+    /** Get a node's neighbors that are still in the graph. */
+    private List<Integer> adjacent(int node) {
+        List<Integer> adjacent = new ArrayList<Integer>();
+        for (int neighbor : adjacencyLists.get(node)) {
+            if (!onStack.get(neighbor) && !coalescedNodes.get(neighbor)) {
+                adjacent.add(neighbor);
+            }
+        }
+        return adjacent;
+    }
+
+    /** Get a node's moves that might still be coalesced. */
+    private List<Integer> nodeMoves(int node) {
+        List<Integer> nodeMoves = new ArrayList<Integer>();
+        for (int move : moveLists.get(node)) {
+            if (activeMoves.contains(move) || worklistMoves.contains(move)) {
+                nodeMoves.add(move);
+            }
+        }
+        return nodeMoves;
+    }
+
+    private boolean isMoveRelated(int node) {
+        return !nodeMoves(node).isEmpty();
+    }
+
+    private void simplify() {
+        Iterator<Integer> it = simplifyWorklist.iterator();
+        int node = it.next();
+        it.remove();
+        selectStack.push(node);
+        onStack.set(node);
+        for (int neighbor : adjacent(node)) {
+            decrementDegree(neighbor);
+        }
+    }
+
+    private void decrementDegree(int node) {
+        if (isPrecolored(node)) {
+            return;
+        }
+        int degree = degrees[node]--;
+        if (degree == k) {
+            enableMoves(node);
+            for (int neighbor : adjacent(node)) {
+                enableMoves(neighbor);
+            }
+            spillWorklist.remove(node);
+            if (isMoveRelated(node)) {
+                freezeWorklist.add(node);
+            } else {
+                simplifyWorklist.add(node);
+            }
+        }
+    }
+
+    /** Give a node's moves another chance, since one of its neighbors may now be simplified. */
+    private void enableMoves(int node) {
+        for (int move : nodeMoves(node)) {
+            if (activeMoves.remove(move)) {
+                worklistMoves.add(move);
+            }
+        }
+    }
+
+    private void coalesce() {
+        Iterator<Integer> it = worklistMoves.iterator();
+        int move = it.next();
+        it.remove();
+        int x = alias(moves.get(move)[0]);
+        int y = alias(moves.get(move)[1]);
+        int u = isPrecolored(y) ? y : x;
+        int v = isPrecolored(y) ? x : y;
+        if (u == v) {
+            addWorklist(u);
+        } else if (isPrecolored(v) || adjacencies[u].get(v)) {
+            // The move is constrained: its ends can never share a register.
+            addWorklist(u);
+            addWorklist(v);
+        } else if (isPrecolored(u) ? georgeTest(u, v) : briggsTest(u, v)) {
+            combine(u, v);
+            addWorklist(u);
+        } else {
+            activeMoves.add(move);
+        }
+    }
+
+    /** Move a low-degree node that has no more moves to the simplify worklist. */
+    private void addWorklist(int node) {
+        if (!isPrecolored(node) && !isMoveRelated(node) && degrees[node] < k) {
+            freezeWorklist.remove(node);
+            simplifyWorklist.add(node);
+        }
+    }
+
+    /** Every neighbor of 'v' will be simplified, or already interferes with register 'u'. */
+    private boolean georgeTest(int u, int v) {
+        for (int neighbor : adjacent(v)) {
+            if (degrees[neighbor] >= k && !isPrecolored(neighbor)
+                    && !adjacencies[neighbor].get(u)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /** The merged node would have fewer than k neighbors of high degree. */
+    private boolean briggsTest(int u, int v) {
+        BitSet neighbors = new BitSet();
+        for (int neighbor : adjacent(u)) {
+            neighbors.set(neighbor);
+        }
+        for (int neighbor : adjacent(v)) {
+            neighbors.set(neighbor);
+        }
+        int highDegree = 0;
+        for (int neighbor = neighbors.nextSetBit(0); neighbor >= 0;
+                neighbor = neighbors.nextSetBit(neighbor + 1)) {
+            if (isPrecolored(neighbor) || degrees[neighbor] >= k) {
+                highDegree++;
+            }
+        }
+        return highDegree < k;
+    }
+
+    private int alias(int node) {
+        while (coalescedNodes.get(node)) {
+            node = aliases[node];
+        }
+        return node;
+    }
+
+    /** Merge 'v' into 'u'. */
+    private void combine(int u, int v) {
+        if (!freezeWorklist.remove(v)) {
+            spillWorklist.remove(v);
+        }
+        coalescedNodes.set(v);
+        aliases[v] = u;
+        moveLists.get(u).addAll(moveLists.get(v));
+        enableMoves(v);
+        for (int neighbor : adjacent(v)) {
+            addEdge(neighbor, u);
+            decrementDegree(neighbor);
+        }
+        if (!isPrecolored(u)) {
+            spillCosts[u] += spillCosts[v];
+            if (degrees[u] >= k && freezeWorklist.remove(u)) {
+                spillWorklist.add(u);
+            }
+        }
+    }
+
+    private void freeze() {
+        Iterator<Integer> it = freezeWorklist.iterator();
+        int node = it.next();
+        it.remove();
+        simplifyWorklist.add(node);
+        freezeMoves(node);
+    }
+
+    /** Give up on coalescing a node's moves. */
+    private void freezeMoves(int node) {
+        for (int move : nodeMoves(node)) {
+            int x = moves.get(move)[0];
+            int y = moves.get(move)[1];
+            int other = alias(y) == alias(node) ? alias(x) : alias(y);
+            activeMoves.remove(move);
+            worklistMoves.remove(move);
+            if (!isPrecolored(other) && !isMoveRelated(other) && degrees[other] < k
+                    && freezeWorklist.remove(other)) {
+                simplifyWorklist.add(other);
+            }
+        }
+    }
+
+    /** Push the high-degree node that costs the least to spill, per edge it removes. */
+    private void selectSpill() {
+        int cheapest = -1;
+        for (int node : spillWorklist) {
+            if (cheapest == -1 || spillCosts[node] * degrees[cheapest]
+                    < spillCosts[cheapest] * degrees[node]) {
+                cheapest = node;
+            }
+        }
+        spillWorklist.remove(cheapest);
+        simplifyWorklist.add(cheapest);
+        freezeMoves(cheapest);
+    }
+
+    private void assignColors() {
+        while (!selectStack.isEmpty()) {
+            int node = selectStack.pop();
+            BitSet okColors = new BitSet(k);
+            okColors.set(0, k);
+            for (int neighbor : adjacencyLists.get(node)) {
+                int color = colors[alias(neighbor)];
+                if (color != NO_COLOR) {
+                    okColors.clear(color);
+                }
+            }
+            // Nodes left without a color are spilled.
+            colors[node] = okColors.isEmpty() ? NO_COLOR : okColors.nextSetBit(0);
+        }
+        for (int node = coalescedNodes.nextSetBit(0); node >= 0;
+                node = coalescedNodes.nextSetBit(node + 1)) {
+            colors[node] = colors[alias(node)];
+        }
+    }
+}
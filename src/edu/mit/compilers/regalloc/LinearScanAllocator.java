@@ -0,0 +1,156 @@
+package edu.mit.compilers.regalloc;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Maps;
+
+import edu.mit.compilers.codegen.asm.Register;
+import edu.mit.compilers.codegen.dataflow.ScopedStatement;
+import edu.mit.compilers.graph.BcrFlowGraph;
+import edu.mit.compilers.graph.Graphs;
+import edu.mit.compilers.graph.Node;
+
+/**
+ * Allocates registers by a linear scan over the live ranges (Poletto and Sarkar).
+ *
+ * <p>The nodes of the method are laid out in reverse postorder, and each live range is widened
+ * to the interval between its first and last node.  The intervals are visited by start, and
+ * each takes a register that no live interval holds.  When none is free, whichever interval
+ * ends last goes without.
+ *
+ * <p>This never builds a conflict graph, so it's much faster than the RegisterAllocator on big
+ * methods.  Since intervals are wider than the live ranges they stand for, it may need more
+ * registers to hold the same ranges.
+ */
+public class LinearScanAllocator {
+
+    private LinearScanAllocator() {}
+
+    public static Map<LiveRange, Register> allocations(BcrFlowGraph<ScopedStatement> dfg) {
+        Map<Node<ScopedStatement>, Integer> positions = positions(dfg);
+        List<Interval> intervals = new ArrayList<Interval>();
+        for (LiveRange range : RegisterAllocator.liveRanges(dfg)) {
+            intervals.add(new Interval(range, positions));
+        }
+        Collections.sort(intervals, BY_START);
+
+        Map<LiveRange, Register> allocations = Maps.newLinkedHashMap();
+        // The intervals that hold registers, sorted by end.
+        List<Interval> active = new ArrayList<Interval>();
+        Deque<Register> free = new ArrayDeque<Register>(RegisterAllocator.REGISTERS);
+        for (Interval interval : intervals) {
+            expire(active, interval, allocations, free);
+            Register register;
+            if (!free.isEmpty()) {
+                register = free.pop();
+            } else {
+                Interval last = active.get(active.size() - 1);
+                if (last.end <= interval.end) {
+                    // This interval ends last, so it's the one to go without.
+                    continue;
+                }
+                register = allocations.remove(last.range);
+                active.remove(last);
+            }
+            allocations.put(interval.range, register);
+            activate(active, interval);
+        }
+        return ImmutableMap.copyOf(allocations);
+    }
+
+    /**
+     * Frees the registers of the intervals that end before an interval starts.
+     *
+     * <p>An interval that ends where the new one starts is freed too, if they are the two
+     * ends of a copy.  The new interval gets its register, so that the copy is a move from a
+     * register to itself.
+     */
+    private static void expire(List<Interval> active, Interval interval,
+            Map<LiveRange, Register> allocations, Deque<Register> free) {
+        for (Iterator<Interval> it = active.iterator(); it.hasNext();) {
+            Interval candidate = it.next();
+            if (candidate.end < interval.start) {
+                free.add(allocations.get(candidate.range));
+                it.remove();
+            } else if (candidate.end == interval.start
+                    && LiveRange.copyRelated(candidate.range, interval.range)) {
+                free.push(allocations.get(candidate.range));
+                it.remove();
+            } else if (candidate.end > interval.start) {
+                // The rest end later still.
+                return;
+            }
+        }
+    }
+
+    /** Adds an interval to the active list, keeping it sorted by end. */
+    private static void activate(List<Interval> active, Interval interval) {
+        int index = Collections.binarySearch(active, interval, BY_END);
+        active.add(index < 0 ? -index - 1 : index, interval);
+    }
+
+    /**
+     * Numbers the nodes of a method in reverse postorder from its start.
+     *
+     * <p>Nodes that the walk can't reach come last.
+     */
+    private static Map<Node<ScopedStatement>, Integer> positions(
+            BcrFlowGraph<ScopedStatement> dfg) {
+        Map<Node<ScopedStatement>, Integer> positions = Maps.newLinkedHashMap();
+        for (Node<ScopedStatement> node : Graphs.reversePostorder(dfg, dfg.getStart())) {
+            positions.put(node, positions.size());
+        }
+        for (Node<ScopedStatement> node : dfg.getNodes()) {
+            if (!positions.containsKey(node)) {
+                positions.put(node, positions.size());
+            }
+        }
+        return positions;
+    }
+
+    private static final Comparator<Interval> BY_START = new Comparator<Interval>() {
+        @Override
+        public int compare(Interval first, Interval second) {
+            return first.start != second.start
+                    ? Integer.compare(first.start, second.start)
+                    : Integer.compare(first.end, second.end);
+        }
+    };
+
+    private static final Comparator<Interval> BY_END = new Comparator<Interval>() {
+        @Override
+        public int compare(Interval first, Interval second) {
+            return Integer.compare(first.end, second.end);
+        }
+    };
+
+    /** A live range, widened to the positions from its first node to its last. */
+    private static final class Interval {
+        private final LiveRange range;
+        private final int start;
+        private final int end;
+
+        public Interval(LiveRange range, Map<Node<ScopedStatement>, Integer> positions) {
+            int start = Integer.MAX_VALUE;
+            int end = Integer.MIN_VALUE;
+            Set<Node<ScopedStatement>> nodes = range.getLiveNodes();
+            for (Node<ScopedStatement> node : nodes) {
+                int position = positions.get(node);
+                start = Math.min(start, position);
+                end = Math.max(end, position);
+            }
+            this.range = range;
+            this.start = start;
+            this.end = end;
+        }
+    }
+}
@@ -1,21 +1,21 @@
 package edu.mit.compilers.regalloc;
 
-import java.util.Collection;
 import java.util.Set;
 
-import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Iterables;
 import com.google.common.collect.Sets;
 
 import edu.mit.compilers.codegen.dataflow.ScopedStatement;
-import edu.mit.compilers.graph.Graph;
 import edu.mit.compilers.graph.Node;
+import edu.mit.compilers.optimization.CopySpec;
 import edu.mit.compilers.optimization.ScopedVariable;
 
 /**
  * The set of DFG nodes over which a definition web of a variable is live.
  *
- * <p>Excludes the node at which the definition goes dead!
+ * <p>Includes the nodes that define and use the web, and each node that the variable is live
+ * into and that one of the web's definitions reaches.
  */
 public class LiveRange {
     private final ScopedVariable scopedVariable;
@@ -34,33 +34,25 @@ public class LiveRange {
         return liveNodes;
     }
 
-    /** Gets the conflict graph for some live ranges. */
-    public static Graph<LiveRange> conflictGraph(Collection<LiveRange> liveRanges) {
-        ImmutableList.Builder<Node<LiveRange>> conflictGraphNodesBuilder =
-                ImmutableList.builder();
-        for (LiveRange liveRange : liveRanges) {
-            conflictGraphNodesBuilder.add(Node.of(liveRange));
-        }
-        ImmutableList<Node<LiveRange>> conflictGraphNodes = conflictGraphNodesBuilder.build();
-
-        Graph.Builder<LiveRange> conflictGraphBuilder = Graph.builder();
-        // Loop over all pairs of live ranges. (We'll consider each pair twice.  It's easier.)
-        for (Node<LiveRange> firstRange : conflictGraphNodes) {
-            conflictGraphBuilder.addNode(firstRange);
-            for (Node<LiveRange> secondRange : conflictGraphNodes) {
-                if (conflict(firstRange.value(), secondRange.value())) {
-                    conflictGraphBuilder.link(firstRange, secondRange);
-                }
-            }
+    /**
+     * Returns whether two LiveRanges only meet at a copy from one to the other.
+     *
+     * <p>Such ranges may share a register, and if they do, the copy costs nothing.
+     */
+    public static boolean copyRelated(LiveRange first, LiveRange second) {
+        Set<Node<ScopedStatement>> shared =
+                Sets.intersection(first.getLiveNodes(), second.getLiveNodes());
+        if (shared.size() != 1) {
+            return false;
         }
-        return conflictGraphBuilder.build();
-    }
-
-    /** Returns whether two LiveRanges overlap. */
-    private static boolean conflict(LiveRange first, LiveRange second) {
-        if (first.equals(second)) {
+        Node<ScopedStatement> node = Iterables.getOnlyElement(shared);
+        if (!CopySpec.isCopy(node)) {
             return false;
         }
-        return !Sets.intersection(first.getLiveNodes(), second.getLiveNodes()).isEmpty();
+        Set<ScopedVariable> copied =
+                ImmutableSet.of(CopySpec.getCopy(node), CopySpec.getCopySource(node));
+        return !first.getScopedVariable().equals(second.getScopedVariable())
+                && copied.contains(first.getScopedVariable())
+                && copied.contains(second.getScopedVariable());
     }
 }
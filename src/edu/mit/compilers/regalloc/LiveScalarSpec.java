@@ -0,0 +1,67 @@
+package edu.mit.compilers.regalloc;
+
+import static edu.mit.compilers.optimization.Util.getRedefinedVariables;
+
+import java.util.Collection;
+import java.util.Set;
+
+import com.google.common.base.Predicate;
+import com.google.common.base.Predicates;
+import com.google.common.collect.ImmutableSet;
+
+import edu.mit.compilers.codegen.dataflow.ScopedStatement;
+import edu.mit.compilers.graph.Node;
+import edu.mit.compilers.optimization.AnalysisSpec;
+import edu.mit.compilers.optimization.ScopedVariable;
+
+/**
+ * Finds the local scalars that are live after each node.
+ *
+ * <p>Unlike the LivenessSpec, a dead assignment still reads its operands.  The code we generate
+ * for it does read their registers, so the allocator must keep them there, and a call must not
+ * lose them.
+ */
+public class LiveScalarSpec implements AnalysisSpec<ScopedStatement, ScopedVariable> {
+
+    @Override
+    public boolean isForward() {
+        return false;
+    }
+
+    @Override
+    public Set<ScopedVariable> getGenSet(Node<ScopedStatement> node,
+            Collection<ScopedVariable> inputs) {
+        return node.hasValue()
+                ? DefUseChain.localScalarDependencies(node.value())
+                : ImmutableSet.<ScopedVariable>of();
+    }
+
+    @Override
+    public boolean genDependsOnInputs() {
+        return false;
+    }
+
+    @Override
+    public Predicate<ScopedVariable> getKillPredicate(Node<ScopedStatement> currentNode) {
+        final Set<ScopedVariable> redefined = getRedefinedVariables(currentNode);
+        if (redefined.isEmpty()) {
+            return Predicates.alwaysFalse();
+        }
+        return new Predicate<ScopedVariable>() {
+            @Override
+            public boolean apply(ScopedVariable candidate) {
+                return redefined.contains(candidate);
+            }
+        };
+    }
+
+    @Override
+    public Confluence getConfluence() {
+        return Confluence.UNION;
+    }
+
+    @Override
+    public boolean gensImmuneToKills() {
+        return true;
+    }
+}
@@ -4,95 +4,146 @@ import static edu.mit.compilers.codegen.asm.Register.R12;
 import static edu.mit.compilers.codegen.asm.Register.R13;
 import static edu.mit.compilers.codegen.asm.Register.R14;
 import static edu.mit.compilers.codegen.asm.Register.R15;
+import static edu.mit.compilers.codegen.asm.Register.R8;
+import static edu.mit.compilers.codegen.asm.Register.R9;
 import static edu.mit.compilers.codegen.asm.Register.RBX;
+import static edu.mit.compilers.codegen.asm.Register.RCX;
+import static edu.mit.compilers.codegen.asm.Register.RDI;
+import static edu.mit.compilers.codegen.asm.Register.RDX;
+import static edu.mit.compilers.codegen.asm.Register.RSI;
 
 import java.util.List;
 import java.util.Map;
-import java.util.Map.Entry;
 import java.util.Set;
 
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
-import com.google.common.collect.ImmutableMultimap;
 import com.google.common.collect.ImmutableSet;
-import com.google.common.collect.Multimap;
+import com.google.common.collect.Maps;
 
+import edu.mit.compilers.ast.Scope;
+import edu.mit.compilers.ast.ScopeType;
 import edu.mit.compilers.codegen.asm.Register;
 import edu.mit.compilers.codegen.dataflow.ScopedStatement;
 import edu.mit.compilers.graph.BcrFlowGraph;
-import edu.mit.compilers.graph.Graph;
-import edu.mit.compilers.graph.Graphs;
 import edu.mit.compilers.graph.Node;
-import edu.mit.compilers.optimization.DataFlowAnalyzer;
-import edu.mit.compilers.optimization.ReachingDefinition;
 import edu.mit.compilers.optimization.ScopedVariable;
+import edu.mit.compilers.optimization.Util;
+import edu.mit.compilers.optimization.loops.LoopNestingForest;
 
 public class RegisterAllocator {
 
-    /** The registers we can allocate. */
+    /** The callee-saved registers we can allocate.  Each method saves them on entry. */
     public static final List<Register> REGISTERS =
             ImmutableList.of(R12, R13, R14, R15, RBX);
 
+    /**
+     * The caller-saved registers we can allocate, to ranges that don't span a call.
+     *
+     * <p>These are the argument registers, in order, so a method may only use the ones that
+     * none of its own parameters arrive in.  RAX, R10 and R11 are left out, since code
+     * generation uses them as scratch registers.
+     */
+    public static final List<Register> CALLER_SAVED_REGISTERS =
+            ImmutableList.of(RDI, RSI, RDX, RCX, R8, R9);
+
+    /** How many times more often a loop body runs than the code around it, as a guess. */
+    private static final double LOOP_WEIGHT = 10;
+
+    /** The depth past which we stop weighting loops, so that costs don't overflow. */
+    private static final int MAX_LOOP_DEPTH = 8;
+
     private RegisterAllocator() {}
 
     public static Map<LiveRange, Register> allocations(BcrFlowGraph<ScopedStatement> dfg) {
-        Multimap<Node<ScopedStatement>, ReachingDefinition> reachingDefs =
-                DataFlowAnalyzer.REACHING_DEFINITIONS.calculate(dfg);
-        Multimap<ScopedVariable, DefUseChain> defUseChains = DefUseChain.getDefUseChains(reachingDefs);
-        Multimap<ScopedVariable, Web> webs = getWebs(defUseChains);
-        Set<LiveRange> liveRanges = getLiveRanges(webs, dfg);
-        Graph<LiveRange> conflictGraph = LiveRange.conflictGraph(liveRanges);
-        return getAllocations(conflictGraph);
+        Interference interference = Interference.of(dfg);
+        List<LiveRange> liveRanges = interference.getLiveRanges();
+        List<Register> callerSaved = getFreeCallerSavedRegisters(dfg);
+        List<Register> registers = ImmutableList.<Register>builder()
+                .addAll(REGISTERS)
+                .addAll(callerSaved)
+                .build();
+        return new IteratedCoalescer(liveRanges, interference.getInterferences(),
+                interference.getCopies(), getSpillCosts(liveRanges, dfg), registers, callerSaved,
+                getCallSpanningRanges(liveRanges)).allocations();
     }
 
-    /** For each key, map the set of def-use chains to a (probably smaller) set of webs. */
-    private static Multimap<ScopedVariable, Web> getWebs(
-            Multimap<ScopedVariable, DefUseChain> defUseChains) {
-        ImmutableMultimap.Builder<ScopedVariable, Web> websBuilder = ImmutableMultimap.builder();
-        for (ScopedVariable variable : defUseChains.keySet()) {
-            websBuilder.putAll(variable, Web.webs(defUseChains.get(variable)));
-        }
-        return websBuilder.build();
+    /** Gets the live ranges of every web of every variable in a method. */
+    static List<LiveRange> liveRanges(BcrFlowGraph<ScopedStatement> dfg) {
+        return Interference.of(dfg).getLiveRanges();
     }
 
-    /** Gets the live ranges represented by some webs. */
-    private static Set<LiveRange> getLiveRanges(
-            Multimap<ScopedVariable, Web> webs,
+    /** Gets the caller-saved registers that no parameter of the method arrives in. */
+    private static List<Register> getFreeCallerSavedRegisters(
             BcrFlowGraph<ScopedStatement> dfg) {
-        ImmutableSet.Builder<LiveRange> liveRangesBuilder = ImmutableSet.builder();
-        for (Entry<ScopedVariable, Web> entry: webs.entries()) {
-            liveRangesBuilder.add(getLiveRange(entry.getKey(), entry.getValue(), dfg));
+        for (Node<ScopedStatement> node : dfg.getNodes()) {
+            if (!node.hasValue()) {
+                continue;
+            }
+            for (Scope scope : node.value().getScope().lineage()) {
+                if (scope.getScopeType() == ScopeType.PARAMETER) {
+                    int numRegisters = CALLER_SAVED_REGISTERS.size();
+                    int numParameters = Math.min(scope.getVariables().size(), numRegisters);
+                    return CALLER_SAVED_REGISTERS.subList(numParameters, numRegisters);
+                }
+            }
+        }
+        // There are no statements, so there's nothing to allocate.
+        return ImmutableList.of();
+    }
+
+    /** Gets the ranges that are live at a call, which may clobber caller-saved registers. */
+    private static Set<LiveRange> getCallSpanningRanges(Iterable<LiveRange> liveRanges) {
+        ImmutableSet.Builder<LiveRange> spanning = ImmutableSet.builder();
+        for (LiveRange range : liveRanges) {
+            for (Node<ScopedStatement> node : range.getLiveNodes()) {
+                if (node.hasValue() && node.value().getStatement().hasExpression()
+                        && Util.containsMethodCall(node.value().getStatement().getExpression())) {
+                    spanning.add(range);
+                    break;
+                }
+            }
         }
-        return liveRangesBuilder.build();
+        return spanning.build();
     }
 
     /**
-     * Gets the LiveRange of a web.
+     * Estimates how much keeping each range in memory would cost.
      *
-     * @param variable The variable whose liveness this web represents.
-     * @param web A web of def-use chains for this variable.
-     * @param dfg The Data Flow Graph, for determining which nodes are part of the live range.
+     * <p>Each statement that reads or writes the range's variable costs one, times
+     * LOOP_WEIGHT for each loop around it.
      */
-    private static LiveRange
-            getLiveRange(ScopedVariable variable, Web web, BcrFlowGraph<ScopedStatement> dfg) {
-        ImmutableSet.Builder<Node<ScopedStatement>> nodes = ImmutableSet.builder();
-        for (DefUseChain duChain : web) {
-            nodes.addAll(Graphs.closedRange(dfg, duChain.getDef(), duChain.getUse()));
+    private static Map<LiveRange, Double> getSpillCosts(Iterable<LiveRange> liveRanges,
+            BcrFlowGraph<ScopedStatement> dfg) {
+        LoopNestingForest<ScopedStatement> loops = LoopNestingForest.of(dfg);
+        Map<Node<ScopedStatement>, Double> weights = Maps.newLinkedHashMap();
+        for (Node<ScopedStatement> node : dfg.getNodes()) {
+            int depth = Math.min(loops.getDepth(node), MAX_LOOP_DEPTH);
+            weights.put(node, Math.pow(LOOP_WEIGHT, depth));
         }
-        return new LiveRange(variable, nodes.build());
-    }
 
-    /** Map each live range to a register that can hold its variable's values. */
-    private static Map<LiveRange, Register> getAllocations(
-            Graph<LiveRange> conflictGraph) {
-
-        Map<Node<LiveRange>, Register> coloredGraph;
-        coloredGraph = Graphs.colored(conflictGraph, ImmutableSet.copyOf(REGISTERS));
+        ImmutableMap.Builder<LiveRange, Double> costs = ImmutableMap.builder();
+        for (LiveRange range : liveRanges) {
+            double cost = 0;
+            for (Node<ScopedStatement> node : range.getLiveNodes()) {
+                if (mentions(node, range.getScopedVariable())) {
+                    cost += weights.get(node);
+                }
+            }
+            costs.put(range, cost);
+        }
+        return costs.build();
+    }
 
-        ImmutableMap.Builder<LiveRange, Register> allocations = ImmutableMap.builder();
-        for (Node<LiveRange> node : coloredGraph.keySet()) {
-            allocations.put(node.value(), coloredGraph.get(node));
+    /** Returns whether a node reads or writes a variable. */
+    private static boolean mentions(Node<ScopedStatement> node, ScopedVariable variable) {
+        if (!node.hasValue()) {
+            return false;
+        }
+        if (Util.getRedefinedVariables(node).contains(variable)) {
+            return true;
         }
-        return allocations.build();
+        return node.value().getStatement().hasExpression()
+                && ScopedVariable.getVariablesOf(node.value()).contains(variable);
     }
 }
@@ -5,32 +5,50 @@ import java.util.List;
 
 import edu.mit.compilers.ast.Program;
 import edu.mit.compilers.semantics.errors.SemanticError;
+import edu.mit.compilers.tools.Profiler;
 
 public class SemanticChecker {
     private Program prog;
     private List<SemanticError> errors = new ArrayList<SemanticError>();
 
+    private final Profiler profiler;
+
     public SemanticChecker(Program ir) {
+        this(ir, Profiler.disabled());
+    }
+
+    public SemanticChecker(Program ir, Profiler profiler) {
         this.prog = ir;
+        this.profiler = profiler;
     }
 
     public List<SemanticError> checkProgram() {
         /*
          * Implement checks
          */
-        errors.addAll(new DeclaredTwiceSemanticCheck(this.prog).doCheck()); // 1
-        errors.addAll(new UsedBeforeDeclaredSemanticCheck(this.prog).doCheck()); // 2
-        errors.addAll(new MissingMainSemanticCheck(this.prog).doCheck()); // 3
-        errors.addAll(new NonPositiveArrayLengthSemanticCheck(this.prog).doCheck()); // 4
+        check(new DeclaredTwiceSemanticCheck(this.prog)); // 1
+        check(new UsedBeforeDeclaredSemanticCheck(this.prog)); // 2
+        check(new MissingMainSemanticCheck(this.prog)); // 3
+        check(new NonPositiveArrayLengthSemanticCheck(this.prog)); // 4
 
-        errors.addAll(new IncompatableArgumentsSemanticCheck(this.prog).doCheck()); // 7
+        check(new IncompatableArgumentsSemanticCheck(this.prog)); // 7
         
-        errors.addAll(new BreakContinueSemanticCheck(this.prog).doCheck()); // 23
+        check(new BreakContinueSemanticCheck(this.prog)); // 23
 
         // The following check does (nearly) all type-related checks: 5,6, 8, 9,
         // and 11-22.
-        errors.addAll(new TypesSemanticCheck(prog).doCheck());
+        check(new TypesSemanticCheck(prog));
 
         return errors;
     }
+
+    private void check(SemanticCheck check) {
+        Profiler.Phase phase =
+                profiler.start("semantics." + check.getClass().getSimpleName());
+        try {
+            errors.addAll(check.doCheck());
+        } finally {
+            phase.close();
+        }
+    }
 }
@@ -1,5 +1,6 @@
 package edu.mit.compilers.tools;
 
+import java.util.Arrays;
 import java.util.Vector;
 
 /**
@@ -21,6 +22,8 @@ public class CLI {
 "  -o <outfile>            --output=<outfile>         write output to <outfile>\n" +
 "  -O <(opt|-opt|all)...>  --opt=<(opt|-opt|all)...>  perform the listed optimizations\n" +
 "  -d                      --debug                    print debugging information\n" +
+"  -j <jobs>               --jobs=<jobs>              compile up to <jobs> methods at once\n" +
+"                          --profile[=<file>]         report the cost of each phase\n" +
 "\n" +
 "Long description of options:\n" +
 "  -t <stage>          <stage> is one of \"scan\", \"parse\", \"inter\", \"ast\"," + 
@@ -35,7 +38,15 @@ public class CLI {
 "  --opt=<optspec>     separated list of optimization names, or the special symbol\n" +
 "                      \"all\", meaning all possible optimizations.  You may\n" +
 "                      explicitly disable an optimization by prefixing its name\n" +
-"                      with '-'.\n" +
+"                      with '-'.  Some optimizations, like \"linearscan\", are\n" +
+"                      only performed when they are named.\n" +
+"\n" +
+"  -j <jobs>           Compile up to <jobs> methods in parallel.  The output is\n" +
+"  --jobs=<jobs>       the same for every number of jobs.  Defaults to 1.\n" +
+"\n" +
+"  --profile           Record the wall time, CPU time and allocated bytes of each\n" +
+"  --profile=<file>    compilation phase, and write them as JSON to <file> (or to\n" +
+"                      standard error).\n" +
 "\n" +
 "  -o <outfile>        Write output to <outfile>.  If this option is not given,\n" +
 "  --output=<outfile>  output will be written to a file with the same base name as\n" +
@@ -94,6 +105,19 @@ public class CLI {
    */
   public static boolean debug;
 
+  /**
+   * The number of methods that may be compiled at once.  This is 1
+   * unless <tt>-j</tt> was passed on the command line.
+   */
+  public static int jobs;
+
+  /**
+   * Where to write the profile report.  This is null unless
+   * <tt>--profile</tt> was passed on the command line, and empty if the
+   * report should go to standard error.
+   */
+  public static String profile;
+
   /**
    * Sets up default values for all of the
    * result fields.  Specifically, sets the input and output files
@@ -101,9 +125,17 @@ public class CLI {
    * empty Vector.
    */
   static {
+    setDefaults();
+  }
+
+  private static void setDefaults() {
+    opts = null;
     outfile = null;
     infile = null;
     target = Action.DEFAULT;
+    debug = false;
+    jobs = 1;
+    profile = null;
     extras = new Vector<String>();
   }
 
@@ -126,6 +158,21 @@ public class CLI {
    *   function.
    * @param optnames Ordered array of recognized optimization names.  */
   public static void parse(String args[], String optnames[]) {
+    parse(args, optnames, new String[0]);
+  }
+
+  /**
+   * Parse the command-line arguments, like parse(args, optnames).  The
+   * optimizations named in optInNames[] are not turned on by "all", only
+   * by naming them.
+   *
+   * @param args Array of arguments passed in to the program's Main
+   *   function.
+   * @param optnames Ordered array of recognized optimization names.
+   * @param optInNames Names in optnames[] that "all" leaves alone.  */
+  public static void parse(String args[], String optnames[], String optInNames[]) {
+    // Forget any previous parse, so that one process can serve many compilations.
+    setDefaults();
     String ext = ".out";
     String targetStr = "";
 
@@ -144,6 +191,20 @@ public class CLI {
           printUsage("No output file specified with option " + args[i]);
           throw new IllegalArgumentException("Incomplete option " + args[i]);
         }
+      } else if (args[i].equals("--profile")) {
+        profile = "";
+      } else if (args[i].startsWith("--profile=")) {
+        profile = args[i].substring(10);
+      } else if (args[i].startsWith("--jobs=")) {
+        jobs = parseJobs(args[i].substring(7));
+      } else if (args[i].equals("-j")) {
+        if (i < (args.length - 1)) {
+          jobs = parseJobs(args[i + 1]);
+          i++;
+        } else {
+          printUsage("No job count specified with option " + args[i]);
+          throw new IllegalArgumentException("Incomplete option " + args[i]);
+        }
       } else if (args[i].startsWith("--target=")) {
         targetStr = args[i].substring(9);
       } else if (args[i].equals("-t")) {
@@ -170,7 +231,9 @@ public class CLI {
         for (int j = 0; j < optsList.length; j++) {
           if (optsList[j].equals("all")) {
             for (int k = 0; k < opts.length; k++) {
-              opts[k] = true;
+              if (!Arrays.asList(optInNames).contains(optnames[k])) {
+                opts[k] = true;
+              }
             }
           } else {
             for (int k = 0; k < optnames.length; k++) {
@@ -202,7 +265,8 @@ public class CLI {
       else if (targetStr.equals("dom")) target = Action.DOMINATE;
       else if (targetStr.equals("about")) {
 	  printUsage("Test run successful. Command line parameters: ");
-	  System.exit(0);
+	  target = Action.ABOUT;
+	  return;
       }
  
       else {
@@ -223,4 +287,17 @@ public class CLI {
     }
 
   }
+
+  private static int parseJobs(String jobsStr) {
+    try {
+      int parsed = Integer.parseInt(jobsStr);
+      if (parsed > 0) {
+        return parsed;
+      }
+    } catch (NumberFormatException e) {
+      // Fall through to the usage message.
+    }
+    printUsage("Invalid job count: " + jobsStr);
+    throw new IllegalArgumentException(jobsStr);
+  }
 }
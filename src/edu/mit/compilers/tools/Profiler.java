@@ -0,0 +1,230 @@
+package edu.mit.compilers.tools;
+
+import java.io.PrintStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import jdk.jfr.Category;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+import com.google.common.base.Optional;
+
+/**
+ * Records how much wall time, CPU time and memory each phase of a compilation uses.
+ *
+ * <p>Usage:
+ * <pre>
+ *     Profiler.Phase phase = profiler.start("peephole", methodName);
+ *     try {
+ *         ...
+ *     } finally {
+ *         phase.close();
+ *     }
+ * </pre>
+ *
+ * <p>Phases may be recorded from several threads at once, e.g. when methods are
+ * compiled in parallel.  CPU time and allocation are measured for the thread that
+ * started the phase.
+ *
+ * <p>Each phase also emits a JFR event, so phases show up in a flight recording
+ * whenever the JVM is recording one.
+ */
+public class Profiler {
+
+    /** A phase of compilation that is in progress.  Closing it records it. */
+    public interface Phase extends AutoCloseable {
+        @Override
+        public void close();
+    }
+
+    private static final Phase UNRECORDED_PHASE = new Phase() {
+        @Override
+        public void close() {}
+    };
+
+    private static final Profiler DISABLED = new Profiler(false);
+
+    private final boolean enabled;
+    // Keyed by phase name, then by method name ("" for whole-program phases).
+    private final Map<String, Map<String, Measurement>> measurements =
+            new LinkedHashMap<String, Map<String, Measurement>>();
+
+    private Profiler(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    /** Get a profiler that records nothing, and costs (nearly) nothing. */
+    public static Profiler disabled() {
+        return DISABLED;
+    }
+
+    /** Make a profiler that records every phase. */
+    public static Profiler enabled() {
+        return new Profiler(true);
+    }
+
+    /** Start a phase that applies to the whole program. */
+    public Phase start(String phaseName) {
+        return start(phaseName, Optional.<String>absent());
+    }
+
+    /** Start a phase that applies to a single method. */
+    public Phase start(String phaseName, String methodName) {
+        return start(phaseName, Optional.of(methodName));
+    }
+
+    private Phase start(String phaseName, Optional<String> methodName) {
+        return enabled
+                ? new RecordedPhase(phaseName, methodName.or(""))
+                : UNRECORDED_PHASE;
+    }
+
+    /** Write every recorded phase as a JSON object. */
+    public synchronized void writeJson(PrintStream outputStream, String inputName) {
+        List<String> perMethod = new ArrayList<String>();
+        List<String> totals = new ArrayList<String>();
+        for (Map.Entry<String, Map<String, Measurement>> phase : measurements.entrySet()) {
+            Measurement total = new Measurement();
+            for (Map.Entry<String, Measurement> method : phase.getValue().entrySet()) {
+                total.add(method.getValue());
+                if (!method.getKey().isEmpty()) {
+                    perMethod.add(method.getValue().asJson(phase.getKey(), method.getKey()));
+                }
+            }
+            totals.add(total.asJson(phase.getKey(), null));
+        }
+        outputStream.println("{");
+        outputStream.println("  \"input\": " + jsonString(inputName) + ",");
+        outputStream.println("  \"phases\": [");
+        printJsonList(outputStream, totals);
+        outputStream.println("  ],");
+        outputStream.println("  \"methods\": [");
+        printJsonList(outputStream, perMethod);
+        outputStream.println("  ]");
+        outputStream.println("}");
+    }
+
+    private static void printJsonList(PrintStream outputStream, List<String> elements) {
+        for (int i = 0; i < elements.size(); i++) {
+            outputStream.println("    " + elements.get(i) + (i < elements.size() - 1 ? "," : ""));
+        }
+    }
+
+    private synchronized void record(String phaseName, String methodName,
+            Measurement measurement) {
+        if (!measurements.containsKey(phaseName)) {
+            measurements.put(phaseName, new LinkedHashMap<String, Measurement>());
+        }
+        Map<String, Measurement> byMethod = measurements.get(phaseName);
+        if (!byMethod.containsKey(methodName)) {
+            byMethod.put(methodName, new Measurement());
+        }
+        byMethod.get(methodName).add(measurement);
+    }
+
+    private static String jsonString(String value) {
+        if (value == null) {
+            return "null";
+        }
+        StringBuilder builder = new StringBuilder("\"");
+        for (char c : value.toCharArray()) {
+            if (c == '"' || c == '\\') {
+                builder.append('\\').append(c);
+            } else if (c < ' ') {
+                builder.append(String.format("\\u%04x", (int) c));
+            } else {
+                builder.append(c);
+            }
+        }
+        return builder.append('"').toString();
+    }
+
+    /** The resources used by some number of runs of a phase. */
+    private static final class Measurement {
+        private long calls;
+        private long wallNanos;
+        private long cpuNanos;
+        private long allocatedBytes;
+
+        private void add(Measurement other) {
+            calls += other.calls;
+            wallNanos += other.wallNanos;
+            cpuNanos += other.cpuNanos;
+            allocatedBytes += other.allocatedBytes;
+        }
+
+        private String asJson(String phaseName, String methodName) {
+            return String.format("{\"phase\": %s, %s\"calls\": %d, \"wallNanos\": %d, "
+                    + "\"cpuNanos\": %d, \"allocatedBytes\": %d}",
+                    jsonString(phaseName),
+                    methodName == null ? "" : "\"method\": " + jsonString(methodName) + ", ",
+                    calls, wallNanos, cpuNanos, allocatedBytes);
+        }
+    }
+
+    private final class RecordedPhase implements Phase {
+        private final String phaseName;
+        private final String methodName;
+        private final PhaseEvent event;
+        private final long startWall;
+        private final long startCpu;
+        private final long startAllocated;
+
+        private RecordedPhase(String phaseName, String methodName) {
+            this.phaseName = phaseName;
+            this.methodName = methodName;
+            this.event = new PhaseEvent();
+            event.phase = phaseName;
+            event.method = methodName;
+            event.begin();
+            this.startAllocated = ThreadResources.allocatedBytes();
+            this.startCpu = ThreadResources.cpuNanos();
+            this.startWall = System.nanoTime();
+        }
+
+        @Override
+        public void close() {
+            Measurement measurement = new Measurement();
+            measurement.wallNanos = System.nanoTime() - startWall;
+            measurement.cpuNanos = ThreadResources.cpuNanos() - startCpu;
+            measurement.allocatedBytes = ThreadResources.allocatedBytes() - startAllocated;
+            measurement.calls = 1;
+            event.commit();
+            record(phaseName, methodName, measurement);
+        }
+    }
+
+    /** Per-thread resource counters.  Each reads as 0 if the JVM can't measure it. */
+    private static final class ThreadResources {
+        private static final ThreadMXBean THREADS = ManagementFactory.getThreadMXBean();
+
+        private static long cpuNanos() {
+            return THREADS.isCurrentThreadCpuTimeSupported()
+                    ? THREADS.getCurrentThreadCpuTime()
+                    : 0;
+        }
+
+        private static long allocatedBytes() {
+            return THREADS instanceof com.sun.management.ThreadMXBean
+                    ? ((com.sun.management.ThreadMXBean) THREADS).getCurrentThreadAllocatedBytes()
+                    : 0;
+        }
+    }
+
+    @Name("edu.mit.compilers.CompilePhase")
+    @Label("Compile Phase")
+    @Category("Decaf Compiler")
+    static final class PhaseEvent extends Event {
+        @Label("Phase")
+        String phase;
+
+        @Label("Method")
+        String method;
+    }
+}
@@ -1,7 +1,17 @@
 #!/bin/sh
 
 runcompiler() {
-    $(git rev-parse --show-toplevel)/run.sh --opt=all --target=assembly -o $2 $1
+    $(git rev-parse --show-toplevel)/run.sh --opt=$3 --target=assembly -o $2 $1
+}
+
+# Parallelized programs call lib6035's thread functions, which only the
+# optimizer suite's runtime has.
+linklibs() {
+  if [ "$1" = "all" ]; then
+    echo "-L `dirname $0`/lib -l6035"
+  else
+    echo "-L `dirname $0`/../optimizer/lib -l6035 -lpthread"
+  fi
 }
 
 fail=0
@@ -11,14 +21,15 @@ if ! gcc -v 2>&1 |grep -q '^Target: x86_64-linux-gnu'; then
   exit 0;
 fi
 
+for opts in all all,parallelize; do
 for file in `dirname $0`/input/*.dcf; do
   asm=`tempfile --suffix=.s`
   msg=""
-  if runcompiler $file $asm; then
+  if runcompiler $file $asm $opts; then
     binary=`tempfile`
-    if gcc -o $binary -L `dirname $0`/lib -l6035 $asm; then
+    if gcc -o $binary $asm `linklibs $opts`; then
       output=`tempfile`
-      echo "Running file $file"
+      echo "Running file $file (--opt=$opts)"
       if $binary > $output; then
         diffout=`tempfile`
         if ! diff -u $output `dirname $0`/output/`basename $file`.out > $diffout; then
@@ -45,5 +56,6 @@ for file in `dirname $0`/input/*.dcf; do
   fi
   rm -f $diffout $output $binary $asm;
 done
+done
 
 exit $fail;
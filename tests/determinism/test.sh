@@ -0,0 +1,30 @@
+#!/bin/sh
+
+# The assembly must not depend on how many methods are compiled at once.
+
+runcompiler() {
+  $(git rev-parse --show-toplevel)/run.sh --opt=$3 -j $4 --target=assembly -o $2 $1
+}
+
+fail=0
+
+root=`dirname $0`/..
+for opts in all all,parallelize; do
+for file in $root/optimizer/input/*.dcf $root/derby/input/*.dcf $root/dataflow/input/*.dcf; do
+  serial=`mktemp`
+  parallel=`mktemp`
+  echo "Compiling file $file (--opt=$opts)"
+  if runcompiler $file $serial $opts 1 && runcompiler $file $parallel $opts 4; then
+    if ! cmp -s $serial $parallel; then
+      fail=1
+      echo "File $file assembly differs between -j 1 and -j 4."
+    fi
+  else
+    fail=1
+    echo "File $file failed to generate assembly."
+  fi
+  rm -f $serial $parallel
+done
+done
+
+exit $fail;
@@ -4,6 +4,10 @@ runcompiler_opt() {
   $(git rev-parse --show-toplevel)/run.sh --opt=all --target=assembly -o $2 $1
 }
 
+runcompiler_par() {
+  $(git rev-parse --show-toplevel)/run.sh --opt=all,parallelize --target=assembly -o $2 $1
+}
+
 runcompiler_unopt() {
   $(git rev-parse --show-toplevel)/run.sh --target=assembly -o $2 $1
 }
@@ -29,6 +33,7 @@ for file in $PWD/input/*.dcf; do
   output="${workingdir}/${progname}.pgm"
   timing_opt="${workingdir}/${progname}_opt.timing"
   timing_unopt="${workingdir}/${progname}_unopt.timing"
+  timing_par="${workingdir}/${progname}_par.timing"
 
   cp $orig_input $input;
   msg=""
@@ -49,6 +54,23 @@ for file in $PWD/input/*.dcf; do
     msg="Program failed to generate assembly.";
   fi
   cd "$orig_pwd";
+  if runcompiler_par $file $asm; then
+    if gcc -o $binary -L${orig_pwd}/lib $asm -l6035 -lpthread; then
+      cd $workingdir
+      if $binary > $timing_par; then
+        if ! diff -q $output $golden > /dev/null; then
+          msg="File $file output mismatch (parallelized).";
+        fi
+      else
+        msg="Program failed to run (parallelized).";
+      fi
+    else
+      msg="Program failed to assemble (parallelized).";
+    fi
+  else
+    msg="Program failed to generate assembly (parallelized).";
+  fi
+  cd "$orig_pwd";
   if runcompiler_unopt $file $asm; then
     if gcc -o $binary -L${orig_pwd}/lib $asm -l6035 -lpthread; then
       cd $workingdir
@@ -80,6 +102,11 @@ for file in $PWD/input/*.dcf; do
       opt=`cat $timing_opt|awk '{print($2)}'`
       echo "${opt} usec"
     fi
+    if [ ! -z "`cat $timing_par`" ]; then
+      echo -n "Parallelized: "
+      par=`cat $timing_par|awk '{print($2)}'`
+      echo "${par} usec"
+    fi
   fi
   int_speedup=$(($unopt / $opt)) 
   dec_speedup=$((($unopt * 1000) / $opt - ($int_speedup * 1000))) 
@@ -0,0 +1,58 @@
+#!/bin/sh
+
+# A compile server must give the same output for the same input every time, and
+# report failures through its exit status.
+
+gitroot=$(git rev-parse --show-toplevel)
+
+runclient() {
+  java -cp $gitroot/dist/Compiler.jar edu.mit.compilers.CompileClient $socket "$@"
+}
+
+fail=0
+
+socket=`mktemp -u`
+java -jar $gitroot/dist/Compiler.jar --server=$socket &
+server=$!
+trap "kill $server 2>/dev/null" EXIT
+for i in 1 2 3 4 5 6 7 8 9 10; do
+  [ -S $socket ] && break
+  sleep 1
+done
+
+root=`dirname $0`/..
+for file in $root/optimizer/input/*.dcf $root/derby/input/*.dcf; do
+  first=`mktemp`
+  second=`mktemp`
+  echo "Compiling file $file twice"
+  if runclient --opt=all --target=assembly -o $first $file &&
+      runclient --opt=all --target=assembly -o $second $file; then
+    if ! cmp -s $first $second; then
+      fail=1
+      echo "File $file assembly differs between compilations."
+    fi
+  else
+    fail=1
+    echo "File $file failed to generate assembly."
+  fi
+  rm -f $first $second
+done
+
+# Each compilation must exit just as it would without a server.
+for file in $root/semantics/illegal/*/* $root/server/missing.dcf; do
+  runclient --target=inter $file >/dev/null 2>&1
+  served=$?
+  java -jar $gitroot/dist/Compiler.jar --target=inter $file >/dev/null 2>&1
+  direct=$?
+  if [ $served -ne $direct ]; then
+    fail=1
+    echo "File $file exited with $served through the server, but $direct without it."
+  fi
+done
+
+if runclient --target=inter $root/server/missing.dcf >/dev/null 2>&1; then
+  fail=1
+  echo "A missing file compiled without error."
+fi
+
+exit $fail;